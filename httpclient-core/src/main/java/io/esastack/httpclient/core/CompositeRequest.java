@@ -32,17 +32,20 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 public class CompositeRequest extends HttpRequestBaseImpl implements PlainRequest, FileRequest,
-        MultipartRequest, HttpRequestFacade {
+        StreamRequest, MultipartRequest, HttpRequestFacade {
 
     private static final byte STATE_INIT = -1;
     private static final byte STATE_PLAIN_PREPARING = 0;
     private static final byte STATE_MULTIPART_PREPARING = 1;
     private static final byte STATE_SEGMENT_PREPARING = 2;
     private static final byte STATE_FILE_PREPARING = 3;
-    private static final byte STATE_PLAIN_EXECUTED = 4;
-    private static final byte STATE_MULTIPART_EXECUTED = 5;
-    private static final byte STATE_SEGMENT_EXECUTED = 6;
-    private static final byte STATE_FILE_EXECUTED = 7;
+    private static final byte STATE_STREAM_PREPARING = 4;
+    private static final byte STATE_PLAIN_EXECUTED = 5;
+    private static final byte STATE_MULTIPART_EXECUTED = 6;
+    private static final byte STATE_SEGMENT_EXECUTED = 7;
+    private static final byte STATE_FILE_EXECUTED = 8;
+    private static final byte STATE_STREAM_EXECUTED = 9;
+    private static final byte STATE_EXECUTED_OFFSET = STATE_PLAIN_EXECUTED - STATE_PLAIN_PREPARING;
 
     private final Object monitor = new Object();
     private final NettyHttpClient client;
@@ -55,6 +58,7 @@ public class CompositeRequest extends HttpRequestBaseImpl implements PlainReques
 
     private Buffer buffer;
     private File file;
+    private StreamBody streamBody;
 
     /**
      * A bitmask where the bits are defined as
@@ -64,10 +68,12 @@ public class CompositeRequest extends HttpRequestBaseImpl implements PlainReques
      *     <li>{@link #STATE_MULTIPART_PREPARING}</li>
      *     <li>{@link #STATE_SEGMENT_PREPARING}</li>
      *     <li>{@link #STATE_FILE_PREPARING}</li>
+     *     <li>{@link #STATE_STREAM_PREPARING}</li>
      *     <li>{@link #STATE_PLAIN_EXECUTED}</li>
      *     <li>{@link #STATE_MULTIPART_EXECUTED}</li>
      *     <li>{@link #STATE_SEGMENT_EXECUTED}</li>
      *     <li>{@link #STATE_FILE_EXECUTED}</li>
+     *     <li>{@link #STATE_STREAM_EXECUTED}</li>
      * </ul>
      */
     private volatile byte status = STATE_INIT;
@@ -86,7 +92,7 @@ public class CompositeRequest extends HttpRequestBaseImpl implements PlainReques
 
     @Override
     public CompletableFuture<HttpResponse> execute() {
-        final byte newStatus = status >= 0 ? (byte) (status + (byte) 4) : STATE_PLAIN_EXECUTED;
+        final byte newStatus = status >= 0 ? (byte) (status + STATE_EXECUTED_OFFSET) : STATE_PLAIN_EXECUTED;
         checkNotStartedAndUpdateStatus(newStatus);
         return client.execute(this, ctx, handle, handler);
     }
@@ -128,6 +134,14 @@ public class CompositeRequest extends HttpRequestBaseImpl implements PlainReques
         return self();
     }
 
+    @Override
+    public StreamRequest body(StreamBody body) {
+        Checks.checkNotNull(body, "body");
+        checkNotStartedAndUpdateStatus(STATE_STREAM_PREPARING);
+        this.streamBody = body;
+        return self();
+    }
+
     @Override
     public Buffer buffer() {
         return buffer;
@@ -138,6 +152,11 @@ public class CompositeRequest extends HttpRequestBaseImpl implements PlainReques
         return file;
     }
 
+    @Override
+    public StreamBody stream() {
+        return streamBody;
+    }
+
     @Override
     public MultipartRequest multipartEncode(boolean useMultipartEncode) {
         checkStarted();
@@ -380,6 +399,11 @@ public class CompositeRequest extends HttpRequestBaseImpl implements PlainReques
         return this.status == STATE_FILE_PREPARING || this.status == STATE_FILE_EXECUTED;
     }
 
+    @Override
+    public boolean isStream() {
+        return this.status == STATE_STREAM_PREPARING || this.status == STATE_STREAM_EXECUTED;
+    }
+
     @Override
     public CompositeRequest copy() {
         final CompositeRequest copied = new CompositeRequest(builder, client,
@@ -395,8 +419,12 @@ public class CompositeRequest extends HttpRequestBaseImpl implements PlainReques
         if (file != null) {
             copied.body(file);
         }
+        if (streamBody != null) {
+            // The source can't be copied, and it can be read only once.
+            copied.body(streamBody);
+        }
 
-        copied.status = status >= STATE_PLAIN_EXECUTED ? (byte) (status - (byte) 4) : status;
+        copied.status = status >= STATE_PLAIN_EXECUTED ? (byte) (status - STATE_EXECUTED_OFFSET) : status;
 
         return copied;
     }
@@ -438,6 +466,8 @@ public class CompositeRequest extends HttpRequestBaseImpl implements PlainReques
                 return "SEGMENT";
             case STATE_FILE_PREPARING:
                 return "FILE";
+            case STATE_STREAM_PREPARING:
+                return "STREAM";
             default:
                 return "PLAIN";
         }
@@ -23,6 +23,13 @@ public final class ContextKeys {
     public static final AttributeKey<FilterContext>
             FILTER_CONTEXT_KEY = AttributeKey.valueOf("$filterContext");
 
+    /**
+     * Whether the inbound message is handled by a custom {@link Handler} or {@link Handle} rather than being
+     * aggregated, in which case the request can't be sent concurrently.
+     */
+    public static final AttributeKey<Boolean>
+            CUSTOM_HANDLE_KEY = AttributeKey.valueOf("$customHandle");
+
     private ContextKeys() {
     }
 }
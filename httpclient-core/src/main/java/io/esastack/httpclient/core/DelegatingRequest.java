@@ -140,6 +140,11 @@ public class DelegatingRequest implements HttpRequest {
         return underlying.file();
     }
 
+    @Override
+    public StreamBody stream() {
+        return underlying.stream();
+    }
+
     @Override
     public MultiValueMap<String, String> attrs() {
         return underlying.attrs();
@@ -155,6 +160,11 @@ public class DelegatingRequest implements HttpRequest {
         return underlying.isFile();
     }
 
+    @Override
+    public boolean isStream() {
+        return underlying.isStream();
+    }
+
     @Override
     public HttpRequest copy() {
         return underlying.copy();
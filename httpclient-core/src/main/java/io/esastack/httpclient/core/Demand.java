@@ -0,0 +1,34 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core;
+
+/**
+ * The demand of the inbound content of a response, which is used to apply back-pressure: once {@link #request(long)}
+ * has been invoked, the content is delivered only when it has been requested, and the client stops reading from
+ * the peer until more content is requested, eg: by disabling the auto-read of the HTTP/1.1 connection or by
+ * deferring the {@code WINDOW_UPDATE} of the HTTP/2 stream.
+ */
+public interface Demand {
+
+    /**
+     * Requests {@code n} more chunks of content, which is cumulative and {@link Long#MAX_VALUE} means unbounded.
+     * The method can be invoked in any thread.
+     *
+     * @param n the number of chunks, which must be positive
+     */
+    void request(long n);
+
+}
@@ -15,6 +15,10 @@
  */
 package io.esastack.httpclient.core;
 
+import esa.commons.Checks;
+import io.netty.channel.Channel;
+
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -41,5 +45,44 @@ interface ExecutableRequest extends HttpRequestBase {
      */
     CompletableFuture<HttpResponse> execute();
 
+    /**
+     * Sends current {@link HttpRequest} and relays the content of the response to the given {@link Channel}.
+     *
+     * @param target target
+     * @return response, which completes once all the content has been relayed
+     * @see RelayHandler#of(Channel)
+     */
+    default CompletableFuture<HttpResponse> relay(Channel target) {
+        return relay(RelayHandler.of(target));
+    }
+
+    /**
+     * Sends current {@link HttpRequest} and relays the content of the response to the given
+     * {@link WritableByteChannel}.
+     *
+     * @param target target
+     * @return response, which completes once all the content has been relayed
+     * @see RelayHandler#of(WritableByteChannel)
+     */
+    default CompletableFuture<HttpResponse> relay(WritableByteChannel target) {
+        return relay(RelayHandler.of(target));
+    }
+
+    /**
+     * Sends current {@link HttpRequest} and relays the content of the response by the given {@link RelayHandler}.
+     * The {@link HttpResponse#body()} is always empty. The redirection and retrying are disabled, because the
+     * content of every attempt would be relayed to the target, so the response of {@code 3xx} is relayed as it is.
+     *
+     * @param handler handler
+     * @return response, which completes once all the content has been relayed
+     */
+    default CompletableFuture<HttpResponse> relay(RelayHandler handler) {
+        Checks.checkNotNull(handler, "handler");
+        maxRedirects(0);
+        maxRetries(0);
+        handler(handler);
+        return execute().thenCompose(rsp -> handler.relayed().thenApply(v -> rsp));
+    }
+
 }
 
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core;
+
+import esa.commons.Checks;
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.httpclient.core.util.BlockingExecutors;
+import io.esastack.httpclient.core.util.BufferUtils;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This {@link Handler} writes the content of the response to a file while receiving, so the content is neither
+ * aggregated in memory nor limited by the {@code maxContentLength} of the client.
+ * <p>
+ * Every chunk is written to its own position of the file by {@link FileChannel#write(ByteBuffer, long)} in the
+ * given executor rather than the IO-Thread, which is {@link BlockingExecutors#shared()} by default. At most
+ * {@value #MAX_WRITING_CHUNKS} chunks are being written at the same time, no more content is read from the
+ * peer until one of them has been written, see {@link Demand}. Only the content of the successful(2xx) response
+ * is written, and the content of others, eg: the redirected ones, is discarded. The file is overwritten if
+ * exists, and the content which has been written is kept if the request fails.
+ * <p>
+ * Be note that the response completes once the whole content has been received, use {@link #written()} to wait
+ * for the content to be written.
+ */
+public final class FileHandler extends Handler {
+
+    private static final int MAX_WRITING_CHUNKS = 4;
+
+    private final Path path;
+    private final boolean force;
+    private final Executor executor;
+    private final CompletableFuture<Long> written = new CompletableFuture<>();
+
+    /**
+     * The attempt which is receiving the response, which is only accessed in the IO-Thread.
+     */
+    private Attempt attempt;
+
+    private FileHandler(FileHandlerBuilder builder) {
+        this.path = builder.path;
+        this.force = builder.force;
+        this.executor = builder.executor;
+    }
+
+    public static FileHandler of(Path path) {
+        return builder(path).build();
+    }
+
+    public static FileHandlerBuilder builder(Path path) {
+        return new FileHandlerBuilder(path);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Obtains the result of writing, which completes with the number of bytes written once the content of the
+     * successful response has been written to the file, or completes exceptionally if failed to write, the request
+     * failed or the final response isn't successful(2xx).
+     *
+     * @return result
+     */
+    public CompletionStage<Long> written() {
+        return written;
+    }
+
+    @Override
+    public void onSubscribe(Demand demand) {
+        // Every retried or redirected request has its own subscription.
+        attempt = new Attempt(demand);
+        demand.request(MAX_WRITING_CHUNKS);
+    }
+
+    @Override
+    public void onStart() {
+        final int status = response().status();
+        if (status < 200 || status >= 300 || written.isDone()) {
+            attempt.discard();
+            return;
+        }
+
+        attempt.open();
+    }
+
+    @Override
+    public void onData(Buffer content) {
+        attempt.write(content);
+    }
+
+    @Override
+    public void onEnd() {
+        attempt.end();
+    }
+
+    @Override
+    public void onError(Throwable cause) {
+        // The failure of the response is informed by the response itself, and maybe it's retried.
+        attempt.abort();
+    }
+
+    @Override
+    public void onCompleted(HttpResponse response, Throwable cause) {
+        // The content of the final successful response is being written, which completes the result by itself.
+        if (cause != null) {
+            written.completeExceptionally(unwrap(cause));
+        } else if (response.status() < 200 || response.status() >= 300) {
+            written.completeExceptionally(new IllegalStateException("Nothing has been written to " + path
+                    + ", because the status of the final response is " + response.status()));
+        }
+    }
+
+    @Override
+    public boolean isContentLengthLimited() {
+        return false;
+    }
+
+    private final class Attempt {
+
+        private final Demand demand;
+
+        /**
+         * The chunks being written and the ending of the response.
+         */
+        private final AtomicInteger remaining = new AtomicInteger(1);
+
+        private CompletableFuture<FileChannel> file;
+        private long position;
+        private volatile boolean failed;
+        private volatile boolean aborted;
+
+        private Attempt(Demand demand) {
+            this.demand = demand;
+        }
+
+        private void discard() {
+            demand.request(Long.MAX_VALUE);
+        }
+
+        private void open() {
+            file = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return FileChannel.open(path, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                } catch (IOException ex) {
+                    throw new FileWriteException(ex);
+                }
+            }, executor);
+        }
+
+        private void write(Buffer content) {
+            if (file == null || failed) {
+                demand.request(1L);
+                return;
+            }
+
+            // The content is only available while reading, so retain it until it has been written.
+            final ByteBuf buf = BufferUtils.toByteBuf(content).retainedDuplicate();
+            final long position0 = position;
+            position += buf.readableBytes();
+            remaining.incrementAndGet();
+            file.whenCompleteAsync((ch, th) -> {
+                try {
+                    if (th == null && !failed) {
+                        long pos = position0;
+                        for (ByteBuffer src : buf.nioBuffers()) {
+                            while (src.hasRemaining()) {
+                                pos += ch.write(src, pos);
+                            }
+                        }
+                    }
+                } catch (Throwable ex) {
+                    fail(ex);
+                } finally {
+                    buf.release();
+                    demand.request(1L);
+                    if (remaining.decrementAndGet() == 0) {
+                        finish();
+                    }
+                }
+            }, executor);
+        }
+
+        private void end() {
+            if (file != null && remaining.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            file.whenCompleteAsync((ch, th) -> {
+                if (th != null) {
+                    fail(th);
+                    return;
+                }
+                try {
+                    if (!failed && force) {
+                        ch.force(true);
+                    }
+                    ch.close();
+                    written.complete(position);
+                } catch (Throwable ex) {
+                    fail(ex);
+                }
+            }, executor);
+        }
+
+        private void fail(Throwable cause) {
+            failed = true;
+            close();
+            if (!aborted) {
+                written.completeExceptionally(unwrap(cause));
+            }
+        }
+
+        private void abort() {
+            aborted = true;
+            failed = true;
+            close();
+        }
+
+        private void close() {
+            if (file == null) {
+                return;
+            }
+            file.whenComplete((ch, th) -> {
+                if (ch != null) {
+                    try {
+                        ch.close();
+                    } catch (IOException ignored) {
+                        // Ignore
+                    }
+                }
+            });
+        }
+    }
+
+    private static Throwable unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof FileWriteException ? cause.getCause() : cause;
+    }
+
+    private static final class FileWriteException extends RuntimeException {
+
+        private static final long serialVersionUID = -3596440734545532462L;
+
+        private FileWriteException(IOException cause) {
+            super(cause);
+        }
+    }
+
+    public static final class FileHandlerBuilder {
+
+        private final Path path;
+        private boolean force;
+        private Executor executor = BlockingExecutors.shared();
+
+        private FileHandlerBuilder(Path path) {
+            Checks.checkNotNull(path, "path");
+            this.path = path;
+        }
+
+        /**
+         * Whether to force the content to be written to the storage device before {@link #written()} completes.
+         *
+         * @param force force
+         * @return this builder
+         */
+        public FileHandlerBuilder force(boolean force) {
+            this.force = force;
+            return this;
+        }
+
+        /**
+         * Sets the executor which opens and writes the file, which is {@link BlockingExecutors#shared()} by default.
+         *
+         * @param executor executor
+         * @return this builder
+         */
+        public FileHandlerBuilder executor(Executor executor) {
+            Checks.checkNotNull(executor, "executor");
+            this.executor = executor;
+            return this;
+        }
+
+        public FileHandler build() {
+            return new FileHandler(this);
+        }
+    }
+}
@@ -81,4 +81,22 @@ public interface Handle extends HttpResponse {
      */
     Handle onError(Consumer<Throwable> h);
 
+    /**
+     * Requests {@code n} more chunks of content to be delivered to the consumer of {@link #onData(Consumer)}, the
+     * content is delivered as soon as it arrives until this method is invoked, see {@link Demand} for more
+     * details. It's usually invoked while setting the consumers, eg: {@code handle.onData(...).request(1)}, and
+     * then once the delivered content has been consumed.
+     * <p>
+     * Be note that the read timeout is still applied while the client stops reading from the peer.
+     * <p>
+     * The default implementation does nothing, which means that the content is always delivered as soon as it
+     * arrives, the {@link Handle}s created by the client have overridden it.
+     *
+     * @param n     the number of chunks, which must be positive
+     * @return      handle
+     */
+    default Handle request(long n) {
+        return this;
+    }
+
 }
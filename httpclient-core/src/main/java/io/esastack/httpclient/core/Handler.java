@@ -29,6 +29,17 @@ public abstract class Handler {
 
     private final NettyResponse underlying = new NettyResponse(false);
 
+    /**
+     * Be informed before receiving anything, the given {@link Demand} can be kept to apply back-pressure, eg:
+     * request one chunk here and then request the next one in {@link #onData(Buffer)} once the content has been
+     * consumed.
+     *
+     * @param demand demand of the content
+     */
+    public void onSubscribe(Demand demand) {
+
+    }
+
     /**
      * Be informed when receiving {@link HttpResponse#headers()}.
      */
@@ -64,6 +75,27 @@ public abstract class Handler {
         underlying.trailers().add(trailers);
     }
 
+    /**
+     * Be informed once the request has completed, which is after all the redirections and retries, so that the
+     * handler which may be informed by the responses of more than one attempt can tell which one is the final.
+     *
+     * @param response the final response, which is {@code null} if the request failed
+     * @param cause    the failure, which is {@code null} if the request succeeded
+     */
+    public void onCompleted(HttpResponse response, Throwable cause) {
+
+    }
+
+    /**
+     * Whether the size of the content is limited by the {@code maxContentLength} of the client, which can be
+     * {@code false} if the content isn't kept in memory, eg: {@link FileHandler}.
+     *
+     * @return {@code true} by default
+     */
+    public boolean isContentLengthLimited() {
+        return true;
+    }
+
     public final NettyResponse response() {
         return underlying;
     }
@@ -19,14 +19,18 @@ import esa.commons.Checks;
 import io.esastack.commons.net.http.HttpVersion;
 import io.esastack.httpclient.core.config.CacheOptions;
 import io.esastack.httpclient.core.config.ChannelPoolOptions;
+import io.esastack.httpclient.core.config.ConcurrencyLimitOptions;
 import io.esastack.httpclient.core.config.Decompression;
+import io.esastack.httpclient.core.config.HedgeOptions;
 import io.esastack.httpclient.core.config.Http1Options;
 import io.esastack.httpclient.core.config.Http2Options;
 import io.esastack.httpclient.core.config.NetOptions;
 import io.esastack.httpclient.core.config.RetryOptions;
 import io.esastack.httpclient.core.config.SslOptions;
+import io.esastack.httpclient.core.exec.ConcurrencyLimitInterceptor;
 import io.esastack.httpclient.core.exec.ExpectContinueInterceptor;
 import io.esastack.httpclient.core.exec.FilteringExec;
+import io.esastack.httpclient.core.exec.HedgingInterceptor;
 import io.esastack.httpclient.core.exec.Interceptor;
 import io.esastack.httpclient.core.exec.RedirectInterceptor;
 import io.esastack.httpclient.core.exec.RetryInterceptor;
@@ -35,6 +39,7 @@ import io.esastack.httpclient.core.filter.RequestFilter;
 import io.esastack.httpclient.core.filter.ResponseFilter;
 import io.esastack.httpclient.core.netty.CachedChannelPools;
 import io.esastack.httpclient.core.netty.NettyHttpClient;
+import io.esastack.httpclient.core.resolver.AddressSelector;
 import io.esastack.httpclient.core.resolver.HostResolver;
 import io.esastack.httpclient.core.resolver.SystemDefaultResolver;
 import io.esastack.httpclient.core.spi.ChannelPoolOptionsProvider;
@@ -63,7 +68,8 @@ import java.util.List;
  * <p>
  * 3. All {@link InetAddress}s resolved from the same host name will share a common connection pool whose size is
  * configured by {@link #connectionPoolSize} and waiting queue length is configured by
- * {@link #connectionPoolWaitingQueueLength}.
+ * {@link #connectionPoolWaitingQueueLength}, unless the {@link #addressSelector} is configured, in which case
+ * every {@link InetAddress} owns a connection pool of the same size.
  */
 public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
 
@@ -74,8 +80,21 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
     private boolean useDecompress = false;
     private Decompression decompression = Decompression.GZIP_DEFLATE;
 
+    /**
+     * Whether to hand the aggregated body to {@link HttpResponse} as a pooled and reference-counted buffer
+     * without copying, default {@code false}.
+     */
+    private boolean usePooledBody = false;
+
     private HostResolver resolver = DEFAULT_RESOLVER;
 
+    /**
+     * If present, every {@link InetAddress} resolved by {@link HostResolver#resolveAddresses(String)}
+     * owns an exclusive connection pool, and the requests of the same host are distributed across these pools by
+     * this selector. Default {@code null}, which means all the addresses share a common connection pool.
+     */
+    private AddressSelector addressSelector;
+
     private HttpVersion version = HttpVersion.HTTP_1_1;
 
     /**
@@ -119,6 +138,16 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
     private Http2Options http2Options;
 
     private RetryOptions retryOptions = RetryOptions.ofDefault();
+
+    /**
+     * Hedged requests are disabled by default.
+     */
+    private HedgeOptions hedgeOptions;
+
+    /**
+     * Concurrency limit is disabled by default.
+     */
+    private ConcurrencyLimitOptions concurrencyLimitOptions;
     private boolean useExpectContinue = false;
 
     /**
@@ -137,6 +166,11 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return self();
     }
 
+    public HttpClientBuilder addressSelector(AddressSelector addressSelector) {
+        this.addressSelector = addressSelector;
+        return self();
+    }
+
     public HttpClientBuilder h2ClearTextUpgrade(boolean h2ClearTextUpgrade) {
         this.h2ClearTextUpgrade = h2ClearTextUpgrade;
         return self();
@@ -194,6 +228,29 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return self();
     }
 
+    /**
+     * Sets whether to hand the aggregated body to {@link HttpResponse#body()} as a pooled and reference-counted
+     * buffer, which avoids copying the received content to a heap buffer. Be aware that, when it's enabled the
+     * caller owns the {@link HttpResponse#body()} and must release it after consuming, eg:
+     * <pre>
+     *     final HttpResponse response = client.get(url).execute().get();
+     *     try {
+     *         // consume the response.body()
+     *     } finally {
+     *         BufferUtils.toByteBuf(response.body()).release();
+     *     }
+     * </pre>
+     * It only takes effect when the inbound message is aggregated, that's to say, neither a custom
+     * {@link Handle} nor a {@link Handler} is specified.
+     *
+     * @param usePooledBody usePooledBody
+     * @return this builder
+     */
+    public HttpClientBuilder usePooledBody(boolean usePooledBody) {
+        this.usePooledBody = usePooledBody;
+        return self();
+    }
+
     public HttpClientBuilder decompression(Decompression decompression) {
         Checks.checkNotNull(decompression, "decompression");
         this.decompression = decompression;
@@ -298,6 +355,18 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return self();
     }
 
+    public HttpClientBuilder hedgeOptions(HedgeOptions hedgeOptions) {
+        this.hedgeOptions = hedgeOptions;
+        this.unmodifiableInterceptors = buildUnmodifiableInterceptors();
+        return self();
+    }
+
+    public HttpClientBuilder concurrencyLimitOptions(ConcurrencyLimitOptions concurrencyLimitOptions) {
+        this.concurrencyLimitOptions = concurrencyLimitOptions;
+        this.unmodifiableInterceptors = buildUnmodifiableInterceptors();
+        return self();
+    }
+
     public HttpClientBuilder maxRedirects(int maxRedirects) {
         this.maxRedirects = maxRedirects;
         return self();
@@ -307,6 +376,10 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return resolver == null ? DEFAULT_RESOLVER : resolver;
     }
 
+    public AddressSelector addressSelector() {
+        return addressSelector;
+    }
+
     public boolean isH2ClearTextUpgrade() {
         return h2ClearTextUpgrade;
     }
@@ -334,7 +407,9 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return new HttpClientBuilder()
                 .useDecompress(useDecompress)
                 .decompression(decompression)
+                .usePooledBody(usePooledBody)
                 .resolver(resolver)
+                .addressSelector(addressSelector)
                 .h2ClearTextUpgrade(h2ClearTextUpgrade)
                 .useExpectContinue(useExpectContinue)
                 .connectTimeout(connectTimeout)
@@ -351,6 +426,8 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
                 .http1Options(Reusable.copyOf(http1Options))
                 .http2Options(Reusable.copyOf(http2Options))
                 .retryOptions(Reusable.copyOf(retryOptions))
+                .hedgeOptions(Reusable.copyOf(hedgeOptions))
+                .concurrencyLimitOptions(Reusable.copyOf(concurrencyLimitOptions))
                 .channelPoolOptionsProvider(channelPoolOptionsProvider)
                 .addInterceptors(interceptors)
                 .addRequestFilters(requestFilters)
@@ -395,6 +472,10 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return this.useDecompress;
     }
 
+    public boolean isUsePooledBody() {
+        return this.usePooledBody;
+    }
+
     public Decompression decompression() {
         return this.decompression;
     }
@@ -435,6 +516,14 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return retryOptions;
     }
 
+    public HedgeOptions hedgeOptions() {
+        return hedgeOptions;
+    }
+
+    public ConcurrencyLimitOptions concurrencyLimitOptions() {
+        return concurrencyLimitOptions;
+    }
+
     public int maxRedirects() {
         return maxRedirects;
     }
@@ -466,7 +555,17 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
 
         // Add RetryInterceptor only when configured and absent
         if (retryOptions != null && absent(interceptors0, RetryInterceptor.class)) {
-            interceptors0.add(new RetryInterceptor(retryOptions.predicate(), retryOptions.intervalMillis()));
+            interceptors0.add(new RetryInterceptor(retryOptions));
+        }
+
+        // Add HedgingInterceptor only when configured and absent
+        if (hedgeOptions != null && absent(interceptors0, HedgingInterceptor.class)) {
+            interceptors0.add(new HedgingInterceptor(hedgeOptions));
+        }
+
+        // Add ConcurrencyLimitInterceptor only when configured and absent
+        if (concurrencyLimitOptions != null && absent(interceptors0, ConcurrencyLimitInterceptor.class)) {
+            interceptors0.add(new ConcurrencyLimitInterceptor(concurrencyLimitOptions));
         }
 
         // Add RedirectInterceptor only when configured and absent
@@ -80,6 +80,15 @@ public interface HttpRequest extends Request, Multipart, Reusable<HttpRequest> {
         return false;
     }
 
+    /**
+     * Whether the content read from a {@link StreamBody} is regarded as body or not.
+     *
+     * @return {@code true} if current request's body is the content of {@link #stream()}, otherwise {@code false}.
+     */
+    default boolean isStream() {
+        return false;
+    }
+
     /**
      * Obtains given {@code byte[]} which is regarded as request's body.
      *
@@ -98,6 +107,15 @@ public interface HttpRequest extends Request, Multipart, Reusable<HttpRequest> {
         return null;
     }
 
+    /**
+     * Obtains given {@link StreamBody} which is regarded as request's body.
+     *
+     * @return stream body, which may be null if you haven't set the {@link StreamBody} before.
+     */
+    default StreamBody stream() {
+        return null;
+    }
+
     /**
      * Obtains the attrs which are used to multipart encoded.
      *
@@ -22,6 +22,8 @@ import io.esastack.commons.net.netty.buffer.BufferImpl;
 import io.netty.buffer.Unpooled;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -60,6 +62,46 @@ public interface HttpRequestFacade extends ExecutableRequest {
      */
     FileRequest body(File file);
 
+    /**
+     * Fills the request's body with the content read from given {@code body} lazily.
+     * If you haven't set the header of {@link HttpHeaderNames#CONTENT_TYPE},
+     * the default {@link HttpHeaderValues#APPLICATION_OCTET_STREAM} will be
+     * set automatically.
+     * <p>
+     * Throws {@link UnsupportedOperationException} by default, so that the existing implementations which
+     * don't support streaming the body don't need to implement it.
+     *
+     * @param body body
+     * @return request
+     * @throws UnsupportedOperationException if streaming the body is unsupported by this request
+     * @see StreamBody
+     */
+    default StreamRequest body(StreamBody body) {
+        throw new UnsupportedOperationException("Streaming the body is unsupported by " + getClass().getName());
+    }
+
+    /**
+     * Fills the request's body with the content read from given {@code stream} lazily.
+     *
+     * @param stream stream
+     * @return request
+     * @see StreamBody#of(InputStream)
+     */
+    default StreamRequest body(InputStream stream) {
+        return body(StreamBody.of(stream));
+    }
+
+    /**
+     * Fills the request's body with the content read from given {@code channel} lazily.
+     *
+     * @param channel channel
+     * @return request
+     * @see StreamBody#of(ReadableByteChannel)
+     */
+    default StreamRequest body(ReadableByteChannel channel) {
+        return body(StreamBody.of(channel));
+    }
+
     /**
      * Converts to a {@link MultipartRequest} which can be used to handle the body
      * by multipart encoding.
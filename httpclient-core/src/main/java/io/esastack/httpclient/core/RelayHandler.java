@@ -0,0 +1,325 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core;
+
+import esa.commons.Checks;
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.httpclient.core.util.BlockingExecutors;
+import io.esastack.httpclient.core.util.BufferUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * This {@link Handler} relays the content of the response to another {@link Channel} or
+ * {@link WritableByteChannel} while receiving, eg: the downstream connection of a gateway. The inbound
+ * {@link ByteBuf}s are retained and handed over to the target directly, so the content is neither copied nor
+ * aggregated, and it's not limited by the {@code maxContentLength} of the client.
+ * <p>
+ * The reading of the response is coupled with the target, see {@link Demand}: the next chunk is requested only if
+ * the {@link Channel} is writable (a handler is added to the head of its pipeline to watch the writability while
+ * it's unwritable), or once one of the at most {@value #MAX_WRITING_CHUNKS} chunks being written to
+ * the {@link WritableByteChannel} in the given executor has been written.
+ * <p>
+ * Be note that only the content of one response can be relayed, so the redirection and retrying should be
+ * disabled, which has been done by {@code relay(...)} of the request. Otherwise, the content of the subsequent
+ * attempts is discarded, and the {@link #relayed()} fails if it's still in progress when the second attempt
+ * starts. And the target is not closed or ended by this handler, eg: the
+ * {@code LastHttpContent} should be written to the target by the caller once {@link #relayed()} has completed.
+ */
+public final class RelayHandler extends Handler {
+
+    private static final int MAX_WRITING_CHUNKS = 4;
+
+    private final Target target;
+    private final CompletableFuture<Void> relayed = new CompletableFuture<>();
+
+    private volatile Demand demand;
+
+    private RelayHandler(Function<RelayHandler, Target> target) {
+        this.target = target.apply(this);
+    }
+
+    /**
+     * Relays the content to the given {@link Channel} as {@link ByteBuf}s.
+     *
+     * @param target target
+     * @return handler
+     */
+    public static RelayHandler of(Channel target) {
+        return of(target, Function.identity());
+    }
+
+    /**
+     * Relays the content to the given {@link Channel} as the messages converted by {@code converter}, eg:
+     * {@code DefaultHttpContent::new}.
+     *
+     * @param target    target
+     * @param converter converter of the content
+     * @return handler
+     */
+    public static RelayHandler of(Channel target, Function<ByteBuf, Object> converter) {
+        Checks.checkNotNull(target, "target");
+        Checks.checkNotNull(converter, "converter");
+        return new RelayHandler(h -> h.new ChannelTarget(target, converter));
+    }
+
+    /**
+     * Relays the content to the given {@link WritableByteChannel} in {@link BlockingExecutors#shared()}.
+     *
+     * @param target target
+     * @return handler
+     */
+    public static RelayHandler of(WritableByteChannel target) {
+        return of(target, BlockingExecutors.shared());
+    }
+
+    /**
+     * Relays the content to the given {@link WritableByteChannel} in the given {@code executor}.
+     *
+     * @param target   target
+     * @param executor executor which writes the target
+     * @return handler
+     */
+    public static RelayHandler of(WritableByteChannel target, Executor executor) {
+        Checks.checkNotNull(target, "target");
+        Checks.checkNotNull(executor, "executor");
+        return new RelayHandler(h -> h.new ByteChannelTarget(target, executor));
+    }
+
+    /**
+     * Obtains the result of relaying, which completes once all the content has been written to the target, or
+     * completes exceptionally if the response fails or failed to write the target.
+     *
+     * @return result
+     */
+    public CompletionStage<Void> relayed() {
+        return relayed;
+    }
+
+    @Override
+    public void onSubscribe(Demand demand) {
+        if (this.demand != null) {
+            // Another attempt, eg: redirection or retrying, whose content mustn't be mixed into the target.
+            demand.request(Long.MAX_VALUE);
+            relayed.completeExceptionally(new IllegalStateException("The content of more than one response can't"
+                    + " be relayed, the redirection and retrying should be disabled"));
+            return;
+        }
+        this.demand = demand;
+        demand.request(target.initialDemand());
+    }
+
+    @Override
+    public void onData(Buffer content) {
+        if (relayed.isDone()) {
+            // Discard the remaining content once failed.
+            demand.request(1L);
+            return;
+        }
+        target.write(BufferUtils.toByteBuf(content).retainedDuplicate());
+    }
+
+    @Override
+    public void onEnd() {
+        target.end();
+    }
+
+    @Override
+    public void onError(Throwable cause) {
+        relayed.completeExceptionally(cause);
+    }
+
+    @Override
+    public boolean isContentLengthLimited() {
+        return false;
+    }
+
+    private void fail(Throwable cause) {
+        if (relayed.completeExceptionally(cause)) {
+            demand.request(Long.MAX_VALUE);
+        }
+    }
+
+    private abstract static class Target {
+
+        abstract long initialDemand();
+
+        abstract void write(ByteBuf content);
+
+        abstract void end();
+    }
+
+    private final class ChannelTarget extends Target {
+
+        private final Channel channel;
+        private final Function<ByteBuf, Object> converter;
+
+        /**
+         * Whether to request the next chunk once the channel becomes writable.
+         */
+        private final AtomicBoolean suspended = new AtomicBoolean();
+        private WritabilityWatcher watcher;
+
+        private volatile ChannelFuture last;
+
+        private ChannelTarget(Channel channel, Function<ByteBuf, Object> converter) {
+            this.channel = channel;
+            this.converter = converter;
+        }
+
+        @Override
+        long initialDemand() {
+            return 1L;
+        }
+
+        @Override
+        void write(ByteBuf content) {
+            final Object msg;
+            try {
+                msg = converter.apply(content);
+            } catch (Throwable ex) {
+                ReferenceCountUtil.safeRelease(content);
+                fail(ex);
+                return;
+            }
+
+            final ChannelFuture future = channel.writeAndFlush(msg);
+            last = future;
+            future.addListener(f -> {
+                if (!f.isSuccess()) {
+                    fail(f.cause());
+                }
+            });
+
+            if (channel.isWritable()) {
+                demand.request(1L);
+                return;
+            }
+            if (watcher == null) {
+                watcher = new WritabilityWatcher(this);
+                channel.pipeline().addFirst(watcher);
+                relayed.whenComplete((v, th) -> watcher.remove(channel));
+            }
+            suspended.set(true);
+            // The channel may have become writable in the meantime.
+            resumeIfWritable();
+        }
+
+        @Override
+        void end() {
+            final ChannelFuture last0 = last;
+            if (last0 == null) {
+                relayed.complete(null);
+                return;
+            }
+            // The messages are written in order, so all of them have been written once the last one has.
+            last0.addListener(f -> {
+                if (f.isSuccess()) {
+                    relayed.complete(null);
+                } else {
+                    fail(f.cause());
+                }
+            });
+        }
+
+        private void resumeIfWritable() {
+            if (channel.isWritable() && suspended.compareAndSet(true, false)) {
+                demand.request(1L);
+            }
+        }
+    }
+
+    private static final class WritabilityWatcher extends ChannelInboundHandlerAdapter {
+
+        private final ChannelTarget target;
+
+        private WritabilityWatcher(ChannelTarget target) {
+            this.target = target;
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            target.resumeIfWritable();
+            super.channelWritabilityChanged(ctx);
+        }
+
+        private void remove(Channel channel) {
+            channel.eventLoop().execute(() -> {
+                if (channel.pipeline().context(this) != null) {
+                    channel.pipeline().remove(this);
+                }
+            });
+        }
+    }
+
+    private final class ByteChannelTarget extends Target {
+
+        private final WritableByteChannel channel;
+        private final Executor executor;
+
+        /**
+         * The tail of the writes which are executed one by one in order.
+         */
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        private ByteChannelTarget(WritableByteChannel channel, Executor executor) {
+            this.channel = channel;
+            this.executor = executor;
+        }
+
+        @Override
+        long initialDemand() {
+            return MAX_WRITING_CHUNKS;
+        }
+
+        @Override
+        void write(ByteBuf content) {
+            tail = tail.thenRunAsync(() -> {
+                try {
+                    if (!relayed.isDone()) {
+                        for (ByteBuffer src : content.nioBuffers()) {
+                            while (src.hasRemaining()) {
+                                channel.write(src);
+                            }
+                        }
+                    }
+                } catch (Throwable ex) {
+                    fail(ex);
+                } finally {
+                    content.release();
+                    demand.request(1L);
+                }
+            }, executor);
+        }
+
+        @Override
+        void end() {
+            tail.whenComplete((v, th) -> relayed.complete(null));
+        }
+    }
+}
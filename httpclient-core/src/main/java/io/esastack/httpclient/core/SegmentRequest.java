@@ -18,6 +18,7 @@ package io.esastack.httpclient.core;
 import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.HttpHeaders;
 import io.esastack.commons.net.netty.buffer.BufferImpl;
+import io.esastack.httpclient.core.config.Compression;
 import io.netty.buffer.Unpooled;
 
 import java.util.Map;
@@ -251,6 +252,42 @@ public interface SegmentRequest extends HttpRequestBase {
      */
     boolean isWritable();
 
+    /**
+     * Compresses the chunks with given {@code compression} before writing them to channel, and sets the
+     * {@code Content-Encoding} header, which must be set before writing any chunk. The compressed content of
+     * every chunk is flushed immediately, and the {@code Content-Length} header is removed because the length of
+     * compressed content is unknown in advance.
+     * <p>
+     * The default implementation throws {@link UnsupportedOperationException}, so that the chunks won't be sent
+     * uncompressed silently by the implementations which don't support it.
+     *
+     * @param compression compression
+     * @return this
+     * @throws UnsupportedOperationException if compressing the chunks is unsupported by this request
+     */
+    default SegmentRequest compression(Compression compression) {
+        throw new UnsupportedOperationException("Compressing the chunks is unsupported by " + getClass().getName());
+    }
+
+    /**
+     * Coalesces the small chunks into larger frames instead of writing and flushing them one by one, which must be
+     * set before writing any chunk. A frame is flushed once it reaches {@code flushThreshold} bytes, or
+     * {@code flushDelayMillis} later since its first chunk was written, or at the end of the current event loop
+     * iteration if {@code flushDelayMillis} is {@code 0}. Chunks larger than {@code flushThreshold} are written
+     * directly. In this mode, the future returned by {@link #write(Buffer)}s completes once the chunk has been
+     * accepted and the connection (and the stream on HTTP/2) is writable, so that the writers are paced by the
+     * connection.
+     * <p>
+     * The default implementation does nothing, which means that the chunks are written and flushed one by one.
+     *
+     * @param flushThreshold   the size of a frame, must be positive
+     * @param flushDelayMillis the max delay of flushing a frame, must not be negative
+     * @return this
+     */
+    default SegmentRequest coalesce(int flushThreshold, long flushDelayMillis) {
+        return this;
+    }
+
     @Override
     SegmentRequest enableUriEncode();
 
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core;
+
+import esa.commons.Checks;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedNioStream;
+import io.netty.handler.stream.ChunkedStream;
+
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The request body which is read lazily from an {@link InputStream} or a {@link ReadableByteChannel} chunk by
+ * chunk while the connection is writable, so that the generated or piped data can be sent without staging it in
+ * memory or on disk. The {@code Transfer-Encoding: chunked} is used for HTTP/1.1 unless the {@code Content-Length}
+ * header has been set.
+ * <p>
+ * Be note that the source can be read only once, so the request can't be retried or redirected with the body,
+ * and the source will be closed once it has been written or failed.
+ */
+public final class StreamBody {
+
+    /**
+     * The default size of a chunk, same as {@link ChunkedStream}.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private final InputStream stream;
+    private final ReadableByteChannel channel;
+    private final int chunkSize;
+    private final AtomicBoolean opened = new AtomicBoolean();
+
+    private StreamBody(InputStream stream, ReadableByteChannel channel, int chunkSize) {
+        Checks.checkArg(chunkSize > 0, "chunkSize must be > 0");
+        this.stream = stream;
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+    }
+
+    public static StreamBody of(InputStream stream) {
+        return of(stream, DEFAULT_CHUNK_SIZE);
+    }
+
+    public static StreamBody of(InputStream stream, int chunkSize) {
+        Checks.checkNotNull(stream, "stream");
+        return new StreamBody(stream, null, chunkSize);
+    }
+
+    public static StreamBody of(ReadableByteChannel channel) {
+        return of(channel, DEFAULT_CHUNK_SIZE);
+    }
+
+    public static StreamBody of(ReadableByteChannel channel, int chunkSize) {
+        Checks.checkNotNull(channel, "channel");
+        return new StreamBody(null, channel, chunkSize);
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Converts the source to a {@link ChunkedInput} which is read by the connection, this method can be invoked
+     * only once because the source can't be replayed.
+     *
+     * @return chunked input
+     * @throws IllegalStateException if the source has been read before
+     */
+    public ChunkedInput<ByteBuf> toChunkedInput() {
+        if (!opened.compareAndSet(false, true)) {
+            throw new IllegalStateException("The stream body has been read before and can't be replayed");
+        }
+        if (stream != null) {
+            return new ChunkedStream(stream, chunkSize);
+        }
+        return new ChunkedNioStream(channel, chunkSize);
+    }
+
+    @Override
+    public String toString() {
+        return "StreamBody{" + (stream != null ? stream : channel) + ", chunkSize=" + chunkSize + '}';
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface StreamRequest extends ExecutableRequest {
+
+    @Override
+    StreamRequest enableUriEncode();
+
+    @Override
+    StreamRequest disableExpectContinue();
+
+    @Override
+    StreamRequest maxRedirects(int maxRedirects);
+
+    @Override
+    StreamRequest maxRetries(int maxRetries);
+
+    @Override
+    StreamRequest readTimeout(long readTimeout);
+
+    @Override
+    StreamRequest handle(Consumer<Handle> handle);
+
+    @Override
+    StreamRequest handler(Handler handler);
+
+    @Override
+    StreamRequest addHeader(CharSequence name, CharSequence value);
+
+    @Override
+    StreamRequest addHeaders(Map<? extends CharSequence, ? extends CharSequence> headers);
+
+    @Override
+    StreamRequest setHeader(CharSequence name, CharSequence value);
+
+    @Override
+    StreamRequest removeHeader(CharSequence name);
+
+    @Override
+    StreamRequest addParam(String name, String value);
+
+    @Override
+    StreamRequest addParams(Map<String, String> params);
+
+    @Override
+    StreamRequest copy();
+
+    @Override
+    default boolean isStream() {
+        return true;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.config;
+
+import esa.commons.Checks;
+import io.esastack.httpclient.core.Reusable;
+import io.esastack.httpclient.core.exec.ConcurrencyLimit;
+import io.esastack.httpclient.core.exec.ConcurrencyLimits;
+
+import java.io.Serializable;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+public class ConcurrencyLimitOptions implements Reusable<ConcurrencyLimitOptions>, Serializable {
+
+    private static final long serialVersionUID = -2412866151563417096L;
+
+    private final transient Supplier<ConcurrencyLimit> limit;
+    private final int maxQueueSize;
+    private final long queueTimeoutMillis;
+
+    private ConcurrencyLimitOptions(Supplier<ConcurrencyLimit> limit, int maxQueueSize, long queueTimeoutMillis) {
+        Checks.checkNotNull(limit, "limit");
+        Checks.checkArg(maxQueueSize >= 0, "maxQueueSize is " + maxQueueSize + " (expected >= 0)");
+        Checks.checkArg(queueTimeoutMillis > 0L, "queueTimeoutMillis is " + queueTimeoutMillis
+                + " (expected > 0)");
+        this.limit = limit;
+        this.maxQueueSize = maxQueueSize;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    public static ConcurrencyLimitOptions ofDefault() {
+        return new ConcurrencyLimitOptionsBuilder().build();
+    }
+
+    public static ConcurrencyLimitOptionsBuilder options() {
+        return new ConcurrencyLimitOptionsBuilder();
+    }
+
+    @Override
+    public ConcurrencyLimitOptions copy() {
+        return new ConcurrencyLimitOptions(limit, maxQueueSize, queueTimeoutMillis);
+    }
+
+    /**
+     * Obtains the factory of {@link ConcurrencyLimit}, which is invoked once for every remote endpoint.
+     *
+     * @return factory of limit
+     */
+    public Supplier<ConcurrencyLimit> limit() {
+        return limit;
+    }
+
+    /**
+     * Obtains the max number of requests which are waiting for the limit of an endpoint, the excess requests
+     * will fail fast, {@code 0} means never queueing.
+     *
+     * @return max queue size
+     */
+    public int maxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * Obtains the max time in milliseconds a request can wait in the queue.
+     *
+     * @return queue timeout
+     */
+    public long queueTimeoutMillis() {
+        return queueTimeoutMillis;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ConcurrencyLimitOptions.class.getSimpleName() + "[", "]")
+                .add("limit=" + limit)
+                .add("maxQueueSize=" + maxQueueSize)
+                .add("queueTimeoutMillis=" + queueTimeoutMillis)
+                .toString();
+    }
+
+    public static class ConcurrencyLimitOptionsBuilder {
+
+        private Supplier<ConcurrencyLimit> limit = () -> ConcurrencyLimits.gradient(20, 1, 1000);
+        private int maxQueueSize = 128;
+        private long queueTimeoutMillis = 1000L;
+
+        ConcurrencyLimitOptionsBuilder() {
+        }
+
+        public ConcurrencyLimitOptionsBuilder limit(Supplier<ConcurrencyLimit> limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Uses {@link ConcurrencyLimits#aimd(int, int, int)} for every endpoint.
+         *
+         * @param initialLimit  initial limit
+         * @param minLimit      lower bound of the limit
+         * @param maxLimit      upper bound of the limit
+         * @return this builder
+         */
+        public ConcurrencyLimitOptionsBuilder aimd(int initialLimit, int minLimit, int maxLimit) {
+            // Fail fast if the arguments are illegal.
+            ConcurrencyLimits.aimd(initialLimit, minLimit, maxLimit);
+            return limit(() -> ConcurrencyLimits.aimd(initialLimit, minLimit, maxLimit));
+        }
+
+        /**
+         * Uses {@link ConcurrencyLimits#gradient(int, int, int)} for every endpoint.
+         *
+         * @param initialLimit  initial limit
+         * @param minLimit      lower bound of the limit
+         * @param maxLimit      upper bound of the limit
+         * @return this builder
+         */
+        public ConcurrencyLimitOptionsBuilder gradient(int initialLimit, int minLimit, int maxLimit) {
+            ConcurrencyLimits.gradient(initialLimit, minLimit, maxLimit);
+            return limit(() -> ConcurrencyLimits.gradient(initialLimit, minLimit, maxLimit));
+        }
+
+        public ConcurrencyLimitOptionsBuilder maxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        public ConcurrencyLimitOptionsBuilder queueTimeoutMillis(long queueTimeoutMillis) {
+            this.queueTimeoutMillis = queueTimeoutMillis;
+            return this;
+        }
+
+        public ConcurrencyLimitOptions build() {
+            return new ConcurrencyLimitOptions(limit, maxQueueSize, queueTimeoutMillis);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.config;
+
+import esa.commons.Checks;
+import io.esastack.httpclient.core.Reusable;
+
+import java.io.Serializable;
+import java.util.StringJoiner;
+
+/**
+ * Options of hedged requests: an idempotent request will be sent again if the previous attempt hasn't been
+ * responded after a delay, and the first response wins.
+ */
+public class HedgeOptions implements Reusable<HedgeOptions>, Serializable {
+
+    private static final long serialVersionUID = 4585361206620237429L;
+
+    private final long delayMillis;
+    private final double percentile;
+    private final double budgetRatio;
+    private final int maxBudget;
+
+    private HedgeOptions(long delayMillis, double percentile, double budgetRatio, int maxBudget) {
+        Checks.checkArg(delayMillis >= 1L, "delayMillis is " + delayMillis + " (expected >= 1)");
+        Checks.checkArg(percentile >= 0.0d && percentile < 1.0d, "percentile is " + percentile
+                + " (expected >= 0.0 and < 1.0)");
+        Checks.checkArg(budgetRatio > 0.0d && budgetRatio <= 1.0d, "budgetRatio is " + budgetRatio
+                + " (expected > 0.0 and <= 1.0)");
+        Checks.checkArg(maxBudget >= 1, "maxBudget is " + maxBudget + " (expected >= 1)");
+        this.delayMillis = delayMillis;
+        this.percentile = percentile;
+        this.budgetRatio = budgetRatio;
+        this.maxBudget = maxBudget;
+    }
+
+    public static HedgeOptions ofDefault() {
+        return new HedgeOptionsBuilder().build();
+    }
+
+    public static HedgeOptionsBuilder options() {
+        return new HedgeOptionsBuilder();
+    }
+
+    @Override
+    public HedgeOptions copy() {
+        return new HedgeOptions(delayMillis, percentile, budgetRatio, maxBudget);
+    }
+
+    /**
+     * Obtains the delay before sending the hedged request, which is also used when the percentile is
+     * disabled or there are not enough samples to compute the percentile.
+     *
+     * @return delay in milliseconds
+     */
+    public long delayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * Obtains the percentile of the recent latencies of the same host which is used as the delay, {@code 0}
+     * means always using {@link #delayMillis()}.
+     *
+     * @return percentile
+     */
+    public double percentile() {
+        return percentile;
+    }
+
+    /**
+     * Obtains the max ratio of the hedged requests to all the requests.
+     *
+     * @return ratio
+     */
+    public double budgetRatio() {
+        return budgetRatio;
+    }
+
+    /**
+     * Obtains the max number of hedged requests which can be sent in a burst.
+     *
+     * @return max budget
+     */
+    public int maxBudget() {
+        return maxBudget;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", HedgeOptions.class.getSimpleName() + "[", "]")
+                .add("delayMillis=" + delayMillis)
+                .add("percentile=" + percentile)
+                .add("budgetRatio=" + budgetRatio)
+                .add("maxBudget=" + maxBudget)
+                .toString();
+    }
+
+    public static class HedgeOptionsBuilder {
+
+        private long delayMillis = 100L;
+        private double percentile = 0.95d;
+        private double budgetRatio = 0.1d;
+        private int maxBudget = 10;
+
+        HedgeOptionsBuilder() {
+        }
+
+        public HedgeOptionsBuilder delayMillis(long delayMillis) {
+            this.delayMillis = delayMillis;
+            return this;
+        }
+
+        public HedgeOptionsBuilder percentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        public HedgeOptionsBuilder budgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        public HedgeOptionsBuilder maxBudget(int maxBudget) {
+            this.maxBudget = maxBudget;
+            return this;
+        }
+
+        public HedgeOptions build() {
+            return new HedgeOptions(delayMillis, percentile, budgetRatio, maxBudget);
+        }
+    }
+}
@@ -28,24 +28,29 @@ public class Http1Options implements Reusable<Http1Options>, Serializable {
     private final int maxInitialLineLength;
     private final int maxHeaderSize;
     private final int maxChunkSize;
+    private final int maxPipelinedRequests;
 
     private Http1Options(int maxInitialLineLength,
                          int maxHeaderSize,
-                         int maxChunkSize) {
+                         int maxChunkSize,
+                         int maxPipelinedRequests) {
         Checks.checkArg(maxInitialLineLength > 0, "maxInitialLineLength is " +
                 maxInitialLineLength + " (expected > 0)");
         Checks.checkArg(maxHeaderSize > 0, "maxHeaderSize is " + maxHeaderSize +
                 " (expected > 0)");
         Checks.checkArg(maxChunkSize > 0, "maxChunkSize is " + maxChunkSize +
                 " (expected > 0)");
+        Checks.checkArg(maxPipelinedRequests > 0, "maxPipelinedRequests is " + maxPipelinedRequests +
+                " (expected > 0)");
         this.maxInitialLineLength = maxInitialLineLength;
         this.maxHeaderSize = maxHeaderSize;
         this.maxChunkSize = maxChunkSize;
+        this.maxPipelinedRequests = maxPipelinedRequests;
     }
 
     @Override
     public Http1Options copy() {
-        return new Http1Options(maxInitialLineLength, maxHeaderSize, maxChunkSize);
+        return new Http1Options(maxInitialLineLength, maxHeaderSize, maxChunkSize, maxPipelinedRequests);
     }
 
     public static Http1Options ofDefault() {
@@ -68,12 +73,25 @@ public class Http1Options implements Reusable<Http1Options>, Serializable {
         return maxChunkSize;
     }
 
+    /**
+     * Obtains the max number of in-flight requests on a connection. Pipelining is disabled when it's 1 (as
+     * default), otherwise the subsequent idempotent requests can be written to a connection before the
+     * responses of previous ones have been received. It's designed for the trusted servers which are known to
+     * support pipelining correctly.
+     *
+     * @return max pipelined requests
+     */
+    public int maxPipelinedRequests() {
+        return maxPipelinedRequests;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", Http1Options.class.getSimpleName() + "[", "]")
                 .add("maxInitialLineLength=" + maxInitialLineLength)
                 .add("maxHeaderSize=" + maxHeaderSize)
                 .add("maxChunkSize=" + maxChunkSize)
+                .add("maxPipelinedRequests=" + maxPipelinedRequests)
                 .toString();
     }
 
@@ -81,6 +99,7 @@ public class Http1Options implements Reusable<Http1Options>, Serializable {
         private int maxInitialLineLength = 4096;
         private int maxHeaderSize = 8192;
         private int maxChunkSize = 8192;
+        private int maxPipelinedRequests = 1;
 
         Http1OptionsBuilder() {
         }
@@ -100,8 +119,13 @@ public class Http1Options implements Reusable<Http1Options>, Serializable {
             return this;
         }
 
+        public Http1OptionsBuilder maxPipelinedRequests(int maxPipelinedRequests) {
+            this.maxPipelinedRequests = maxPipelinedRequests;
+            return this;
+        }
+
         public Http1Options build() {
-            return new Http1Options(maxInitialLineLength, maxHeaderSize, maxChunkSize);
+            return new Http1Options(maxInitialLineLength, maxHeaderSize, maxChunkSize, maxPipelinedRequests);
         }
     }
 
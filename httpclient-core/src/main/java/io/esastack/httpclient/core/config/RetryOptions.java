@@ -17,6 +17,8 @@ package io.esastack.httpclient.core.config;
 
 import esa.commons.Checks;
 import io.esastack.httpclient.core.Reusable;
+import io.esastack.httpclient.core.exec.RetryBackoff;
+import io.esastack.httpclient.core.exec.RetryBackoffs;
 import io.esastack.httpclient.core.exec.RetryPredicate;
 import io.esastack.httpclient.core.exec.RetryPredicateImpl;
 
@@ -31,14 +33,17 @@ public class RetryOptions implements Reusable<RetryOptions>, Serializable {
     private final int maxRetries;
     private final transient RetryPredicate predicate;
     private final transient IntToLongFunction intervalMillis;
+    private final transient RetryBackoff backoff;
 
     private RetryOptions(int maxRetries,
                          RetryPredicate predicate,
-                         IntToLongFunction intervalMillis) {
+                         IntToLongFunction intervalMillis,
+                         RetryBackoff backoff) {
         Checks.checkNotNull(predicate, "predicate");
         this.maxRetries = maxRetries;
         this.predicate = predicate;
         this.intervalMillis = intervalMillis;
+        this.backoff = backoff;
     }
 
     public static RetryOptions ofDefault() {
@@ -51,7 +56,7 @@ public class RetryOptions implements Reusable<RetryOptions>, Serializable {
 
     @Override
     public RetryOptions copy() {
-        return new RetryOptions(maxRetries, predicate, intervalMillis);
+        return new RetryOptions(maxRetries, predicate, intervalMillis, backoff);
     }
 
     public int maxRetries() {
@@ -66,12 +71,23 @@ public class RetryOptions implements Reusable<RetryOptions>, Serializable {
         return this.intervalMillis;
     }
 
+    /**
+     * Obtains the {@link RetryBackoff} which is used to compute the interval before retrying, which may be
+     * null and means retrying immediately.
+     *
+     * @return backoff
+     */
+    public RetryBackoff backoff() {
+        return this.backoff;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", RetryOptions.class.getSimpleName() + "[", "]")
                 .add("maxRetries=" + maxRetries)
                 .add("predicate=" + predicate)
                 .add("intervalMillis=" + intervalMillis)
+                .add("backoff=" + backoff)
                 .toString();
     }
 
@@ -80,6 +96,9 @@ public class RetryOptions implements Reusable<RetryOptions>, Serializable {
         private int maxRetries = 3;
         private RetryPredicate predicate = RetryPredicateImpl.DEFAULT;
         private IntToLongFunction intervalMillis;
+        private RetryBackoff backoff;
+        private boolean respectRetryAfter;
+        private long maxRetryAfterMs;
 
         RetryOptionsBuilder() {
         }
@@ -89,6 +108,53 @@ public class RetryOptions implements Reusable<RetryOptions>, Serializable {
             return this;
         }
 
+        /**
+         * Sets the {@link RetryBackoff}, which takes precedence over {@link #intervalMs(IntToLongFunction)}.
+         *
+         * @param backoff backoff
+         * @return this builder
+         */
+        public RetryOptionsBuilder backoff(RetryBackoff backoff) {
+            this.backoff = backoff;
+            return this;
+        }
+
+        /**
+         * Backs off exponentially, see {@link RetryBackoffs#exponential(long, long)}.
+         *
+         * @param baseMs    interval before the first retry
+         * @param maxMs     upper bound of the interval
+         * @return this builder
+         */
+        public RetryOptionsBuilder exponentialBackoff(long baseMs, long maxMs) {
+            return backoff(RetryBackoffs.exponential(baseMs, maxMs));
+        }
+
+        /**
+         * Backs off with decorrelated jitter, see {@link RetryBackoffs#decorrelatedJitter(long, long)}.
+         *
+         * @param baseMs    the minimum interval
+         * @param maxMs     upper bound of the interval
+         * @return this builder
+         */
+        public RetryOptionsBuilder decorrelatedJitterBackoff(long baseMs, long maxMs) {
+            return backoff(RetryBackoffs.decorrelatedJitter(baseMs, maxMs));
+        }
+
+        /**
+         * Prefers the {@code Retry-After} header of the last response to the configured backoff, see
+         * {@link RetryBackoffs#retryAfterAware(RetryBackoff, long)}.
+         *
+         * @param maxMs upper bound of the interval obtained from {@code Retry-After}, non-positive value
+         *              means unlimited.
+         * @return this builder
+         */
+        public RetryOptionsBuilder respectRetryAfter(long maxMs) {
+            this.respectRetryAfter = true;
+            this.maxRetryAfterMs = maxMs;
+            return this;
+        }
+
         public RetryOptionsBuilder maxRetries(int maxRetries) {
             this.maxRetries = maxRetries;
             return this;
@@ -100,7 +166,14 @@ public class RetryOptions implements Reusable<RetryOptions>, Serializable {
         }
 
         public RetryOptions build() {
-            return new RetryOptions(maxRetries, predicate, intervalMillis);
+            RetryBackoff backoff0 = backoff;
+            if (backoff0 == null && intervalMillis != null) {
+                backoff0 = RetryBackoffs.of(intervalMillis);
+            }
+            if (respectRetryAfter) {
+                backoff0 = RetryBackoffs.retryAfterAware(backoff0, maxRetryAfterMs);
+            }
+            return new RetryOptions(maxRetries, predicate, intervalMillis, backoff0);
         }
 
     }
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exception;
+
+/**
+ * Thrown when a request is rejected because the number of in-flight requests to the remote endpoint has
+ * reached the concurrency limit and the waiting queue is full or the request has waited too long.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 6870337521458734315L;
+
+    public ConcurrencyLimitExceededException(String msg) {
+        super(msg);
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exec;
+
+/**
+ * An algorithm to estimate how many requests can be in flight to a remote endpoint at the same time, the
+ * estimated limit is adjusted by the samples of ended requests. The same instance is shared by all the
+ * requests to an endpoint, so it must be thread-safe.
+ *
+ * @see ConcurrencyLimits
+ * @see ConcurrencyLimitInterceptor
+ */
+public interface ConcurrencyLimit {
+
+    /**
+     * Obtains current limit of in-flight requests.
+     *
+     * @return limit, which must be positive
+     */
+    int limit();
+
+    /**
+     * Updates the limit with the sample of an ended request.
+     *
+     * @param rttNanos  the time between sending the request and receiving the whole response, in nanoseconds
+     * @param inflight  the number of in-flight requests when the request ended, including itself
+     * @param dropped   whether the request failed or was rejected by the remote endpoint because of overload
+     */
+    void onSample(long rttNanos, int inflight, boolean dropped);
+
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exec;
+
+import esa.commons.Checks;
+import io.esastack.commons.net.http.HttpStatus;
+import io.esastack.httpclient.core.HttpRequest;
+import io.esastack.httpclient.core.HttpResponse;
+import io.esastack.httpclient.core.HttpUri;
+import io.esastack.httpclient.core.Scheme;
+import io.esastack.httpclient.core.config.ConcurrencyLimitOptions;
+import io.esastack.httpclient.core.exception.ConcurrencyLimitExceededException;
+import io.esastack.httpclient.core.metrics.ConcurrencyLimitMetric;
+import io.esastack.httpclient.core.metrics.ConcurrencyLimitMetricProvider;
+import io.esastack.httpclient.core.util.Futures;
+import io.esastack.httpclient.core.util.Schedulers;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This interceptor is designed to protect the remote endpoints from overload. The number of in-flight requests
+ * to every {@link SocketAddress} is limited by a {@link ConcurrencyLimit} which adapts automatically with the
+ * measured latencies and errors, and the excess requests will wait in a bounded queue or fail fast with
+ * {@link ConcurrencyLimitExceededException}.
+ * <p>
+ * Every attempt of retrying, redirecting and hedging is limited separately, because it's ordered after all
+ * of them.
+ */
+public class ConcurrencyLimitInterceptor implements Interceptor {
+
+    private static final int MAX_LIMITERS = 4096;
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(10L);
+    private static final long CLEAN_UP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1L);
+
+    private final ConcurrencyLimitOptions options;
+    private final Map<SocketAddress, Limiter> limiters = new ConcurrentHashMap<>();
+    private final AtomicLong nextCleanUpNanos = new AtomicLong(System.nanoTime() + CLEAN_UP_INTERVAL_NANOS);
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimitOptions options) {
+        Checks.checkNotNull(options, "options");
+        this.options = options;
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> proceed(HttpRequest request, ExecChain next) {
+        final SocketAddress address = address(request.uri());
+        Limiter limiter;
+        CompletableFuture<Void> permit;
+        do {
+            limiter = limiters.computeIfAbsent(address,
+                    key -> new Limiter(options.limit().get(), options.maxQueueSize()));
+            // Try again with a new one if it has been retired by cleaning up concurrently.
+            permit = limiter.acquire();
+        } while (permit == Limiter.RETIRED);
+
+        cleanUpIfNecessary();
+        if (permit == Limiter.ACQUIRED) {
+            return doProceed(request, next, limiter);
+        }
+        if (permit == null) {
+            return Futures.completed(new ConcurrencyLimitExceededException("Concurrency limit: "
+                    + limiter.limit() + " of " + request.uri().host() + " has been exceeded"));
+        }
+
+        return proceedQueued(request, next, limiter, permit);
+    }
+
+    @Override
+    public int getOrder() {
+        return -1000;
+    }
+
+    /**
+     * Obtains the metrics of all the remote endpoints.
+     *
+     * @return metric provider
+     */
+    public ConcurrencyLimitMetricProvider metric() {
+        return () -> Collections.unmodifiableMap(new HashMap<>(limiters));
+    }
+
+    /**
+     * Whether the remote endpoint has dropped the request because of overload. All the failed requests
+     * except the cancelled ones and the responses with status 429 or 503 are regarded as dropped.
+     *
+     * @param response response, may be null
+     * @param cause    cause, may be null
+     * @return {@code true} if dropped, otherwise {@code false}.
+     */
+    protected boolean isDropped(HttpResponse response, Throwable cause) {
+        if (cause != null) {
+            return true;
+        }
+        return response != null && (response.status() == HttpStatus.TOO_MANY_REQUESTS.code()
+                || response.status() == HttpStatus.SERVICE_UNAVAILABLE.code());
+    }
+
+    /**
+     * Schedules the {@code task} to expire a queued request after {@code delayMillis}. The current thread
+     * will never be blocked, the {@code task} is scheduled on current {@link EventExecutor} or on a shared
+     * timer if the current thread isn't an {@link EventExecutor}. The queued request expires immediately if the
+     * client has been closed before that.
+     *
+     * @param delayMillis delay in milliseconds
+     * @param task        the task to expire the queued request
+     */
+    protected void schedule(long delayMillis, Runnable task) {
+        Schedulers.schedule(task, cause -> task.run(), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private CompletableFuture<HttpResponse> proceedQueued(HttpRequest request,
+                                                          ExecChain next,
+                                                          Limiter limiter,
+                                                          CompletableFuture<Void> permit) {
+        schedule(options.queueTimeoutMillis(), () -> {
+            if (limiter.remove(permit)) {
+                limiter.onRejected();
+                permit.completeExceptionally(new ConcurrencyLimitExceededException("Request: " + request.uri()
+                        + " has waited for the concurrency limit more than " + options.queueTimeoutMillis()
+                        + "ms"));
+            }
+        });
+
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        permit.whenComplete((v, th) -> {
+            if (th != null) {
+                response.completeExceptionally(th);
+                return;
+            }
+            // Cancelled while waiting.
+            if (response.isDone()) {
+                limiter.release();
+                return;
+            }
+
+            final CompletableFuture<HttpResponse> attempt = doProceed(request, next, limiter);
+            attempt.whenComplete((rsp, ex) -> {
+                if (ex != null) {
+                    response.completeExceptionally(ex);
+                } else {
+                    response.complete(rsp);
+                }
+            });
+            response.whenComplete((rsp, ex) -> {
+                if (response.isCancelled()) {
+                    attempt.cancel(false);
+                }
+            });
+        });
+        response.whenComplete((rsp, th) -> {
+            if (response.isCancelled() && limiter.remove(permit)) {
+                permit.cancel(false);
+            }
+        });
+        return response;
+    }
+
+    private CompletableFuture<HttpResponse> doProceed(HttpRequest request, ExecChain next, Limiter limiter) {
+        final long startNanos = System.nanoTime();
+        final CompletableFuture<HttpResponse> attempt;
+        try {
+            attempt = next.proceed(request);
+        } catch (Throwable th) {
+            limiter.release();
+            return Futures.completed(th);
+        }
+
+        attempt.whenComplete((rsp, th) -> {
+            if (th != null && Futures.unwrapped(th) instanceof CancellationException) {
+                // Cancelled by the caller, eg: the loser of hedged requests, which says nothing about the
+                // remote endpoint.
+                limiter.release();
+            } else {
+                limiter.release(System.nanoTime() - startNanos, isDropped(rsp, th));
+            }
+        });
+        return attempt;
+    }
+
+    /**
+     * Removes the limiters which have been idle for {@link #IDLE_TIMEOUT_NANOS}, or all the idle ones if there
+     * are too many limiters. The limiters with in-flight or queued requests are never removed, otherwise the
+     * subsequent requests would bypass the limit with a new one.
+     */
+    private void cleanUpIfNecessary() {
+        final long now = System.nanoTime();
+        final long nextCleanUp = nextCleanUpNanos.get();
+        final boolean overflow = limiters.size() > MAX_LIMITERS;
+        if ((!overflow && now - nextCleanUp < 0L)
+                || !nextCleanUpNanos.compareAndSet(nextCleanUp, now + CLEAN_UP_INTERVAL_NANOS)) {
+            return;
+        }
+
+        final long deadline = overflow ? now : now - IDLE_TIMEOUT_NANOS;
+        for (SocketAddress address : limiters.keySet()) {
+            limiters.computeIfPresent(address, (key, limiter) -> limiter.retire(deadline) ? null : limiter);
+        }
+    }
+
+    private static SocketAddress address(HttpUri uri) {
+        int port = uri.port();
+        if (port <= 0) {
+            port = Scheme.HTTPS.name0().equalsIgnoreCase(uri.netURI().getScheme())
+                    ? Scheme.HTTPS.port() : Scheme.HTTP.port();
+        }
+        return InetSocketAddress.createUnresolved(uri.host(), port);
+    }
+
+    /**
+     * Designed as package visibility for unit test purpose.
+     *
+     * @return limiters
+     */
+    Map<SocketAddress, Limiter> limiters() {
+        return limiters;
+    }
+
+    static final class Limiter implements ConcurrencyLimitMetric {
+
+        /**
+         * The permit has been acquired immediately.
+         */
+        static final CompletableFuture<Void> ACQUIRED = CompletableFuture.completedFuture(null);
+
+        /**
+         * The limiter has been retired, and a new one should be used.
+         */
+        static final CompletableFuture<Void> RETIRED = CompletableFuture.completedFuture(null);
+
+        private final ConcurrencyLimit limit;
+        private final int maxQueueSize;
+        private final LongAdder rejected = new LongAdder();
+
+        /**
+         * Guarded by this.
+         */
+        private final Deque<CompletableFuture<Void>> queue = new ArrayDeque<>();
+        private int inflight;
+        private long lastAccessNanos = System.nanoTime();
+        private boolean retired;
+
+        Limiter(ConcurrencyLimit limit, int maxQueueSize) {
+            Checks.checkNotNull(limit, "limit");
+            this.limit = limit;
+            this.maxQueueSize = maxQueueSize;
+        }
+
+        /**
+         * Acquires a permit, or adds a waiter to the queue which will be completed once the permit has been
+         * acquired.
+         *
+         * @return {@link #ACQUIRED}, {@link #RETIRED}, waiter, or {@code null} if the queue is full.
+         */
+        CompletableFuture<Void> acquire() {
+            synchronized (this) {
+                if (retired) {
+                    return RETIRED;
+                }
+                lastAccessNanos = System.nanoTime();
+                if (queue.isEmpty() && inflight < limit.limit()) {
+                    inflight++;
+                    return ACQUIRED;
+                }
+                if (queue.size() < maxQueueSize) {
+                    final CompletableFuture<Void> permit = new CompletableFuture<>();
+                    queue.addLast(permit);
+                    return permit;
+                }
+            }
+            onRejected();
+            return null;
+        }
+
+        /**
+         * Retires this limiter if there's neither in-flight nor queued request and it hasn't been accessed since
+         * the {@code deadline}, then it will never be used any more.
+         *
+         * @param deadline deadline in nanoseconds
+         * @return {@code true} if retired, otherwise {@code false}.
+         */
+        synchronized boolean retire(long deadline) {
+            if (inflight == 0 && queue.isEmpty() && lastAccessNanos - deadline <= 0L) {
+                retired = true;
+            }
+            return retired;
+        }
+
+        synchronized boolean remove(CompletableFuture<Void> permit) {
+            return queue.remove(permit);
+        }
+
+        void onRejected() {
+            rejected.increment();
+        }
+
+        void release(long rttNanos, boolean dropped) {
+            final int inflight0;
+            synchronized (this) {
+                inflight0 = inflight;
+            }
+            limit.onSample(rttNanos, inflight0, dropped);
+            release();
+        }
+
+        void release() {
+            List<CompletableFuture<Void>> admitted = null;
+            synchronized (this) {
+                inflight--;
+                lastAccessNanos = System.nanoTime();
+                // The limit may have been increased, so that more than one waiters can be admitted.
+                while (!queue.isEmpty() && inflight < limit.limit()) {
+                    inflight++;
+                    if (admitted == null) {
+                        admitted = new ArrayList<>(1);
+                    }
+                    admitted.add(queue.pollFirst());
+                }
+            }
+
+            // Complete out of the lock, because the waiters will proceed the requests in current thread.
+            if (admitted != null) {
+                for (CompletableFuture<Void> permit : admitted) {
+                    permit.complete(null);
+                }
+            }
+        }
+
+        @Override
+        public int limit() {
+            return limit.limit();
+        }
+
+        @Override
+        public synchronized int inflight() {
+            return inflight;
+        }
+
+        @Override
+        public synchronized int queued() {
+            return queue.size();
+        }
+
+        @Override
+        public long rejectedCount() {
+            return rejected.sum();
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Limiter.class.getSimpleName() + "[", "]")
+                    .add("limit=" + limit.limit())
+                    .add("inflight=" + inflight())
+                    .add("queued=" + queued())
+                    .add("rejectedCount=" + rejectedCount())
+                    .toString();
+        }
+    }
+}
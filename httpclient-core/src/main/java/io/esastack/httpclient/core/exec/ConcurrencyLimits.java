@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exec;
+
+import esa.commons.Checks;
+
+import java.util.StringJoiner;
+
+/**
+ * Built-in {@link ConcurrencyLimit}s. Every invocation returns a new instance, because the state of limit
+ * can't be shared between endpoints.
+ */
+public final class ConcurrencyLimits {
+
+    private ConcurrencyLimits() {
+    }
+
+    /**
+     * A limit which never changes.
+     *
+     * @param limit limit
+     * @return limit
+     */
+    public static ConcurrencyLimit fixed(int limit) {
+        Checks.checkArg(limit > 0, "limit is " + limit + " (expected > 0)");
+        return new ConcurrencyLimit() {
+            @Override
+            public int limit() {
+                return limit;
+            }
+
+            @Override
+            public void onSample(long rttNanos, int inflight, boolean dropped) {
+            }
+
+            @Override
+            public String toString() {
+                return "FixedLimit[limit=" + limit + "]";
+            }
+        };
+    }
+
+    /**
+     * Additive-increase/multiplicative-decrease limit, see {@link #aimd(int, int, int, double)}, the limit
+     * is decreased to 90% once a request is dropped.
+     *
+     * @param initialLimit  initial limit
+     * @param minLimit      lower bound of the limit
+     * @param maxLimit      upper bound of the limit
+     * @return limit
+     */
+    public static ConcurrencyLimit aimd(int initialLimit, int minLimit, int maxLimit) {
+        return aimd(initialLimit, minLimit, maxLimit, 0.9d);
+    }
+
+    /**
+     * Additive-increase/multiplicative-decrease limit, the limit is increased by 1 when a request succeeds
+     * while more than half of the limit is in use, and is multiplied by {@code backoffRatio} once a request
+     * is dropped. It only reacts to errors, so it's suitable for the endpoints whose latency is unstable.
+     *
+     * @param initialLimit  initial limit
+     * @param minLimit      lower bound of the limit
+     * @param maxLimit      upper bound of the limit
+     * @param backoffRatio  ratio to decrease the limit, which must be in (0, 1)
+     * @return limit
+     */
+    public static ConcurrencyLimit aimd(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        return new AimdLimit(initialLimit, minLimit, maxLimit, backoffRatio);
+    }
+
+    /**
+     * Gradient limit which is similar to TCP Vegas, the limit is adjusted by the gradient between the long
+     * term average RTT and the RTT of current request, so that it decreases as soon as the queueing on the
+     * remote endpoint makes the latency grow, before any request failed. Dropped requests decrease the limit
+     * to 90% as well.
+     *
+     * @param initialLimit  initial limit
+     * @param minLimit      lower bound of the limit
+     * @param maxLimit      upper bound of the limit
+     * @return limit
+     */
+    public static ConcurrencyLimit gradient(int initialLimit, int minLimit, int maxLimit) {
+        return new GradientLimit(initialLimit, minLimit, maxLimit);
+    }
+
+    private static void checkBounds(int initialLimit, int minLimit, int maxLimit) {
+        Checks.checkArg(minLimit > 0, "minLimit is " + minLimit + " (expected > 0)");
+        Checks.checkArg(maxLimit >= minLimit, "maxLimit is " + maxLimit + " (expected >= " + minLimit + ")");
+        Checks.checkArg(initialLimit >= minLimit && initialLimit <= maxLimit, "initialLimit is "
+                + initialLimit + " (expected >= " + minLimit + " and <= " + maxLimit + ")");
+    }
+
+    private static final class AimdLimit implements ConcurrencyLimit {
+
+        private final int minLimit;
+        private final int maxLimit;
+        private final double backoffRatio;
+        private volatile int limit;
+
+        private AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+            checkBounds(initialLimit, minLimit, maxLimit);
+            Checks.checkArg(backoffRatio > 0.0d && backoffRatio < 1.0d, "backoffRatio is " + backoffRatio
+                    + " (expected > 0.0 and < 1.0)");
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.backoffRatio = backoffRatio;
+            this.limit = initialLimit;
+        }
+
+        @Override
+        public int limit() {
+            return limit;
+        }
+
+        @Override
+        public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+            final int current = limit;
+            if (dropped) {
+                limit = Math.max(minLimit, (int) (current * backoffRatio));
+            } else if (inflight * 2 >= current) {
+                // Only increase the limit when it's really used.
+                limit = Math.min(maxLimit, current + 1);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", AimdLimit.class.getSimpleName() + "[", "]")
+                    .add("limit=" + limit)
+                    .add("minLimit=" + minLimit)
+                    .add("maxLimit=" + maxLimit)
+                    .add("backoffRatio=" + backoffRatio)
+                    .toString();
+        }
+    }
+
+    private static final class GradientLimit implements ConcurrencyLimit {
+
+        private static final int WARMUP_SAMPLES = 10;
+        private static final int LONG_WINDOW = 600;
+        private static final double TOLERANCE = 1.5d;
+        private static final double SMOOTHING = 0.2d;
+        private static final double BACKOFF_RATIO = 0.9d;
+
+        private final int minLimit;
+        private final int maxLimit;
+        private volatile int limit;
+
+        /**
+         * Guarded by this.
+         */
+        private double estimatedLimit;
+        private double longRttNanos;
+        private long samples;
+
+        private GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+            checkBounds(initialLimit, minLimit, maxLimit);
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.limit = initialLimit;
+            this.estimatedLimit = initialLimit;
+        }
+
+        @Override
+        public int limit() {
+            return limit;
+        }
+
+        @Override
+        public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+            final double newLimit;
+            if (dropped) {
+                newLimit = estimatedLimit * BACKOFF_RATIO;
+            } else {
+                final double rtt = Math.max(1L, rttNanos);
+                if (samples < WARMUP_SAMPLES) {
+                    longRttNanos = (longRttNanos * samples + rtt) / (samples + 1);
+                } else {
+                    longRttNanos += (rtt - longRttNanos) / LONG_WINDOW;
+                }
+                samples++;
+
+                // The latency has dropped a lot, eg: the remote endpoint has recovered from a slow period,
+                // so that the long term RTT should catch up quickly.
+                if (longRttNanos / rtt > 2.0d) {
+                    longRttNanos *= 0.95d;
+                }
+
+                // Not enough requests to judge whether the limit is too small.
+                if (inflight * 2 < estimatedLimit) {
+                    return;
+                }
+
+                final double gradient = Math.max(0.5d, Math.min(1.0d, TOLERANCE * longRttNanos / rtt));
+                newLimit = estimatedLimit * (1.0d - SMOOTHING)
+                        + (estimatedLimit * gradient + Math.sqrt(estimatedLimit)) * SMOOTHING;
+            }
+
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+            limit = (int) estimatedLimit;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", GradientLimit.class.getSimpleName() + "[", "]")
+                    .add("limit=" + limit)
+                    .add("minLimit=" + minLimit)
+                    .add("maxLimit=" + maxLimit)
+                    .toString();
+        }
+    }
+}
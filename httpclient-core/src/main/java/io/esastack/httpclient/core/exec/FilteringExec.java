@@ -51,8 +51,44 @@ public class FilteringExec implements Interceptor {
             listener.onFiltersStart(request, ctx0);
         }
 
-        return applyRequestFilters(request, ctx0)
-                .thenCompose(v -> next.proceed(request));
+        if (requestFiltersAbsent) {
+            return next.proceed(request);
+        }
+
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        applyRequestFilters(request, ctx0).whenComplete((v, th) -> {
+            if (th != null) {
+                response.completeExceptionally(th);
+                return;
+            }
+            // Maybe cancelled when applying filters, eg: the loser of hedged requests.
+            if (response.isDone()) {
+                return;
+            }
+
+            final CompletableFuture<HttpResponse> attempt;
+            try {
+                attempt = next.proceed(request);
+            } catch (Throwable ex) {
+                response.completeExceptionally(ex);
+                return;
+            }
+            attempt.whenComplete((rsp, ex) -> {
+                if (ex != null) {
+                    response.completeExceptionally(ex);
+                } else {
+                    response.complete(rsp);
+                }
+            });
+
+            // Propagate the cancellation so that the connection can be released in time.
+            response.whenComplete((rsp, ex) -> {
+                if (response.isCancelled()) {
+                    attempt.cancel(false);
+                }
+            });
+        });
+        return response;
     }
 
     private CompletableFuture<Void> applyRequestFilters(HttpRequest request, FilterContext ctx) {
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exec;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import esa.commons.Checks;
+import esa.commons.logging.Logger;
+import io.esastack.commons.net.http.HttpHeaderNames;
+import io.esastack.commons.net.http.HttpMethod;
+import io.esastack.httpclient.core.Context;
+import io.esastack.httpclient.core.ContextKeys;
+import io.esastack.httpclient.core.HttpRequest;
+import io.esastack.httpclient.core.HttpResponse;
+import io.esastack.httpclient.core.config.HedgeOptions;
+import io.esastack.httpclient.core.util.BufferUtils;
+import io.esastack.httpclient.core.util.Futures;
+import io.esastack.httpclient.core.util.LoggerUtils;
+import io.esastack.httpclient.core.util.Schedulers;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This interceptor is designed to reduce the tail latency caused by a single slow backend. An idempotent
+ * request will be sent again if the first attempt hasn't been responded after a delay, which is the configured
+ * {@link HedgeOptions#delayMillis()} or a percentile of the recent latencies of the same host. The first response
+ * wins and the other attempt will be cancelled, so that its connection or HTTP/2 stream can be released
+ * immediately.
+ * <p>
+ * The number of hedged requests is limited by a budget which is refilled by {@link HedgeOptions#budgetRatio()}
+ * for every request, so that the load of backends won't be doubled when all of them slow down.
+ */
+public class HedgingInterceptor implements Interceptor {
+
+    private static final Logger logger = LoggerUtils.logger();
+
+    private final HedgeOptions options;
+    private final Budget budget;
+    private final Cache<String, LatencyWindow> latencies;
+
+    public HedgingInterceptor(HedgeOptions options) {
+        Checks.checkNotNull(options, "options");
+        this.options = options;
+        this.budget = new Budget(options.budgetRatio(), options.maxBudget());
+        this.latencies = Caffeine.newBuilder()
+                .maximumSize(1024L)
+                .expireAfterAccess(10L, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> proceed(HttpRequest request, ExecChain next) {
+        budget.deposit();
+        if (!isHedgeable(request, next.ctx())) {
+            return next.proceed(request);
+        }
+
+        final LatencyWindow window = options.percentile() > 0.0d
+                ? latencies.get(request.uri().host() + ':' + request.uri().port(), key -> new LatencyWindow())
+                : null;
+        final Hedge hedge = new Hedge(request, next, window);
+        hedge.start(delayMillis(window));
+        return hedge.response;
+    }
+
+    @Override
+    public int getOrder() {
+        return -2000;
+    }
+
+    /**
+     * Whether the given {@code request} can be hedged. Only the idempotent requests whose body can be written
+     * repeatedly and concurrently are allowed.
+     *
+     * @param request request
+     * @param ctx     ctx
+     * @return {@code true} if the request can be hedged, otherwise {@code false}.
+     */
+    protected boolean isHedgeable(HttpRequest request, Context ctx) {
+        if (request.isSegmented() || request.isMultipart() || request.isStream()
+                || (request.buffer() != null && request.buffer().readableBytes() > 0)
+                || request.headers().contains(HttpHeaderNames.EXPECT)
+                || Boolean.TRUE.equals(ctx.attrs().attr(ContextKeys.CUSTOM_HANDLE_KEY).get())) {
+            return false;
+        }
+
+        final HttpMethod method = request.method();
+        return HttpMethod.GET.equals(method)
+                || HttpMethod.HEAD.equals(method)
+                || HttpMethod.OPTIONS.equals(method)
+                || HttpMethod.PUT.equals(method)
+                || HttpMethod.DELETE.equals(method)
+                || HttpMethod.TRACE.equals(method);
+    }
+
+    /**
+     * Schedules the {@code task} to send the hedged request after {@code delayMillis}. The current thread will
+     * never be blocked, the {@code task} is scheduled on current {@link EventExecutor} or on a shared timer if
+     * the current thread isn't an {@link EventExecutor}. The hedged request isn't sent if the client has been
+     * closed before that.
+     *
+     * @param delayMillis delay in milliseconds
+     * @param task        the task to send the hedged request
+     */
+    protected void schedule(long delayMillis, Runnable task) {
+        Schedulers.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether the given {@code response} indicates that the attempt has failed, which won't win while the other
+     * attempt is still in progress.
+     *
+     * @param response response
+     * @return {@code true} if the status is 5xx or 429, otherwise {@code false}.
+     */
+    private static boolean isFailure(HttpResponse response) {
+        return response.status() >= 500 || response.status() == 429;
+    }
+
+    private long delayMillis(LatencyWindow window) {
+        if (window != null) {
+            final long percentile = window.percentileNanos(options.percentile());
+            if (percentile >= 0L) {
+                return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(percentile));
+            }
+        }
+        return options.delayMillis();
+    }
+
+    /**
+     * Designed as package visibility for unit test purpose.
+     *
+     * @return budget
+     */
+    Budget budget() {
+        return budget;
+    }
+
+    private final class Hedge {
+
+        private final HttpRequest request;
+        private final ExecChain next;
+        private final LatencyWindow window;
+        private final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+
+        /**
+         * The number of attempts which haven't ended, no more attempt will be sent once it reaches 0.
+         */
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+        private volatile CompletableFuture<HttpResponse> primary;
+        private volatile CompletableFuture<HttpResponse> hedged;
+
+        /**
+         * The failed response(5xx or 429) of an attempt which is kept while the other one is still in progress,
+         * and it's the result if the other one fails too. Guarded by {@code this}.
+         */
+        private HttpResponse fallback;
+
+        private Hedge(HttpRequest request, ExecChain next, LatencyWindow window) {
+            this.request = request;
+            this.next = next;
+            this.window = window;
+        }
+
+        private void start(long delayMillis) {
+            response.whenComplete((rsp, th) -> {
+                if (response.isCancelled()) {
+                    cancel(primary);
+                    cancel(hedged);
+                    releaseFallback();
+                }
+            });
+
+            final long startNanos = System.nanoTime();
+            final CompletableFuture<HttpResponse> attempt = next.proceed(request);
+            primary = attempt;
+            onAttempt(attempt, startNanos);
+
+            if (!attempt.isDone()) {
+                schedule(delayMillis, this::sendHedged);
+            }
+        }
+
+        private void sendHedged() {
+            if (response.isDone()) {
+                return;
+            }
+            if (!budget.tryAcquire()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Hedge budget is exhausted, skip hedging request: {}", request);
+                }
+                return;
+            }
+            for (;;) {
+                final int current = outstanding.get();
+                if (current == 0) {
+                    // All the attempts have been completed, the hedged request won't be sent.
+                    budget.refund();
+                    return;
+                }
+                if (outstanding.compareAndSet(current, current + 1)) {
+                    break;
+                }
+            }
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Begin to hedge request: {}", request);
+            }
+            final long startNanos = System.nanoTime();
+            final CompletableFuture<HttpResponse> attempt;
+            try {
+                attempt = next.proceed(request);
+            } catch (Throwable th) {
+                onAttemptFailed(th);
+                return;
+            }
+            hedged = attempt;
+            onAttempt(attempt, startNanos);
+            if (response.isDone()) {
+                attempt.cancel(false);
+            }
+        }
+
+        private void onAttempt(CompletableFuture<HttpResponse> attempt, long startNanos) {
+            attempt.whenComplete((rsp, th) -> {
+                if (th == null) {
+                    if (window != null) {
+                        window.record(System.nanoTime() - startNanos);
+                    }
+                    onResponse(attempt, rsp);
+                } else if (!attempt.isCancelled()) {
+                    onAttemptFailed(th);
+                }
+            });
+        }
+
+        private void onResponse(CompletableFuture<HttpResponse> attempt, HttpResponse rsp) {
+            if (isFailure(rsp) && deferFailure(rsp)) {
+                return;
+            }
+
+            // Cancel the loser before completing the response, so that the resources of it can be
+            // released as soon as possible.
+            cancel(attempt == primary ? hedged : primary);
+            if (response.complete(rsp)) {
+                releaseFallback();
+            } else {
+                // Both of the attempts have succeeded, the loser will never be consumed.
+                BufferUtils.tryRelease(rsp);
+            }
+        }
+
+        /**
+         * Keeps the failed response as the fallback if the other attempt is still in progress.
+         *
+         * @param rsp failed response
+         * @return {@code true} if deferred, otherwise {@code false}.
+         */
+        private synchronized boolean deferFailure(HttpResponse rsp) {
+            if (response.isDone()) {
+                return false;
+            }
+            for (;;) {
+                final int current = outstanding.get();
+                if (current <= 1) {
+                    return false;
+                }
+                if (outstanding.compareAndSet(current, current - 1)) {
+                    releaseFallback();
+                    fallback = rsp;
+                    return true;
+                }
+            }
+        }
+
+        private void onAttemptFailed(Throwable cause) {
+            final HttpResponse fallback0;
+            synchronized (this) {
+                // Wait for the other attempt if it's still in progress.
+                if (outstanding.decrementAndGet() != 0) {
+                    return;
+                }
+                fallback0 = fallback;
+                fallback = null;
+            }
+
+            if (fallback0 == null) {
+                response.completeExceptionally(Futures.unwrapped(cause));
+            } else if (!response.complete(fallback0)) {
+                BufferUtils.tryRelease(fallback0);
+            }
+        }
+
+        private synchronized void releaseFallback() {
+            if (fallback != null) {
+                BufferUtils.tryRelease(fallback);
+                fallback = null;
+            }
+        }
+
+        private void cancel(CompletableFuture<HttpResponse> loser) {
+            if (loser != null && !loser.isDone()) {
+                loser.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * A token bucket which is refilled by {@code ratio} for every request and costs 1 token for every hedged
+     * request.
+     */
+    static final class Budget {
+
+        private static final long SCALE = 1000L;
+
+        private final long deposit;
+        private final long max;
+        private final AtomicLong balance;
+
+        Budget(double ratio, int max) {
+            this.deposit = Math.max(1L, (long) (ratio * SCALE));
+            this.max = max * SCALE;
+            this.balance = new AtomicLong(this.max);
+        }
+
+        void deposit() {
+            for (;;) {
+                final long current = balance.get();
+                if (current >= max || balance.compareAndSet(current, Math.min(max, current + deposit))) {
+                    return;
+                }
+            }
+        }
+
+        boolean tryAcquire() {
+            for (;;) {
+                final long current = balance.get();
+                if (current < SCALE) {
+                    return false;
+                }
+                if (balance.compareAndSet(current, current - SCALE)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Gives back the token taken by {@link #tryAcquire()} if the hedged request isn't sent at last.
+         */
+        void refund() {
+            for (;;) {
+                final long current = balance.get();
+                if (current >= max || balance.compareAndSet(current, Math.min(max, current + SCALE))) {
+                    return;
+                }
+            }
+        }
+
+        long balance() {
+            return balance.get() / SCALE;
+        }
+    }
+
+    /**
+     * Recent latencies of a host, the percentile is cached and re-computed every {@link #RECOMPUTE_INTERVAL}
+     * samples.
+     */
+    static final class LatencyWindow {
+
+        static final int CAPACITY = 128;
+        static final int MIN_SAMPLES = 32;
+        private static final int RECOMPUTE_INTERVAL = 16;
+
+        private final AtomicLongArray samples = new AtomicLongArray(CAPACITY);
+        private final AtomicLong count = new AtomicLong();
+        private volatile long cachedAt = -1L;
+        private volatile double cachedPercentile;
+        private volatile long cachedNanos = -1L;
+
+        void record(long nanos) {
+            samples.set((int) (count.getAndIncrement() % CAPACITY), nanos);
+        }
+
+        /**
+         * Obtains the given {@code percentile} of the recent latencies.
+         *
+         * @param percentile percentile
+         * @return latency in nanoseconds, or {@code -1} if there are not enough samples.
+         */
+        long percentileNanos(double percentile) {
+            final long count0 = count.get();
+            if (count0 < MIN_SAMPLES) {
+                return -1L;
+            }
+            if (cachedAt >= 0L && count0 - cachedAt < RECOMPUTE_INTERVAL && cachedPercentile == percentile) {
+                return cachedNanos;
+            }
+
+            final int size = (int) Math.min(count0, CAPACITY);
+            final long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            final long nanos = sorted[Math.min(size - 1, Math.max(0, (int) Math.ceil(percentile * size) - 1))];
+            cachedNanos = nanos;
+            cachedPercentile = percentile;
+            cachedAt = count0;
+            return nanos;
+        }
+    }
+}
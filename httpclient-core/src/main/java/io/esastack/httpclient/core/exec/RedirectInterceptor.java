@@ -30,7 +30,9 @@ import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.httpclient.core.HttpUri;
 import io.esastack.httpclient.core.MultipartFileItem;
+import io.esastack.httpclient.core.StreamBody;
 import io.esastack.httpclient.core.exception.RedirectException;
+import io.esastack.httpclient.core.util.BufferUtils;
 import io.esastack.httpclient.core.util.LoggerUtils;
 
 import java.io.File;
@@ -94,9 +96,20 @@ public class RedirectInterceptor implements Interceptor {
                     return;
                 }
 
+                // The stream has been consumed and can't be sent again to the new location.
+                if (request.isStream() && !cleanBody(rsp.status())) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Redirect is unsupported for stream request, uri: {}, status: {}",
+                                request.uri().toString(), rsp.status());
+                    }
+                    response.complete(rsp);
+                    return;
+                }
+
                 if (hasDirectedCount < maxRedirects) {
                     URI uri = detectURI(request, rsp);
                     HttpRequest request0 = newRequest(request, uri, rsp.status());
+                    BufferUtils.tryRelease(rsp);
 
                     if (logger.isDebugEnabled()) {
                         logger.debug("Begin to redirect from {} to {}, current redirectCount: {}",
@@ -105,6 +118,7 @@ public class RedirectInterceptor implements Interceptor {
 
                     doRedirect(response, request0, next, maxRedirects);
                 } else {
+                    BufferUtils.tryRelease(rsp);
                     response.completeExceptionally(new RedirectException(String
                             .format("Failed to proceed request after maxRedirects: %d", maxRedirects)));
                 }
@@ -151,11 +165,21 @@ public class RedirectInterceptor implements Interceptor {
                 return !cleanBody && super.isMultipart();
             }
 
+            @Override
+            public boolean isStream() {
+                return !cleanBody && super.isStream();
+            }
+
             @Override
             public Buffer buffer() {
                 return cleanBody ? null : super.buffer();
             }
 
+            @Override
+            public StreamBody stream() {
+                return cleanBody ? null : super.stream();
+            }
+
             @Override
             public File file() {
                 return cleanBody ? null : super.file();
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exec;
+
+import io.esastack.httpclient.core.HttpRequest;
+import io.esastack.httpclient.core.HttpResponse;
+
+/**
+ * Computes how long to wait before retrying a {@link HttpRequest}. The wait itself is never performed
+ * by blocking the current thread, see
+ * {@link RetryInterceptor#backOff(java.util.concurrent.CompletableFuture, HttpRequest, int, long, Runnable)}.
+ *
+ * @see RetryBackoffs
+ */
+@FunctionalInterface
+public interface RetryBackoff {
+
+    /**
+     * Obtains the interval in milliseconds to wait before the {@code retryCount}th retry, a non-positive
+     * value means to retry immediately.
+     *
+     * @param retryCount    current retry count, starts from 1
+     * @param previousMs    the interval which has been used before last retry, 0 for the first retry
+     * @param request       request, must not be null
+     * @param response      response of the last attempt, may be null
+     * @param cause         cause of the last attempt, may be null
+     * @return interval in milliseconds
+     */
+    long intervalMs(int retryCount,
+                    long previousMs,
+                    HttpRequest request,
+                    HttpResponse response,
+                    Throwable cause);
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exec;
+
+import esa.commons.Checks;
+import esa.commons.StringUtils;
+import io.esastack.httpclient.core.HttpRequest;
+import io.esastack.httpclient.core.HttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Built-in {@link RetryBackoff}s.
+ */
+public final class RetryBackoffs {
+
+    private RetryBackoffs() {
+    }
+
+    /**
+     * Adapts the given {@code intervalMs} which only cares about the retry count to a {@link RetryBackoff}.
+     *
+     * @param intervalMs function to compute interval by retry count
+     * @return backoff
+     */
+    public static RetryBackoff of(IntToLongFunction intervalMs) {
+        Checks.checkNotNull(intervalMs, "intervalMs");
+        return (retryCount, previousMs, request, response, cause) -> intervalMs.applyAsLong(retryCount);
+    }
+
+    /**
+     * Exponential backoff which doubles the interval for every retry, eg: base, base * 2, base * 4...
+     *
+     * @param baseMs    interval before the first retry
+     * @param maxMs     upper bound of the interval
+     * @return backoff
+     */
+    public static RetryBackoff exponential(long baseMs, long maxMs) {
+        return exponential(baseMs, maxMs, 2.0d);
+    }
+
+    /**
+     * Exponential backoff whose interval is {@code baseMs * multiplier ^ (retryCount - 1)} and never greater
+     * than {@code maxMs}.
+     *
+     * @param baseMs        interval before the first retry
+     * @param maxMs         upper bound of the interval
+     * @param multiplier    multiplier
+     * @return backoff
+     */
+    public static RetryBackoff exponential(long baseMs, long maxMs, double multiplier) {
+        return new ExponentialBackoff(baseMs, maxMs, multiplier);
+    }
+
+    /**
+     * Decorrelated jitter backoff, the interval is a random value between {@code baseMs} and three times
+     * of the previous interval, and never greater than {@code maxMs}. This spreads the retries of
+     * concurrent failed requests so that they won't hit the remote peer at the same time.
+     *
+     * @param baseMs    the minimum interval
+     * @param maxMs     upper bound of the interval
+     * @return backoff
+     */
+    public static RetryBackoff decorrelatedJitter(long baseMs, long maxMs) {
+        return new DecorrelatedJitterBackoff(baseMs, maxMs);
+    }
+
+    /**
+     * Uses the {@code Retry-After} header of the last response as the interval if it's present and valid,
+     * otherwise, falls back to the given {@code fallback}.
+     *
+     * @param fallback  fallback, which may be null
+     * @param maxMs     upper bound of the interval obtained from {@code Retry-After}, non-positive value
+     *                  means unlimited.
+     * @return backoff
+     */
+    public static RetryBackoff retryAfterAware(RetryBackoff fallback, long maxMs) {
+        return new RetryAfterAwareBackoff(fallback, maxMs);
+    }
+
+    /**
+     * Parses the value of {@code Retry-After} header, which may be delay-seconds or a http-date.
+     *
+     * @param value     value
+     * @param nowMs     current time in milliseconds
+     * @return  interval in milliseconds, or -1 if the given value is invalid.
+     */
+    static long parseRetryAfter(String value, long nowMs) {
+        if (StringUtils.isBlank(value)) {
+            return -1L;
+        }
+
+        final String value0 = value.trim();
+        try {
+            return Math.max(0L, Long.parseLong(value0) * 1000L);
+        } catch (NumberFormatException ignore) {
+            // Try to parse as http-date
+        }
+
+        try {
+            final long at = ZonedDateTime.parse(value0, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+            return Math.max(0L, at - nowMs);
+        } catch (DateTimeParseException ex) {
+            return -1L;
+        }
+    }
+
+    private static final class ExponentialBackoff implements RetryBackoff {
+
+        private final long baseMs;
+        private final long maxMs;
+        private final double multiplier;
+
+        private ExponentialBackoff(long baseMs, long maxMs, double multiplier) {
+            Checks.checkArg(baseMs > 0L, "baseMs is " + baseMs + " (expected > 0)");
+            Checks.checkArg(maxMs >= baseMs, "maxMs is " + maxMs + " (expected >= " + baseMs + ")");
+            Checks.checkArg(multiplier >= 1.0d, "multiplier is " + multiplier + " (expected >= 1.0)");
+            this.baseMs = baseMs;
+            this.maxMs = maxMs;
+            this.multiplier = multiplier;
+        }
+
+        @Override
+        public long intervalMs(int retryCount,
+                               long previousMs,
+                               HttpRequest request,
+                               HttpResponse response,
+                               Throwable cause) {
+            final double interval = baseMs * Math.pow(multiplier, Math.max(0, retryCount - 1));
+            return interval >= maxMs ? maxMs : (long) interval;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", ExponentialBackoff.class.getSimpleName() + "[", "]")
+                    .add("baseMs=" + baseMs)
+                    .add("maxMs=" + maxMs)
+                    .add("multiplier=" + multiplier)
+                    .toString();
+        }
+    }
+
+    private static final class DecorrelatedJitterBackoff implements RetryBackoff {
+
+        private final long baseMs;
+        private final long maxMs;
+
+        private DecorrelatedJitterBackoff(long baseMs, long maxMs) {
+            Checks.checkArg(baseMs > 0L, "baseMs is " + baseMs + " (expected > 0)");
+            Checks.checkArg(maxMs >= baseMs, "maxMs is " + maxMs + " (expected >= " + baseMs + ")");
+            this.baseMs = baseMs;
+            this.maxMs = maxMs;
+        }
+
+        @Override
+        public long intervalMs(int retryCount,
+                               long previousMs,
+                               HttpRequest request,
+                               HttpResponse response,
+                               Throwable cause) {
+            final long upper = Math.min(maxMs, Math.max(baseMs, previousMs) * 3L);
+            if (upper <= baseMs) {
+                return baseMs;
+            }
+            return ThreadLocalRandom.current().nextLong(baseMs, upper + 1L);
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", DecorrelatedJitterBackoff.class.getSimpleName() + "[", "]")
+                    .add("baseMs=" + baseMs)
+                    .add("maxMs=" + maxMs)
+                    .toString();
+        }
+    }
+
+    private static final class RetryAfterAwareBackoff implements RetryBackoff {
+
+        private final RetryBackoff fallback;
+        private final long maxMs;
+
+        private RetryAfterAwareBackoff(RetryBackoff fallback, long maxMs) {
+            this.fallback = fallback;
+            this.maxMs = maxMs;
+        }
+
+        @Override
+        public long intervalMs(int retryCount,
+                               long previousMs,
+                               HttpRequest request,
+                               HttpResponse response,
+                               Throwable cause) {
+            if (response != null) {
+                final long retryAfter = parseRetryAfter(response.headers().get(HttpHeaderNames.RETRY_AFTER),
+                        System.currentTimeMillis());
+                if (retryAfter >= 0L) {
+                    return maxMs > 0L ? Math.min(maxMs, retryAfter) : retryAfter;
+                }
+            }
+
+            return fallback == null ? 0L : fallback.intervalMs(retryCount, previousMs, request, response, cause);
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", RetryAfterAwareBackoff.class.getSimpleName() + "[", "]")
+                    .add("fallback=" + fallback)
+                    .add("maxMs=" + maxMs)
+                    .toString();
+        }
+    }
+}
@@ -21,25 +21,38 @@ import esa.commons.collection.AttributeKey;
 import esa.commons.logging.Logger;
 import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
+import io.esastack.httpclient.core.config.RetryOptions;
 import io.esastack.httpclient.core.exception.RetryException;
+import io.esastack.httpclient.core.util.BufferUtils;
 import io.esastack.httpclient.core.util.Futures;
 import io.esastack.httpclient.core.util.LoggerUtils;
+import io.esastack.httpclient.core.util.Schedulers;
+import io.netty.util.concurrent.EventExecutor;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.IntToLongFunction;
 
 public class RetryInterceptor implements Interceptor {
 
     static final AttributeKey<Integer> HAS_RETRIED_COUNT = AttributeKey.valueOf("$retried.count");
+    static final AttributeKey<Long> LAST_INTERVAL_MS = AttributeKey.valueOf("$retry.lastIntervalMs");
     private static final Logger logger = LoggerUtils.logger();
 
     private final RetryPredicate predicate;
-    private final IntToLongFunction intervalMs;
+    private final RetryBackoff backoff;
 
     public RetryInterceptor(RetryPredicate predicate, IntToLongFunction intervalMs) {
         Checks.checkNotNull(predicate, "predicate");
         this.predicate = predicate;
-        this.intervalMs = intervalMs;
+        this.backoff = intervalMs == null ? null : RetryBackoffs.of(intervalMs);
+    }
+
+    public RetryInterceptor(RetryOptions options) {
+        Checks.checkNotNull(options, "options");
+        Checks.checkNotNull(options.predicate(), "predicate");
+        this.predicate = options.predicate();
+        this.backoff = options.backoff();
     }
 
     @Override
@@ -60,6 +73,14 @@ public class RetryInterceptor implements Interceptor {
             }
             return next.proceed(request);
         }
+        if (request.isStream()) {
+            // The stream can't be read repeatedly.
+            if (logger.isDebugEnabled()) {
+                logger.debug("Retry is unsupported for stream request, uri: {}, maxRetries: {}",
+                        request.uri().toString(), maxRetries);
+            }
+            return next.proceed(request);
+        }
 
         final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
         doRetry(response, request, next, maxRetries);
@@ -98,22 +119,29 @@ public class RetryInterceptor implements Interceptor {
                 }
 
                 if (hasRetriedCount < maxRetries) {
-                    if (intervalMs != null) {
+                    final int retryCount = hasRetriedCount + 1;
+                    final Runnable retry = () -> {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Begin to retry request: {}, current retryCount: {}",
+                                    request, retryCount);
+                        }
                         try {
-                            backOff(request, hasRetriedCount + 1, intervalMs);
-                        } catch (InterruptedException ex) {
-                            response.completeExceptionally(new RetryException("Interrupted during retry interval",
-                                    ex));
+                            doRetry(response, request, next, maxRetries);
+                        } catch (Throwable ex) {
+                            response.completeExceptionally(
+                                    new RetryException("Unexpected exception occurred when retrying", ex));
                         }
-                    }
+                    };
 
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Begin to retry request: {}, current retryCount: {}",
-                                request, hasRetriedCount + 1);
+                    final long interval = intervalMs(request, rsp, next, retryCount, th);
+                    BufferUtils.tryRelease(rsp);
+                    if (interval > 0L) {
+                        backOff(response, request, retryCount, interval, retry);
+                    } else {
+                        retry.run();
                     }
-
-                    doRetry(response, request, next, maxRetries);
                 } else {
+                    BufferUtils.tryRelease(rsp);
                     final String msg = String
                             .format("Failed to proceed request: " + request.uri().netURI().toString() +
                                     " after maxRetries: %d", maxRetries);
@@ -129,17 +157,48 @@ public class RetryInterceptor implements Interceptor {
         });
     }
 
-    protected void backOff(HttpRequest request, int retryCount, IntToLongFunction intervalMs)
-            throws InterruptedException {
-        long interval = intervalMs.applyAsLong(retryCount);
-        if (interval <= 0L) {
-            return;
+    /**
+     * Backs off {@code intervalMs} and then runs the {@code retry}. The current thread will never be
+     * blocked, the {@code retry} is scheduled on current {@link EventExecutor} (usually the IO-Thread
+     * which has completed the last attempt) or on a shared timer if the current thread isn't an
+     * {@link EventExecutor}. The {@code response} completes exceptionally without retrying if the client
+     * has been closed while backing off.
+     *
+     * @param response      response
+     * @param request       request
+     * @param retryCount    retry count
+     * @param intervalMs    interval in milliseconds, which must be positive
+     * @param retry         the task to retry
+     */
+    protected void backOff(CompletableFuture<HttpResponse> response,
+                           HttpRequest request,
+                           int retryCount,
+                           long intervalMs,
+                           Runnable retry) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Begin to back off {}ms before retrying request: {}, retryCount: {}",
+                    intervalMs, request, retryCount);
         }
 
-        if (logger.isDebugEnabled()) {
-            logger.debug("Begin to back off before retrying request: {}, retryCount: {}", request, retryCount);
+        Schedulers.schedule(retry, cause -> response.completeExceptionally(
+                new RetryException("Failed to retry request: " + request.uri().netURI().toString(), cause)),
+                intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private long intervalMs(HttpRequest request,
+                            HttpResponse response,
+                            ExecChain next,
+                            int retryCount,
+                            Throwable cause) {
+        if (backoff == null) {
+            return 0L;
         }
-        Thread.sleep(interval);
+
+        final Attribute<Long> lastAttr = next.ctx().attrs().attr(LAST_INTERVAL_MS);
+        final long interval = backoff.intervalMs(retryCount, lastAttr.getOrDefault(0L), request, response,
+                cause == null ? null : Futures.unwrapped(cause));
+        lastAttr.set(Math.max(0L, interval));
+        return interval;
     }
 
 }
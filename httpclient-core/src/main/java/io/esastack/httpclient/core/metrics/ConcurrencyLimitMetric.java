@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.metrics;
+
+public interface ConcurrencyLimitMetric {
+
+    /**
+     * Obtains current limit of in-flight requests.
+     *
+     * @return limit
+     */
+    int limit();
+
+    /**
+     * Obtains the number of in-flight requests.
+     *
+     * @return in-flight count
+     */
+    int inflight();
+
+    /**
+     * Obtains the number of requests which are waiting for the limit.
+     *
+     * @return queue depth
+     */
+    int queued();
+
+    /**
+     * Obtains the number of requests which have been rejected because of the limit.
+     *
+     * @return rejected count
+     */
+    long rejectedCount();
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.metrics;
+
+import java.net.SocketAddress;
+import java.util.Map;
+
+public interface ConcurrencyLimitMetricProvider {
+
+    /**
+     * Obtains all {@link ConcurrencyLimitMetric}s
+     *
+     * @return metrics, must be not null
+     */
+    Map<SocketAddress, ConcurrencyLimitMetric> all();
+
+    /**
+     * Obtains {@link ConcurrencyLimitMetric} of specified {@link SocketAddress}
+     *
+     * @param address address
+     * @return metric
+     */
+    default ConcurrencyLimitMetric get(SocketAddress address) {
+        return all().get(address);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.metrics;
+
+public interface DnsCacheMetric {
+
+    /**
+     * Obtains the number of resolutions which are served by cached addresses.
+     *
+     * @return hit count
+     */
+    long hitCount();
+
+    /**
+     * Obtains the number of resolutions which are served by cached failures, eg: NXDOMAIN.
+     *
+     * @return negative hit count
+     */
+    long negativeHitCount();
+
+    /**
+     * Obtains the number of resolutions which have to query the name servers.
+     *
+     * @return miss count
+     */
+    long missCount();
+
+    /**
+     * Obtains the number of queries which are sent to refresh popular entries ahead of expiry.
+     *
+     * @return prefetch count
+     */
+    long prefetchCount();
+
+    /**
+     * Obtains the number of cached entries, including the expired ones which haven't been evicted yet.
+     *
+     * @return size
+     */
+    int size();
+
+}
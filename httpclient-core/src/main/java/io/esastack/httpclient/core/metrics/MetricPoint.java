@@ -15,6 +15,8 @@
  */
 package io.esastack.httpclient.core.metrics;
 
+import java.util.Collections;
+
 public interface MetricPoint {
 
     ConnectionPoolMetricProvider connectionPoolMetric();
@@ -23,4 +25,14 @@ public interface MetricPoint {
 
     CallbackExecutorMetric callbackExecutorMetric();
 
+    /**
+     * Obtains the metrics of concurrency limits of remote endpoints, which is empty when the concurrency
+     * limit isn't enabled.
+     *
+     * @return provider, must be not null
+     */
+    default ConcurrencyLimitMetricProvider concurrencyLimitMetric() {
+        return Collections::emptyMap;
+    }
+
 }
@@ -20,13 +20,11 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.RemovalListener;
 import esa.commons.Checks;
-import esa.commons.reflect.BeanUtils;
 import io.esastack.httpclient.core.config.CacheOptions;
 import io.esastack.httpclient.core.config.ChannelPoolOptions;
 import io.esastack.httpclient.core.metrics.ConnectionPoolMetric;
 import io.esastack.httpclient.core.metrics.ConnectionPoolMetricProvider;
 import io.esastack.httpclient.core.util.LoggerUtils;
-import io.netty.channel.pool.FixedChannelPool;
 import io.netty.channel.pool.SimpleChannelPool;
 import io.netty.util.concurrent.Future;
 
@@ -37,7 +35,6 @@ import java.util.Map;
 import java.util.StringJoiner;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static io.esastack.httpclient.core.netty.Utils.CLOSE_CONNECTION_POOL_SCHEDULER;
@@ -201,32 +198,34 @@ public class CachedChannelPools implements ConnectionPoolMetricProvider {
 
     private static class ChannelPoolMetricImpl implements ConnectionPoolMetric {
 
-        private final FixedChannelPool channelPool;
+        private final MeasurableChannelPool channelPool;
         private final ChannelPoolOptions options;
 
         private ChannelPoolMetricImpl(ChannelPool channelPool) {
-            this.channelPool = (FixedChannelPool) channelPool.underlying;
+            // Short-connection pools are not measurable, and they are never cached.
+            this.channelPool = channelPool.underlying instanceof MeasurableChannelPool
+                    ? (MeasurableChannelPool) channelPool.underlying : null;
             this.options = channelPool.options;
         }
 
         @Override
         public int maxSize() {
-            return (int) BeanUtils.getFieldValue(channelPool, "maxConnections");
+            return channelPool == null ? 0 : channelPool.maxConnections();
         }
 
         @Override
         public int maxPendingAcquires() {
-            return (int) BeanUtils.getFieldValue(channelPool, "maxPendingAcquires");
+            return channelPool == null ? 0 : channelPool.maxPendingAcquires();
         }
 
         @Override
         public int active() {
-            return ((AtomicInteger) BeanUtils.getFieldValue(channelPool, "acquiredChannelCount")).intValue();
+            return channelPool == null ? 0 : channelPool.acquiredCount();
         }
 
         @Override
         public int pendingAcquireCount() {
-            return (int) BeanUtils.getFieldValue(channelPool, "pendingAcquireCount");
+            return channelPool == null ? 0 : channelPool.pendingAcquireCount();
         }
 
         @Override
@@ -257,7 +257,8 @@ final class ChannelInitializer {
 
         HandleRegistry registry = new HandleRegistry(1, 0);
         pipeline.addLast(new Http1ChannelHandler(registry,
-                this.builder.maxContentLength()));
+                this.builder.maxContentLength(),
+                http1Options == null ? 1 : http1Options.maxPipelinedRequests()));
     }
 
     private void addH2Handlers(ChannelPipeline pipeline,
@@ -16,6 +16,7 @@
 package io.esastack.httpclient.core.netty;
 
 import esa.commons.Checks;
+import io.esastack.commons.net.http.HttpVersion;
 import io.esastack.httpclient.core.HttpClientBuilder;
 import io.esastack.httpclient.core.Scheme;
 import io.esastack.httpclient.core.config.ChannelPoolOptions;
@@ -35,7 +36,6 @@ import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.pool.AbstractChannelPoolHandler;
 import io.netty.channel.pool.ChannelHealthChecker;
 import io.netty.channel.pool.ChannelPoolHandler;
-import io.netty.channel.pool.FixedChannelPool;
 import io.netty.channel.pool.SimpleChannelPool;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.ssl.SslHandler;
@@ -71,13 +71,37 @@ final class ChannelPoolFactory {
                        EventLoopGroup ioThreads,
                        ChannelPoolOptions options,
                        HttpClientBuilder builder) {
-        final Bootstrap bootstrap = buildBootstrap(address,
+        final io.netty.channel.pool.ChannelPool underlying;
+        if (keepAlive && builder.addressSelector() != null && MultiAddressChannelPool.isApplicable(address)) {
+            LoggerUtils.logger().info("Begin to create a new multi-address connection pool, address: {}, " +
+                    "selector: {}, options: {}", address, builder.addressSelector(), options);
+            underlying = new MultiAddressChannelPool((InetSocketAddress) address,
+                    builder.resolver(),
+                    builder.addressSelector(),
+                    ioThreads,
+                    resolved -> (MeasurableChannelPool) createUnderlying(ssl, true, address, resolved,
+                            ioThreads, options, builder));
+        } else {
+            underlying = createUnderlying(ssl, keepAlive, address, address, ioThreads, options, builder);
+        }
+
+        return new ChannelPool(ssl, underlying, options);
+    }
+
+    private io.netty.channel.pool.ChannelPool createUnderlying(boolean ssl,
+                                                               boolean keepAlive,
+                                                               SocketAddress address,
+                                                               SocketAddress connectAddress,
+                                                               EventLoopGroup ioThreads,
+                                                               ChannelPoolOptions options,
+                                                               HttpClientBuilder builder) {
+        final Bootstrap bootstrap = buildBootstrap(connectAddress,
                 ioThreads,
                 builder.netOptions(),
                 options.connectTimeout(),
                 builder.resolver());
 
-        NETTY_CONFIGURE.onBootstrapCreated(address, bootstrap);
+        NETTY_CONFIGURE.onBootstrapCreated(connectAddress, bootstrap);
 
         final ChannelPoolHandler handler = new AbstractChannelPoolHandler() {
             @Override
@@ -96,25 +120,29 @@ final class ChannelPoolFactory {
             sslHandler = () -> buildSslHandler(options.connectTimeout(), address, builder.sslOptions());
         }
         final ChannelInitializer initializer = new ChannelInitializer(ssl, sslHandler, builder);
-        final io.netty.channel.pool.ChannelPool underlying;
-        if (keepAlive) {
+        if (keepAlive && HttpVersion.HTTP_2 == builder.version()) {
+            LoggerUtils.logger().info("Begin to create a new http2 connection pool, address: {}, options: {}",
+                    connectAddress, options);
+            return new Http2ChannelPool(bootstrap,
+                    handler,
+                    initializer,
+                    options.connectTimeout(),
+                    options.poolSize(),
+                    options.waitingQueueLength());
+        } else if (keepAlive) {
             LoggerUtils.logger().info("Begin to create a new connection pool, address: {}, options: {}",
-                    address, options);
-            underlying = new ChannelPoolImpl(bootstrap,
+                    connectAddress, options);
+            return new Http1ChannelPool(bootstrap,
                     handler,
                     initializer,
-                    ChannelHealthChecker.ACTIVE,
-                    FixedChannelPool.AcquireTimeoutAction.FAIL,
                     options.connectTimeout(),
                     options.poolSize(),
                     options.waitingQueueLength());
         } else {
             LoggerUtils.logger().debug("Begin to create a new connection pool, address: {}, options: {}",
-                    address, options);
-            underlying = new DirectConnectAndCloseChannelPool(bootstrap, handler, initializer);
+                    connectAddress, options);
+            return new DirectConnectAndCloseChannelPool(bootstrap, handler, initializer);
         }
-
-        return new ChannelPool(ssl, underlying, options);
     }
 
     private SslHandler buildSslHandler(int connectTimeout, SocketAddress address, SslOptions sslOptions) {
@@ -201,29 +229,6 @@ final class ChannelPoolFactory {
         }
     }
 
-    private static final class ChannelPoolImpl extends FixedChannelPool {
-
-        private final ChannelInitializer initializer;
-
-        private ChannelPoolImpl(Bootstrap bootstrap,
-                                io.netty.channel.pool.ChannelPoolHandler handler,
-                                ChannelInitializer initializer,
-                                ChannelHealthChecker healthCheck,
-                                AcquireTimeoutAction action,
-                                final long acquireTimeoutMillis,
-                                int maxConnections,
-                                int maxPendingAcquires) {
-            super(bootstrap, handler, healthCheck, action,
-                    acquireTimeoutMillis, maxConnections, maxPendingAcquires);
-            this.initializer = initializer;
-        }
-
-        @Override
-        protected ChannelFuture connectChannel(Bootstrap bs) {
-            return initializer.onConnected(super.connectChannel(bs));
-        }
-    }
-
     private static final class DirectConnectAndCloseChannelPool extends SimpleChannelPool {
 
         private final ChannelInitializer initializer;
@@ -16,13 +16,16 @@
 package io.esastack.httpclient.core.netty;
 
 import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpHeaders;
 import io.esastack.commons.net.netty.buffer.BufferImpl;
 import io.esastack.httpclient.core.Handle;
 import io.esastack.httpclient.core.util.BufferUtils;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.util.internal.SystemPropertyUtil;
 
 import java.util.function.Consumer;
 
@@ -32,35 +35,126 @@ class DefaultHandle extends HandleImpl {
 
     private static final int MAX_COMPOSITE_BUFFER_COMPONENTS = 1024;
 
-    private CompositeByteBuf body;
+    /**
+     * The max {@code Content-Length} to stage the body in a single buffer, the larger one will be staged in a
+     * {@link CompositeByteBuf}.
+     */
+    private static final int MAX_PRESIZED_CAPACITY = SystemPropertyUtil.getInt(
+            "io.esastack.httpclient.maxPresizedBodyCapacity", 16 * 1024 * 1024);
+
+    /**
+     * The min number of bytes to allocate in advance, the buffer will grow up to the {@code Content-Length} as
+     * the content arrives, so that the memory can't be exhausted by a huge {@code Content-Length} which is
+     * merely claimed by the remote peer.
+     */
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private final ByteBufAllocator alloc;
+    private final boolean pooled;
+
+    /**
+     * The staged body, which is either a {@link CompositeByteBuf} of the received contents or a buffer whose
+     * capacity is limited by the {@code Content-Length}.
+     */
+    private ByteBuf body;
 
     DefaultHandle(ByteBufAllocator alloc) {
+        this(alloc, false);
+    }
+
+    /**
+     * Creates a handle which aggregates the inbound message.
+     *
+     * @param alloc  allocator
+     * @param pooled whether to hand the aggregated body to the response as a pooled buffer without copying, in
+     *               which case the body must be released by the one who consumes the response, otherwise it'll
+     *               be copied to an unpooled heap buffer.
+     */
+    DefaultHandle(ByteBufAllocator alloc, boolean pooled) {
         super(new NettyResponse(true));
+        this.alloc = alloc;
+        this.pooled = pooled;
 
         this.data = (d) -> {
             if (d.readableBytes() > 0) {
+                final ByteBuf content = BufferUtils.toByteBuf(d);
                 if (body == null) {
-                    body = alloc.compositeBuffer(MAX_COMPOSITE_BUFFER_COMPONENTS);
+                    body = newBody(content.readableBytes());
+                }
+                if (body instanceof CompositeByteBuf) {
+                    ((CompositeByteBuf) body).addComponent(true, content.retain());
+                } else {
+                    ensureWritable(content.readableBytes());
+                    body.writeBytes(content);
                 }
-                body.addComponent(true, BufferUtils.toByteBuf(d).retain());
             }
         };
 
         this.end = (v) -> {
             if (body == null) {
                 super.underlying.body(Buffer.defaultAlloc().empty());
+            } else if (pooled || !(body instanceof CompositeByteBuf)) {
+                // Hand over the staged body directly, the pre-sized heap buffer of non-pooled mode needn't be
+                // released either.
+                super.underlying.body(new BufferImpl(body));
+                body = null;
             } else {
                 super.underlying.body(new BufferImpl(Unpooled.copiedBuffer(body)));
             }
 
             // Try to release the staged body.
             tryRelease(body);
+            body = null;
         };
 
         this.trailers = (trailers) -> trailers().add(trailers);
 
         // Try to release the staged body.
-        this.error = (th) -> tryRelease(body);
+        this.error = (th) -> {
+            tryRelease(body);
+            body = null;
+        };
+    }
+
+    private ByteBuf newBody(int firstChunk) {
+        final long contentLength = contentLength();
+        if (contentLength > 0L && contentLength <= MAX_PRESIZED_CAPACITY) {
+            // The content will be written to this buffer which grows up to the Content-Length at most, so that the
+            // heap buffer of non-pooled mode is finally backed by an array which has the exact length of content,
+            // and it can be decoded without copying any more.
+            final int initialCapacity = (int) Math.min(contentLength, Math.max(firstChunk, INITIAL_CAPACITY));
+            return newBuffer(initialCapacity, (int) contentLength);
+        }
+        return alloc.compositeBuffer(MAX_COMPOSITE_BUFFER_COMPONENTS);
+    }
+
+    private void ensureWritable(int bytes) {
+        if (body.maxWritableBytes() >= bytes) {
+            return;
+        }
+
+        // More content than the Content-Length, which is unexpected but tolerated.
+        final ByteBuf expanded = newBuffer(body.readableBytes() + bytes, Integer.MAX_VALUE);
+        expanded.writeBytes(body);
+        tryRelease(body);
+        body = expanded;
+    }
+
+    private ByteBuf newBuffer(int initialCapacity, int maxCapacity) {
+        return pooled ? alloc.buffer(initialCapacity, maxCapacity) : Unpooled.buffer(initialCapacity, maxCapacity);
+    }
+
+    private long contentLength() {
+        final HttpHeaders headers = underlying.headers();
+        final String value = headers == null ? null : headers.get(HttpHeaderNames.CONTENT_LENGTH);
+        if (value == null) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ignored) {
+            return -1L;
+        }
     }
 
     @Override
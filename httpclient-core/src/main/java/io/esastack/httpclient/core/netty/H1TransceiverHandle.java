@@ -15,7 +15,9 @@
  */
 package io.esastack.httpclient.core.netty;
 
+import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpHeaderValues;
+import io.esastack.commons.net.http.HttpMethod;
 import io.esastack.commons.net.http.HttpVersion;
 import io.esastack.httpclient.core.Context;
 import io.esastack.httpclient.core.HttpRequest;
@@ -47,6 +49,27 @@ class H1TransceiverHandle extends TransceiverHandle {
         return requestId;
     }
 
+    /**
+     * Whether the given {@code request} can be pipelined, only the requests with idempotent methods and without
+     * {@code Expect} header can be written to a connection on which any response is outstanding.
+     *
+     * @param request request
+     * @return {@code true} if the {@code request} can be pipelined, otherwise {@code false}.
+     */
+    static boolean isPipelinable(HttpRequest request) {
+        if (request.headers().contains(HttpHeaderNames.EXPECT)) {
+            return false;
+        }
+
+        final HttpMethod method = request.method();
+        return HttpMethod.GET.equals(method)
+                || HttpMethod.HEAD.equals(method)
+                || HttpMethod.OPTIONS.equals(method)
+                || HttpMethod.PUT.equals(method)
+                || HttpMethod.DELETE.equals(method)
+                || HttpMethod.TRACE.equals(method);
+    }
+
     private static class H1Listener extends TimeoutHandle {
         private final AtomicBoolean released = new AtomicBoolean();
         private final ChannelPool channelPool;
@@ -75,6 +98,20 @@ class H1TransceiverHandle extends TransceiverHandle {
             super.onCompleted(request, ctx, response);
         }
 
+        @Override
+        public void onWriteDone(HttpRequest request, Context ctx) {
+            super.onWriteDone(request, ctx);
+
+            // Release the connection in advance so that the subsequent requests can be pipelined, while the
+            // non-idempotent ones hold the connection until they end.
+            if (HttpVersion.HTTP_1_1 == version
+                    && isPipelinable(request)
+                    && ((Http1ChannelHandler) channel.pipeline().last()).isPipelinable()
+                    && released.compareAndSet(false, true)) {
+                channelPool.release(channel);
+            }
+        }
+
         @Override
         public void onError(HttpRequest request, Context ctx, Throwable cause) {
             if (released.compareAndSet(false, true)) {
@@ -85,13 +122,13 @@ class H1TransceiverHandle extends TransceiverHandle {
         }
 
         private static boolean closeNow(HttpResponse response, HttpVersion version) {
-            if (response.headers().contains(io.esastack.commons.net.http.HttpHeaderNames.CONNECTION,
+            if (response.headers().contains(HttpHeaderNames.CONNECTION,
                     HttpHeaderValues.CLOSE, true)) {
                 return true;
             }
 
             return !(HttpVersion.HTTP_1_1 == version ||
-                    response.headers().contains(io.esastack.commons.net.http.HttpHeaderNames.CONNECTION,
+                    response.headers().contains(HttpHeaderNames.CONNECTION,
                             HttpHeaderValues.KEEP_ALIVE, true));
         }
     }
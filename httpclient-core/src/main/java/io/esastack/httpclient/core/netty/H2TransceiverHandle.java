@@ -62,21 +62,11 @@ class H2TransceiverHandle extends TransceiverHandle {
             this.channel = channel;
         }
 
-        @Override
-        public void onWriteDone(HttpRequest request, Context ctx) {
-            if (released.compareAndSet(false, true)) {
-                channelPool.release(channel);
-            }
-
-            super.onWriteDone(request, ctx);
-        }
-
         @Override
         public void onCompleted(HttpRequest request, Context ctx, HttpResponse response) {
-            // see https://github.com/esastack/esa-httpclient/issues/111
-            // if we send a request with 100-continue and the remote server send a 413 or 417
-            // frame then the request will be ended but the onWriteDone() or onError() haven't
-            // been invoked before. In this case, we must release connection here.
+            // The stream is active until the response has ended, so we release it to the
+            // Http2ChannelPool here instead of in onWriteDone(), otherwise the pool won't
+            // know how many streams are in flight on the connection.
             if (released.compareAndSet(false, true)) {
                 channelPool.release(channel);
             }
@@ -35,6 +35,19 @@ public class HandleImpl implements Handle {
 
     volatile Consumer<Void> start;
 
+    /**
+     * Whether the size of the content is limited by the {@code maxContentLength}, see
+     * {@link Handler#isContentLengthLimited()}.
+     */
+    boolean contentLengthLimited = true;
+
+    /**
+     * The {@link ResponseHandle} which drives this handle, and the demand requested before that is kept in
+     * {@link #requested}, which is {@code -1} if the content hasn't been requested.
+     */
+    private volatile ResponseHandle bound;
+    private long requested = -1L;
+
     public HandleImpl(NettyResponse underlying) {
         Checks.checkNotNull(underlying, "underlying");
         this.underlying = underlying;
@@ -49,6 +62,8 @@ public class HandleImpl implements Handle {
         this.trailers = handler::onTrailers;
         this.end = (v) -> handler.onEnd();
         this.error = handler::onError;
+        this.contentLengthLimited = handler.isContentLengthLimited();
+        handler.onSubscribe(this::request);
     }
 
     public HandleImpl(NettyResponse underlying, Consumer<Handle> handle0) {
@@ -88,6 +103,33 @@ public class HandleImpl implements Handle {
         return this;
     }
 
+    @Override
+    public Handle request(long n) {
+        Checks.checkArg(n > 0L, "n must be > 0");
+        ResponseHandle bound0 = bound;
+        if (bound0 == null) {
+            synchronized (this) {
+                if ((bound0 = bound) == null) {
+                    requested = ResponseHandle.addDemand(Math.max(requested, 0L), n);
+                    return this;
+                }
+            }
+        }
+        bound0.request(n);
+        return this;
+    }
+
+    /**
+     * Binds this handle to the given {@link ResponseHandle} and returns the demand requested before.
+     *
+     * @param handle handle
+     * @return the demand requested before, which is {@code -1} if the content hasn't been requested
+     */
+    synchronized long bind(ResponseHandle handle) {
+        this.bound = handle;
+        return requested;
+    }
+
     @Override
     public Buffer body() {
         return underlying.body();
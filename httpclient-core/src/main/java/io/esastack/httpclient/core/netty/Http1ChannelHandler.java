@@ -35,36 +35,63 @@ import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.LastHttpContent;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
+
 import static io.esastack.httpclient.core.netty.Utils.handleIdleEvt;
 
 class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
 
     private final HandleRegistry registry;
     private final long maxContentLength;
+    private final int maxPipelinedRequests;
     private volatile ChannelHandlerContext ctx;
     private volatile Channel channel;
+    private volatile ReadController readController;
 
+    /**
+     * The id of the request whose response is being read.
+     */
     private int reusableRequestId;
     private boolean continue100Received;
     private long remaining = -1L;
 
+    /**
+     * The ids of the requests which have been written after {@link #reusableRequestId} in pipelining mode, the
+     * responses arrive in the same order, which is only accessed in the event loop.
+     */
+    private final Queue<Integer> pipelinedRequestIds;
+
+    /**
+     * Whether a response is outstanding in pipelining mode, which is only modified in the event loop.
+     */
+    private volatile boolean reading;
+
     Http1ChannelHandler(HandleRegistry registry, long maxContentLength) {
+        this(registry, maxContentLength, 1);
+    }
+
+    Http1ChannelHandler(HandleRegistry registry, long maxContentLength, int maxPipelinedRequests) {
         Checks.checkNotNull(registry, "registry");
+        Checks.checkArg(maxPipelinedRequests > 0, "maxPipelinedRequests must be > 0");
         this.registry = registry;
         this.maxContentLength = maxContentLength;
+        this.maxPipelinedRequests = maxPipelinedRequests;
+        this.pipelinedRequestIds = maxPipelinedRequests > 1 ? new ArrayDeque<>(maxPipelinedRequests) : null;
     }
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
         this.channel = ctx.channel();
+        this.readController = new AutoReadController();
         super.handlerAdded(ctx);
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         try {
-            onError(cause, true);
+            onErrorAll(cause, true);
         } finally {
             ctx.close();
         }
@@ -72,7 +99,7 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
-        onError(new ClosedConnectionException("Connection: " + ctx.channel() + " inactive"), false);
+        onErrorAll(new ClosedConnectionException("Connection: " + ctx.channel() + " inactive"), false);
     }
 
     @Override
@@ -100,6 +127,10 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
                 LoggerUtils.logger().debug("There is no handler to handle inbound object, size: {}" +
                         " connection: {}", size, ctx.channel());
             }
+            // The response of the next pipelined request follows.
+            if (msg instanceof LastHttpContent) {
+                nextRequest();
+            }
             return;
         }
 
@@ -124,6 +155,7 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
             if (LastHttpContent.EMPTY_LAST_CONTENT == msg) {
                 handle.onEnd();
                 registry.remove(reusableRequestId);
+                nextRequest();
                 return;
             }
 
@@ -151,6 +183,9 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
                 if (exceeded) {
                     String errMsg = String.format("Content length exceeded %d bytes", maxContentLength);
                     onError(new ContentOverSizedException(errMsg), true);
+                    if (msg instanceof LastHttpContent) {
+                        nextRequest();
+                    }
                     return;
                 }
 
@@ -164,6 +199,7 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
                 }
                 handle.onEnd();
                 registry.remove(reusableRequestId);
+                nextRequest();
             }
         } else {
             ctx.fireChannelRead(msg);
@@ -174,12 +210,86 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
         Utils.handleH1ChannelEx(registry, ctx.channel(), reusableRequestId, cause, enableLog);
     }
 
+    /**
+     * Ends current request and all the pipelined requests exceptionally, which is used when the connection
+     * can't be used any more.
+     *
+     * @param cause     cause
+     * @param enableLog enableLog
+     */
+    private void onErrorAll(Throwable cause, boolean enableLog) {
+        onError(cause, enableLog);
+        if (pipelinedRequestIds != null) {
+            Integer requestId;
+            while ((requestId = pipelinedRequestIds.poll()) != null) {
+                Utils.handleH1ChannelEx(registry, ctx.channel(), requestId, cause, false);
+            }
+            if (reading) {
+                reading = false;
+                Http1ChannelPool.onResponsesDrained(ctx.channel());
+            }
+        }
+    }
+
     void updateRequestId(int requestId) {
-        Utils.runInChannel(ctx.channel(), () -> {
-            this.reusableRequestId = requestId;
-            this.continue100Received = false;
-            this.remaining = -1L;
-        });
+        if (pipelinedRequestIds != null) {
+            Utils.runInChannel(ctx.channel(), () -> {
+                if (reading) {
+                    pipelinedRequestIds.offer(requestId);
+                    // The current response mustn't block the reading of the following ones.
+                    if (!channel.config().isAutoRead()) {
+                        channel.config().setAutoRead(true);
+                    }
+                } else {
+                    reading = true;
+                    resetRequestId(requestId);
+                }
+            });
+            return;
+        }
+
+        Utils.runInChannel(ctx.channel(), () -> resetRequestId(requestId));
+    }
+
+    /**
+     * Whether another request can be written to current connection before the responses of the in-flight
+     * ones have been received. It must be invoked in the event loop.
+     *
+     * @return {@code true} if the number of in-flight requests hasn't reached the limit of pipelining.
+     */
+    boolean isPipelinable() {
+        return pipelinedRequestIds != null
+                && (reading ? pipelinedRequestIds.size() + 1 : 0) < maxPipelinedRequests;
+    }
+
+    /**
+     * Whether any response of the pipelined requests is outstanding on current connection, in which case the
+     * requests which can't be pipelined mustn't be written to it. It can be invoked in any thread.
+     *
+     * @return {@code true} if there are outstanding responses, otherwise {@code false}.
+     */
+    boolean hasOutstandingResponses() {
+        return pipelinedRequestIds != null && reading;
+    }
+
+    private void nextRequest() {
+        if (pipelinedRequestIds == null) {
+            return;
+        }
+
+        final Integer requestId = pipelinedRequestIds.poll();
+        if (requestId == null) {
+            reading = false;
+            Http1ChannelPool.onResponsesDrained(ctx.channel());
+        } else {
+            resetRequestId(requestId);
+        }
+    }
+
+    private void resetRequestId(int requestId) {
+        this.reusableRequestId = requestId;
+        this.continue100Received = false;
+        this.remaining = -1L;
     }
 
     HandleRegistry getRegistry() {
@@ -188,7 +298,13 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
 
     private void handleDecodeError(Throwable cause) {
         final String errMsg = "Failed to decode response, connection: " + ctx.channel();
-        onError(new ProtocolException(errMsg, cause), true);
+        if (pipelinedRequestIds == null) {
+            onError(new ProtocolException(errMsg, cause), true);
+        } else {
+            // The boundaries of the following responses are unknown, so the connection must be closed.
+            onErrorAll(new ProtocolException(errMsg, cause), true);
+            ctx.close();
+        }
     }
 
     private void handleResponse(ResponseHandle handle, HttpResponse msg) {
@@ -218,12 +334,13 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
         }
 
         // If maxContentLength != -1, validate contentLength firstly.
-        if (isContentLengthInvalid(msg)) {
+        if (isContentLengthInvalid(msg, handle)) {
             String errMsg = String.format("Content length exceeded %d bytes", maxContentLength);
             onError(new ContentOverSizedException(errMsg), true);
             return;
         }
 
+        handle.readController(readController);
         handle.onMessage(HttpMessageImpl.from(msg));
     }
 
@@ -231,10 +348,11 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
      * Tries to check content-length only when {@code maxContentLength} is configured.
      *
      * @param response      response
+     * @param handle        handle
      * @return              true or false
      */
-    private boolean isContentLengthInvalid(HttpMessage response) {
-        if (maxContentLength > 0L) {
+    private boolean isContentLengthInvalid(HttpMessage response, ResponseHandle handle) {
+        if (maxContentLength > 0L && handle.handle.contentLengthLimited) {
             long contentLength = -1L;
             try {
                 String value = response.headers().get(HttpHeaderNames.CONTENT_LENGTH);
@@ -256,4 +374,35 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
         return false;
     }
 
+    /**
+     * Stops reading by disabling the auto-read of the connection. Which also stops reading the responses of the
+     * pipelined requests, so it only takes effect while there's no pipelined request following the current one,
+     * otherwise the content of current response is buffered by the handle until demanded.
+     */
+    private final class AutoReadController implements ReadController {
+
+        @Override
+        public void pause() {
+            if (pipelinedRequestIds == null || pipelinedRequestIds.isEmpty()) {
+                channel.config().setAutoRead(false);
+            }
+        }
+
+        @Override
+        public void resume() {
+            // A read will be triggered if the auto-read was disabled.
+            channel.config().setAutoRead(true);
+        }
+
+        @Override
+        public void consumed(int bytes) {
+            // Nothing to do.
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            Utils.runInChannel(channel, task);
+        }
+    }
+
 }
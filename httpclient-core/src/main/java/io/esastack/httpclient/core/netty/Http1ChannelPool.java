@@ -0,0 +1,538 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.netty;
+
+import esa.commons.Checks;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.ThreadExecutorMap;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link io.netty.channel.pool.ChannelPool} for http1.1 whose idle {@link Channel}s are kept in per
+ * {@link EventLoop} stacks. Different from the {@link io.netty.channel.pool.FixedChannelPool} which executes
+ * all the acquire and release operations in a single executor, this pool is lock-free and can be accessed in
+ * any thread:
+ * <ul>
+ *     <li>a caller which is running in an {@link EventLoop} of the pool prefers the idle {@link Channel}s
+ *     owned by that {@link EventLoop}, and the new {@link Channel} will also be registered to it, so that
+ *     the subsequent writing and reading won't hop to other threads.</li>
+ *     <li>the idle {@link Channel}s of other {@link EventLoop}s will be stolen only when there's no idle
+ *     {@link Channel} in the preferred one and the number of connections has reached the limit.</li>
+ *     <li>a caller which isn't running in any {@link EventLoop} of the pool has no affinity, so the idle
+ *     {@link Channel}s of all the {@link EventLoop}s will be reused before opening a new one.</li>
+ *     <li>an exclusive acquire only takes the idle {@link Channel}s without any outstanding response of the
+ *     pipelined requests, see {@link #acquire(boolean)}.</li>
+ * </ul>
+ */
+final class Http1ChannelPool implements MeasurableChannelPool {
+
+    private static final AttributeKey<Http1ChannelPool> POOL_KEY = AttributeKey.valueOf("$h1.channel.pool");
+
+    private final Bootstrap bootstrap;
+    private final EventLoopGroup group;
+    private final ChannelPoolHandler handler;
+    private final ChannelInitializer initializer;
+    private final long acquireTimeoutMillis;
+    private final int maxConnections;
+    private final int maxPendingAcquires;
+
+    private final ConcurrentMap<EventExecutor, LoopLocal> locals = new ConcurrentHashMap<>();
+    private final Deque<PendingAcquire> pendingAcquires = new ConcurrentLinkedDeque<>();
+
+    /**
+     * The number of connections including the connecting ones.
+     */
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger acquiredCount = new AtomicInteger();
+    private final AtomicInteger pendingAcquireCount = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    Http1ChannelPool(Bootstrap bootstrap,
+                     ChannelPoolHandler handler,
+                     ChannelInitializer initializer,
+                     long acquireTimeoutMillis,
+                     int maxConnections,
+                     int maxPendingAcquires) {
+        Checks.checkNotNull(bootstrap, "bootstrap");
+        Checks.checkNotNull(handler, "handler");
+        Checks.checkNotNull(initializer, "initializer");
+        Checks.checkArg(maxConnections >= 1, "maxConnections is " + maxConnections + " (expected >= 1)");
+        Checks.checkArg(maxPendingAcquires >= 1, "maxPendingAcquires is " + maxPendingAcquires
+                + " (expected >= 1)");
+        this.bootstrap = bootstrap.clone();
+        this.bootstrap.handler(new io.netty.channel.ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                handler.channelCreated(ch);
+            }
+        });
+        this.group = bootstrap.config().group();
+        this.handler = handler;
+        this.initializer = initializer;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.maxConnections = maxConnections;
+        this.maxPendingAcquires = maxPendingAcquires;
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        return acquire(false);
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        Checks.checkNotNull(promise, "promise");
+        return acquire0(preferredLocal(), promise, false);
+    }
+
+    @Override
+    public Future<Channel> acquire(boolean exclusive) {
+        final LoopLocal local = preferredLocal();
+        return acquire0(local, local.loop.newPromise(), exclusive);
+    }
+
+    @Override
+    public Future<Void> release(Channel channel) {
+        return release(channel, channel.eventLoop().newPromise());
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, Promise<Void> promise) {
+        Checks.checkNotNull(channel, "channel");
+        Checks.checkNotNull(promise, "promise");
+        if (channel.attr(POOL_KEY).get() != this) {
+            channel.close();
+            promise.tryFailure(new IllegalArgumentException("Channel " + channel
+                    + " was not acquired from this ChannelPool"));
+            return promise;
+        }
+
+        acquiredCount.decrementAndGet();
+        try {
+            if (closed || !channel.isActive()) {
+                channel.close();
+            } else {
+                handler.channelReleased(channel);
+                final LoopLocal local = localOf(channel.eventLoop());
+                local.idle.offerLast(channel);
+                if (closed && local.idle.remove(channel)) {
+                    // Closed concurrently.
+                    channel.close();
+                }
+            }
+            promise.trySuccess(null);
+        } catch (Throwable th) {
+            channel.close();
+            promise.tryFailure(th);
+        } finally {
+            drainPendingAcquires();
+        }
+        return promise;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        PendingAcquire pending;
+        while ((pending = pendingAcquires.pollFirst()) != null) {
+            pendingAcquireCount.decrementAndGet();
+            pending.cancelTimeout();
+            pending.promise.tryFailure(poolClosed());
+        }
+
+        for (LoopLocal local : locals.values()) {
+            Channel channel;
+            while ((channel = local.idle.pollLast()) != null) {
+                channel.close();
+            }
+        }
+    }
+
+    @Override
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public int maxPendingAcquires() {
+        return maxPendingAcquires;
+    }
+
+    @Override
+    public int acquiredCount() {
+        return acquiredCount.get();
+    }
+
+    @Override
+    public int pendingAcquireCount() {
+        return pendingAcquireCount.get();
+    }
+
+    int connectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Callback when all the outstanding responses of the pipelined requests on the given {@code channel} have
+     * been received, so that the pending exclusive acquires may be satisfied by it.
+     *
+     * @param channel channel
+     */
+    static void onResponsesDrained(Channel channel) {
+        final Http1ChannelPool pool = channel.attr(POOL_KEY).get();
+        if (pool != null && !pool.pendingAcquires.isEmpty()) {
+            pool.drainPendingAcquires();
+        }
+    }
+
+    private Future<Channel> acquire0(LoopLocal local, Promise<Channel> promise, boolean exclusive) {
+        try {
+            if (closed) {
+                promise.tryFailure(poolClosed());
+                return promise;
+            }
+
+            final boolean affine = local.loop.inEventLoop();
+            if (!tryAcquire(local, promise, exclusive, affine)) {
+                addPendingAcquire(local, promise, exclusive, affine);
+            }
+        } catch (Throwable th) {
+            promise.tryFailure(th);
+        }
+        return promise;
+    }
+
+    /**
+     * Obtains the {@link LoopLocal} of current {@link EventLoop} if the caller is running in one of the
+     * {@link EventLoop}s of this pool, otherwise choose one by {@link EventLoopGroup#next()}.
+     *
+     * @return local
+     */
+    private LoopLocal preferredLocal() {
+        final EventExecutor current = ThreadExecutorMap.currentExecutor();
+        if (current != null) {
+            final LoopLocal local = locals.get(current);
+            if (local != null) {
+                return local;
+            }
+            if (current.parent() == group && current instanceof EventLoop) {
+                return localOf((EventLoop) current);
+            }
+        }
+        return localOf(group.next());
+    }
+
+    private LoopLocal localOf(EventLoop loop) {
+        final LoopLocal local = locals.get(loop);
+        if (local != null) {
+            return local;
+        }
+        return locals.computeIfAbsent(loop, l -> new LoopLocal(loop, bootstrap.clone(loop)));
+    }
+
+    /**
+     * Tries to acquire a {@link Channel} in order of: the idle ones of the {@code preferred}, a new one
+     * registered to the {@code preferred}, and the idle ones of other {@link EventLoop}s. If the caller
+     * isn't {@code affine} to the {@code preferred}, the idle ones of other {@link EventLoop}s go before
+     * the new one.
+     *
+     * @param preferred preferred
+     * @param promise   promise
+     * @param exclusive whether to skip the {@link Channel}s with outstanding responses
+     * @param affine    whether the caller is running in the {@link EventLoop} of the {@code preferred}
+     * @return {@code true} if the {@code promise} has been handled, otherwise {@code false}.
+     */
+    private boolean tryAcquire(LoopLocal preferred,
+                               Promise<Channel> promise,
+                               boolean exclusive,
+                               boolean affine) throws Exception {
+        // LIFO, the most recently used channel is more likely to be alive.
+        Channel channel = pollHealthy(preferred.idle, true, exclusive);
+        if (channel == null && !affine) {
+            channel = pollOthers(preferred, exclusive);
+        }
+        if (channel != null) {
+            onAcquired(channel, promise);
+            return true;
+        }
+
+        if (tryConnect(preferred, promise)) {
+            return true;
+        }
+
+        if (affine && (channel = pollOthers(preferred, exclusive)) != null) {
+            onAcquired(channel, promise);
+            return true;
+        }
+        return false;
+    }
+
+    private Channel pollOthers(LoopLocal preferred, boolean exclusive) {
+        Channel channel;
+        for (LoopLocal local : locals.values()) {
+            if (local != preferred && (channel = pollHealthy(local.idle, false, exclusive)) != null) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    private static Channel pollHealthy(Deque<Channel> idle, boolean last, boolean exclusive) {
+        Channel channel;
+        if (!exclusive) {
+            while ((channel = (last ? idle.pollLast() : idle.pollFirst())) != null) {
+                if (channel.isActive()) {
+                    return channel;
+                }
+                channel.close();
+            }
+            return null;
+        }
+
+        // Don't remove the channels with outstanding responses, they are still available to the non-exclusive
+        // acquires.
+        final Iterator<Channel> it = last ? idle.descendingIterator() : idle.iterator();
+        while (it.hasNext()) {
+            channel = it.next();
+            if (!channel.isActive()) {
+                if (idle.remove(channel)) {
+                    channel.close();
+                }
+            } else if (!hasOutstandingResponses(channel) && idle.remove(channel)) {
+                if (!hasOutstandingResponses(channel)) {
+                    return channel;
+                }
+                // Pipelined by others between the check and the removal.
+                idle.offerFirst(channel);
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasOutstandingResponses(Channel channel) {
+        final ChannelHandler last = channel.pipeline().last();
+        return last instanceof Http1ChannelHandler && ((Http1ChannelHandler) last).hasOutstandingResponses();
+    }
+
+    private boolean hasAvailable(boolean exclusive) {
+        for (LoopLocal local : locals.values()) {
+            if (!exclusive) {
+                if (!local.idle.isEmpty()) {
+                    return true;
+                }
+                continue;
+            }
+            for (Channel channel : local.idle) {
+                if (!hasOutstandingResponses(channel)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void onAcquired(Channel channel, Promise<Channel> promise) throws Exception {
+        acquiredCount.incrementAndGet();
+        handler.channelAcquired(channel);
+        if (!promise.trySuccess(channel)) {
+            // The promise has been cancelled or timeout.
+            release(channel);
+        }
+    }
+
+    private boolean tryConnect(LoopLocal local, Promise<Channel> promise) {
+        for (;;) {
+            final int count = connectionCount.get();
+            if (count >= maxConnections) {
+                return false;
+            }
+            if (connectionCount.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
+
+        final ChannelFuture future;
+        try {
+            future = initializer.onConnected(local.bootstrap.connect());
+        } catch (Throwable th) {
+            connectionCount.decrementAndGet();
+            promise.tryFailure(th);
+            return true;
+        }
+
+        future.addListener(f -> {
+            if (f.isSuccess()) {
+                final Channel channel = future.channel();
+                channel.attr(POOL_KEY).set(this);
+                channel.closeFuture().addListener(cf -> {
+                    connectionCount.decrementAndGet();
+                    localOf(channel.eventLoop()).idle.remove(channel);
+                    drainPendingAcquires();
+                });
+                if (closed) {
+                    channel.close();
+                    promise.tryFailure(poolClosed());
+                } else {
+                    onAcquired(channel, promise);
+                }
+            } else {
+                connectionCount.decrementAndGet();
+                future.channel().close();
+                promise.tryFailure(f.cause());
+                drainPendingAcquires();
+            }
+        });
+        return true;
+    }
+
+    private void addPendingAcquire(LoopLocal local, Promise<Channel> promise, boolean exclusive, boolean affine) {
+        if (pendingAcquireCount.incrementAndGet() > maxPendingAcquires) {
+            pendingAcquireCount.decrementAndGet();
+            promise.tryFailure(new IllegalStateException("Too many outstanding acquire operations"));
+            return;
+        }
+
+        final PendingAcquire pending = new PendingAcquire(local, promise, exclusive, affine);
+        if (acquireTimeoutMillis > 0L) {
+            pending.timeout = local.loop.schedule(() -> {
+                if (pendingAcquires.remove(pending)) {
+                    pendingAcquireCount.decrementAndGet();
+                }
+                // The pending acquire may be draining now, and it will be discarded as soon as the
+                // promise is done.
+                promise.tryFailure(new TimeoutException("Acquire operation took longer than configured" +
+                        " maximum time"));
+            }, acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        pendingAcquires.offerLast(pending);
+
+        // Maybe a channel has been released before the pending acquire was added.
+        drainPendingAcquires();
+    }
+
+    private void drainPendingAcquires() {
+        PendingAcquire pending;
+        while ((pending = pendingAcquires.pollFirst()) != null) {
+            pendingAcquireCount.decrementAndGet();
+            if (pending.promise.isDone()) {
+                pending.cancelTimeout();
+                continue;
+            }
+
+            if (closed) {
+                pending.cancelTimeout();
+                pending.promise.tryFailure(poolClosed());
+                continue;
+            }
+
+            try {
+                if (tryAcquire(pending.local, pending.promise, pending.exclusive, pending.affine)) {
+                    pending.cancelTimeout();
+                    continue;
+                }
+            } catch (Throwable th) {
+                pending.cancelTimeout();
+                pending.promise.tryFailure(th);
+                continue;
+            }
+
+            // Still no available channel, put it back and wait for the next chance.
+            pendingAcquireCount.incrementAndGet();
+            pendingAcquires.offerFirst(pending);
+
+            // A channel may have been released while we were holding the pending acquire, in which
+            // case the releaser saw no pending acquire and it's our duty to hand over the channel.
+            if (!hasAvailable(pending.exclusive) && connectionCount.get() >= maxConnections) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Creates a new exception for each failure, a shared one would keep the stack trace of the first caller and
+     * could be mutated (e.g. suppressed exceptions) by every receiver.
+     */
+    private static IllegalStateException poolClosed() {
+        return new IllegalStateException("Http1ChannelPool has been closed");
+    }
+
+    private static final class LoopLocal {
+
+        private final EventLoop loop;
+        private final Bootstrap bootstrap;
+
+        /**
+         * Idle channels which are registered to the {@link #loop}.
+         */
+        private final Deque<Channel> idle = new ConcurrentLinkedDeque<>();
+
+        private LoopLocal(EventLoop loop, Bootstrap bootstrap) {
+            this.loop = loop;
+            this.bootstrap = bootstrap;
+        }
+    }
+
+    private static final class PendingAcquire {
+
+        private final LoopLocal local;
+        private final Promise<Channel> promise;
+        private final boolean exclusive;
+        private final boolean affine;
+        /**
+         * Set before the pending acquire is published, but cancelled by whichever thread drains it.
+         */
+        private volatile ScheduledFuture<?> timeout;
+
+        private PendingAcquire(LoopLocal local, Promise<Channel> promise, boolean exclusive, boolean affine) {
+            this.local = local;
+            this.promise = promise;
+            this.exclusive = exclusive;
+            this.affine = affine;
+        }
+
+        private void cancelTimeout() {
+            final ScheduledFuture<?> timeout0 = timeout;
+            if (timeout0 != null) {
+                timeout0.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.netty;
+
+import esa.commons.Checks;
+import io.esastack.httpclient.core.util.LoggerUtils;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link io.netty.channel.pool.ChannelPool} which is designed for http2. Different from the
+ * {@link io.netty.channel.pool.FixedChannelPool}, a {@link Channel} acquired from this pool is not exclusive,
+ * in fact, every {@link #acquire()} just reserves a stream on the least-loaded live connection and the
+ * {@link #release(Channel)} returns the stream back. The number of reserved streams on a connection never
+ * exceeds the {@code SETTINGS_MAX_CONCURRENT_STREAMS} of the remote peer, and a new connection will be
+ * opened only when all the existing connections have been saturated.
+ * <p>
+ * Note that a connection may fallback to http1.1 when failed to upgrade to h2c, and such a connection can
+ * only carry a single request at the same time.
+ * <p>
+ * All the state is maintained by atomic variables and concurrent containers so that the {@link #acquire()}
+ * and {@link #release(Channel)} can be invoked in any thread without hopping to a fixed executor.
+ */
+final class Http2ChannelPool implements MeasurableChannelPool {
+
+    private static final String DEFAULT_MAX_CONCURRENT_STREAMS_KEY =
+            "io.esastack.httpclient.h2.defaultMaxConcurrentStreams";
+
+    /**
+     * The max concurrent streams of a connection before receiving {@code SETTINGS_MAX_CONCURRENT_STREAMS} of
+     * the remote peer, or when the remote peer doesn't limit it.
+     */
+    static final int DEFAULT_MAX_CONCURRENT_STREAMS = SystemPropertyUtil
+            .getInt(DEFAULT_MAX_CONCURRENT_STREAMS_KEY, 100);
+
+    private static final AttributeKey<PooledConnection> CONNECTION_KEY =
+            AttributeKey.valueOf("$h2.pooled.connection");
+
+    private final Bootstrap bootstrap;
+    private final ChannelPoolHandler handler;
+    private final ChannelInitializer initializer;
+    private final EventExecutor executor;
+    private final long acquireTimeoutMillis;
+    private final int maxConnections;
+    private final int maxPendingAcquires;
+    private final int defaultMaxStreams;
+
+    private final List<PooledConnection> connections = new CopyOnWriteArrayList<>();
+    private final Deque<PendingAcquire> pendingAcquires = new ConcurrentLinkedDeque<>();
+
+    /**
+     * The number of connections including the connecting ones.
+     */
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger connectingCount = new AtomicInteger();
+    private final AtomicInteger pendingAcquireCount = new AtomicInteger();
+    private final AtomicInteger acquiredStreamCount = new AtomicInteger();
+
+    /**
+     * Whether the last established connection is multiplexed, if not, which means that the remote peer
+     * only speaks http1.1, we should allow to open connections concurrently.
+     */
+    private volatile boolean multiplexed = true;
+    private volatile boolean closed;
+
+    Http2ChannelPool(Bootstrap bootstrap,
+                     ChannelPoolHandler handler,
+                     ChannelInitializer initializer,
+                     long acquireTimeoutMillis,
+                     int maxConnections,
+                     int maxPendingAcquires) {
+        this(bootstrap, handler, initializer, acquireTimeoutMillis, maxConnections, maxPendingAcquires,
+                DEFAULT_MAX_CONCURRENT_STREAMS);
+    }
+
+    Http2ChannelPool(Bootstrap bootstrap,
+                     ChannelPoolHandler handler,
+                     ChannelInitializer initializer,
+                     long acquireTimeoutMillis,
+                     int maxConnections,
+                     int maxPendingAcquires,
+                     int defaultMaxStreams) {
+        Checks.checkNotNull(bootstrap, "bootstrap");
+        Checks.checkNotNull(handler, "handler");
+        Checks.checkNotNull(initializer, "initializer");
+        Checks.checkArg(maxConnections >= 1, "maxConnections is " + maxConnections + " (expected >= 1)");
+        Checks.checkArg(maxPendingAcquires >= 1, "maxPendingAcquires is " + maxPendingAcquires
+                + " (expected >= 1)");
+        Checks.checkArg(defaultMaxStreams >= 1, "defaultMaxStreams is " + defaultMaxStreams
+                + " (expected >= 1)");
+        this.bootstrap = bootstrap.clone();
+        this.bootstrap.handler(new io.netty.channel.ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                handler.channelCreated(ch);
+            }
+        });
+        this.handler = handler;
+        this.initializer = initializer;
+        this.executor = bootstrap.config().group().next();
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.maxConnections = maxConnections;
+        this.maxPendingAcquires = maxPendingAcquires;
+        this.defaultMaxStreams = defaultMaxStreams;
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        return acquire(executor.newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        Checks.checkNotNull(promise, "promise");
+        try {
+            if (closed) {
+                promise.tryFailure(poolClosed());
+            } else if (!tryAcquireStream(promise) && !tryConnect(promise)) {
+                addPendingAcquire(promise);
+            }
+        } catch (Throwable th) {
+            promise.tryFailure(th);
+        }
+        return promise;
+    }
+
+    @Override
+    public Future<Void> release(Channel channel) {
+        return release(channel, executor.newPromise());
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, Promise<Void> promise) {
+        Checks.checkNotNull(channel, "channel");
+        Checks.checkNotNull(promise, "promise");
+        final PooledConnection connection = channel.attr(CONNECTION_KEY).get();
+        if (connection == null || connection.pool != this) {
+            channel.close();
+            promise.tryFailure(new IllegalArgumentException("Channel " + channel
+                    + " was not acquired from this ChannelPool"));
+            return promise;
+        }
+
+        if (connection.releaseStream()) {
+            acquiredStreamCount.decrementAndGet();
+        }
+
+        try {
+            if (closed || !channel.isActive() || connection.isDrained()) {
+                removeConnection(connection);
+            } else {
+                handler.channelReleased(channel);
+            }
+            promise.trySuccess(null);
+        } catch (Throwable th) {
+            promise.tryFailure(th);
+        } finally {
+            drainPendingAcquires();
+        }
+
+        return promise;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        PendingAcquire pending;
+        while ((pending = pendingAcquires.pollFirst()) != null) {
+            pendingAcquireCount.decrementAndGet();
+            pending.cancelTimeout();
+            pending.promise.tryFailure(poolClosed());
+        }
+
+        for (PooledConnection connection : connections) {
+            removeConnection(connection);
+        }
+    }
+
+    @Override
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public int maxPendingAcquires() {
+        return maxPendingAcquires;
+    }
+
+    /**
+     * Obtains the number of acquired streams, which may be greater than the number of connections.
+     *
+     * @return acquired count
+     */
+    @Override
+    public int acquiredCount() {
+        return acquiredStreamCount.get();
+    }
+
+    @Override
+    public int pendingAcquireCount() {
+        return pendingAcquireCount.get();
+    }
+
+    int connectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Tries to reserve a stream on the least-loaded connection.
+     *
+     * @param promise   promise
+     * @return {@code true} if the {@code promise} has been handled, otherwise {@code false}.
+     */
+    private boolean tryAcquireStream(Promise<Channel> promise) {
+        for (;;) {
+            final PooledConnection target = leastLoaded();
+            if (target == null) {
+                return false;
+            }
+
+            if (target.tryReserveStream()) {
+                acquiredStreamCount.incrementAndGet();
+                if (!promise.trySuccess(target.channel)) {
+                    // The promise has been cancelled or timeout.
+                    if (target.releaseStream()) {
+                        acquiredStreamCount.decrementAndGet();
+                    }
+                }
+                return true;
+            }
+            // Lost the race with other acquirers, try again.
+        }
+    }
+
+    private PooledConnection leastLoaded() {
+        PooledConnection target = null;
+        int maxAvailable = 0;
+        for (PooledConnection connection : connections) {
+            if (!connection.channel.isActive()) {
+                removeConnection(connection);
+                continue;
+            }
+
+            final int available = connection.availableStreams();
+            if (available > maxAvailable) {
+                maxAvailable = available;
+                target = connection;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Tries to open a new connection for the {@code promise}, only one connection will be opened at the same
+     * time when the remote peer supports multiplexing, because that the new connection may be able to serve
+     * all the waiting acquirers.
+     *
+     * @param promise   promise
+     * @return {@code true} if a new connection is opening for the {@code promise}, otherwise {@code false}.
+     */
+    private boolean tryConnect(Promise<Channel> promise) {
+        if (multiplexed) {
+            if (!connectingCount.compareAndSet(0, 1)) {
+                return false;
+            }
+        } else {
+            connectingCount.incrementAndGet();
+        }
+
+        for (;;) {
+            final int count = connectionCount.get();
+            if (count >= maxConnections) {
+                connectingCount.decrementAndGet();
+                return false;
+            }
+            if (connectionCount.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
+
+        final ChannelFuture future;
+        try {
+            future = initializer.onConnected(bootstrap.connect());
+        } catch (Throwable th) {
+            connectingCount.decrementAndGet();
+            connectionCount.decrementAndGet();
+            promise.tryFailure(th);
+            return true;
+        }
+
+        future.addListener(f -> {
+            connectingCount.decrementAndGet();
+            if (f.isSuccess()) {
+                onConnected(future.channel(), promise);
+            } else {
+                connectionCount.decrementAndGet();
+                promise.tryFailure(f.cause());
+                drainPendingAcquires();
+            }
+        });
+        return true;
+    }
+
+    private boolean canConnect() {
+        return connectionCount.get() < maxConnections && (!multiplexed || connectingCount.get() == 0);
+    }
+
+    private void onConnected(Channel channel, Promise<Channel> promise) {
+        if (closed) {
+            connectionCount.decrementAndGet();
+            channel.close();
+            promise.tryFailure(poolClosed());
+            return;
+        }
+
+        final PooledConnection connection = new PooledConnection(this, channel, defaultMaxStreams);
+        channel.attr(CONNECTION_KEY).set(connection);
+        multiplexed = connection.h2Connection != null;
+        connections.add(connection);
+        channel.closeFuture().addListener(f -> removeConnection(connection));
+
+        if (LoggerUtils.logger().isDebugEnabled()) {
+            LoggerUtils.logger().debug("Opened a new connection: {}, multiplexed: {}, total connections: {}",
+                    channel, multiplexed, connectionCount.get());
+        }
+
+        if (connection.tryReserveStream()) {
+            acquiredStreamCount.incrementAndGet();
+            if (!promise.trySuccess(channel) && connection.releaseStream()) {
+                acquiredStreamCount.decrementAndGet();
+            }
+        } else {
+            // Unreachable in common conditions, let the promise compete with others.
+            addPendingAcquire(promise);
+        }
+
+        drainPendingAcquires();
+    }
+
+    private void removeConnection(PooledConnection connection) {
+        if (connections.remove(connection)) {
+            connectionCount.decrementAndGet();
+            connection.channel.close();
+            drainPendingAcquires();
+        }
+    }
+
+    private void addPendingAcquire(Promise<Channel> promise) {
+        if (pendingAcquireCount.incrementAndGet() > maxPendingAcquires) {
+            pendingAcquireCount.decrementAndGet();
+            promise.tryFailure(new IllegalStateException("Too many outstanding acquire operations"));
+            return;
+        }
+
+        final PendingAcquire pending = new PendingAcquire(promise);
+        if (acquireTimeoutMillis > 0L) {
+            pending.timeout = executor.schedule(() -> {
+                if (pendingAcquires.remove(pending)) {
+                    pendingAcquireCount.decrementAndGet();
+                }
+                // The pending acquire may be draining now, and it will be discarded as soon as the
+                // promise is done.
+                promise.tryFailure(new TimeoutException("Acquire operation took longer than configured" +
+                        " maximum time"));
+            }, acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        pendingAcquires.offerLast(pending);
+
+        // Maybe a stream has been released before the pending acquire was added.
+        drainPendingAcquires();
+    }
+
+    private void drainPendingAcquires() {
+        PendingAcquire pending;
+        while ((pending = pendingAcquires.pollFirst()) != null) {
+            pendingAcquireCount.decrementAndGet();
+            if (pending.promise.isDone()) {
+                pending.cancelTimeout();
+                continue;
+            }
+
+            if (closed) {
+                pending.cancelTimeout();
+                pending.promise.tryFailure(poolClosed());
+                continue;
+            }
+
+            if (tryAcquireStream(pending.promise) || tryConnect(pending.promise)) {
+                pending.cancelTimeout();
+                continue;
+            }
+
+            // Still no available stream, put it back and wait for the next chance.
+            pendingAcquireCount.incrementAndGet();
+            pendingAcquires.offerFirst(pending);
+
+            // A stream may have been released while we were holding the pending acquire, in which
+            // case the releaser saw no pending acquire and it's our duty to hand over the stream.
+            if (leastLoaded() == null && !canConnect()) {
+                return;
+            }
+        }
+    }
+
+    private static final class PooledConnection {
+
+        private final Http2ChannelPool pool;
+        private final Channel channel;
+        private final Http2Connection h2Connection;
+        private final int defaultMaxStreams;
+        private final AtomicInteger streams = new AtomicInteger();
+
+        private PooledConnection(Http2ChannelPool pool, Channel channel, int defaultMaxStreams) {
+            this.pool = pool;
+            this.channel = channel;
+            this.defaultMaxStreams = defaultMaxStreams;
+            final Http2ConnectionHandler h2Handler = channel.pipeline().get(Http2ConnectionHandler.class);
+            this.h2Connection = h2Handler == null ? null : h2Handler.connection();
+        }
+
+        private int maxStreams() {
+            if (h2Connection == null) {
+                return 1;
+            }
+            if (h2Connection.goAwayReceived()) {
+                return 0;
+            }
+
+            // The max active streams of local endpoint is limited by SETTINGS_MAX_CONCURRENT_STREAMS
+            // of the remote peer.
+            final int max = h2Connection.local().maxActiveStreams();
+            return max == Integer.MAX_VALUE ? defaultMaxStreams : max;
+        }
+
+        /**
+         * Whether the remote peer has sent a GOAWAY and all the streams on this connection have been released,
+         * which means that the connection is useless anymore.
+         */
+        private boolean isDrained() {
+            return h2Connection != null && h2Connection.goAwayReceived() && streams.get() == 0;
+        }
+
+        private int availableStreams() {
+            return maxStreams() - streams.get();
+        }
+
+        private boolean tryReserveStream() {
+            for (;;) {
+                final int current = streams.get();
+                if (current >= maxStreams()) {
+                    return false;
+                }
+                if (streams.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean releaseStream() {
+            for (;;) {
+                final int current = streams.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (streams.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new exception for each failure, a shared one would keep the stack trace of the first caller and
+     * could be mutated (e.g. suppressed exceptions) by every receiver.
+     */
+    private static IllegalStateException poolClosed() {
+        return new IllegalStateException("Http2ChannelPool has been closed");
+    }
+
+    private static final class PendingAcquire {
+
+        private final Promise<Channel> promise;
+        /**
+         * Set before the pending acquire is published, but cancelled by whichever thread drains it.
+         */
+        private volatile ScheduledFuture<?> timeout;
+
+        private PendingAcquire(Promise<Channel> promise) {
+            this.promise = promise;
+        }
+
+        private void cancelTimeout() {
+            final ScheduledFuture<?> timeout0 = timeout;
+            if (timeout0 != null) {
+                timeout0.cancel(false);
+            }
+        }
+    }
+}
@@ -24,21 +24,29 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2Connection;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2Stream;
 import io.netty.handler.codec.http2.HttpConversionUtil;
 import io.netty.handler.stream.ChunkedWriteHandler;
 
 import static io.esastack.httpclient.core.netty.Utils.handleIdleEvt;
 import static io.netty.buffer.ByteBufUtil.writeAscii;
 import static io.netty.handler.codec.http2.Http2CodecUtil.getEmbeddedHttp2Exception;
+import static io.netty.handler.codec.http2.Http2Error.CANCEL;
 import static io.netty.handler.codec.http2.Http2Error.NO_ERROR;
 
 class Http2ConnectionHandler extends io.netty.handler.codec.http2.Http2ConnectionHandler {
 
     private final HandleRegistry registry;
+
+    /**
+     * The key of the listener which is notified when the writability of the stream has changed.
+     */
+    private final Http2Connection.PropertyKey writabilityKey;
     private volatile ChannelHandlerContext ctx;
 
     Http2ConnectionHandler(Http2ConnectionDecoder decoder,
@@ -48,6 +56,8 @@ class Http2ConnectionHandler extends io.netty.handler.codec.http2.Http2Connectio
                            HandleRegistry registry) {
         super(decoder, encoder, initialSettings, decoupleCloseAndGoAway);
         this.registry = registry;
+        this.writabilityKey = encoder.connection().newKey();
+        encoder.flowController().listener(this::onWritabilityChanged);
     }
 
     @Override
@@ -103,6 +113,18 @@ class Http2ConnectionHandler extends io.netty.handler.codec.http2.Http2Connectio
         }
     }
 
+    /**
+     * Resets the stream with {@code CANCEL} error code, which must be called in the event loop.
+     *
+     * @param streamId stream id
+     */
+    void cancelStream(int streamId) {
+        if (connection().stream(streamId) != null) {
+            resetStream(ctx, streamId, CANCEL.code(), ctx.newPromise());
+            ctx.flush();
+        }
+    }
+
     ChannelFuture writeData(int streamId,
                             Object data,
                             boolean endStream,
@@ -244,6 +266,44 @@ class Http2ConnectionHandler extends io.netty.handler.codec.http2.Http2Connectio
         return false;
     }
 
+    /**
+     * Whether the data of the given stream can be written without being queued in the flow controller, which
+     * must be called in the event loop.
+     *
+     * @param streamId stream id
+     * @return {@code true} if writable or the stream has been closed, otherwise {@code false}.
+     */
+    boolean isWritable(int streamId) {
+        final Http2Stream stream = connection().stream(streamId);
+        return stream == null || encoder().flowController().isWritable(stream);
+    }
+
+    /**
+     * Sets the listener which is notified when the writability of the given stream has changed, which must be
+     * called in the event loop.
+     *
+     * @param streamId stream id
+     * @param listener listener, or {@code null} to remove the current one
+     */
+    void writabilityListener(int streamId, Runnable listener) {
+        final Http2Stream stream = connection().stream(streamId);
+        if (stream == null) {
+            return;
+        }
+        if (listener == null) {
+            stream.removeProperty(writabilityKey);
+        } else {
+            stream.setProperty(writabilityKey, listener);
+        }
+    }
+
+    private void onWritabilityChanged(Http2Stream stream) {
+        final Runnable listener = stream.getProperty(writabilityKey);
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
     HandleRegistry getRegistry() {
         return registry;
     }
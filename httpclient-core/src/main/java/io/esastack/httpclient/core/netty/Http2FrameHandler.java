@@ -24,6 +24,7 @@ import io.esastack.httpclient.core.exec.ExecContext;
 import io.esastack.httpclient.core.util.HttpHeadersUtils;
 import io.esastack.httpclient.core.util.LoggerUtils;
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
@@ -70,7 +71,7 @@ class Http2FrameHandler extends Http2EventAdapter {
 
         headers.setInt(STREAM_ID.text(), streamId);
         headers.addLong(HttpHeadersUtils.TTFB, System.currentTimeMillis());
-        onHeaders(streamId, stream, headers, stream.getProperty(messageKey) != null, endOfStream);
+        onHeaders(ctx, streamId, stream, headers, stream.getProperty(messageKey) != null, endOfStream);
     }
 
     @Override
@@ -106,6 +107,7 @@ class Http2FrameHandler extends Http2EventAdapter {
         }
 
         final int readableBytes = data.readableBytes();
+        final boolean demandDriven = handle.isDemandDriven();
         if (readableBytes > 0) {
             ByteBuf retainedData;
             boolean exceeded = false;
@@ -122,6 +124,11 @@ class Http2FrameHandler extends Http2EventAdapter {
                     handle.remaining = 0L;
                 }
             }
+            if (demandDriven) {
+                // The bytes delivered on demand are returned to the window of the stream by the handle once
+                // consumed, see WindowController.
+                withholdWindow(streamId, retainedData.readableBytes());
+            }
             handle.onData(new BufferImpl(retainedData.duplicate()));
             if (exceeded) {
                 String errMsg = String.format("Content length exceeded %d bytes", maxContentLength);
@@ -139,7 +146,7 @@ class Http2FrameHandler extends Http2EventAdapter {
             registry.remove(streamId);
         }
 
-        // All bytes have been processed.
+        // All bytes have been processed, and the window of the connection is returned immediately.
         return readableBytes + padding;
     }
 
@@ -176,7 +183,7 @@ class Http2FrameHandler extends Http2EventAdapter {
                 Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT);
         headers.setInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_PROMISE_ID.text(), streamId);
 
-        onHeaders(promisedStreamId, promisedStream, headers, false, false);
+        onHeaders(ctx, promisedStreamId, promisedStream, headers, false, false);
     }
 
     @Override
@@ -185,7 +192,8 @@ class Http2FrameHandler extends Http2EventAdapter {
         onError(ex, stream, -1, false);
     }
 
-    private void onHeaders(int streamId,
+    private void onHeaders(ChannelHandlerContext ctx,
+                           int streamId,
                            Http2Stream stream,
                            Http2Headers headers,
                            boolean trailer,
@@ -210,6 +218,7 @@ class Http2FrameHandler extends Http2EventAdapter {
             if (trailer) {
                 handle.onTrailers(new Http2HeadersAdaptor(Utils.standardHeaders(headers)));
             } else {
+                handle.readController(new WindowController(ctx.channel(), stream));
                 handle.onMessage(HttpMessageImpl.from(headers, streamId));
                 if (isContentLengthInvalid(headers, handle)) {
                     String errMsg = String.format("Content length exceeded %d bytes", maxContentLength);
@@ -246,7 +255,7 @@ class Http2FrameHandler extends Http2EventAdapter {
     }
 
     private boolean isContentLengthInvalid(Http2Headers headers, ResponseHandle handle) {
-        if (maxContentLength > 0L) {
+        if (maxContentLength > 0L && handle.handle.contentLengthLimited) {
             long contentLength;
             try {
                 contentLength = headers.getLong(HttpHeaderNames.CONTENT_LENGTH, -1L);
@@ -265,4 +274,65 @@ class Http2FrameHandler extends Http2EventAdapter {
         return false;
     }
 
+    /**
+     * Withholds the window of the stream by shrinking it, so that the {@code WINDOW_UPDATE} of the stream is
+     * deferred until the content has been consumed, see {@link WindowController#consumed(int)}. While the window
+     * of the connection is returned as soon as the content has been read, and a slow stream won't stall others.
+     *
+     * @param streamId id of the stream
+     * @param bytes    bytes to withhold
+     */
+    private void withholdWindow(int streamId, int bytes) {
+        final Http2Stream stream = connection.stream(streamId);
+        if (stream == null || bytes <= 0) {
+            return;
+        }
+        try {
+            connection.local().flowController().incrementWindowSize(stream, -bytes);
+        } catch (Http2Exception ex) {
+            onError(ex, stream, streamId, true);
+        }
+    }
+
+    /**
+     * Defers the {@code WINDOW_UPDATE} of the stream until the content has been consumed, and the peer stops
+     * sending on this stream once the window of it has been exhausted, while the other streams are not affected.
+     */
+    private final class WindowController implements ReadController {
+
+        private final Channel channel;
+        private final Http2Stream stream;
+
+        private WindowController(Channel channel, Http2Stream stream) {
+            this.channel = channel;
+            this.stream = stream;
+        }
+
+        @Override
+        public void pause() {
+            // Nothing to do.
+        }
+
+        @Override
+        public void resume() {
+            // Nothing to do.
+        }
+
+        @Override
+        public void consumed(int bytes) {
+            try {
+                // Restores the window withheld by withholdWindow(), a WINDOW_UPDATE is written if needed.
+                connection.local().flowController().incrementWindowSize(stream, bytes);
+                channel.flush();
+            } catch (Http2Exception ex) {
+                onError(ex, stream, stream.id(), true);
+            }
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            Utils.runInChannel(channel, task);
+        }
+    }
+
 }
@@ -17,7 +17,6 @@ package io.esastack.httpclient.core.netty;
 
 import esa.commons.Checks;
 import esa.commons.StringUtils;
-import esa.commons.concurrent.ThreadFactories;
 import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpHeaderValues;
 import io.esastack.commons.net.netty.http.Http1HeadersImpl;
@@ -42,16 +41,12 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.pool.ChannelPool;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
-import io.netty.util.HashedWheelTimer;
-import io.netty.util.Timeout;
-import io.netty.util.Timer;
 import io.netty.util.concurrent.Future;
-import io.netty.util.internal.SystemPropertyUtil;
 
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.SocketAddress;
-import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -63,12 +58,6 @@ import static io.esastack.httpclient.core.netty.Utils.WRITE_BUF_IS_FULL;
  */
 class HttpTransceiverImpl implements HttpTransceiver {
 
-    private static final String HASHEDWHEELTIMER_TICKDURATION_KEY =
-            "io.esastack.httpclient.hashedWheelTimer.tickDurationMs";
-    private static final String HASHEDWHEELTIMER_SIZE_KEY =
-            "io.esastack.httpclient.hashedWheelTimer.size";
-
-    private static final Timer READ_TIMEOUT_TIMER;
     private static final ServerSelector SERVER_SELECTOR = ServerSelector.DEFAULT;
 
     private static final H1TransceiverHandle H1_HANDLE = new H1TransceiverHandle();
@@ -86,14 +75,6 @@ class HttpTransceiverImpl implements HttpTransceiver {
     private final ChannelPoolOptions channelPoolOptions;
     private final ResponseFilter[] rspFilters;
 
-    static {
-        READ_TIMEOUT_TIMER = new HashedWheelTimer(ThreadFactories
-                .namedThreadFactory("ESAHttpClient-ReadTimout-Checker-", true),
-                SystemPropertyUtil.getLong(HASHEDWHEELTIMER_TICKDURATION_KEY, 30L),
-                TimeUnit.MILLISECONDS,
-                SystemPropertyUtil.getInt(HASHEDWHEELTIMER_SIZE_KEY, 512));
-    }
-
     HttpTransceiverImpl(EventLoopGroup ioThreads,
                         CachedChannelPools channelPools,
                         HttpClientBuilder builder,
@@ -129,7 +110,11 @@ class HttpTransceiverImpl implements HttpTransceiver {
         }
 
         listener.onConnectionAttempt(request, ctx, address);
-        Future<Channel> channel = channelPool.acquire();
+        // The requests which can't be pipelined mustn't be queued behind the outstanding responses.
+        Future<Channel> channel = channelPool instanceof MeasurableChannelPool
+                && !H1TransceiverHandle.isPipelinable(request)
+                ? ((MeasurableChannelPool) channelPool).acquire(true)
+                : channelPool.acquire();
 
         final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
         channel.addListener(future -> {
@@ -189,6 +174,11 @@ class HttpTransceiverImpl implements HttpTransceiver {
                                            SocketAddress address, ChannelPool channelPool,
                                            Channel channel, CompletableFuture<HttpResponse> response) {
         execCtx.listener().onConnectionAcquired(request, execCtx.ctx(), address);
+        if (response.isDone()) {
+            // Cancelled when acquiring the channel.
+            channelPool.release(channel);
+            return;
+        }
 
         boolean http2 = isHttp2(channel);
         io.esastack.commons.net.http.HttpVersion version;
@@ -275,6 +265,14 @@ class HttpTransceiverImpl implements HttpTransceiver {
         // message may arrive before completing writing.
         final int requestId = addRspHandle(request, execCtx, channel, http2, registry, handle, response);
 
+        // Release the connection or the stream in time once the response has been cancelled, eg: the loser of
+        // hedged requests.
+        response.whenComplete((rsp, th) -> {
+            if (response.isCancelled()) {
+                channel.eventLoop().execute(() -> onCancelled(request, requestId, http2, channel, registry));
+            }
+        });
+
         try {
             handle.onWriteAttempt(request, execCtx.ctx());
 
@@ -318,14 +316,14 @@ class HttpTransceiverImpl implements HttpTransceiver {
                                 TimeoutHandle handle,
                                 HandleRegistry registry,
                                 CompletableFuture<HttpResponse> response) {
-        Timeout timeout = READ_TIMEOUT_TIMER.newTimeout(new ReadTimeoutTask(requestId,
-                        request.uri().toString(),
+        final Channel channel = headFuture.channel();
+        handle.addTimeoutTask(channel.eventLoop().schedule(new ReadTimeoutTask(requestId,
+                        request,
                         request.readTimeout(),
-                        headFuture.channel(),
+                        channel,
                         registry),
-                TimeUnit.MILLISECONDS.toNanos(request.readTimeout()),
-                TimeUnit.NANOSECONDS);
-        handle.addTimeoutTask(timeout);
+                request.readTimeout(),
+                TimeUnit.MILLISECONDS));
 
         headFuture.addListener(future -> {
             if (!headFuture.isSuccess()) {
@@ -365,6 +363,35 @@ class HttpTransceiverImpl implements HttpTransceiver {
         tryToCleanAndEndExceptionally(request, execCtx, requestId, registry, handle, response, cause);
     }
 
+    /**
+     * Callback when the response has been cancelled before it ends. The inbound message of a HTTP/1.1 connection
+     * can't be skipped, so the connection will be closed, while only the stream will be reset for HTTP/2.
+     *
+     * @param request   request
+     * @param requestId requestId
+     * @param http2     http2
+     * @param channel   channel
+     * @param registry  registry
+     */
+    protected void onCancelled(HttpRequest request, int requestId, boolean http2, Channel channel,
+                               HandleRegistry registry) {
+        final ResponseHandle handle = registry.remove(requestId);
+        if (handle == null) {
+            // Ended already.
+            return;
+        }
+
+        if (http2) {
+            final Http2ConnectionHandler handler = channel.pipeline().get(Http2ConnectionHandler.class);
+            if (handler != null) {
+                handler.cancelStream(requestId);
+            }
+        } else {
+            channel.close();
+        }
+        handle.onError(new CancellationException("Request: " + request.uri() + " has been cancelled"));
+    }
+
     protected void completeExceptionally(HttpRequest request, ExecContext execCtx,
                                          CompletableFuture<HttpResponse> response,
                                          Throwable cause) {
@@ -416,6 +443,9 @@ class HttpTransceiverImpl implements HttpTransceiver {
         if (request.file() != null) {
             return FileWriter.singleton();
         }
+        if (request.stream() != null) {
+            return StreamWriter.singleton();
+        }
         return PlainWriter.singleton();
     }
 
@@ -438,19 +468,6 @@ class HttpTransceiverImpl implements HttpTransceiver {
         return this.channelPoolOptions;
     }
 
-    static void closeTimer() {
-        final long start = System.nanoTime();
-        final Set<Timeout> tasks = READ_TIMEOUT_TIMER.stop();
-        LoggerUtils.logger().info("Begin to close readTimeout-Timer, unfinished tasks size: {}", tasks.size());
-        for (Timeout item : tasks) {
-            if (item.task() instanceof ReadTimeoutTask) {
-                ((ReadTimeoutTask) item.task()).cancel();
-            }
-        }
-        LoggerUtils.logger().info("Closed readTimeout-Timer successfully and all" +
-                " unfinished tasks has been canceled, time elapsed: {}", (System.nanoTime() - start) / 1_000_000);
-    }
-
     private boolean isHttp2(Channel channel) {
         ChannelPipeline pipeline = channel.pipeline();
         return pipeline.get(Http2ConnectionHandler.class) != null;
@@ -495,6 +512,7 @@ class HttpTransceiverImpl implements HttpTransceiver {
                     execCtx,
                     channel,
                     rspFilters,
+                    builder.isUsePooledBody(),
                     registry,
                     handle,
                     response);
@@ -504,6 +522,7 @@ class HttpTransceiverImpl implements HttpTransceiver {
                     execCtx,
                     channel,
                     rspFilters,
+                    builder.isUsePooledBody(),
                     registry,
                     handle,
                     response);
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.netty;
+
+import io.esastack.httpclient.core.metrics.ConnectionPoolMetric;
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.Future;
+
+/**
+ * A {@link io.netty.channel.pool.ChannelPool} which exposes its state directly, so that the
+ * {@link ConnectionPoolMetric} can be obtained without reflection.
+ */
+interface MeasurableChannelPool extends io.netty.channel.pool.ChannelPool {
+
+    /**
+     * Acquires a {@link Channel}, which is same as {@link #acquire()} if {@code exclusive} is {@code false}.
+     * Otherwise, the acquired {@link Channel} mustn't have any outstanding response of the pipelined requests,
+     * which is required by the requests that can't be pipelined.
+     *
+     * @param exclusive whether to acquire a {@link Channel} without outstanding responses
+     * @return future
+     */
+    default Future<Channel> acquire(boolean exclusive) {
+        return acquire();
+    }
+
+    /**
+     * Obtains the max number of connections.
+     *
+     * @return max connections
+     */
+    int maxConnections();
+
+    /**
+     * Obtains the max number of pending acquires.
+     *
+     * @return max pending acquires
+     */
+    int maxPendingAcquires();
+
+    /**
+     * Obtains the number of acquired and not released yet.
+     *
+     * @return acquired count
+     */
+    int acquiredCount();
+
+    /**
+     * Obtains the number of pending acquires.
+     *
+     * @return pending acquire count
+     */
+    int pendingAcquireCount();
+
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.netty;
+
+import esa.commons.Checks;
+import io.esastack.httpclient.core.resolver.AddressSelector;
+import io.esastack.httpclient.core.resolver.HostResolver;
+import io.esastack.httpclient.core.util.Futures;
+import io.esastack.httpclient.core.util.LoggerUtils;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.AttributeKey;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.ThreadExecutorMap;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link io.netty.channel.pool.ChannelPool} of a host which maintains an exclusive sub-pool for every address
+ * resolved by {@link HostResolver#resolveAddresses(String)}, and distributes the acquires across the sub-pools
+ * by the given {@link AddressSelector} with the live occupancy of them.
+ * <p>
+ * The sub-pools are kept in sync with the resolver: the host is resolved again when the previous result is older
+ * than {@link #DEFAULT_REFRESH_INTERVAL_MILLIS}, the sub-pools of new addresses are created lazily and the ones of
+ * vanished addresses stop serving new acquires and will be closed once all their channels have been released.
+ * A failed or empty resolution never discards the existing sub-pools.
+ */
+final class MultiAddressChannelPool implements MeasurableChannelPool {
+
+    private static final String REFRESH_INTERVAL_KEY = "io.esastack.httpclient.multiAddress.refreshIntervalMillis";
+    static final long DEFAULT_REFRESH_INTERVAL_MILLIS = SystemPropertyUtil.getLong(REFRESH_INTERVAL_KEY, 30_000L);
+
+    private static final AttributeKey<SubPool> SUB_POOL_KEY = AttributeKey.valueOf("$multi.address.sub.pool");
+
+    private final InetSocketAddress address;
+    private final HostResolver resolver;
+    private final AddressSelector selector;
+    private final EventLoopGroup group;
+    private final Function<InetSocketAddress, MeasurableChannelPool> subPoolFactory;
+    private final long refreshIntervalNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<CompletableFuture<List<SubPool>>> resolving = new AtomicReference<>();
+    private final Set<SubPool> retiredPools = ConcurrentHashMap.newKeySet();
+    private volatile List<SubPool> subPools = Collections.emptyList();
+    private volatile long lastResolveNanos;
+    private volatile boolean closed;
+
+    MultiAddressChannelPool(InetSocketAddress address,
+                            HostResolver resolver,
+                            AddressSelector selector,
+                            EventLoopGroup group,
+                            Function<InetSocketAddress, MeasurableChannelPool> subPoolFactory) {
+        this(address, resolver, selector, group, subPoolFactory,
+                DEFAULT_REFRESH_INTERVAL_MILLIS, System::nanoTime);
+    }
+
+    MultiAddressChannelPool(InetSocketAddress address,
+                            HostResolver resolver,
+                            AddressSelector selector,
+                            EventLoopGroup group,
+                            Function<InetSocketAddress, MeasurableChannelPool> subPoolFactory,
+                            long refreshIntervalMillis,
+                            LongSupplier nanoClock) {
+        Checks.checkNotNull(address, "address");
+        Checks.checkNotNull(resolver, "resolver");
+        Checks.checkNotNull(selector, "selector");
+        Checks.checkNotNull(group, "group");
+        Checks.checkNotNull(subPoolFactory, "subPoolFactory");
+        Checks.checkNotNull(nanoClock, "nanoClock");
+        Checks.checkArg(refreshIntervalMillis >= 0L, "refreshIntervalMillis is " + refreshIntervalMillis
+                + " (expected >= 0)");
+        this.address = address;
+        this.resolver = resolver;
+        this.selector = selector;
+        this.group = group;
+        this.subPoolFactory = subPoolFactory;
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Whether the given {@code address} is a host name which may be resolved to multiple addresses.
+     *
+     * @param address address
+     * @return {@code true} if applicable, otherwise {@code false}.
+     */
+    static boolean isApplicable(SocketAddress address) {
+        if (!(address instanceof InetSocketAddress)) {
+            return false;
+        }
+        final InetSocketAddress address0 = (InetSocketAddress) address;
+        return address0.isUnresolved() && !NetUtil.isValidIpV4Address(address0.getHostString())
+                && !NetUtil.isValidIpV6Address(address0.getHostString());
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        return acquire(executor().newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        return acquire(promise, false);
+    }
+
+    @Override
+    public Future<Channel> acquire(boolean exclusive) {
+        return acquire(executor().newPromise(), exclusive);
+    }
+
+    private Future<Channel> acquire(Promise<Channel> promise, boolean exclusive) {
+        Checks.checkNotNull(promise, "promise");
+        if (closed) {
+            promise.tryFailure(poolClosed());
+            return promise;
+        }
+
+        final List<SubPool> current = subPools;
+        if (current.isEmpty()) {
+            resolve().whenComplete((resolved, th) -> {
+                if (th != null) {
+                    promise.tryFailure(Futures.unwrapped(th));
+                } else if (resolved.isEmpty()) {
+                    promise.tryFailure(new UnknownHostException("Failed to resolve " + address.getHostString()));
+                } else {
+                    acquire0(resolved, promise, exclusive);
+                }
+            });
+        } else {
+            if (nanoClock.getAsLong() - lastResolveNanos >= refreshIntervalNanos) {
+                resolve();
+            }
+            acquire0(current, promise, exclusive);
+        }
+        return promise;
+    }
+
+    @Override
+    public Future<Void> release(Channel channel) {
+        return release(channel, channel.eventLoop().newPromise());
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, Promise<Void> promise) {
+        Checks.checkNotNull(channel, "channel");
+        Checks.checkNotNull(promise, "promise");
+        final SubPool subPool = channel.attr(SUB_POOL_KEY).get();
+        if (subPool == null) {
+            channel.close();
+            promise.tryFailure(new IllegalArgumentException("Channel " + channel
+                    + " was not acquired from this ChannelPool"));
+            return promise;
+        }
+
+        subPool.pool.release(channel, promise);
+        if (subPool.retired) {
+            subPool.closeIfIdle();
+        }
+        return promise;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        final List<SubPool> current;
+        synchronized (this) {
+            current = subPools;
+            subPools = Collections.emptyList();
+        }
+        for (SubPool subPool : current) {
+            subPool.close();
+        }
+        for (SubPool subPool : retiredPools) {
+            subPool.close();
+        }
+    }
+
+    @Override
+    public int maxConnections() {
+        int count = 0;
+        for (SubPool subPool : subPools) {
+            count += subPool.pool.maxConnections();
+        }
+        return count;
+    }
+
+    @Override
+    public int maxPendingAcquires() {
+        int count = 0;
+        for (SubPool subPool : subPools) {
+            count += subPool.pool.maxPendingAcquires();
+        }
+        return count;
+    }
+
+    @Override
+    public int acquiredCount() {
+        int count = 0;
+        for (SubPool subPool : subPools) {
+            count += subPool.active();
+        }
+        for (SubPool subPool : retiredPools) {
+            count += subPool.active();
+        }
+        return count;
+    }
+
+    @Override
+    public int pendingAcquireCount() {
+        int count = 0;
+        for (SubPool subPool : subPools) {
+            count += subPool.pendingAcquireCount();
+        }
+        return count;
+    }
+
+    /**
+     * Designed as package visibility for unit test purpose.
+     *
+     * @return the addresses which are serving acquires currently
+     */
+    List<InetSocketAddress> addresses() {
+        final List<SubPool> current = subPools;
+        final List<InetSocketAddress> addresses = new ArrayList<>(current.size());
+        for (SubPool subPool : current) {
+            addresses.add(subPool.address);
+        }
+        return addresses;
+    }
+
+    private void acquire0(List<SubPool> candidates, Promise<Channel> promise, boolean exclusive) {
+        SubPool selected = candidates.size() == 1 ? candidates.get(0) : selector.select(candidates);
+        if (selected == null) {
+            selected = candidates.get(0);
+        }
+
+        final SubPool subPool = selected;
+        final Future<Channel> future;
+        try {
+            future = subPool.pool.acquire(exclusive);
+        } catch (Throwable th) {
+            promise.tryFailure(th);
+            return;
+        }
+        future.addListener(f -> {
+            if (f.isSuccess()) {
+                final Channel channel = future.getNow();
+                channel.attr(SUB_POOL_KEY).set(subPool);
+                if (!promise.trySuccess(channel)) {
+                    // Cancelled or timed out already.
+                    release(channel);
+                }
+            } else {
+                promise.tryFailure(f.cause());
+            }
+        });
+    }
+
+    private CompletableFuture<List<SubPool>> resolve() {
+        for (;;) {
+            final CompletableFuture<List<SubPool>> inflight = resolving.get();
+            if (inflight != null) {
+                return inflight;
+            }
+            final CompletableFuture<List<SubPool>> future = new CompletableFuture<>();
+            if (!resolving.compareAndSet(null, future)) {
+                continue;
+            }
+
+            lastResolveNanos = nanoClock.getAsLong();
+            try {
+                resolver.resolveAddresses(address.getHostString()).whenComplete((resolved, th) -> {
+                    resolving.compareAndSet(future, null);
+                    if (th != null) {
+                        LoggerUtils.logger().warn("Failed to resolve {}, keep using the addresses: {}",
+                                address.getHostString(), addresses(), th);
+                        future.completeExceptionally(Futures.unwrapped(th));
+                    } else {
+                        try {
+                            future.complete(update(resolved));
+                        } catch (Throwable ex) {
+                            future.completeExceptionally(ex);
+                        }
+                    }
+                });
+            } catch (Throwable th) {
+                resolving.compareAndSet(future, null);
+                future.completeExceptionally(th);
+            }
+            return future;
+        }
+    }
+
+    private synchronized List<SubPool> update(List<InetAddress> resolved) {
+        final List<SubPool> current = subPools;
+        if (closed || resolved == null || resolved.isEmpty()) {
+            return current;
+        }
+
+        final List<SubPool> updated = new ArrayList<>(resolved.size());
+        for (InetAddress inetAddress : resolved) {
+            if (indexOf(updated, inetAddress) >= 0) {
+                continue;
+            }
+            final int index = indexOf(current, inetAddress);
+            if (index >= 0) {
+                updated.add(current.get(index));
+            } else {
+                final InetSocketAddress subAddress = toSocketAddress(inetAddress);
+                updated.add(new SubPool(subAddress, subPoolFactory.apply(subAddress)));
+            }
+        }
+
+        for (SubPool subPool : current) {
+            if (!updated.contains(subPool)) {
+                LoggerUtils.logger().info("Address {} has gone away from {}, retire its connection pool",
+                        subPool.address, address.getHostString());
+                subPool.retired = true;
+                retiredPools.add(subPool);
+                subPool.closeIfIdle();
+            }
+        }
+
+        subPools = Collections.unmodifiableList(updated);
+        return subPools;
+    }
+
+    private InetSocketAddress toSocketAddress(InetAddress inetAddress) {
+        InetAddress address0;
+        try {
+            // Keeps the host name so that it can be used as SNI without reverse lookup.
+            address0 = InetAddress.getByAddress(address.getHostString(), inetAddress.getAddress());
+        } catch (UnknownHostException ex) {
+            address0 = inetAddress;
+        }
+        return new InetSocketAddress(address0, address.getPort());
+    }
+
+    private EventExecutor executor() {
+        final EventExecutor current = ThreadExecutorMap.currentExecutor();
+        if (current != null && current.parent() == group) {
+            return current;
+        }
+        return group.next();
+    }
+
+    private static IllegalStateException poolClosed() {
+        return new IllegalStateException("MultiAddressChannelPool has been closed");
+    }
+
+    private static int indexOf(List<SubPool> subPools, InetAddress inetAddress) {
+        for (int i = 0; i < subPools.size(); i++) {
+            if (subPools.get(i).address.getAddress().equals(inetAddress)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private final class SubPool implements AddressSelector.Candidate {
+
+        private final InetSocketAddress address;
+        private final MeasurableChannelPool pool;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean retired;
+
+        private SubPool(InetSocketAddress address, MeasurableChannelPool pool) {
+            this.address = address;
+            this.pool = pool;
+        }
+
+        @Override
+        public InetSocketAddress address() {
+            return address;
+        }
+
+        @Override
+        public int active() {
+            return pool.acquiredCount();
+        }
+
+        @Override
+        public int pendingAcquireCount() {
+            return pool.pendingAcquireCount();
+        }
+
+        private void closeIfIdle() {
+            if (pool.acquiredCount() == 0 && pool.pendingAcquireCount() == 0) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                retiredPools.remove(this);
+                pool.close();
+            }
+        }
+    }
+}
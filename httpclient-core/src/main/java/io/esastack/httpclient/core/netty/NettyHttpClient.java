@@ -27,6 +27,7 @@ import io.esastack.commons.net.http.HttpMethod;
 import io.esastack.commons.net.http.HttpVersion;
 import io.esastack.httpclient.core.CompositeRequest;
 import io.esastack.httpclient.core.Context;
+import io.esastack.httpclient.core.ContextKeys;
 import io.esastack.httpclient.core.Handle;
 import io.esastack.httpclient.core.Handler;
 import io.esastack.httpclient.core.HttpClient;
@@ -42,11 +43,14 @@ import io.esastack.httpclient.core.config.CallbackThreadPoolOptions;
 import io.esastack.httpclient.core.config.ChannelPoolOptions;
 import io.esastack.httpclient.core.config.Decompression;
 import io.esastack.httpclient.core.config.SslOptions;
+import io.esastack.httpclient.core.exec.ConcurrencyLimitInterceptor;
 import io.esastack.httpclient.core.exec.ExecContext;
 import io.esastack.httpclient.core.exec.HttpTransceiver;
+import io.esastack.httpclient.core.exec.Interceptor;
 import io.esastack.httpclient.core.exec.RequestExecutor;
 import io.esastack.httpclient.core.exec.RequestExecutorImpl;
 import io.esastack.httpclient.core.metrics.CallbackExecutorMetric;
+import io.esastack.httpclient.core.metrics.ConcurrencyLimitMetricProvider;
 import io.esastack.httpclient.core.metrics.ConnectionPoolMetric;
 import io.esastack.httpclient.core.metrics.ConnectionPoolMetricProvider;
 import io.esastack.httpclient.core.metrics.IoThreadGroupMetric;
@@ -55,6 +59,7 @@ import io.esastack.httpclient.core.spi.SslEngineFactory;
 import io.esastack.httpclient.core.util.BufferUtils;
 import io.esastack.httpclient.core.util.Futures;
 import io.esastack.httpclient.core.util.LoggerUtils;
+import io.esastack.httpclient.core.util.Schedulers;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.MultithreadEventLoopGroup;
 import io.netty.channel.SingleThreadEventLoop;
@@ -240,9 +245,15 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
         final Listener listener = ListenerProxy.DEFAULT;
 
         addAcceptEncodingIfAbsent(request);
+        if (handle != null || handler != null) {
+            ctx.attrs().attr(ContextKeys.CUSTOM_HANDLE_KEY).set(Boolean.TRUE);
+        }
 
         CompletableFuture<HttpResponse> response = executor.execute(request,
                 new ExecContext(ctx, listener, handle, handler));
+        if (handler != null) {
+            response = response.whenComplete(handler::onCompleted);
+        }
         if (request.buffer() != null) {
             response = response.whenComplete((rsp, th) -> Utils.tryRelease(BufferUtils.toByteBuf(request.buffer())));
         }
@@ -279,6 +290,16 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
         return new CallbackExecutorMetricImpl(callbackExecutor.origin(), callbackExecutor.id());
     }
 
+    @Override
+    public ConcurrencyLimitMetricProvider concurrencyLimitMetric() {
+        for (Interceptor interceptor : builder.unmodifiableInterceptors()) {
+            if (interceptor instanceof ConcurrencyLimitInterceptor) {
+                return ((ConcurrencyLimitInterceptor) interceptor).metric();
+            }
+        }
+        return HttpClient.super.concurrencyLimitMetric();
+    }
+
     @Override
     public void close() {
         if (closed.compareAndSet(false, true)) {
@@ -322,6 +343,13 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
                     "Scheduler-ThreadPool", ex);
         }
 
+        // Stop the shared timer of interceptors
+        try {
+            Schedulers.stop();
+        } catch (Throwable ex) {
+            LoggerUtils.logger().error("Error while stopping ESAHttpClient-Timer", ex);
+        }
+
         // Shutdown IO-Threads
         if (SHARED_IO_THREADS.origin() != null) {
             try {
@@ -355,9 +383,6 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
                 LoggerUtils.logger().error("Error while closing Callback-Executor-ThreadPool", ex);
             }
         }
-
-        // Shutdown ReadTimeout-Timer
-        HttpTransceiverImpl.closeTimer();
     }
 
     @Override
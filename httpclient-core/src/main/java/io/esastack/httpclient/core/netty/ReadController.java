@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.netty;
+
+/**
+ * Controls the reading of the inbound content of a {@link ResponseHandle} whose content is delivered on demand,
+ * which is attached by the channel handler before the response is started.
+ */
+interface ReadController {
+
+    /**
+     * Stops reading more content from the peer, which must be invoked in the event loop.
+     */
+    void pause();
+
+    /**
+     * Resumes reading from the peer, which must be invoked in the event loop.
+     */
+    void resume();
+
+    /**
+     * Informs that {@code bytes} of the content have been consumed, which must be invoked in the event loop.
+     *
+     * @param bytes bytes
+     */
+    void consumed(int bytes);
+
+    /**
+     * Executes the given {@code task} in the event loop.
+     *
+     * @param task task
+     */
+    void execute(Runnable task);
+
+}
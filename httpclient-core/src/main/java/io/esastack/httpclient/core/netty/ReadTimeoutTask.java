@@ -15,54 +15,50 @@
  */
 package io.esastack.httpclient.core.netty;
 
+import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.util.LoggerUtils;
 import io.netty.channel.Channel;
-import io.netty.util.Timeout;
-import io.netty.util.TimerTask;
 
 import java.net.SocketTimeoutException;
 
-final class ReadTimeoutTask implements TimerTask {
+/**
+ * Task to end the request exceptionally when the response hasn't been received in time, which is scheduled to
+ * the {@link io.netty.channel.EventLoop} of the {@link Channel} so that the task runs in the same thread with
+ * the response handling and nothing else is needed to be allocated except the task itself.
+ */
+final class ReadTimeoutTask implements Runnable {
 
     private final int requestId;
-    private final String uri;
+    private final HttpRequest request;
     private final Channel channel;
     private final HandleRegistry registry;
     private final long timeout;
 
     ReadTimeoutTask(int requestId,
-                    String uri,
+                    HttpRequest request,
                     long timeout,
                     Channel channel,
                     HandleRegistry registry) {
         this.requestId = requestId;
-        this.uri = uri;
+        this.request = request;
         this.timeout = timeout;
         this.channel = channel;
         this.registry = registry;
     }
 
     @Override
-    public void run(Timeout timeout) {
+    public void run() {
         final ResponseHandle handle = registry.remove(requestId);
         if (handle != null) {
-            channel.eventLoop().execute(() -> handle.onError(new
-                    SocketTimeoutException("Request: " + uri + " exceeds read timeout: " + this.timeout + "ms")));
+            handle.onError(new SocketTimeoutException("Request: " + request.uri() + " exceeds read timeout: "
+                    + timeout + "ms"));
             channel.close();
             if (LoggerUtils.logger().isDebugEnabled()) {
-                LoggerUtils.logger().debug("Request: " + uri + " exceeds read timeout " + this.timeout
+                LoggerUtils.logger().debug("Request: " + request.uri() + " exceeds read timeout " + timeout
                         + "ms, begin to close connection: "
                         + channel);
             }
         }
     }
 
-    void cancel() {
-        ResponseHandle handle = registry.remove(requestId);
-        if (handle != null) {
-            handle.onError(new IllegalStateException("Request: " + uri +
-                    " haven't finished while connection: " + channel + "has closed"));
-        }
-    }
-
 }
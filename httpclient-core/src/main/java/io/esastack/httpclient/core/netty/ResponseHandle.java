@@ -18,17 +18,24 @@ package io.esastack.httpclient.core.netty;
 import esa.commons.Checks;
 import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.HttpHeaders;
+import io.esastack.commons.net.netty.buffer.BufferImpl;
+import io.esastack.httpclient.core.Handle;
 import io.esastack.httpclient.core.HttpMessage;
 import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.httpclient.core.exec.ExecContext;
+import io.esastack.httpclient.core.util.BufferUtils;
 import io.esastack.httpclient.core.util.LoggerUtils;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 class ResponseHandle {
 
+    private static final Object END = new Object();
+
     final HandleImpl handle;
     final HttpRequest request;
 
@@ -39,6 +46,24 @@ class ResponseHandle {
 
     long remaining = -1L;
 
+    /**
+     * Whether the content is delivered on demand, see {@link Handle#request(long)}.
+     */
+    private volatile boolean demandDriven;
+    private volatile ReadController controller;
+
+    /*
+     * The following fields are only accessed in the event loop once the controller has been attached.
+     */
+    private long demand;
+    private boolean paused;
+    private boolean draining;
+
+    /**
+     * The content, trailers and {@link #END} which have been received but not delivered.
+     */
+    private Queue<Object> pending;
+
     ResponseHandle(HandleImpl handle,
                    HttpRequest request,
                    ExecContext execCtx,
@@ -54,6 +79,13 @@ class ResponseHandle {
         this.request = request;
         this.execCtx = execCtx;
         this.response = response;
+        synchronized (this) {
+            final long requested = handle.bind(this);
+            if (requested > 0L) {
+                this.demandDriven = true;
+                this.demand = requested;
+            }
+        }
     }
 
     public void onMessage(HttpMessage message) {
@@ -73,10 +105,174 @@ class ResponseHandle {
     }
 
     public void onData(Buffer content) {
+        if (demandDriven) {
+            onDemandedData(content);
+            return;
+        }
+
         if (ended.get()) {
             return;
         }
 
+        deliver(content);
+    }
+
+    public void onEnd() {
+        if (ended.get()) {
+            return;
+        }
+
+        if (demandDriven) {
+            // All the content has been received, so there is no need to stop reading any more.
+            resume();
+            if (hasPending()) {
+                pending.offer(END);
+                return;
+            }
+        }
+
+        end0();
+    }
+
+    public void onError(Throwable cause) {
+        if (ended.compareAndSet(false, true)) {
+            onError0(cause);
+        }
+    }
+
+    public void onTrailers(HttpHeaders trailers) {
+        if (ended.get()) {
+            return;
+        }
+
+        if (demandDriven && hasPending()) {
+            pending.offer(trailers);
+            return;
+        }
+
+        deliverTrailers(trailers);
+    }
+
+    public ExecContext ctx() {
+        return execCtx;
+    }
+
+    /**
+     * Requests {@code n} more chunks of content, which can be invoked in any thread.
+     *
+     * @param n n
+     */
+    void request(long n) {
+        demandDriven = true;
+        ReadController controller0 = controller;
+        if (controller0 == null) {
+            synchronized (this) {
+                if ((controller0 = controller) == null) {
+                    demand = addDemand(demand, n);
+                    return;
+                }
+            }
+        }
+        controller0.execute(() -> onRequest(n));
+    }
+
+    /**
+     * Attaches the {@link ReadController} before the response is started, which must be invoked in the
+     * event loop.
+     *
+     * @param controller controller
+     */
+    synchronized void readController(ReadController controller) {
+        this.controller = controller;
+    }
+
+    boolean isDemandDriven() {
+        return demandDriven;
+    }
+
+    static long addDemand(long demand, long n) {
+        final long sum = demand + n;
+        return sum < 0L ? Long.MAX_VALUE : sum;
+    }
+
+    private void onDemandedData(Buffer content) {
+        final int bytes = content.readableBytes();
+        if (ended.get()) {
+            consumed(bytes);
+            return;
+        }
+
+        if (demand > 0L && !hasPending()) {
+            decreaseDemand();
+            deliver(content);
+            consumed(bytes);
+        } else {
+            if (pending == null) {
+                pending = new ArrayDeque<>();
+            }
+            // The content is only available while reading, so retain it until it has been delivered.
+            pending.offer(new BufferImpl(BufferUtils.toByteBuf(content).retainedDuplicate()));
+        }
+
+        if (demand == 0L) {
+            pause();
+        }
+    }
+
+    private void onRequest(long n) {
+        demand = addDemand(demand, n);
+        // The consumer may request more while the pending content is being delivered.
+        if (draining) {
+            return;
+        }
+
+        draining = true;
+        try {
+            drain();
+        } finally {
+            draining = false;
+        }
+        if (demand > 0L) {
+            resume();
+        }
+    }
+
+    private void drain() {
+        Object next;
+        while (pending != null && (next = pending.peek()) != null) {
+            if (ended.get()) {
+                releasePending();
+                return;
+            }
+
+            if (next == END) {
+                pending.poll();
+                end0();
+                return;
+            }
+            if (next instanceof HttpHeaders) {
+                pending.poll();
+                deliverTrailers((HttpHeaders) next);
+                continue;
+            }
+            if (demand == 0L) {
+                return;
+            }
+
+            pending.poll();
+            final Buffer content = (Buffer) next;
+            final int bytes = content.readableBytes();
+            decreaseDemand();
+            try {
+                deliver(content);
+            } finally {
+                BufferUtils.toByteBuf(content).release();
+            }
+            consumed(bytes);
+        }
+    }
+
+    private void deliver(Buffer content) {
         try {
             if (handle.data != null) {
                 handle.data.accept(content);
@@ -86,11 +282,17 @@ class ResponseHandle {
         }
     }
 
-    public void onEnd() {
-        if (ended.get()) {
-            return;
+    private void deliverTrailers(HttpHeaders trailers) {
+        try {
+            if (handle.trailers != null) {
+                handle.trailers.accept(trailers);
+            }
+        } catch (Throwable ex) {
+            onError(ex);
         }
+    }
 
+    private void end0() {
         try {
             if (ended.compareAndSet(false, true)) {
                 if (handle.end != null) {
@@ -105,31 +307,58 @@ class ResponseHandle {
         }
     }
 
-    public void onError(Throwable cause) {
-        if (ended.compareAndSet(false, true)) {
-            onError0(cause);
+    private boolean hasPending() {
+        return pending != null && !pending.isEmpty();
+    }
+
+    private void decreaseDemand() {
+        if (demand != Long.MAX_VALUE) {
+            demand--;
         }
     }
 
-    public void onTrailers(HttpHeaders trailers) {
-        if (ended.get()) {
-            return;
+    private void pause() {
+        final ReadController controller0 = controller;
+        if (!paused && controller0 != null) {
+            paused = true;
+            controller0.pause();
         }
+    }
 
-        try {
-            if (handle.trailers != null) {
-                handle.trailers.accept(trailers);
-            }
-        } catch (Throwable ex) {
-            onError(ex);
+    private void resume() {
+        if (paused) {
+            paused = false;
+            controller.resume();
         }
     }
 
-    public ExecContext ctx() {
-        return execCtx;
+    private void consumed(int bytes) {
+        final ReadController controller0 = controller;
+        if (controller0 != null && bytes > 0) {
+            controller0.consumed(bytes);
+        }
+    }
+
+    private void releasePending() {
+        Object next;
+        while (pending != null && (next = pending.poll()) != null) {
+            if (next instanceof Buffer) {
+                final Buffer content = (Buffer) next;
+                final int bytes = content.readableBytes();
+                BufferUtils.toByteBuf(content).release();
+                consumed(bytes);
+            }
+        }
+        resume();
     }
 
     private void onError0(Throwable cause) {
+        if (demandDriven) {
+            final ReadController controller0 = controller;
+            if (controller0 != null) {
+                controller0.execute(this::releasePending);
+            }
+        }
         response.completeExceptionally(cause);
         try {
             if (handle.error != null) {
@@ -17,8 +17,10 @@ package io.esastack.httpclient.core.netty;
 
 import esa.commons.Checks;
 import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpHeaders;
 import io.esastack.commons.net.http.HttpMethod;
+import io.esastack.commons.net.netty.buffer.BufferImpl;
 import io.esastack.httpclient.core.Handle;
 import io.esastack.httpclient.core.Handler;
 import io.esastack.httpclient.core.HttpClientBuilder;
@@ -26,9 +28,13 @@ import io.esastack.httpclient.core.HttpRequestBaseImpl;
 import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.httpclient.core.ListenerProxy;
 import io.esastack.httpclient.core.SegmentRequest;
+import io.esastack.httpclient.core.config.Compression;
 import io.esastack.httpclient.core.exec.RequestExecutor;
+import io.esastack.httpclient.core.util.BodyCompressor;
 import io.esastack.httpclient.core.util.BufferUtils;
 import io.esastack.httpclient.core.util.Futures;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.util.internal.MathUtil;
@@ -59,6 +65,16 @@ public class SegmentRequestImpl extends HttpRequestBaseImpl implements SegmentRe
     private boolean started;
     private boolean ended;
 
+    private volatile Compression compression;
+
+    /**
+     * The compressor of {@link #compression}, which is only accessed in the event loop.
+     */
+    private BodyCompressor compressor;
+
+    private volatile int flushThreshold;
+    private volatile long flushDelayMillis;
+
     SegmentRequestImpl(HttpClientBuilder builder,
                        RequestExecutor executor,
                        HttpMethod method,
@@ -195,14 +211,14 @@ public class SegmentRequestImpl extends HttpRequestBaseImpl implements SegmentRe
             if (ended) {
                 future.completeExceptionally(REQUEST_HAS_ENDED);
             } else {
-                joinToComplete(future, writer.write(data, offset, length));
+                joinToComplete(future, write0(writer, data, offset, length));
             }
         } else {
             channel.eventLoop().execute(() -> {
                 if (ended) {
                     future.completeExceptionally(REQUEST_HAS_ENDED);
                 } else {
-                    joinToComplete(future, writer.write(data, offset, length));
+                    joinToComplete(future, write0(writer, data, offset, length));
                 }
             });
         }
@@ -214,6 +230,50 @@ public class SegmentRequestImpl extends HttpRequestBaseImpl implements SegmentRe
         }
     }
 
+    private <T> ChannelFuture write0(SegmentWriter writer, T data, int offset, int length) {
+        if (compression == null) {
+            return writer.write(data, offset, length);
+        }
+
+        final ByteBuf chunk;
+        if (data instanceof Buffer) {
+            // The data itself will be released after writing.
+            chunk = BufferUtils.toByteBuf((Buffer) data).retainedDuplicate();
+        } else if (data instanceof byte[]) {
+            chunk = Unpooled.wrappedBuffer((byte[]) data, offset, length);
+        } else {
+            return writer.write(data, offset, length);
+        }
+        return writeCompressed(writer, compressor().compress(chunk));
+    }
+
+    private ChannelFuture writeCompressed(SegmentWriter writer, ByteBuf compressed) {
+        if (!compressed.isReadable()) {
+            compressed.release();
+            return writer.channel().newSucceededFuture();
+        }
+        try {
+            // The writer retains the buffer which will be released by the channel.
+            return writer.write(new BufferImpl(compressed), -1, -1);
+        } finally {
+            compressed.release();
+        }
+    }
+
+    private BodyCompressor compressor() {
+        if (compressor == null) {
+            compressor = new BodyCompressor(compression);
+        }
+        return compressor;
+    }
+
+    private void releaseCompressor() {
+        if (compressor != null) {
+            compressor.close();
+            compressor = null;
+        }
+    }
+
     private CompletableFuture<Void> safelyDoEnd(HttpHeaders headers) {
         try {
             if (segmentWriter.isDone() && segmentWriter.isCompletedExceptionally()) {
@@ -252,6 +312,11 @@ public class SegmentRequestImpl extends HttpRequestBaseImpl implements SegmentRe
                 promise.completeExceptionally(REQUEST_HAS_ENDED);
             }
             ended = true;
+            if (compression != null) {
+                // Writes the remaining compressed content, eg: the trailer of gzip.
+                writeCompressed(writer, compressor().finish());
+                releaseCompressor();
+            }
             final ChannelFuture endPromise;
             if (headers == null) {
                 endPromise = writer.end();
@@ -292,6 +357,9 @@ public class SegmentRequestImpl extends HttpRequestBaseImpl implements SegmentRe
             SegmentWriter writer;
             if ((writer = segmentWriter.getNow(null)) != null) {
                 writer.close(th);
+                if (th != null && compression != null) {
+                    Utils.runInChannel(writer.channel(), this::releaseCompressor);
+                }
             }
             if (th != null) {
                 response.completeExceptionally(th);
@@ -301,7 +369,16 @@ public class SegmentRequestImpl extends HttpRequestBaseImpl implements SegmentRe
 
     private synchronized void appendToOrderedWriterOpsChain(BiConsumer<SegmentWriter, Throwable> consumer) {
         if (orderedWriterOpsChain == null) {
+            if (segmentWriter.isDone() && !segmentWriter.isCompletedExceptionally()) {
+                // All the previous operations have been submitted to the event loop in order, so there's no need
+                // to chain a new future for every chunk.
+                consumer.accept(segmentWriter.getNow(null), null);
+                return;
+            }
             orderedWriterOpsChain = segmentWriter.whenComplete(consumer);
+        } else if (orderedWriterOpsChain.isDone() && !orderedWriterOpsChain.isCompletedExceptionally()) {
+            orderedWriterOpsChain = null;
+            appendToOrderedWriterOpsChain(consumer);
         } else {
             orderedWriterOpsChain = orderedWriterOpsChain.whenComplete(consumer);
         }
@@ -325,6 +402,34 @@ public class SegmentRequestImpl extends HttpRequestBaseImpl implements SegmentRe
         }
     }
 
+    @Override
+    public SegmentRequest compression(Compression compression) {
+        Checks.checkNotNull(compression, "compression");
+        checkStarted();
+        this.compression = compression;
+        super.setHeader(HttpHeaderNames.CONTENT_ENCODING, compression.format());
+        super.removeHeader(HttpHeaderNames.CONTENT_LENGTH);
+        return this;
+    }
+
+    @Override
+    public SegmentRequest coalesce(int flushThreshold, long flushDelayMillis) {
+        Checks.checkArg(flushThreshold > 0, "flushThreshold must be > 0");
+        Checks.checkArg(flushDelayMillis >= 0L, "flushDelayMillis must be >= 0");
+        checkStarted();
+        this.flushThreshold = flushThreshold;
+        this.flushDelayMillis = flushDelayMillis;
+        return this;
+    }
+
+    int flushThreshold() {
+        return flushThreshold;
+    }
+
+    long flushDelayMillis() {
+        return flushDelayMillis;
+    }
+
     private void checkStarted() {
         if (started) {
             throw new IllegalStateException("Request's execute() has been called " +
@@ -336,6 +441,9 @@ public class SegmentRequestImpl extends HttpRequestBaseImpl implements SegmentRe
     public SegmentRequest copy() {
         final SegmentRequestImpl copied = new SegmentRequestImpl(builder, executor, method(), uri().toString());
         copyTo(this, copied);
+        copied.compression = compression;
+        copied.flushThreshold = flushThreshold;
+        copied.flushDelayMillis = flushDelayMillis;
         return copied;
     }
 
@@ -28,7 +28,10 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.SingleThreadEventLoop;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
@@ -40,8 +43,11 @@ import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import static io.esastack.httpclient.core.util.HttpHeadersUtils.toHttp2Headers;
 
@@ -50,12 +56,33 @@ import static io.esastack.httpclient.core.util.HttpHeadersUtils.toHttp2Headers;
  */
 class SegmentWriter extends RequestWriterImpl {
 
+    private static final IllegalStateException REQUEST_HAS_ENDED = new IllegalStateException("Request has ended");
+
     private volatile ChannelPromise endPromise;
     private volatile Channel channel;
     private volatile boolean http2;
     private volatile Http2ConnectionHandler h2Handler;
     private volatile int streamId;
 
+    /**
+     * The size of the content to write in a frame when coalescing the small writes, and coalescing is disabled
+     * if it's not positive, see {@link SegmentRequestImpl#coalesce(int, long)}. All the following state of
+     * coalescing is only accessed in the event loop.
+     */
+    private int flushThreshold;
+    private long flushDelayMillis;
+    private ByteBuf frame;
+    private ChannelPromise framePromise;
+    private boolean flushScheduled;
+    private ScheduledFuture<?> delayedFlush;
+
+    /**
+     * The promise of the writes which are waiting for the channel to become writable.
+     */
+    private ChannelPromise pacer;
+    private WritabilityWatcher watcher;
+    private Throwable writeFailure;
+
     @Override
     public ChannelFuture writeAndFlush(io.esastack.httpclient.core.HttpRequest request,
                                        Channel channel,
@@ -66,6 +93,10 @@ class SegmentWriter extends RequestWriterImpl {
                                        boolean http2) throws IOException {
         this.endPromise = channel.newPromise();
         this.channel = channel;
+        if (request instanceof SegmentRequestImpl) {
+            this.flushThreshold = ((SegmentRequestImpl) request).flushThreshold();
+            this.flushDelayMillis = ((SegmentRequestImpl) request).flushDelayMillis();
+        }
 
         return super.writeAndFlush(request, channel, execCtx, headFuture, useUriEncode, version, http2);
     }
@@ -126,6 +157,9 @@ class SegmentWriter extends RequestWriterImpl {
 
     <T> ChannelFuture write(T data, int offset, int length) {
         assert channel.eventLoop().inEventLoop();
+        if (flushThreshold > 0) {
+            return coalesce(data, offset, length);
+        }
         ByteBuf buf;
         if (data instanceof Buffer) {
             // Note: retained the buffer so that channel can release it normally which has
@@ -136,26 +170,194 @@ class SegmentWriter extends RequestWriterImpl {
             buf = channel.alloc().buffer(length);
             buf.writeBytes((byte[]) data, offset, length);
         } else {
-            return channel.newFailedFuture(new IllegalArgumentException("Unexpected writable data format: "
-                    + data.getClass() + ", expected(byte[], Buffer)"));
+            return unexpectedData(data);
         }
 
-        ChannelFuture future;
+        return writeData(buf, channel.newPromise(), true);
+    }
+
+    private ChannelFuture writeData(ByteBuf buf, ChannelPromise promise, boolean flush) {
         if (http2) {
-            future = h2Handler.writeData(streamId,
-                    buf,
-                    false,
-                    channel.newPromise());
+            h2Handler.writeData(streamId, buf, false, promise);
+        } else {
+            channel.write(new DefaultHttpContent(buf), promise);
+        }
+        if (flush) {
             channel.flush();
+        }
+        return promise;
+    }
+
+    private ChannelFuture unexpectedData(Object data) {
+        return channel.newFailedFuture(new IllegalArgumentException("Unexpected writable data format: "
+                + data.getClass() + ", expected(byte[], Buffer)"));
+    }
+
+    /**
+     * Copies the {@code data} to current frame instead of writing it immediately, the frame is written and flushed
+     * once it has reached the {@link #flushThreshold}, or {@link #flushDelayMillis} later since the first data was
+     * copied, or at the end of current event loop iteration if {@link #flushDelayMillis} is not positive. The
+     * returned future completes immediately if the channel (and the stream on HTTP/2) is writable, otherwise it
+     * completes once it becomes writable, so that the writers are paced by the connection.
+     */
+    private <T> ChannelFuture coalesce(T data, int offset, int length) {
+        if (writeFailure != null) {
+            return channel.newFailedFuture(writeFailure);
+        }
+
+        final ByteBuf src;
+        if (data instanceof Buffer) {
+            src = BufferUtils.toByteBuf((Buffer) data);
+        } else if (data instanceof byte[]) {
+            src = Unpooled.wrappedBuffer((byte[]) data, offset, length);
         } else {
-            future = channel.writeAndFlush(new DefaultHttpContent(buf));
+            return unexpectedData(data);
         }
 
-        return future;
+        if (src.readableBytes() >= flushThreshold) {
+            // Large enough to be written as a frame itself.
+            flushFrame(false);
+            writeData(data instanceof Buffer ? src.retain() : copy(src), channel.newPromise(), true)
+                    .addListener(this::onFrameWritten);
+        } else {
+            if (frame == null) {
+                frame = channel.alloc().buffer(flushThreshold);
+                framePromise = channel.newPromise();
+                framePromise.addListener(this::onFrameWritten);
+            } else if (frame.writableBytes() < src.readableBytes()) {
+                flushFrame(false);
+                return coalesce(data, offset, length);
+            }
+            frame.writeBytes(src, src.readerIndex(), src.readableBytes());
+            if (!frame.isWritable()) {
+                flushFrame(true);
+            } else {
+                scheduleFlush();
+            }
+        }
+
+        if (isWritable()) {
+            return channel.newSucceededFuture();
+        }
+        if (pacer == null) {
+            pacer = channel.newPromise();
+        }
+        if (watcher == null) {
+            watcher = new WritabilityWatcher();
+            channel.pipeline().addFirst(watcher);
+            if (http2) {
+                // The flow-control window of the stream may run out while the connection is still writable.
+                h2Handler.writabilityListener(streamId, this::onWritabilityChanged);
+            }
+        }
+        return pacer;
+    }
+
+    private ByteBuf copy(ByteBuf src) {
+        final ByteBuf buf = channel.alloc().buffer(src.readableBytes());
+        buf.writeBytes(src, src.readerIndex(), src.readableBytes());
+        return buf;
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        if (flushDelayMillis > 0L) {
+            delayedFlush = channel.eventLoop().schedule(() -> flushFrame(true), flushDelayMillis,
+                    TimeUnit.MILLISECONDS);
+        } else if (channel.eventLoop() instanceof SingleThreadEventLoop) {
+            ((SingleThreadEventLoop) channel.eventLoop()).executeAfterEventLoopIteration(() -> flushFrame(true));
+        } else {
+            channel.eventLoop().execute(() -> flushFrame(true));
+        }
+    }
+
+    private void flushFrame(boolean flush) {
+        flushScheduled = false;
+        if (delayedFlush != null) {
+            delayedFlush.cancel(false);
+            delayedFlush = null;
+        }
+        if (frame == null) {
+            return;
+        }
+        final ByteBuf frame0 = frame;
+        final ChannelPromise promise = framePromise;
+        frame = null;
+        framePromise = null;
+        writeData(frame0, promise, flush);
+    }
+
+    private void onFrameWritten(Future<? super Void> future) {
+        if (future.isSuccess() || writeFailure != null) {
+            return;
+        }
+        writeFailure = future.cause();
+        if (pacer != null) {
+            pacer.tryFailure(writeFailure);
+            pacer = null;
+        }
+    }
+
+    /**
+     * Whether more data can be written, the stream should be writable too on HTTP/2, otherwise the frames will
+     * be piled up in the flow controller.
+     */
+    private boolean isWritable() {
+        return channel.isWritable() && (!http2 || h2Handler.isWritable(streamId));
+    }
+
+    private void onWritabilityChanged() {
+        if (pacer != null && isWritable()) {
+            final ChannelPromise pacer0 = pacer;
+            pacer = null;
+            pacer0.trySuccess();
+        }
+    }
+
+    /**
+     * Releases the state of coalescing, the writes which are waiting for the channel to become writable complete
+     * successfully if the {@code cause} is {@code null}, because their data has been written before the end.
+     */
+    private void releaseCoalescing(Throwable cause) {
+        if (!channel.eventLoop().inEventLoop()) {
+            channel.eventLoop().execute(() -> releaseCoalescing(cause));
+            return;
+        }
+        if (delayedFlush != null) {
+            delayedFlush.cancel(false);
+            delayedFlush = null;
+        }
+        if (frame != null) {
+            frame.release();
+            frame = null;
+            framePromise.tryFailure(cause == null ? REQUEST_HAS_ENDED : cause);
+            framePromise = null;
+        }
+        if (pacer != null) {
+            if (cause == null) {
+                pacer.trySuccess();
+            } else {
+                pacer.tryFailure(cause);
+            }
+            pacer = null;
+        }
+        if (watcher != null) {
+            if (channel.pipeline().context(watcher) != null) {
+                channel.pipeline().remove(watcher);
+            }
+            if (http2) {
+                h2Handler.writabilityListener(streamId, null);
+            }
+            watcher = null;
+        }
     }
 
     ChannelFuture end() {
         assert channel.eventLoop().inEventLoop();
+        endCoalescing();
         if (http2) {
             h2Handler.writeData(streamId, Unpooled.EMPTY_BUFFER, true, endPromise);
             channel.flush();
@@ -168,6 +370,7 @@ class SegmentWriter extends RequestWriterImpl {
 
     ChannelFuture end(HttpHeaders trailers) {
         assert channel.eventLoop().inEventLoop();
+        endCoalescing();
         try {
             if (http2) {
                 Http2Headers trailers0 = new DefaultHttp2Headers(HttpHeadersUtils.VALIDATE);
@@ -201,12 +404,23 @@ class SegmentWriter extends RequestWriterImpl {
         return endPromise;
     }
 
+    private void endCoalescing() {
+        if (flushThreshold > 0) {
+            // The remaining frame is flushed together with the end of request.
+            flushFrame(false);
+            releaseCoalescing(null);
+        }
+    }
+
     void close(Throwable cause) {
         try {
             endPromise.setFailure(cause);
         } catch (Throwable ex) {
             // Ignore
         }
+        if (flushThreshold > 0 && channel != null) {
+            releaseCoalescing(cause);
+        }
     }
 
     Channel channel() {
@@ -216,4 +430,16 @@ class SegmentWriter extends RequestWriterImpl {
         throw new IllegalStateException("Connection is null");
     }
 
+    /**
+     * Completes the writes which are waiting for the channel to become writable.
+     */
+    private final class WritabilityWatcher extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            onWritabilityChanged();
+            super.channelWritabilityChanged(ctx);
+        }
+    }
+
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.netty;
+
+import esa.commons.StringUtils;
+import io.esastack.commons.net.netty.http.Http1HeadersImpl;
+import io.esastack.httpclient.core.HttpRequest;
+import io.esastack.httpclient.core.StreamBody;
+import io.esastack.httpclient.core.exec.ExecContext;
+import io.esastack.httpclient.core.util.LoggerUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.io.IOException;
+
+import static io.esastack.httpclient.core.util.HttpHeadersUtils.toHttp2Headers;
+
+/**
+ * Writes the content of {@link StreamBody} chunk by chunk by the {@link io.netty.handler.stream.ChunkedWriteHandler},
+ * which reads the next chunk only if the channel is writable.
+ */
+class StreamWriter extends RequestWriterImpl {
+
+    private static final StreamWriter INSTANCE = new StreamWriter();
+
+    @Override
+    public ChannelFuture writeAndFlush(HttpRequest request,
+                                       Channel channel,
+                                       ExecContext execCtx,
+                                       ChannelPromise headFuture,
+                                       boolean useUriEncode,
+                                       HttpVersion version,
+                                       boolean http2) throws IOException {
+        addContentTypeIfAbsent(request, () -> HttpHeaderValues.APPLICATION_OCTET_STREAM);
+
+        return super.writeAndFlush(request, channel, execCtx, headFuture, useUriEncode, version, http2);
+    }
+
+    @Override
+    ChannelFuture writeAndFlush1(HttpRequest request,
+                                 Channel channel,
+                                 ExecContext execCtx,
+                                 ChannelPromise headFuture,
+                                 HttpVersion version,
+                                 boolean uriEncodeEnabled) {
+        final DefaultHttpRequest req = new DefaultHttpRequest(version,
+                HttpMethod.valueOf(request.method().name()),
+                request.uri().relative(uriEncodeEnabled),
+                ((Http1HeadersImpl) request.headers()));
+
+        // The length of the stream is unknown unless the content-length has been set.
+        if (StringUtils.isEmpty(req.headers().get(HttpHeaderNames.CONTENT_LENGTH))
+                && StringUtils.isEmpty(req.headers().get(HttpHeaderNames.TRANSFER_ENCODING))) {
+            HttpUtil.setTransferEncodingChunked(req, true);
+        }
+
+        if (LoggerUtils.logger().isDebugEnabled()) {
+            LoggerUtils.logger().debug("Send Request:\n" + req);
+        }
+        channel.write(req, headFuture);
+
+        final ChannelPromise endPromise = channel.newPromise();
+        // Write content
+        if (writeContentNow(execCtx, request)) {
+            doWriteContent1(request.stream(), channel, endPromise);
+        } else {
+            channel.flush();
+            execCtx.set100ContinueCallback(()
+                    -> Utils.runInChannel(channel, () -> doWriteContent1(request.stream(), channel, endPromise)));
+        }
+
+        return endPromise;
+    }
+
+    private static void doWriteContent1(StreamBody body, Channel channel, ChannelPromise endPromise) {
+        final ChunkedInput<ByteBuf> chunked;
+        try {
+            chunked = body.toChunkedInput();
+        } catch (Throwable th) {
+            endPromise.setFailure(th);
+            return;
+        }
+
+        // Note: HttpChunkedInput will write the end marker (LastHttpContent) for us.
+        cleanAndLog(channel.writeAndFlush(new HttpChunkedInput(chunked), endPromise), chunked);
+    }
+
+    @Override
+    ChannelFuture writeAndFlush2(HttpRequest request,
+                                 Channel channel,
+                                 ExecContext execCtx,
+                                 ChannelPromise headFuture,
+                                 Http2ConnectionHandler handler,
+                                 int streamId,
+                                 boolean uriEncodeEnabled) {
+        final ChannelFuture future = checkAndWriteH2Headers(channel,
+                handler,
+                toHttp2Headers(request, (Http1HeadersImpl) request.headers(), uriEncodeEnabled),
+                streamId,
+                false,
+                headFuture);
+        // Writes http2 headers
+        if (future.isDone() && !future.isSuccess()) {
+            return future;
+        }
+
+        final ChannelPromise endPromise = channel.newPromise();
+
+        // Writes http2 content
+        if (writeContentNow(execCtx, request)) {
+            Utils.runInChannel(channel, () -> doWriteContent2(request.stream(), channel, streamId, endPromise));
+        } else {
+            channel.flush();
+            execCtx.set100ContinueCallback(() -> Utils.runInChannel(channel,
+                    () -> doWriteContent2(request.stream(), channel, streamId, endPromise)));
+        }
+
+        return endPromise;
+    }
+
+    private static void doWriteContent2(StreamBody body,
+                                        Channel channel,
+                                        int streamId,
+                                        ChannelPromise endPromise) {
+        final ChunkedInput<ByteBuf> chunked;
+        try {
+            chunked = body.toChunkedInput();
+        } catch (Throwable th) {
+            endPromise.setFailure(th);
+            return;
+        }
+
+        cleanAndLog(channel.writeAndFlush(new Http2ChunkedInput(chunked, streamId), endPromise), chunked);
+    }
+
+    private static void cleanAndLog(ChannelFuture future, ChunkedInput<?> chunked) {
+        if (future.isDone()) {
+            closeChunkedInputQuietly(chunked);
+        } else {
+            future.addListener(f -> closeChunkedInputQuietly(chunked));
+        }
+    }
+
+    private static void closeChunkedInputQuietly(ChunkedInput<?> chunkedInput) {
+        try {
+            chunkedInput.close();
+        } catch (Exception ex) {
+            LoggerUtils.logger().error("Error while closing chunked input", ex);
+        }
+    }
+
+    private StreamWriter() {
+    }
+
+    static StreamWriter singleton() {
+        return INSTANCE;
+    }
+}
@@ -20,7 +20,7 @@ import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.httpclient.core.Listener;
 import io.esastack.httpclient.core.ListenerProxy;
-import io.netty.util.Timeout;
+import io.netty.util.concurrent.ScheduledFuture;
 
 /**
  * This class is designed as thread-safe, because the instance will only
@@ -28,13 +28,13 @@ import io.netty.util.Timeout;
  */
 class TimeoutHandle extends ListenerProxy {
 
-    Timeout task;
+    ScheduledFuture<?> task;
 
     TimeoutHandle(Listener delegate) {
         super(delegate);
     }
 
-    void addTimeoutTask(Timeout task) {
+    void addTimeoutTask(ScheduledFuture<?> task) {
         this.task = task;
     }
 
@@ -43,8 +43,8 @@ class TimeoutHandle extends ListenerProxy {
         super.onCompleted(request, ctx, response);
 
         // Note: Cancel the read timeout task immediately when the request has completed,
-        // so that the GC can reclaim the task as soon as possible. See more details from
-        // Timeout.cancel().
+        // so that it can be removed from the scheduled task queue of the event loop and
+        // the GC can reclaim the task as soon as possible.
         cancelAndClean();
     }
 
@@ -56,7 +56,7 @@ class TimeoutHandle extends ListenerProxy {
 
     private void cancelAndClean() {
         if (task != null) {
-            task.cancel();
+            task.cancel(false);
             task = null;
         }
     }
@@ -48,24 +48,26 @@ abstract class TransceiverHandle {
     /**
      * Builds a {@link ResponseHandle} and adds it to {@link HandleRegistry}.
      *
-     * @param request  request
-     * @param execCtx  ctx
-     * @param channel  channel
-     * @param filters  filters
-     * @param registry registry of handler adapter
-     * @param tHandle  timeout handle
-     * @param response response
+     * @param request    request
+     * @param execCtx    ctx
+     * @param channel    channel
+     * @param filters    filters
+     * @param pooledBody whether to hand the aggregated body to the response as a pooled buffer
+     * @param registry   registry of handler adapter
+     * @param tHandle    timeout handle
+     * @param response   response
      * @return requestId
      */
     int addRspHandle(HttpRequest request,
                      ExecContext execCtx,
                      Channel channel,
                      ResponseFilter[] filters,
+                     boolean pooledBody,
                      HandleRegistry registry,
                      TimeoutHandle tHandle,
                      CompletableFuture<HttpResponse> response) {
         final ResponseHandle nHandle = buildNettyHandle(request, tHandle, execCtx, channel,
-                filters, response);
+                filters, pooledBody, response);
         return addRspHandle0(request, execCtx.ctx(), channel, nHandle, registry);
     }
 
@@ -90,10 +92,11 @@ abstract class TransceiverHandle {
                                             ExecContext execCtx,
                                             Channel channel,
                                             ResponseFilter[] filters,
+                                            boolean pooledBody,
                                             CompletableFuture<HttpResponse> response) {
         HandleImpl handle = execCtx.handleImpl(request);
         if (handle == null) {
-            handle = new DefaultHandle(channel.alloc());
+            handle = new DefaultHandle(channel.alloc(), pooledBody);
         }
 
         if (filters == null || filters.length == 0) {
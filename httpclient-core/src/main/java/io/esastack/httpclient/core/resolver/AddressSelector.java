@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.resolver;
+
+import io.esastack.httpclient.core.HttpClientBuilder;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Selects the target of a request among all the addresses resolved from the same host. This only takes effect
+ * when the {@link AddressSelector} has been configured by {@link HttpClientBuilder#addressSelector(AddressSelector)},
+ * in which case every address resolved by {@link HostResolver#resolveAddresses(String)} owns an exclusive
+ * connection pool and the requests of the host are distributed across these pools rather than the connections.
+ *
+ * @see AddressSelectors
+ */
+@FunctionalInterface
+public interface AddressSelector {
+
+    /**
+     * Selects one of the given {@code candidates}.
+     *
+     * @param candidates candidates, never empty
+     * @param <T>        type of candidate
+     * @return the selected candidate
+     */
+    <T extends Candidate> T select(List<T> candidates);
+
+    /**
+     * A resolved address and the live occupancy of its connection pool.
+     */
+    interface Candidate {
+
+        /**
+         * Obtains the resolved address.
+         *
+         * @return address
+         */
+        InetSocketAddress address();
+
+        /**
+         * Obtains the number of requests which have acquired a connection (or a stream for HTTP/2)
+         * from the pool and haven't released it yet.
+         *
+         * @return active count
+         */
+        int active();
+
+        /**
+         * Obtains the number of requests which are waiting for a connection.
+         *
+         * @return pending acquire count
+         */
+        int pendingAcquireCount();
+
+        /**
+         * Obtains the number of outstanding requests, which is {@link #active()} plus
+         * {@link #pendingAcquireCount()}.
+         *
+         * @return outstanding count
+         */
+        default int outstanding() {
+            return active() + pendingAcquireCount();
+        }
+    }
+}
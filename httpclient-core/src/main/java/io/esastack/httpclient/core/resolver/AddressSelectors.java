@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.resolver;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Built-in {@link AddressSelector}s.
+ */
+public final class AddressSelectors {
+
+    private AddressSelectors() {
+    }
+
+    /**
+     * Selects the candidates in turn regardless of their occupancy.
+     *
+     * @return selector
+     */
+    public static AddressSelector roundRobin() {
+        return new RoundRobin();
+    }
+
+    /**
+     * Selects the candidate with the fewest outstanding requests, the ties are broken randomly so that the
+     * concurrent requests won't pile up on the first one.
+     *
+     * @return selector
+     */
+    public static AddressSelector leastOutstanding() {
+        return LeastOutstanding.INSTANCE;
+    }
+
+    /**
+     * Picks two candidates randomly and selects the one with fewer outstanding requests. It performs nearly as
+     * well as {@link #leastOutstanding()} while avoiding the herd behaviour when the occupancy is stale.
+     *
+     * @return selector
+     */
+    public static AddressSelector powerOfTwoChoices() {
+        return PowerOfTwoChoices.INSTANCE;
+    }
+
+    private static final class RoundRobin implements AddressSelector {
+
+        private final AtomicInteger index = new AtomicInteger();
+
+        @Override
+        public <T extends Candidate> T select(List<T> candidates) {
+            return candidates.get((index.getAndIncrement() & Integer.MAX_VALUE) % candidates.size());
+        }
+    }
+
+    private static final class LeastOutstanding implements AddressSelector {
+
+        private static final LeastOutstanding INSTANCE = new LeastOutstanding();
+
+        @Override
+        public <T extends Candidate> T select(List<T> candidates) {
+            final int size = candidates.size();
+            final int start = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+            T selected = null;
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                final T candidate = candidates.get((start + i) % size);
+                final int outstanding = candidate.outstanding();
+                if (outstanding < min) {
+                    min = outstanding;
+                    selected = candidate;
+                }
+            }
+            return selected;
+        }
+    }
+
+    private static final class PowerOfTwoChoices implements AddressSelector {
+
+        private static final PowerOfTwoChoices INSTANCE = new PowerOfTwoChoices();
+
+        @Override
+        public <T extends Candidate> T select(List<T> candidates) {
+            final int size = candidates.size();
+            if (size == 1) {
+                return candidates.get(0);
+            }
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            final T candidate0 = candidates.get(first);
+            final T candidate1 = candidates.get(second);
+            return candidate1.outstanding() < candidate0.outstanding() ? candidate1 : candidate0;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import esa.commons.loadbalance.LoadBalancer;
 import esa.commons.loadbalance.RandomLoadBalancer;
 
 import java.net.InetAddress;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -49,6 +50,11 @@ public abstract class BalancedHostResolver implements HostResolver {
         });
     }
 
+    @Override
+    public CompletableFuture<List<InetAddress>> resolveAddresses(String inetHost) {
+        return resolveAll(inetHost).thenApply(addresses -> addresses == null ? Collections.emptyList() : addresses);
+    }
+
     /**
      * Resolves the given {@code inetHost} and obtains all resolved {@link InetAddress}s.
      *
@@ -0,0 +1,547 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.resolver;
+
+import esa.commons.Checks;
+import esa.commons.concurrent.ThreadFactories;
+import esa.commons.loadbalance.LoadBalancer;
+import esa.commons.loadbalance.RandomLoadBalancer;
+import io.esastack.httpclient.core.metrics.DnsCacheMetric;
+import io.esastack.httpclient.core.util.Futures;
+import io.esastack.httpclient.core.util.LoggerUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DefaultDnsQuestion;
+import io.netty.handler.codec.dns.DnsRawRecord;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.resolver.HostsFileEntriesResolver;
+import io.netty.resolver.ResolvedAddressTypes;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
+import io.netty.resolver.dns.NoopDnsCache;
+import io.netty.resolver.dns.SequentialDnsServerAddressStreamProvider;
+import io.netty.util.NetUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FutureListener;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A non-blocking {@link HostResolver} which queries the name servers by netty's dns codec and caches the resolved
+ * addresses in process. Different from the {@link SystemDefaultResolver} which blocks the current thread(usually
+ * the IO-Thread while connecting) until the lookup has finished, this resolver never blocks the caller:
+ * <ul>
+ *     <li>the addresses are cached with the minimum TTL of the answered records, which is bounded by
+ *     {@link CachingDnsResolverBuilder#minTtlSeconds(int)} and {@link CachingDnsResolverBuilder#maxTtlSeconds(int)}
+ *     </li>
+ *     <li>a popular entry will be refreshed in background when it's going to expire, so that the subsequent
+ *     resolutions can still be served by the cache</li>
+ *     <li>a failed resolution such as NXDOMAIN is cached for {@link CachingDnsResolverBuilder#negativeTtlSeconds(int)}
+ *     </li>
+ *     <li>concurrent resolutions of the same host are coalesced into one query</li>
+ * </ul>
+ * The hit and miss statistics can be obtained by {@link #metric()}.
+ */
+public class CachingDnsResolver extends BalancedHostResolver {
+
+    private final DnsNameResolver resolver;
+    private final EventLoopGroup ownedGroup;
+    private final LongSupplier nanoClock;
+    private final long minTtlNanos;
+    private final long maxTtlNanos;
+    private final long negativeTtlNanos;
+    private final double prefetchRatio;
+    private final int prefetchMinHits;
+    private final int maxEntries;
+    private final boolean ipv6Enabled;
+
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<List<InetAddress>>> inflight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder prefetches = new LongAdder();
+    private final DnsCacheMetric metric = new DnsCacheMetricImpl();
+
+    CachingDnsResolver(CachingDnsResolverBuilder builder, LongSupplier nanoClock) {
+        super(builder.loadBalancer == null ? new RandomLoadBalancer<>() : builder.loadBalancer);
+        Checks.checkNotNull(nanoClock, "nanoClock");
+        final EventLoop eventLoop;
+        if (builder.eventLoop == null) {
+            this.ownedGroup = new NioEventLoopGroup(1,
+                    ThreadFactories.namedThreadFactory("ESAHttpClient-Dns-Resolver-", true));
+            eventLoop = ownedGroup.next();
+        } else {
+            this.ownedGroup = null;
+            eventLoop = builder.eventLoop;
+        }
+
+        final DnsNameResolverBuilder resolverBuilder = new DnsNameResolverBuilder(eventLoop)
+                .channelType(NioDatagramChannel.class)
+                .queryTimeoutMillis(builder.queryTimeoutMillis)
+                .resolveCache(NoopDnsCache.INSTANCE)
+                .recursionDesired(true)
+                .nameServerProvider(builder.nameServers.isEmpty()
+                        ? DnsServerAddressStreamProviders.platformDefault()
+                        : new SequentialDnsServerAddressStreamProvider(builder.nameServers));
+        if (builder.searchDomains != null) {
+            resolverBuilder.searchDomains(builder.searchDomains);
+        }
+        this.resolver = resolverBuilder.build();
+        this.nanoClock = nanoClock;
+        this.minTtlNanos = TimeUnit.SECONDS.toNanos(builder.minTtlSeconds);
+        this.maxTtlNanos = TimeUnit.SECONDS.toNanos(builder.maxTtlSeconds);
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(builder.negativeTtlSeconds);
+        this.prefetchRatio = builder.prefetchRatio;
+        this.prefetchMinHits = builder.prefetchMinHits;
+        this.maxEntries = builder.maxEntries;
+        this.ipv6Enabled = builder.ipv6Enabled;
+    }
+
+    public static CachingDnsResolverBuilder builder() {
+        return new CachingDnsResolverBuilder();
+    }
+
+    /**
+     * Obtains the statistics of the cache.
+     *
+     * @return metric
+     */
+    public DnsCacheMetric metric() {
+        return metric;
+    }
+
+    @Override
+    protected CompletableFuture<List<InetAddress>> resolveAll(String inetHost) {
+        try {
+            final InetAddress local = resolveLocally(inetHost);
+            if (local != null) {
+                return Futures.completed(Collections.singletonList(local));
+            }
+        } catch (Throwable th) {
+            return Futures.completed(th);
+        }
+
+        final Entry entry = cache.get(inetHost);
+        if (entry != null) {
+            final long now = nanoClock.getAsLong();
+            if (entry.expireAt - now > 0L) {
+                if (entry.cause != null) {
+                    negativeHits.increment();
+                    return Futures.completed(entry.cause);
+                }
+                hits.increment();
+                maybePrefetch(inetHost, entry, now);
+                return Futures.completed(entry.addresses);
+            }
+            cache.remove(inetHost, entry);
+        }
+
+        misses.increment();
+        return query(inetHost);
+    }
+
+    @Override
+    public void close() {
+        cache.clear();
+        resolver.close();
+        if (ownedGroup != null) {
+            ownedGroup.shutdownGracefully(0L, 0L, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Resolves the ip literal and the entries of hosts file without querying the name servers.
+     *
+     * @param inetHost  host
+     * @return address, may be null
+     * @throws UnknownHostException if the ip literal is illegal
+     */
+    private static InetAddress resolveLocally(String inetHost) throws UnknownHostException {
+        final byte[] bytes = NetUtil.createByteArrayFromIpAddressString(inetHost);
+        if (bytes != null) {
+            return InetAddress.getByAddress(bytes);
+        }
+        return HostsFileEntriesResolver.DEFAULT.address(inetHost, ResolvedAddressTypes.IPV4_PREFERRED);
+    }
+
+    private CompletableFuture<List<InetAddress>> query(String inetHost) {
+        CompletableFuture<List<InetAddress>> future = inflight.get(inetHost);
+        if (future != null) {
+            return future;
+        }
+
+        final CompletableFuture<List<InetAddress>> newFuture = new CompletableFuture<>();
+        future = inflight.putIfAbsent(inetHost, newFuture);
+        if (future != null) {
+            return future;
+        }
+
+        final CompletableFuture<Entry> result = new CompletableFuture<>();
+        lookup(inetHost, DnsRecordType.A, result);
+        result.whenComplete((entry, th) -> {
+            inflight.remove(inetHost, newFuture);
+            if (th != null) {
+                // Maybe timeout, which shouldn't be cached.
+                newFuture.completeExceptionally(th);
+            } else {
+                put(inetHost, entry);
+                if (entry.cause != null) {
+                    newFuture.completeExceptionally(entry.cause);
+                } else {
+                    newFuture.complete(entry.addresses);
+                }
+            }
+        });
+        return newFuture;
+    }
+
+    private void maybePrefetch(String inetHost, Entry entry, long now) {
+        if (prefetchRatio <= 0.0d || entry.hits.incrementAndGet() < prefetchMinHits) {
+            return;
+        }
+        if (entry.expireAt - now > (long) (entry.ttlNanos * prefetchRatio)) {
+            return;
+        }
+        if (!entry.prefetching.compareAndSet(false, true)) {
+            return;
+        }
+
+        prefetches.increment();
+        final CompletableFuture<Entry> result = new CompletableFuture<>();
+        lookup(inetHost, DnsRecordType.A, result);
+        result.whenComplete((refreshed, th) -> {
+            // Keep the current entry until it expires if failed to refresh.
+            if (th == null && refreshed.cause == null) {
+                put(inetHost, refreshed);
+            } else if (LoggerUtils.logger().isDebugEnabled()) {
+                LoggerUtils.logger().debug("Failed to prefetch dns entry of {}", inetHost,
+                        th == null ? refreshed.cause : th);
+            }
+        });
+    }
+
+    private void lookup(String inetHost, DnsRecordType type, CompletableFuture<Entry> result) {
+        resolver.resolveAll(new DefaultDnsQuestion(inetHost, type))
+                .addListener((FutureListener<List<DnsRecord>>) f -> {
+                    if (!f.isSuccess()) {
+                        if (f.cause() instanceof UnknownHostException) {
+                            onEmpty(inetHost, type, result);
+                        } else {
+                            result.completeExceptionally(f.cause());
+                        }
+                        return;
+                    }
+
+                    final List<DnsRecord> records = f.getNow();
+                    final List<InetAddress> addresses = new ArrayList<>(records.size());
+                    long ttlSeconds = Long.MAX_VALUE;
+                    try {
+                        for (DnsRecord record : records) {
+                            final InetAddress address = decodeAddress(inetHost, type, record);
+                            if (address != null) {
+                                addresses.add(address);
+                                ttlSeconds = Math.min(ttlSeconds, record.timeToLive());
+                            }
+                        }
+                    } finally {
+                        for (DnsRecord record : records) {
+                            ReferenceCountUtil.release(record);
+                        }
+                    }
+
+                    if (addresses.isEmpty()) {
+                        onEmpty(inetHost, type, result);
+                    } else {
+                        result.complete(new Entry(Collections.unmodifiableList(addresses), null,
+                                ttlNanos(ttlSeconds), nanoClock.getAsLong()));
+                    }
+                });
+    }
+
+    private void onEmpty(String inetHost, DnsRecordType type, CompletableFuture<Entry> result) {
+        if (ipv6Enabled && DnsRecordType.A.equals(type)) {
+            lookup(inetHost, DnsRecordType.AAAA, result);
+        } else {
+            result.complete(new Entry(null, new UnknownHostException("Failed to resolve '" + inetHost + "'"),
+                    negativeTtlNanos, nanoClock.getAsLong()));
+        }
+    }
+
+    private static InetAddress decodeAddress(String inetHost, DnsRecordType type, DnsRecord record) {
+        if (!(record instanceof DnsRawRecord) || !type.equals(record.type())) {
+            return null;
+        }
+
+        final ByteBuf content = ((DnsRawRecord) record).content();
+        final int length = content.readableBytes();
+        if (length != (DnsRecordType.A.equals(type) ? 4 : 16)) {
+            return null;
+        }
+        try {
+            return InetAddress.getByAddress(inetHost, ByteBufUtil.getBytes(content));
+        } catch (UnknownHostException ignore) {
+            // Unreachable, the length has been checked.
+            return null;
+        }
+    }
+
+    private long ttlNanos(long ttlSeconds) {
+        return Math.min(maxTtlNanos, Math.max(minTtlNanos, TimeUnit.SECONDS.toNanos(ttlSeconds)));
+    }
+
+    private void put(String inetHost, Entry entry) {
+        if (entry.ttlNanos <= 0L) {
+            cache.remove(inetHost);
+            return;
+        }
+
+        if (cache.size() >= maxEntries && !cache.containsKey(inetHost)) {
+            evictOne();
+        }
+        cache.put(inetHost, entry);
+    }
+
+    /**
+     * Evicts an expired entry, or an arbitrary one if there's no expired entry.
+     */
+    private void evictOne() {
+        final long now = nanoClock.getAsLong();
+        String victim = null;
+        final Iterator<Map.Entry<String, Entry>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<String, Entry> item = it.next();
+            if (item.getValue().expireAt - now <= 0L) {
+                it.remove();
+                return;
+            }
+            if (victim == null) {
+                victim = item.getKey();
+            }
+        }
+        if (victim != null) {
+            cache.remove(victim);
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<InetAddress> addresses;
+        private final UnknownHostException cause;
+        private final long ttlNanos;
+        private final long expireAt;
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicBoolean prefetching = new AtomicBoolean();
+
+        private Entry(List<InetAddress> addresses, UnknownHostException cause, long ttlNanos, long now) {
+            this.addresses = addresses;
+            this.cause = cause;
+            this.ttlNanos = ttlNanos;
+            this.expireAt = now + ttlNanos;
+        }
+    }
+
+    private final class DnsCacheMetricImpl implements DnsCacheMetric {
+
+        @Override
+        public long hitCount() {
+            return hits.sum();
+        }
+
+        @Override
+        public long negativeHitCount() {
+            return negativeHits.sum();
+        }
+
+        @Override
+        public long missCount() {
+            return misses.sum();
+        }
+
+        @Override
+        public long prefetchCount() {
+            return prefetches.sum();
+        }
+
+        @Override
+        public int size() {
+            return cache.size();
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", DnsCacheMetricImpl.class.getSimpleName() + "[", "]")
+                    .add("hitCount=" + hitCount())
+                    .add("negativeHitCount=" + negativeHitCount())
+                    .add("missCount=" + missCount())
+                    .add("prefetchCount=" + prefetchCount())
+                    .add("size=" + size())
+                    .toString();
+        }
+    }
+
+    public static final class CachingDnsResolverBuilder {
+
+        private final List<InetSocketAddress> nameServers = new ArrayList<>();
+        private List<String> searchDomains;
+        private EventLoop eventLoop;
+        private LoadBalancer<InetAddress> loadBalancer;
+        private long queryTimeoutMillis = 5000L;
+        private int minTtlSeconds;
+        private int maxTtlSeconds = Integer.MAX_VALUE;
+        private int negativeTtlSeconds = 5;
+        private double prefetchRatio = 0.1d;
+        private int prefetchMinHits = 3;
+        private int maxEntries = 4096;
+        private boolean ipv6Enabled;
+
+        private CachingDnsResolverBuilder() {
+        }
+
+        /**
+         * Adds a name server, the platform default ones will be used if absent.
+         *
+         * @param nameServer    name server
+         * @return this builder
+         */
+        public CachingDnsResolverBuilder nameServer(InetSocketAddress nameServer) {
+            Checks.checkNotNull(nameServer, "nameServer");
+            this.nameServers.add(nameServer);
+            return this;
+        }
+
+        /**
+         * Sets the search domains, the ones of {@code /etc/resolv.conf} will be used if absent.
+         *
+         * @param searchDomains search domains
+         * @return this builder
+         */
+        public CachingDnsResolverBuilder searchDomains(List<String> searchDomains) {
+            this.searchDomains = searchDomains;
+            return this;
+        }
+
+        /**
+         * Sets the {@link EventLoop} to send queries, a dedicated one will be created and closed with the
+         * resolver if absent.
+         *
+         * @param eventLoop event loop
+         * @return this builder
+         */
+        public CachingDnsResolverBuilder eventLoop(EventLoop eventLoop) {
+            this.eventLoop = eventLoop;
+            return this;
+        }
+
+        public CachingDnsResolverBuilder loadBalancer(LoadBalancer<InetAddress> loadBalancer) {
+            this.loadBalancer = loadBalancer;
+            return this;
+        }
+
+        public CachingDnsResolverBuilder queryTimeoutMillis(long queryTimeoutMillis) {
+            Checks.checkArg(queryTimeoutMillis > 0L, "queryTimeoutMillis must be positive");
+            this.queryTimeoutMillis = queryTimeoutMillis;
+            return this;
+        }
+
+        public CachingDnsResolverBuilder minTtlSeconds(int minTtlSeconds) {
+            Checks.checkArg(minTtlSeconds >= 0, "minTtlSeconds must be non-negative");
+            this.minTtlSeconds = minTtlSeconds;
+            return this;
+        }
+
+        public CachingDnsResolverBuilder maxTtlSeconds(int maxTtlSeconds) {
+            Checks.checkArg(maxTtlSeconds >= 0, "maxTtlSeconds must be non-negative");
+            this.maxTtlSeconds = maxTtlSeconds;
+            return this;
+        }
+
+        /**
+         * Sets how long to cache a failed resolution, 0 means not to cache.
+         *
+         * @param negativeTtlSeconds    negative ttl
+         * @return this builder
+         */
+        public CachingDnsResolverBuilder negativeTtlSeconds(int negativeTtlSeconds) {
+            Checks.checkArg(negativeTtlSeconds >= 0, "negativeTtlSeconds must be non-negative");
+            this.negativeTtlSeconds = negativeTtlSeconds;
+            return this;
+        }
+
+        /**
+         * Sets when to refresh an entry ahead of expiry. An entry which has been hit at least
+         * {@code minHits} times will be refreshed when its remaining ttl is less than {@code ratio} of
+         * the whole ttl.
+         *
+         * @param ratio     ratio of the remaining ttl, 0 means to disable prefetching
+         * @param minHits   min hits to be refreshed
+         * @return this builder
+         */
+        public CachingDnsResolverBuilder prefetch(double ratio, int minHits) {
+            Checks.checkArg(ratio >= 0.0d && ratio < 1.0d, "ratio is " + ratio + " (expected: [0.0, 1.0))");
+            Checks.checkArg(minHits >= 1, "minHits is " + minHits + " (expected >= 1)");
+            this.prefetchRatio = ratio;
+            this.prefetchMinHits = minHits;
+            return this;
+        }
+
+        public CachingDnsResolverBuilder maxEntries(int maxEntries) {
+            Checks.checkArg(maxEntries > 0, "maxEntries must be positive");
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Whether to query AAAA records if there's no A record.
+         *
+         * @param ipv6Enabled   ipv6 enabled
+         * @return this builder
+         */
+        public CachingDnsResolverBuilder ipv6Enabled(boolean ipv6Enabled) {
+            this.ipv6Enabled = ipv6Enabled;
+            return this;
+        }
+
+        public CachingDnsResolver build() {
+            Checks.checkArg(minTtlSeconds <= maxTtlSeconds, "minTtlSeconds: " + minTtlSeconds
+                    + " is greater than maxTtlSeconds: " + maxTtlSeconds);
+            return new CachingDnsResolver(this, System::nanoTime);
+        }
+    }
+}
@@ -17,6 +17,8 @@ package io.esastack.httpclient.core.resolver;
 
 import java.io.Closeable;
 import java.net.InetAddress;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletionStage;
 
 /**
@@ -33,6 +35,19 @@ public interface HostResolver extends Closeable {
      */
     CompletionStage<InetAddress> resolve(String inetHost);
 
+    /**
+     * Resolves the {@code inetHost} to all the {@link InetAddress}s asynchronously. This is used when every
+     * resolved address owns an exclusive connection pool, see {@link AddressSelector}. The default implementation
+     * only returns the address obtained by {@link #resolve(String)}.
+     *
+     * @param inetHost host
+     * @return addresses, which may be empty but never {@code null}
+     */
+    default CompletionStage<List<InetAddress>> resolveAddresses(String inetHost) {
+        return resolve(inetHost).thenApply(address -> address == null
+                ? Collections.emptyList() : Collections.singletonList(address));
+    }
+
     /**
      * Closes the {@link HostResolver}.
      */
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.util;
+
+import esa.commons.Platforms;
+import esa.commons.concurrent.ThreadFactories;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the executor which is shared by the handlers doing blocking IO, eg: writing the content of response
+ * to a file, so that neither the IO-Threads nor the {@link ForkJoinPool#commonPool()} is blocked by them.
+ */
+public final class BlockingExecutors {
+
+    private static final String BLOCKING_THREADS_KEY = "io.esastack.httpclient.blockingThreads";
+    private static final int BLOCKING_THREADS = SystemPropertyUtil.getInt(BLOCKING_THREADS_KEY,
+            Math.max(4, Platforms.cpuNum()));
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private BlockingExecutors() {
+    }
+
+    /**
+     * Obtains the shared executor, whose threads are created on demand and terminated once they have been idle
+     * for {@value #KEEP_ALIVE_SECONDS} seconds, so it needn't be shut down.
+     *
+     * @return executor
+     */
+    public static Executor shared() {
+        return Holder.EXECUTOR;
+    }
+
+    private static final class Holder {
+
+        private static final Executor EXECUTOR = newExecutor();
+
+        private static Executor newExecutor() {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(BLOCKING_THREADS, BLOCKING_THREADS,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    ThreadFactories.namedThreadFactory("ESAHttpClient-Blocking-", true));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.util;
+
+import esa.commons.Checks;
+import io.esastack.httpclient.core.config.Compression;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+import java.io.Closeable;
+
+/**
+ * Compresses the body chunk by chunk through the zlib encoder of netty, which is the same as
+ * {@link io.netty.handler.codec.http.HttpContentCompressor}. The output of every chunk is flushed so that it can
+ * be written immediately, and the output buffers are allocated from the pooled allocator.
+ * <p>
+ * This class isn't thread-safe, and must be ended by {@link #finish()} or {@link #close()} to release the
+ * underlying resources.
+ */
+public final class BodyCompressor implements Closeable {
+
+    public static final int DEFAULT_LEVEL = 6;
+
+    private final EmbeddedChannel encoder;
+
+    public BodyCompressor(Compression compression) {
+        this(compression, DEFAULT_LEVEL);
+    }
+
+    public BodyCompressor(Compression compression, int level) {
+        Checks.checkNotNull(compression, "compression");
+        Checks.checkArg(level >= 0 && level <= 9, "level must be in [0, 9]");
+        this.encoder = new EmbeddedChannel(ZlibCodecFactory.newZlibEncoder(
+                compression == Compression.GZIP ? ZlibWrapper.GZIP : ZlibWrapper.ZLIB, level));
+    }
+
+    /**
+     * Compresses the given chunk, which will be released.
+     *
+     * @param chunk chunk
+     * @return compressed content, which may be empty and must be released by the caller
+     */
+    public ByteBuf compress(ByteBuf chunk) {
+        encoder.writeOutbound(chunk);
+        return drain();
+    }
+
+    /**
+     * Ends the compression.
+     *
+     * @return the remaining compressed content, eg: the trailer of gzip, which must be released by the caller
+     */
+    public ByteBuf finish() {
+        encoder.finish();
+        return drain();
+    }
+
+    @Override
+    public void close() {
+        encoder.finishAndReleaseAll();
+    }
+
+    private ByteBuf drain() {
+        ByteBuf first = null;
+        CompositeByteBuf composite = null;
+        ByteBuf buf;
+        while ((buf = encoder.readOutbound()) != null) {
+            if (!buf.isReadable()) {
+                buf.release();
+            } else if (first == null) {
+                first = buf;
+            } else {
+                if (composite == null) {
+                    composite = encoder.alloc().compositeBuffer();
+                    composite.addComponent(true, first);
+                }
+                composite.addComponent(true, buf);
+            }
+        }
+        if (composite != null) {
+            return composite;
+        }
+        return first == null ? Unpooled.EMPTY_BUFFER : first;
+    }
+}
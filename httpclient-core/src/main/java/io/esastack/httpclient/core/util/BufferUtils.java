@@ -17,7 +17,9 @@ package io.esastack.httpclient.core.util;
 
 import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.buffer.BufferUtil;
+import io.esastack.httpclient.core.HttpResponse;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCounted;
 
 public class BufferUtils {
 
@@ -33,4 +35,20 @@ public class BufferUtils {
         throw new UnsupportedOperationException("The type of unwrap is not ByteBuf! unwrap : " + unwrap);
     }
 
+    /**
+     * Releases the body of the given {@code response} which will never be handed to the caller, eg: the response
+     * of a redirected or retried request, so that the pooled body won't be leaked.
+     *
+     * @param response response, which may be null
+     */
+    public static void tryRelease(HttpResponse response) {
+        if (response == null || response.body() == null) {
+            return;
+        }
+        final Object unwrap = BufferUtil.unwrap(response.body());
+        if (unwrap instanceof ReferenceCounted && ((ReferenceCounted) unwrap).refCnt() > 0) {
+            ((ReferenceCounted) unwrap).release();
+        }
+    }
+
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.util;
+
+import esa.commons.Checks;
+import esa.commons.concurrent.ThreadFactories;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.ThreadExecutorMap;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Schedules the delayed tasks of interceptors, eg: the back off of retry, the delay of hedged request and
+ * the expiration of queued request. The task is scheduled on current {@link EventExecutor} (usually the
+ * IO-Thread) or on a timer shared by all the clients if the current thread isn't an {@link EventExecutor},
+ * so that the current thread will never be blocked.
+ * <p>
+ * The shared timer is started lazily and will be stopped by {@link #stop()} once all the clients have been
+ * closed, and the unfinished tasks are cancelled then.
+ */
+public final class Schedulers {
+
+    private static final String TIMER_TICKDURATION_KEY = "io.esastack.httpclient.timer.tickDurationMs";
+    private static final String TIMER_SIZE_KEY = "io.esastack.httpclient.timer.size";
+
+    /**
+     * The keys of the timer which was used to check read timeout, which are still honored by the shared timer
+     * for compatibility.
+     */
+    private static final String HASHEDWHEELTIMER_TICKDURATION_KEY =
+            "io.esastack.httpclient.hashedWheelTimer.tickDurationMs";
+    private static final String HASHEDWHEELTIMER_SIZE_KEY =
+            "io.esastack.httpclient.hashedWheelTimer.size";
+
+    private static final long TIMER_TICKDURATION = SystemPropertyUtil.getLong(TIMER_TICKDURATION_KEY,
+            SystemPropertyUtil.getLong(HASHEDWHEELTIMER_TICKDURATION_KEY, 10L));
+    private static final int TIMER_SIZE = SystemPropertyUtil.getInt(TIMER_SIZE_KEY,
+            SystemPropertyUtil.getInt(HASHEDWHEELTIMER_SIZE_KEY, 512));
+
+    private static volatile Timer timer;
+
+    private Schedulers() {
+    }
+
+    /**
+     * Schedules the {@code task} to run after {@code delay}, which is dropped silently if it's cancelled.
+     *
+     * @param task  task
+     * @param delay delay
+     * @param unit  time unit of the {@code delay}
+     */
+    public static void schedule(Runnable task, long delay, TimeUnit unit) {
+        schedule(task, null, delay, unit);
+    }
+
+    /**
+     * Schedules the {@code task} to run after {@code delay}. The {@code onCancelled} is invoked instead of the
+     * {@code task} if it's cancelled before running, eg: the clients have been closed and the shared timer or
+     * the {@link EventExecutor} has been stopped, so that the futures waiting for the {@code task} can be
+     * completed.
+     *
+     * @param task        task
+     * @param onCancelled the callback of cancellation, which may be {@code null}
+     * @param delay       delay
+     * @param unit        time unit of the {@code delay}
+     */
+    public static void schedule(Runnable task, Consumer<Throwable> onCancelled, long delay, TimeUnit unit) {
+        Checks.checkNotNull(task, "task");
+        Checks.checkNotNull(unit, "unit");
+        final EventExecutor executor = ThreadExecutorMap.currentExecutor();
+        if (executor != null && !executor.isShuttingDown()) {
+            final Future<?> future = executor.schedule(task, delay, unit);
+            if (onCancelled != null) {
+                // The scheduled tasks are cancelled once the executor has been shut down.
+                future.addListener(f -> {
+                    if (f.isCancelled()) {
+                        onCancelled.accept(cancelled());
+                    }
+                });
+            }
+            return;
+        }
+
+        final Task task0 = new Task(task, onCancelled);
+        for (;;) {
+            try {
+                timer().newTimeout(task0, delay, unit);
+                return;
+            } catch (IllegalStateException ex) {
+                // The timer has been stopped concurrently, try again with a new one.
+            }
+        }
+    }
+
+    /**
+     * Stops the shared timer and cancels the unfinished tasks, see
+     * {@link #schedule(Runnable, Consumer, long, TimeUnit)}. A new timer will be started if there are more tasks
+     * scheduled afterwards.
+     */
+    public static void stop() {
+        final Timer current;
+        synchronized (Schedulers.class) {
+            current = timer;
+            timer = null;
+        }
+        if (current == null) {
+            return;
+        }
+
+        final Set<Timeout> unfinished = current.stop();
+        for (Timeout timeout : unfinished) {
+            try {
+                ((Task) timeout.task()).cancel();
+            } catch (Throwable ex) {
+                LoggerUtils.logger().error("Error while cancelling unfinished task of ESAHttpClient-Timer", ex);
+            }
+        }
+        LoggerUtils.logger().info("Stopped ESAHttpClient-Timer successfully, unfinished tasks: "
+                + unfinished.size());
+    }
+
+    private static Timer timer() {
+        Timer current = timer;
+        if (current == null) {
+            synchronized (Schedulers.class) {
+                current = timer;
+                if (current == null) {
+                    current = new HashedWheelTimer(ThreadFactories.namedThreadFactory("ESAHttpClient-Timer-", true),
+                            TIMER_TICKDURATION, TimeUnit.MILLISECONDS, TIMER_SIZE);
+                    timer = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static IllegalStateException cancelled() {
+        return new IllegalStateException("The scheduled task has been cancelled because the scheduler has been"
+                + " stopped, maybe the client has been closed");
+    }
+
+    private static final class Task implements TimerTask {
+
+        private final Runnable task;
+        private final Consumer<Throwable> onCancelled;
+
+        private Task(Runnable task, Consumer<Throwable> onCancelled) {
+            this.task = task;
+            this.onCancelled = onCancelled;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            task.run();
+        }
+
+        private void cancel() {
+            if (onCancelled != null) {
+                onCancelled.accept(cancelled());
+            }
+        }
+    }
+}
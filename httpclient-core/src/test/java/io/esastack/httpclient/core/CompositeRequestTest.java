@@ -24,12 +24,16 @@ import io.esastack.httpclient.core.netty.NettyHttpClient;
 import io.esastack.httpclient.core.util.Futures;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.channels.Channels;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Java6BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -131,6 +135,41 @@ class CompositeRequestTest {
         then(request1.isMultipart()).isFalse();
         then(request1.isFile()).isTrue();
         then(request1.isSegmented()).isFalse();
+        then(request1.isStream()).isFalse();
+
+        final CompositeRequest request2 = new CompositeRequest(builder,
+                client, () -> chunk0, method, uri);
+        final StreamBody body = StreamBody.of(new ByteArrayInputStream(new byte[0]));
+        request2.body(body);
+        then(request2.isStream()).isTrue();
+        then(request2.stream()).isSameAs(body);
+        then(request2.isFile()).isFalse();
+        then(request2.isMultipart()).isFalse();
+        assertThrows(IllegalStateException.class, () -> request2.body(mock(File.class)));
+
+        request2.execute();
+        then(request2.isStream()).isTrue();
+        final CompositeRequest copied = request2.copy();
+        then(copied.isStream()).isTrue();
+        then(copied.stream()).isSameAs(body);
+    }
+
+    @Test
+    void testRelay() {
+        final HttpClientBuilder builder = HttpClient.create().maxRedirects(5);
+        final NettyHttpClient client = mock(NettyHttpClient.class);
+        when(client.execute(any(HttpRequest.class), any(Context.class), any(), any()))
+                .thenReturn(new CompletableFuture<>());
+        final CompositeRequest request = new CompositeRequest(builder, client, () -> mock(SegmentRequest.class),
+                HttpMethod.GET, "http://127.0.0.1:8080/abc");
+        then(request.ctx.maxRedirects()).isEqualTo(5);
+        then(request.ctx.maxRetries()).isGreaterThan(0);
+
+        // The content of every attempt would be relayed, so the redirection and retrying are disabled.
+        final RelayHandler handler = RelayHandler.of(Channels.newChannel(new ByteArrayOutputStream()));
+        then(request.relay(handler).isDone()).isFalse();
+        then(request.ctx.maxRedirects()).isEqualTo(0);
+        then(request.ctx.maxRetries()).isEqualTo(0);
     }
 
     @Test
@@ -117,6 +117,14 @@ class DelegatingRequestTest {
         request.isFile();
         verify(underlying).isFile();
 
+        verify(underlying, never()).stream();
+        request.stream();
+        verify(underlying).stream();
+
+        verify(underlying, never()).isStream();
+        request.isStream();
+        verify(underlying).isStream();
+
         verify(underlying, never()).multipartEncode();
         request.multipartEncode();
         verify(underlying).multipartEncode();
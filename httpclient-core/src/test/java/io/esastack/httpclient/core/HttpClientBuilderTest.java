@@ -16,19 +16,25 @@
 package io.esastack.httpclient.core;
 
 import io.esastack.commons.net.http.HttpVersion;
+import io.esastack.httpclient.core.config.ConcurrencyLimitOptions;
 import io.esastack.httpclient.core.config.Decompression;
+import io.esastack.httpclient.core.config.HedgeOptions;
 import io.esastack.httpclient.core.config.Http1Options;
 import io.esastack.httpclient.core.config.Http2Options;
 import io.esastack.httpclient.core.config.NetOptions;
 import io.esastack.httpclient.core.config.RetryOptions;
+import io.esastack.httpclient.core.exec.ConcurrencyLimitInterceptor;
 import io.esastack.httpclient.core.exec.ExpectContinueInterceptor;
 import io.esastack.httpclient.core.exec.FilteringExec;
+import io.esastack.httpclient.core.exec.HedgingInterceptor;
 import io.esastack.httpclient.core.exec.RedirectInterceptor;
 import io.esastack.httpclient.core.exec.RetryInterceptor;
 import io.esastack.httpclient.core.filter.DuplexFilter;
 import io.esastack.httpclient.core.filter.FilterContext;
 import io.esastack.httpclient.core.filter.RequestFilter;
 import io.esastack.httpclient.core.filter.ResponseFilter;
+import io.esastack.httpclient.core.resolver.AddressSelector;
+import io.esastack.httpclient.core.resolver.AddressSelectors;
 import io.esastack.httpclient.core.resolver.HostResolver;
 import io.esastack.httpclient.core.spi.ChannelPoolOptionsProvider;
 import io.esastack.httpclient.core.util.Futures;
@@ -46,6 +52,7 @@ class HttpClientBuilderTest {
     @Test
     void testBasic() {
         final HostResolver resolver = inetHost -> null;
+        final AddressSelector addressSelector = AddressSelectors.leastOutstanding();
         final boolean h2ClearTextUpgrade = ThreadLocalRandom.current().nextBoolean();
         final int connectTimeout = ThreadLocalRandom.current().nextInt(10, 10000);
         final int readTimeout = ThreadLocalRandom.current().nextInt(10, 10000);
@@ -54,6 +61,7 @@ class HttpClientBuilderTest {
         final int connectionPoolSize = ThreadLocalRandom.current().nextInt(1, 1000);
         final int connectionPoolWaitQueueSize = ThreadLocalRandom.current().nextInt(1, 1000);
         final boolean useDecompress = ThreadLocalRandom.current().nextBoolean();
+        final boolean usePooledBody = ThreadLocalRandom.current().nextBoolean();
         final Decompression decompression = Decompression.GZIP_DEFLATE;
         final boolean useExpectContinue = ThreadLocalRandom.current().nextBoolean();
         final ChannelPoolOptionsProvider channelPoolOptionsProvider = key -> null;
@@ -61,12 +69,15 @@ class HttpClientBuilderTest {
         final Http1Options http1Options = Http1Options.ofDefault();
         final Http2Options http2Options = Http2Options.ofDefault();
         final RetryOptions retryOptions = RetryOptions.ofDefault();
+        final HedgeOptions hedgeOptions = HedgeOptions.ofDefault();
+        final ConcurrencyLimitOptions concurrencyLimitOptions = ConcurrencyLimitOptions.ofDefault();
         final int maxRedirects = ThreadLocalRandom.current().nextInt(10, 1000);
         final long maxContentLength = ThreadLocalRandom.current().nextLong(10000);
         final int idleTimeoutSeconds = ThreadLocalRandom.current().nextInt(1000);
 
         final HttpClientBuilder builder = new HttpClientBuilder();
         builder.resolver(resolver);
+        builder.addressSelector(addressSelector);
         builder.h2ClearTextUpgrade(h2ClearTextUpgrade);
         builder.connectTimeout(connectTimeout);
         builder.readTimeout(readTimeout);
@@ -75,6 +86,7 @@ class HttpClientBuilderTest {
         builder.connectionPoolSize(connectionPoolSize);
         builder.connectionPoolWaitingQueueLength(connectionPoolWaitQueueSize);
         builder.useDecompress(useDecompress);
+        builder.usePooledBody(usePooledBody);
         builder.decompression(decompression);
         builder.useExpectContinue(useExpectContinue);
         builder.channelPoolOptionsProvider(channelPoolOptionsProvider);
@@ -82,11 +94,14 @@ class HttpClientBuilderTest {
         builder.http1Options(http1Options);
         builder.http2Options(http2Options);
         builder.retryOptions(retryOptions);
+        builder.hedgeOptions(hedgeOptions);
+        builder.concurrencyLimitOptions(concurrencyLimitOptions);
         builder.maxRedirects(maxRedirects);
         builder.maxContentLength(maxContentLength);
         builder.idleTimeoutSeconds(idleTimeoutSeconds);
 
         then(builder.resolver()).isSameAs(resolver);
+        then(builder.addressSelector()).isSameAs(addressSelector);
         then(builder.isH2ClearTextUpgrade()).isEqualTo(h2ClearTextUpgrade);
         then(builder.connectTimeout()).isEqualTo(connectTimeout);
         then(builder.readTimeout()).isEqualTo(readTimeout);
@@ -95,6 +110,7 @@ class HttpClientBuilderTest {
         then(builder.connectionPoolSize()).isEqualTo(connectionPoolSize);
         then(builder.connectionPoolWaitingQueueLength()).isEqualTo(connectionPoolWaitQueueSize);
         then(builder.isUseDecompress()).isEqualTo(useDecompress);
+        then(builder.isUsePooledBody()).isEqualTo(usePooledBody);
         then(builder.decompression()).isSameAs(decompression);
         then(builder.isUseExpectContinue()).isEqualTo(useExpectContinue);
         then(builder.channelPoolOptionsProvider()).isSameAs(channelPoolOptionsProvider);
@@ -102,6 +118,8 @@ class HttpClientBuilderTest {
         then(builder.http1Options()).isSameAs(http1Options);
         then(builder.http2Options()).isSameAs(http2Options);
         then(builder.retryOptions()).isSameAs(retryOptions);
+        then(builder.hedgeOptions()).isSameAs(hedgeOptions);
+        then(builder.concurrencyLimitOptions()).isSameAs(concurrencyLimitOptions);
         then(builder.maxRedirects()).isEqualTo(maxRedirects);
         then(builder.maxContentLength()).isEqualTo(maxContentLength);
         then(builder.idleTimeoutSeconds()).isEqualTo(idleTimeoutSeconds);
@@ -110,6 +128,7 @@ class HttpClientBuilderTest {
     @Test
     void testCopy() {
         final HostResolver resolver = inetHost -> null;
+        final AddressSelector addressSelector = AddressSelectors.leastOutstanding();
         final boolean h2ClearTextUpgrade = ThreadLocalRandom.current().nextBoolean();
         final int connectTimeout = ThreadLocalRandom.current().nextInt(10, 10000);
         final int readTimeout = ThreadLocalRandom.current().nextInt(10, 10000);
@@ -118,6 +137,7 @@ class HttpClientBuilderTest {
         final int connectionPoolSize = ThreadLocalRandom.current().nextInt(1, 1000);
         final int connectionPoolWaitQueueSize = ThreadLocalRandom.current().nextInt(1, 1000);
         final boolean useDecompress = ThreadLocalRandom.current().nextBoolean();
+        final boolean usePooledBody = ThreadLocalRandom.current().nextBoolean();
         final Decompression decompression = Decompression.GZIP_DEFLATE;
         final boolean useExpectContinue = ThreadLocalRandom.current().nextBoolean();
         final ChannelPoolOptionsProvider channelPoolOptionsProvider = key -> null;
@@ -125,12 +145,15 @@ class HttpClientBuilderTest {
         final Http1Options http1Options = Http1Options.ofDefault();
         final Http2Options http2Options = Http2Options.ofDefault();
         final RetryOptions retryOptions = RetryOptions.ofDefault();
+        final HedgeOptions hedgeOptions = HedgeOptions.ofDefault();
+        final ConcurrencyLimitOptions concurrencyLimitOptions = ConcurrencyLimitOptions.ofDefault();
         final int maxRedirects = ThreadLocalRandom.current().nextInt(10, 1000);
         final long maxContentLength = ThreadLocalRandom.current().nextLong(10000);
         final int idleTimeoutSeconds = ThreadLocalRandom.current().nextInt(1000);
 
         final HttpClientBuilder builder = new HttpClientBuilder();
         builder.resolver(resolver);
+        builder.addressSelector(addressSelector);
         builder.h2ClearTextUpgrade(h2ClearTextUpgrade);
         builder.connectTimeout(connectTimeout);
         builder.readTimeout(readTimeout);
@@ -139,6 +162,7 @@ class HttpClientBuilderTest {
         builder.connectionPoolSize(connectionPoolSize);
         builder.connectionPoolWaitingQueueLength(connectionPoolWaitQueueSize);
         builder.useDecompress(useDecompress);
+        builder.usePooledBody(usePooledBody);
         builder.decompression(decompression);
         builder.useExpectContinue(useExpectContinue);
         builder.channelPoolOptionsProvider(channelPoolOptionsProvider);
@@ -146,6 +170,8 @@ class HttpClientBuilderTest {
         builder.http1Options(http1Options);
         builder.http2Options(http2Options);
         builder.retryOptions(retryOptions);
+        builder.hedgeOptions(hedgeOptions);
+        builder.concurrencyLimitOptions(concurrencyLimitOptions);
         builder.maxRedirects(maxRedirects);
         builder.maxContentLength(maxContentLength);
         builder.idleTimeoutSeconds(idleTimeoutSeconds);
@@ -153,6 +179,7 @@ class HttpClientBuilderTest {
         final HttpClientBuilder builder1 = builder.copy();
 
         then(builder1.resolver()).isSameAs(resolver);
+        then(builder1.addressSelector()).isSameAs(addressSelector);
         then(builder1.isH2ClearTextUpgrade()).isEqualTo(h2ClearTextUpgrade);
         then(builder1.connectTimeout()).isEqualTo(connectTimeout);
         then(builder1.readTimeout()).isEqualTo(readTimeout);
@@ -161,6 +188,7 @@ class HttpClientBuilderTest {
         then(builder1.connectionPoolSize()).isEqualTo(connectionPoolSize);
         then(builder1.connectionPoolWaitingQueueLength()).isEqualTo(connectionPoolWaitQueueSize);
         then(builder1.isUseDecompress()).isEqualTo(useDecompress);
+        then(builder1.isUsePooledBody()).isEqualTo(usePooledBody);
         then(builder1.decompression()).isSameAs(decompression);
         then(builder1.isUseExpectContinue()).isEqualTo(useExpectContinue);
         then(builder1.channelPoolOptionsProvider()).isSameAs(channelPoolOptionsProvider);
@@ -168,6 +196,10 @@ class HttpClientBuilderTest {
         then(builder1.http1Options()).isNotSameAs(http1Options);
         then(builder1.http2Options()).isNotSameAs(http2Options);
         then(builder1.retryOptions()).isNotSameAs(retryOptions);
+        then(builder1.hedgeOptions()).isNotSameAs(hedgeOptions);
+        then(builder1.hedgeOptions().delayMillis()).isEqualTo(hedgeOptions.delayMillis());
+        then(builder1.concurrencyLimitOptions()).isNotSameAs(concurrencyLimitOptions);
+        then(builder1.concurrencyLimitOptions().limit()).isSameAs(concurrencyLimitOptions.limit());
         then(builder1.maxRedirects()).isEqualTo(maxRedirects);
         then(builder1.maxContentLength()).isEqualTo(maxContentLength);
         then(builder1.idleTimeoutSeconds()).isEqualTo(idleTimeoutSeconds);
@@ -238,6 +270,14 @@ class HttpClientBuilderTest {
 
         builder.retryOptions(null);
         then(builder.unmodifiableInterceptors().length).isEqualTo(3);
+
+        builder.hedgeOptions(HedgeOptions.ofDefault());
+        then(builder.unmodifiableInterceptors().length).isEqualTo(4);
+        then(builder.unmodifiableInterceptors()[2]).isInstanceOf(HedgingInterceptor.class);
+
+        builder.concurrencyLimitOptions(ConcurrencyLimitOptions.ofDefault());
+        then(builder.unmodifiableInterceptors().length).isEqualTo(5);
+        then(builder.unmodifiableInterceptors()[3]).isInstanceOf(ConcurrencyLimitInterceptor.class);
     }
 
     @Test
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.config;
+
+import io.esastack.httpclient.core.exec.ConcurrencyLimit;
+import io.esastack.httpclient.core.exec.ConcurrencyLimits;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyLimitOptionsTest {
+
+    @Test
+    void testDefault() {
+        final ConcurrencyLimitOptions options = ConcurrencyLimitOptions.ofDefault();
+        then(options.maxQueueSize()).isEqualTo(128);
+        then(options.queueTimeoutMillis()).isEqualTo(1000L);
+        final ConcurrencyLimit limit = options.limit().get();
+        then(limit.limit()).isEqualTo(20);
+        then(options.limit().get()).isNotSameAs(limit);
+    }
+
+    @Test
+    void testCustom() {
+        final Supplier<ConcurrencyLimit> limit = () -> ConcurrencyLimits.fixed(10);
+        final ConcurrencyLimitOptions options = ConcurrencyLimitOptions.options()
+                .limit(limit)
+                .maxQueueSize(0)
+                .queueTimeoutMillis(10L)
+                .build();
+        then(options.limit()).isSameAs(limit);
+        then(options.maxQueueSize()).isEqualTo(0);
+        then(options.queueTimeoutMillis()).isEqualTo(10L);
+
+        then(ConcurrencyLimitOptions.options().aimd(5, 1, 10).build().limit().get().limit()).isEqualTo(5);
+        then(ConcurrencyLimitOptions.options().gradient(8, 1, 10).build().limit().get().limit()).isEqualTo(8);
+
+        assertThrows(NullPointerException.class, () -> ConcurrencyLimitOptions.options().limit(null).build());
+        assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimitOptions.options().maxQueueSize(-1).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> ConcurrencyLimitOptions.options().queueTimeoutMillis(0L).build());
+        assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimitOptions.options().aimd(0, 1, 10));
+    }
+
+    @Test
+    void testCopy() {
+        final ConcurrencyLimitOptions options = ConcurrencyLimitOptions.options().maxQueueSize(10).build();
+        final ConcurrencyLimitOptions copied = options.copy();
+        then(copied).isNotSameAs(options);
+        then(copied.limit()).isSameAs(options.limit());
+        then(copied.maxQueueSize()).isEqualTo(10);
+        then(copied.queueTimeoutMillis()).isEqualTo(1000L);
+    }
+
+}
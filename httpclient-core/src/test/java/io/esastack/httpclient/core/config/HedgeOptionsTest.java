@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HedgeOptionsTest {
+
+    @Test
+    void testDefault() {
+        final HedgeOptions options = HedgeOptions.ofDefault();
+        then(options.delayMillis()).isEqualTo(100L);
+        then(options.percentile()).isEqualTo(0.95d);
+        then(options.budgetRatio()).isEqualTo(0.1d);
+        then(options.maxBudget()).isEqualTo(10);
+        then(options.toString()).isEqualTo(new StringJoiner(", ", HedgeOptions.class.getSimpleName() + "[", "]")
+                .add("delayMillis=" + 100L)
+                .add("percentile=" + 0.95d)
+                .add("budgetRatio=" + 0.1d)
+                .add("maxBudget=" + 10)
+                .toString());
+    }
+
+    @Test
+    void testCustom() {
+        final HedgeOptions options = HedgeOptions.options()
+                .delayMillis(50L)
+                .percentile(0.0d)
+                .budgetRatio(0.05d)
+                .maxBudget(5)
+                .build();
+        then(options.delayMillis()).isEqualTo(50L);
+        then(options.percentile()).isEqualTo(0.0d);
+        then(options.budgetRatio()).isEqualTo(0.05d);
+        then(options.maxBudget()).isEqualTo(5);
+
+        assertThrows(IllegalArgumentException.class, () -> HedgeOptions.options().delayMillis(0L).build());
+        assertThrows(IllegalArgumentException.class, () -> HedgeOptions.options().percentile(1.0d).build());
+        assertThrows(IllegalArgumentException.class, () -> HedgeOptions.options().budgetRatio(0.0d).build());
+        assertThrows(IllegalArgumentException.class, () -> HedgeOptions.options().maxBudget(0).build());
+    }
+
+    @Test
+    void testCopy() {
+        final HedgeOptions options = HedgeOptions.options().delayMillis(50L).build();
+        final HedgeOptions copied = options.copy();
+        then(copied).isNotSameAs(options);
+        then(copied.delayMillis()).isEqualTo(50L);
+        then(copied.percentile()).isEqualTo(0.95d);
+        then(copied.budgetRatio()).isEqualTo(0.1d);
+        then(copied.maxBudget()).isEqualTo(10);
+    }
+
+}
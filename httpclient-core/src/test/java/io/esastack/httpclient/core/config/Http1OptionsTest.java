@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import java.util.StringJoiner;
 
 import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class Http1OptionsTest {
 
@@ -29,20 +30,24 @@ class Http1OptionsTest {
         then(options.maxInitialLineLength()).isEqualTo(4096);
         then(options.maxHeaderSize()).isEqualTo(8192);
         then(options.maxChunkSize()).isEqualTo(8192);
+        then(options.maxPipelinedRequests()).isEqualTo(1);
         then(options.toString()).isEqualTo(new StringJoiner(", ", Http1Options.class.getSimpleName() + "[", "]")
                 .add("maxInitialLineLength=" + 4096)
                 .add("maxHeaderSize=" + 8192)
                 .add("maxChunkSize=" + 8192)
+                .add("maxPipelinedRequests=" + 1)
                 .toString());
     }
 
     @Test
     void testCustom() {
         final Http1Options options = Http1Options.options().maxInitialLineLength(1)
-                .maxHeaderSize(2).maxChunkSize(3).build();
+                .maxHeaderSize(2).maxChunkSize(3).maxPipelinedRequests(4).build();
         then(options.maxInitialLineLength()).isEqualTo(1);
         then(options.maxHeaderSize()).isEqualTo(2);
         then(options.maxChunkSize()).isEqualTo(3);
+        then(options.maxPipelinedRequests()).isEqualTo(4);
+        assertThrows(IllegalArgumentException.class, () -> Http1Options.options().maxPipelinedRequests(0).build());
     }
 
     @Test
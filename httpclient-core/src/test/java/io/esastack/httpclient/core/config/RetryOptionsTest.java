@@ -18,6 +18,7 @@ package io.esastack.httpclient.core.config;
 import io.esastack.httpclient.core.Context;
 import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
+import io.esastack.httpclient.core.exec.RetryBackoff;
 import io.esastack.httpclient.core.exec.RetryPredicate;
 import io.esastack.httpclient.core.exec.RetryPredicateImpl;
 import org.junit.jupiter.api.Test;
@@ -39,6 +40,7 @@ class RetryOptionsTest {
                 .add("maxRetries=" + 3)
                 .add("predicate=" + RetryPredicateImpl.DEFAULT)
                 .add("intervalMillis=" + null)
+                .add("backoff=" + null)
                 .toString());
     }
 
@@ -58,6 +60,26 @@ class RetryOptionsTest {
         then(options.maxRetries()).isEqualTo(5);
         then(options.predicate()).isSameAs(predicate);
         then(options.intervalMillis()).isSameAs(intervalMs);
+        then(options.backoff()).isNotNull();
+        then(options.backoff().intervalMs(1, 0L, null, null, null)).isEqualTo(0L);
+    }
+
+    @Test
+    void testBackoff() {
+        final RetryBackoff backoff = (retryCount, previousMs, request, response, cause) -> 10L;
+        final RetryOptions options = RetryOptions.options()
+                .intervalMs(value -> 100L)
+                .backoff(backoff)
+                .build();
+        then(options.backoff()).isSameAs(backoff);
+
+        final RetryOptions options1 = RetryOptions.options()
+                .exponentialBackoff(100L, 1000L)
+                .respectRetryAfter(5000L)
+                .build();
+        then(options1.backoff()).isNotNull();
+        then(options1.backoff().intervalMs(2, 100L, null, null, null)).isEqualTo(200L);
+        then(options1.copy().backoff()).isSameAs(options1.backoff());
     }
 
     @Test
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exec;
+
+import io.esastack.commons.net.http.HttpStatus;
+import io.esastack.httpclient.core.HttpClient;
+import io.esastack.httpclient.core.HttpRequest;
+import io.esastack.httpclient.core.HttpResponse;
+import io.esastack.httpclient.core.config.ConcurrencyLimitOptions;
+import io.esastack.httpclient.core.exception.ConcurrencyLimitExceededException;
+import io.esastack.httpclient.core.metrics.ConcurrencyLimitMetric;
+import io.esastack.httpclient.core.mock.MockHttpResponse;
+import io.esastack.httpclient.core.util.Futures;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitInterceptorTest {
+
+    private final HttpClient client = HttpClient.ofDefault();
+
+    @Test
+    void testConstruct() {
+        assertThrows(NullPointerException.class, () -> new ConcurrencyLimitInterceptor(null));
+        then(new ConcurrencyLimitInterceptor(ConcurrencyLimitOptions.ofDefault()).getOrder()).isEqualTo(-1000);
+    }
+
+    @Test
+    void testQueueAndReject() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final CompletableFuture<HttpResponse> attempt1 = new CompletableFuture<>();
+        final CompletableFuture<HttpResponse> attempt2 = new CompletableFuture<>();
+        final ExecChain chain = mock(ExecChain.class);
+        when(chain.proceed(request)).thenReturn(attempt1, attempt2);
+
+        final ManualConcurrencyLimitInterceptor interceptor = new ManualConcurrencyLimitInterceptor(1, 1);
+        then(interceptor.proceed(request, chain)).isSameAs(attempt1);
+        final ConcurrencyLimitMetric metric = interceptor.metric()
+                .get(InetSocketAddress.createUnresolved("127.0.0.1", 9999));
+        then(metric.limit()).isEqualTo(1);
+        then(metric.inflight()).isEqualTo(1);
+
+        // Wait in the queue
+        final CompletableFuture<HttpResponse> response2 = interceptor.proceed(request, chain);
+        then(response2.isDone()).isFalse();
+        then(metric.queued()).isEqualTo(1);
+        verify(chain, times(1)).proceed(request);
+
+        // Queue is full
+        final CompletableFuture<HttpResponse> response3 = interceptor.proceed(request, chain);
+        then(response3.isCompletedExceptionally()).isTrue();
+        then(Futures.getCause(response3)).isInstanceOf(ConcurrencyLimitExceededException.class);
+        then(metric.rejectedCount()).isEqualTo(1L);
+
+        attempt1.complete(new MockHttpResponse(HttpStatus.OK.code()));
+        verify(chain, times(2)).proceed(request);
+        then(metric.inflight()).isEqualTo(1);
+        then(metric.queued()).isEqualTo(0);
+
+        final HttpResponse rsp = new MockHttpResponse(HttpStatus.OK.code());
+        attempt2.complete(rsp);
+        then(response2.getNow(null)).isSameAs(rsp);
+        then(metric.inflight()).isEqualTo(0);
+
+        // Expired after the admitted
+        interceptor.runScheduled();
+        then(metric.rejectedCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void testQueueTimeout() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final CompletableFuture<HttpResponse> attempt1 = new CompletableFuture<>();
+        final ExecChain chain = mock(ExecChain.class);
+        when(chain.proceed(request)).thenReturn(attempt1);
+
+        final ManualConcurrencyLimitInterceptor interceptor = new ManualConcurrencyLimitInterceptor(1, 1);
+        interceptor.proceed(request, chain);
+        final CompletableFuture<HttpResponse> response2 = interceptor.proceed(request, chain);
+        then(interceptor.delays).containsExactly(1000L);
+
+        interceptor.runScheduled();
+        then(Futures.getCause(response2)).isInstanceOf(ConcurrencyLimitExceededException.class);
+        final ConcurrencyLimitMetric metric = interceptor.metric().all().values().iterator().next();
+        then(metric.queued()).isEqualTo(0);
+        then(metric.rejectedCount()).isEqualTo(1L);
+
+        attempt1.complete(new MockHttpResponse(HttpStatus.OK.code()));
+        verify(chain, times(1)).proceed(request);
+        then(metric.inflight()).isEqualTo(0);
+    }
+
+    @Test
+    void testCancel() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final CompletableFuture<HttpResponse> attempt1 = new CompletableFuture<>();
+        final ExecChain chain = mock(ExecChain.class);
+        when(chain.proceed(request)).thenReturn(attempt1);
+
+        final ConcurrencyLimit limit = mock(ConcurrencyLimit.class);
+        when(limit.limit()).thenReturn(1);
+        final ManualConcurrencyLimitInterceptor interceptor = new ManualConcurrencyLimitInterceptor(
+                ConcurrencyLimitOptions.options().limit(() -> limit).build());
+        interceptor.proceed(request, chain);
+
+        // Cancelled while waiting
+        final CompletableFuture<HttpResponse> response2 = interceptor.proceed(request, chain);
+        response2.cancel(false);
+        final ConcurrencyLimitMetric metric = interceptor.metric().all().values().iterator().next();
+        then(metric.queued()).isEqualTo(0);
+        then(metric.rejectedCount()).isEqualTo(0L);
+
+        // Cancelled attempt won't be sampled
+        attempt1.cancel(false);
+        then(metric.inflight()).isEqualTo(0);
+        verify(chain, times(1)).proceed(request);
+        verify(limit, never()).onSample(anyLong(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    void testSample() {
+        final HttpRequest request = client.get("https://127.0.0.1/abc");
+        final CompletableFuture<HttpResponse> attempt1 = new CompletableFuture<>();
+        final CompletableFuture<HttpResponse> attempt2 = new CompletableFuture<>();
+        final CompletableFuture<HttpResponse> attempt3 = new CompletableFuture<>();
+        final ExecChain chain = mock(ExecChain.class);
+        when(chain.proceed(request)).thenReturn(attempt1, attempt2, attempt3);
+
+        final ConcurrencyLimit limit = mock(ConcurrencyLimit.class);
+        when(limit.limit()).thenReturn(10);
+        final ManualConcurrencyLimitInterceptor interceptor = new ManualConcurrencyLimitInterceptor(
+                ConcurrencyLimitOptions.options().limit(() -> limit).build());
+        interceptor.proceed(request, chain);
+        interceptor.proceed(request, chain);
+        interceptor.proceed(request, chain);
+        then(interceptor.metric().get(InetSocketAddress.createUnresolved("127.0.0.1", 443)).inflight())
+                .isEqualTo(3);
+
+        attempt1.complete(new MockHttpResponse(HttpStatus.OK.code()));
+        verify(limit).onSample(anyLong(), eq(3), eq(false));
+        attempt2.complete(new MockHttpResponse(HttpStatus.SERVICE_UNAVAILABLE.code()));
+        verify(limit).onSample(anyLong(), eq(2), eq(true));
+        attempt3.completeExceptionally(new IOException());
+        verify(limit).onSample(anyLong(), eq(1), eq(true));
+        then(interceptor.limiters()).hasSize(1);
+    }
+
+    @Test
+    void testRetire() {
+        final ConcurrencyLimitInterceptor.Limiter limiter =
+                new ConcurrencyLimitInterceptor.Limiter(ConcurrencyLimits.fixed(1), 1);
+        final long future = System.nanoTime() + TimeUnit.HOURS.toNanos(1L);
+        then(limiter.acquire()).isSameAs(ConcurrencyLimitInterceptor.Limiter.ACQUIRED);
+        then(limiter.retire(future)).isFalse();
+
+        final CompletableFuture<Void> permit = limiter.acquire();
+        then(permit.isDone()).isFalse();
+        then(limiter.retire(future)).isFalse();
+
+        limiter.release();
+        then(permit.isDone()).isTrue();
+        then(limiter.retire(future)).isFalse();
+
+        limiter.release();
+        then(limiter.retire(System.nanoTime() - TimeUnit.HOURS.toNanos(1L))).isFalse();
+        then(limiter.retire(future)).isTrue();
+        then(limiter.acquire()).isSameAs(ConcurrencyLimitInterceptor.Limiter.RETIRED);
+    }
+
+    @Test
+    void testOnlyCleanUpIdleLimiters() {
+        final CompletableFuture<HttpResponse> busy = new CompletableFuture<>();
+        final ExecChain chain = mock(ExecChain.class);
+        when(chain.proceed(any(HttpRequest.class))).thenReturn(busy)
+                .thenAnswer(invocation -> Futures.completed(new MockHttpResponse(HttpStatus.OK.code())));
+
+        final ManualConcurrencyLimitInterceptor interceptor = new ManualConcurrencyLimitInterceptor(1, 1);
+        interceptor.proceed(client.get("http://127.0.0.1:9999/abc"), chain);
+        for (int i = 1; i < 4096; i++) {
+            interceptor.proceed(client.get("http://127.0.0.1:" + i + "/abc"), chain);
+        }
+        then(interceptor.limiters()).hasSize(4096);
+
+        // Too many limiters, all the idle ones are removed except the busy one and the current one.
+        interceptor.proceed(client.get("http://127.0.0.1:9998/abc"), chain);
+        then(interceptor.limiters()).hasSize(2);
+        then(interceptor.limiters())
+                .containsKeys(InetSocketAddress.createUnresolved("127.0.0.1", 9999),
+                        InetSocketAddress.createUnresolved("127.0.0.1", 9998));
+
+        // The busy limiter still limits the subsequent requests.
+        final CompletableFuture<HttpResponse> queued =
+                interceptor.proceed(client.get("http://127.0.0.1:9999/abc"), chain);
+        then(queued.isDone()).isFalse();
+        busy.complete(new MockHttpResponse(HttpStatus.OK.code()));
+        then(queued.isDone()).isTrue();
+    }
+
+    private static final class ManualConcurrencyLimitInterceptor extends ConcurrencyLimitInterceptor {
+
+        private final List<Long> delays = new ArrayList<>();
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        private ManualConcurrencyLimitInterceptor(int limit, int maxQueueSize) {
+            this(ConcurrencyLimitOptions.options()
+                    .limit(() -> ConcurrencyLimits.fixed(limit))
+                    .maxQueueSize(maxQueueSize)
+                    .build());
+        }
+
+        private ManualConcurrencyLimitInterceptor(ConcurrencyLimitOptions options) {
+            super(options);
+        }
+
+        @Override
+        protected void schedule(long delayMillis, Runnable task) {
+            delays.add(delayMillis);
+            tasks.add(task);
+        }
+
+        private void runScheduled() {
+            final List<Runnable> tasks0 = new ArrayList<>(tasks);
+            tasks.clear();
+            tasks0.forEach(Runnable::run);
+        }
+    }
+}
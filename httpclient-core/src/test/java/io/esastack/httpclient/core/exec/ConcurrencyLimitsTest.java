@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exec;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyLimitsTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10L);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100L);
+
+    @Test
+    void testFixed() {
+        final ConcurrencyLimit limit = ConcurrencyLimits.fixed(3);
+        limit.onSample(FAST, 3, false);
+        limit.onSample(FAST, 3, true);
+        then(limit.limit()).isEqualTo(3);
+        assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimits.fixed(0));
+    }
+
+    @Test
+    void testAimd() {
+        final ConcurrencyLimit limit = ConcurrencyLimits.aimd(10, 2, 12);
+        limit.onSample(FAST, 10, false);
+        then(limit.limit()).isEqualTo(11);
+
+        // Not used enough
+        limit.onSample(FAST, 2, false);
+        then(limit.limit()).isEqualTo(11);
+
+        limit.onSample(FAST, 11, false);
+        limit.onSample(FAST, 12, false);
+        then(limit.limit()).isEqualTo(12);
+
+        limit.onSample(SLOW, 12, true);
+        then(limit.limit()).isEqualTo(10);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(SLOW, 12, true);
+        }
+        then(limit.limit()).isEqualTo(2);
+
+        assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimits.aimd(1, 2, 10));
+        assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimits.aimd(2, 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimits.aimd(2, 2, 10, 1.0d));
+    }
+
+    @Test
+    void testGradient() {
+        final ConcurrencyLimit limit = ConcurrencyLimits.gradient(10, 1, 100);
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(FAST, limit.limit(), false);
+        }
+        final int increased = limit.limit();
+        then(increased).isGreaterThan(10);
+
+        // Not used enough
+        limit.onSample(FAST, 1, false);
+        then(limit.limit()).isEqualTo(increased);
+
+        // Latency grows because of queueing
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(SLOW, limit.limit(), false);
+        }
+        final int decreased = limit.limit();
+        then(decreased).isLessThan(increased);
+
+        limit.onSample(FAST, 1, true);
+        then(limit.limit()).isLessThan(decreased);
+
+        assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimits.gradient(0, 0, 10));
+    }
+
+}
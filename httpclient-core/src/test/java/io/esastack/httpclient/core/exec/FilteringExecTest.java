@@ -29,6 +29,7 @@ import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class FilteringExecTest {
@@ -78,4 +79,29 @@ class FilteringExecTest {
         then(response44.isDone()).isTrue();
         then(response44.isCompletedExceptionally()).isTrue();
     }
+
+    @Test
+    void testCancel() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc/def");
+        final Context ctx = new Context();
+        final CompletableFuture<HttpResponse> attempt = new CompletableFuture<>();
+        final ExecChain chain = mock(ExecChain.class);
+        when(chain.proceed(request)).thenReturn(attempt);
+        when(chain.ctx()).thenReturn(ctx);
+
+        // Case 1: cancelled after proceeding
+        final FilteringExec exec1 = new FilteringExec(new RequestFilter[]{(request1, ctx1) -> Futures.completed()});
+        final CompletableFuture<HttpResponse> response1 = exec1.proceed(request, chain);
+        then(response1.isDone()).isFalse();
+        response1.cancel(false);
+        then(attempt.isCancelled()).isTrue();
+
+        // Case 2: cancelled while applying request filters
+        final CompletableFuture<Void> filtered = new CompletableFuture<>();
+        final FilteringExec exec2 = new FilteringExec(new RequestFilter[]{(request1, ctx1) -> filtered});
+        final CompletableFuture<HttpResponse> response2 = exec2.proceed(request, chain);
+        response2.cancel(false);
+        filtered.complete(null);
+        verify(chain).proceed(request);
+    }
 }
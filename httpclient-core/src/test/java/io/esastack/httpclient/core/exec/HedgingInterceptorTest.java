@@ -0,0 +1,340 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exec;
+
+import io.esastack.commons.net.http.HttpHeaderNames;
+import io.esastack.commons.net.http.HttpStatus;
+import io.esastack.httpclient.core.ContextKeys;
+import io.esastack.httpclient.core.HttpClient;
+import io.esastack.httpclient.core.HttpRequest;
+import io.esastack.httpclient.core.HttpResponse;
+import io.esastack.httpclient.core.config.HedgeOptions;
+import io.esastack.httpclient.core.mock.MockContext;
+import io.esastack.httpclient.core.mock.MockHttpResponse;
+import io.esastack.httpclient.core.util.Futures;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HedgingInterceptorTest {
+
+    private final HttpClient client = HttpClient.ofDefault();
+
+    @Test
+    void testConstruct() {
+        assertThrows(NullPointerException.class, () -> new HedgingInterceptor(null));
+        then(new HedgingInterceptor(HedgeOptions.ofDefault()).getOrder()).isEqualTo(-2000);
+    }
+
+    @Test
+    void testHedgedWins() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final CompletableFuture<HttpResponse> primary = new CompletableFuture<>();
+        final CompletableFuture<HttpResponse> hedged = new CompletableFuture<>();
+        final ExecChain chain = mockChain(request, primary, hedged);
+
+        final ManualHedgingInterceptor interceptor = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        final CompletableFuture<HttpResponse> response = interceptor.proceed(request, chain);
+        then(interceptor.delays).containsExactly(100L);
+        then(response.isDone()).isFalse();
+
+        interceptor.runScheduled();
+        verify(chain, times(2)).proceed(request);
+        then(interceptor.budget().balance()).isEqualTo(9L);
+
+        final HttpResponse rsp = new MockHttpResponse(HttpStatus.OK.code());
+        hedged.complete(rsp);
+        then(response.getNow(null)).isSameAs(rsp);
+        then(primary.isCancelled()).isTrue();
+    }
+
+    @Test
+    void testPrimaryWins() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final CompletableFuture<HttpResponse> primary = new CompletableFuture<>();
+        final ExecChain chain = mockChain(request, primary);
+
+        final ManualHedgingInterceptor interceptor = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        final CompletableFuture<HttpResponse> response = interceptor.proceed(request, chain);
+        final HttpResponse rsp = new MockHttpResponse(HttpStatus.OK.code());
+        primary.complete(rsp);
+        then(response.getNow(null)).isSameAs(rsp);
+
+        // No more attempt after the response has completed
+        interceptor.runScheduled();
+        verify(chain, times(1)).proceed(request);
+        then(interceptor.budget().balance()).isEqualTo(10L);
+
+        // Completed immediately, no need to schedule a hedged request
+        final ManualHedgingInterceptor interceptor1 = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        final ExecChain chain1 = mockChain(request, Futures.completed(rsp));
+        then(interceptor1.proceed(request, chain1).getNow(null)).isSameAs(rsp);
+        then(interceptor1.delays).isEmpty();
+    }
+
+    @Test
+    void testFailed() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final CompletableFuture<HttpResponse> primary = new CompletableFuture<>();
+        final CompletableFuture<HttpResponse> hedged = new CompletableFuture<>();
+        final ExecChain chain = mockChain(request, primary, hedged);
+
+        final ManualHedgingInterceptor interceptor = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        final CompletableFuture<HttpResponse> response = interceptor.proceed(request, chain);
+        interceptor.runScheduled();
+
+        // Wait for the hedged request if the primary one failed
+        primary.completeExceptionally(new ConnectException());
+        then(response.isDone()).isFalse();
+        hedged.completeExceptionally(new IOException());
+        then(response.isCompletedExceptionally()).isTrue();
+        then(Futures.getCause(response)).isInstanceOf(IOException.class);
+
+        // Failed before hedging
+        final ManualHedgingInterceptor interceptor1 = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        final CompletableFuture<HttpResponse> primary1 = new CompletableFuture<>();
+        final ExecChain chain1 = mockChain(request, primary1);
+        final CompletableFuture<HttpResponse> response1 = interceptor1.proceed(request, chain1);
+        primary1.completeExceptionally(new ConnectException());
+        then(Futures.getCause(response1)).isInstanceOf(ConnectException.class);
+        interceptor1.runScheduled();
+        verify(chain1, times(1)).proceed(request);
+    }
+
+    @Test
+    void testFailedResponse() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final CompletableFuture<HttpResponse> primary = new CompletableFuture<>();
+        final CompletableFuture<HttpResponse> hedged = new CompletableFuture<>();
+        final ExecChain chain = mockChain(request, primary, hedged);
+
+        final ManualHedgingInterceptor interceptor = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        final CompletableFuture<HttpResponse> response = interceptor.proceed(request, chain);
+        interceptor.runScheduled();
+
+        // Wait for the hedged request if the primary one responded with 5xx
+        primary.complete(new MockHttpResponse(HttpStatus.SERVICE_UNAVAILABLE.code()));
+        then(response.isDone()).isFalse();
+        final HttpResponse rsp = new MockHttpResponse(HttpStatus.OK.code());
+        hedged.complete(rsp);
+        then(response.getNow(null)).isSameAs(rsp);
+
+        // Use the failed response if both of them failed
+        final CompletableFuture<HttpResponse> primary1 = new CompletableFuture<>();
+        final CompletableFuture<HttpResponse> hedged1 = new CompletableFuture<>();
+        final ExecChain chain1 = mockChain(request, primary1, hedged1);
+        final ManualHedgingInterceptor interceptor1 = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        final CompletableFuture<HttpResponse> response1 = interceptor1.proceed(request, chain1);
+        interceptor1.runScheduled();
+        final HttpResponse rsp1 = new MockHttpResponse(HttpStatus.TOO_MANY_REQUESTS.code());
+        hedged1.complete(rsp1);
+        then(response1.isDone()).isFalse();
+        primary1.completeExceptionally(new IOException());
+        then(response1.getNow(null)).isSameAs(rsp1);
+
+        // The failed response wins if there's no other attempt
+        final CompletableFuture<HttpResponse> primary2 = new CompletableFuture<>();
+        final ExecChain chain2 = mockChain(request, primary2);
+        final ManualHedgingInterceptor interceptor2 = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        final CompletableFuture<HttpResponse> response2 = interceptor2.proceed(request, chain2);
+        final HttpResponse rsp2 = new MockHttpResponse(HttpStatus.SERVICE_UNAVAILABLE.code());
+        primary2.complete(rsp2);
+        then(response2.getNow(null)).isSameAs(rsp2);
+    }
+
+    @Test
+    void testCancel() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final CompletableFuture<HttpResponse> primary = new CompletableFuture<>();
+        final CompletableFuture<HttpResponse> hedged = new CompletableFuture<>();
+        final ExecChain chain = mockChain(request, primary, hedged);
+
+        final ManualHedgingInterceptor interceptor = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        final CompletableFuture<HttpResponse> response = interceptor.proceed(request, chain);
+        interceptor.runScheduled();
+        response.cancel(false);
+        then(primary.isCancelled()).isTrue();
+        then(hedged.isCancelled()).isTrue();
+    }
+
+    @Test
+    void testBudget() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final HedgeOptions options = HedgeOptions.options()
+                .budgetRatio(0.5d)
+                .maxBudget(1)
+                .build();
+        final ManualHedgingInterceptor interceptor = new ManualHedgingInterceptor(options);
+
+        final ExecChain chain0 = mockChain(request, new CompletableFuture<>(), new CompletableFuture<>());
+        interceptor.proceed(request, chain0);
+        interceptor.runScheduled();
+        verify(chain0, times(2)).proceed(request);
+        then(interceptor.budget().balance()).isEqualTo(0L);
+
+        // Budget is exhausted
+        final ExecChain chain1 = mockChain(request, new CompletableFuture<>(), new CompletableFuture<>());
+        interceptor.proceed(request, chain1);
+        interceptor.runScheduled();
+        verify(chain1, times(1)).proceed(request);
+
+        // Refilled by 2 requests
+        final ExecChain chain2 = mockChain(request, new CompletableFuture<>(), new CompletableFuture<>());
+        interceptor.proceed(request, chain2);
+        interceptor.runScheduled();
+        verify(chain2, times(2)).proceed(request);
+    }
+
+    @Test
+    void testNotHedgeable() {
+        final HttpRequest post = client.post("http://127.0.0.1:9999/abc");
+        final HttpRequest body = client.put("http://127.0.0.1:9999/abc").body("Hello".getBytes());
+        final HttpRequest segment = client.get("http://127.0.0.1:9999/abc").segment();
+        final HttpRequest stream = client.put("http://127.0.0.1:9999/abc")
+                .body(new ByteArrayInputStream("Hello".getBytes()));
+        final HttpRequest expect = client.get("http://127.0.0.1:9999/abc")
+                .addHeader(HttpHeaderNames.EXPECT, "100-continue");
+
+        final ManualHedgingInterceptor interceptor = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        for (HttpRequest request : new HttpRequest[]{post, body, segment, stream, expect}) {
+            final CompletableFuture<HttpResponse> primary = new CompletableFuture<>();
+            final ExecChain chain = mockChain(request, primary);
+            then(interceptor.proceed(request, chain)).isSameAs(primary);
+        }
+
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final CompletableFuture<HttpResponse> primary = new CompletableFuture<>();
+        final ExecChain chain = mockChain(request, primary);
+        chain.ctx().attrs().attr(ContextKeys.CUSTOM_HANDLE_KEY).set(Boolean.TRUE);
+        then(interceptor.proceed(request, chain)).isSameAs(primary);
+        then(interceptor.delays).isEmpty();
+    }
+
+    @Test
+    void testPercentileDelay() {
+        final HttpRequest request = client.get("http://127.0.0.1:9999/abc");
+        final ManualHedgingInterceptor interceptor = new ManualHedgingInterceptor(HedgeOptions.ofDefault());
+        for (int i = 0; i < HedgingInterceptor.LatencyWindow.MIN_SAMPLES; i++) {
+            final CompletableFuture<HttpResponse> primary = new CompletableFuture<>();
+            interceptor.proceed(request, mockChain(request, primary));
+            primary.complete(new MockHttpResponse(HttpStatus.OK.code()));
+        }
+        then(interceptor.delays).hasSize(HedgingInterceptor.LatencyWindow.MIN_SAMPLES)
+                .containsOnly(100L);
+        interceptor.delays.clear();
+
+        // The delay is adapted to the recent latencies
+        interceptor.proceed(request, mockChain(request, new CompletableFuture<>()));
+        then(interceptor.delays).containsExactly(1L);
+    }
+
+    @Test
+    void testLatencyWindow() {
+        final HedgingInterceptor.LatencyWindow window = new HedgingInterceptor.LatencyWindow();
+        window.record(1L);
+        then(window.percentileNanos(0.5d)).isEqualTo(-1L);
+
+        for (int i = 2; i <= 100; i++) {
+            window.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        then(window.percentileNanos(0.5d)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50L));
+        then(window.percentileNanos(0.95d)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(95L));
+
+        // Only the recent samples are kept
+        for (int i = 0; i < HedgingInterceptor.LatencyWindow.CAPACITY; i++) {
+            window.record(TimeUnit.MILLISECONDS.toNanos(1L));
+        }
+        then(window.percentileNanos(0.95d)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1L));
+    }
+
+    @Test
+    void testBudgetDeposit() {
+        final HedgingInterceptor.Budget budget = new HedgingInterceptor.Budget(0.1d, 2);
+        then(budget.balance()).isEqualTo(2L);
+        then(budget.tryAcquire()).isTrue();
+        then(budget.tryAcquire()).isTrue();
+        then(budget.tryAcquire()).isFalse();
+
+        for (int i = 0; i < 9; i++) {
+            budget.deposit();
+        }
+        then(budget.tryAcquire()).isFalse();
+        budget.deposit();
+        then(budget.tryAcquire()).isTrue();
+
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+        then(budget.balance()).isEqualTo(2L);
+    }
+
+    @Test
+    void testBudgetRefund() {
+        final HedgingInterceptor.Budget budget = new HedgingInterceptor.Budget(0.1d, 2);
+        then(budget.tryAcquire()).isTrue();
+        then(budget.balance()).isEqualTo(1L);
+        budget.refund();
+        then(budget.balance()).isEqualTo(2L);
+
+        // Never exceeds the max.
+        budget.refund();
+        then(budget.balance()).isEqualTo(2L);
+    }
+
+    @SafeVarargs
+    private static ExecChain mockChain(HttpRequest request, CompletableFuture<HttpResponse> first,
+                                       CompletableFuture<HttpResponse>... others) {
+        final ExecChain chain = mock(ExecChain.class);
+        when(chain.ctx()).thenReturn(new MockContext());
+        when(chain.proceed(request)).thenReturn(first, others);
+        return chain;
+    }
+
+    private static final class ManualHedgingInterceptor extends HedgingInterceptor {
+
+        private final List<Long> delays = new ArrayList<>();
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        private ManualHedgingInterceptor(HedgeOptions options) {
+            super(options);
+        }
+
+        @Override
+        protected void schedule(long delayMillis, Runnable task) {
+            delays.add(delayMillis);
+            tasks.add(task);
+        }
+
+        private void runScheduled() {
+            final List<Runnable> tasks0 = new ArrayList<>(tasks);
+            tasks.clear();
+            tasks0.forEach(Runnable::run);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import io.esastack.httpclient.core.HttpClient;
 import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.httpclient.core.SegmentRequest;
+import io.esastack.httpclient.core.StreamBody;
 import io.esastack.httpclient.core.exception.RedirectException;
 import io.esastack.httpclient.core.mock.MockContext;
 import io.esastack.httpclient.core.mock.MockHttpResponse;
@@ -33,6 +34,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.util.concurrent.CompletableFuture;
@@ -43,6 +45,7 @@ import static io.esastack.httpclient.core.exec.RedirectInterceptor.HAS_REDIRECTE
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class RedirectInterceptorTest {
@@ -168,6 +171,42 @@ class RedirectInterceptorTest {
         then(request1.paramNames().isEmpty()).isTrue();
     }
 
+    @Test
+    void testNewRequestWithStream() {
+        final RedirectInterceptor interceptor = new RedirectInterceptor();
+        final HttpRequest request0 = client.post("http://127.0.0.1:9999/abc/def")
+                .body(StreamBody.of(new ByteArrayInputStream(new byte[]{1, 2, 3})));
+
+        final HttpRequest request1 = interceptor.newRequest(request0,
+                java.net.URI.create("http://127.0.0.1:8888/abc/def"), 302);
+        then(request1.isStream()).isFalse();
+        then(request1.stream()).isNull();
+
+        final HttpRequest request2 = interceptor.newRequest(request0,
+                java.net.URI.create("http://127.0.0.1:8888/abc/def"), 307);
+        then(request2.isStream()).isTrue();
+        then(request2.stream()).isNotNull();
+    }
+
+    @Test
+    void testNotRedirectStreamBody() {
+        final ExecChain next = mock(ExecChain.class);
+        final MockContext ctx = new MockContext();
+        ctx.maxRedirects(10);
+        when(next.ctx()).thenReturn(ctx);
+
+        final HttpRequest request = client.post("http://127.0.0.1:9999/abc")
+                .body(StreamBody.of(new ByteArrayInputStream(new byte[]{1, 2, 3})));
+        final HttpResponse response = new MockHttpResponse(HttpStatus.TEMPORARY_REDIRECT.code());
+        response.headers().add(HttpHeaderNames.LOCATION, "http://127.0.0.1:8888/abc");
+        when(next.proceed(any(HttpRequest.class))).thenReturn(Futures.completed(response));
+
+        final CompletableFuture<HttpResponse> response0 = new RedirectInterceptor().proceed(request, next);
+        then(response0.isDone()).isTrue();
+        then(response0.getNow(null)).isSameAs(response);
+        verify(next).proceed(any(HttpRequest.class));
+    }
+
     @Test
     void testDetectUri() throws RedirectException {
         final RedirectInterceptor interceptor = new RedirectInterceptor();
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.exec;
+
+import io.esastack.httpclient.core.mock.MockHttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryBackoffsTest {
+
+    @Test
+    void testOf() {
+        final RetryBackoff backoff = RetryBackoffs.of(count -> count * 100L);
+        then(backoff.intervalMs(1, 0L, null, null, null)).isEqualTo(100L);
+        then(backoff.intervalMs(3, 200L, null, null, null)).isEqualTo(300L);
+    }
+
+    @Test
+    void testExponential() {
+        final RetryBackoff backoff = RetryBackoffs.exponential(100L, 1000L);
+        then(backoff.intervalMs(1, 0L, null, null, null)).isEqualTo(100L);
+        then(backoff.intervalMs(2, 100L, null, null, null)).isEqualTo(200L);
+        then(backoff.intervalMs(3, 200L, null, null, null)).isEqualTo(400L);
+        then(backoff.intervalMs(4, 400L, null, null, null)).isEqualTo(800L);
+        then(backoff.intervalMs(5, 800L, null, null, null)).isEqualTo(1000L);
+        then(backoff.intervalMs(100, 1000L, null, null, null)).isEqualTo(1000L);
+
+        assertThrows(IllegalArgumentException.class, () -> RetryBackoffs.exponential(0L, 100L));
+        assertThrows(IllegalArgumentException.class, () -> RetryBackoffs.exponential(100L, 10L));
+        assertThrows(IllegalArgumentException.class, () -> RetryBackoffs.exponential(100L, 1000L, 0.5d));
+    }
+
+    @Test
+    void testDecorrelatedJitter() {
+        final RetryBackoff backoff = RetryBackoffs.decorrelatedJitter(100L, 1000L);
+        long previous = 0L;
+        for (int i = 1; i <= 100; i++) {
+            final long interval = backoff.intervalMs(i, previous, null, null, null);
+            then(interval).isBetween(100L, Math.min(1000L, Math.max(100L, previous) * 3L));
+            previous = interval;
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> RetryBackoffs.decorrelatedJitter(0L, 100L));
+        assertThrows(IllegalArgumentException.class, () -> RetryBackoffs.decorrelatedJitter(100L, 10L));
+    }
+
+    @Test
+    void testRetryAfterAware() {
+        final RetryBackoff backoff = RetryBackoffs.retryAfterAware(RetryBackoffs.of(count -> 50L), 3000L);
+
+        // Fallback when response is absent
+        then(backoff.intervalMs(1, 0L, null, null, null)).isEqualTo(50L);
+
+        final MockHttpResponse response = new MockHttpResponse(503);
+        then(backoff.intervalMs(1, 0L, null, response, null)).isEqualTo(50L);
+
+        response.headers().set("Retry-After", "2");
+        then(backoff.intervalMs(1, 0L, null, response, null)).isEqualTo(2000L);
+
+        // Bounded by maxMs
+        response.headers().set("Retry-After", "120");
+        then(backoff.intervalMs(1, 0L, null, response, null)).isEqualTo(3000L);
+
+        // Invalid value
+        response.headers().set("Retry-After", "abc");
+        then(backoff.intervalMs(1, 0L, null, response, null)).isEqualTo(50L);
+
+        then(RetryBackoffs.retryAfterAware(null, -1L).intervalMs(1, 0L, null, null, null))
+                .isEqualTo(0L);
+    }
+
+    @Test
+    void testParseRetryAfter() {
+        then(RetryBackoffs.parseRetryAfter(null, 0L)).isEqualTo(-1L);
+        then(RetryBackoffs.parseRetryAfter(" ", 0L)).isEqualTo(-1L);
+        then(RetryBackoffs.parseRetryAfter("xyz", 0L)).isEqualTo(-1L);
+        then(RetryBackoffs.parseRetryAfter(" 10 ", 0L)).isEqualTo(10_000L);
+        then(RetryBackoffs.parseRetryAfter("-1", 0L)).isEqualTo(0L);
+
+        final ZonedDateTime now = ZonedDateTime.of(2020, 10, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+        final String date = now.plusSeconds(30L).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        then(RetryBackoffs.parseRetryAfter(date, now.toInstant().toEpochMilli())).isEqualTo(30_000L);
+        then(RetryBackoffs.parseRetryAfter(date, now.plusSeconds(60L).toInstant().toEpochMilli()))
+                .isEqualTo(0L);
+    }
+
+}
@@ -21,22 +21,30 @@ import io.esastack.httpclient.core.Context;
 import io.esastack.httpclient.core.HttpClient;
 import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
+import io.esastack.httpclient.core.config.RetryOptions;
+import io.esastack.httpclient.core.exception.RetryException;
 import io.esastack.httpclient.core.mock.MockContext;
 import io.esastack.httpclient.core.mock.MockHttpResponse;
 import io.esastack.httpclient.core.util.Futures;
+import io.esastack.httpclient.core.util.Schedulers;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.net.ConnectException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntToLongFunction;
 
 import static io.esastack.httpclient.core.exec.RetryInterceptor.HAS_RETRIED_COUNT;
 import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class RetryInterceptorTest {
@@ -80,6 +88,17 @@ class RetryInterceptorTest {
         then(response2.getNow(null)).isSameAs(response);
         then(ctx.attrs().attr(DO_RETRY).get()).isNull();
         ctx.clear();
+
+        // Retry is not allowed for stream request
+        ctx.maxRetries(10);
+        final HttpRequest request2 = client.put("http://127.0.0.1:9999/abc/def")
+                .body(new ByteArrayInputStream("Hello".getBytes()));
+        when(chain.proceed(request2)).thenReturn(Futures.completed(response));
+        final CompletableFuture<HttpResponse> response3 = interceptor.proceed(request2, chain);
+        then(response3.isDone()).isTrue();
+        then(response3.getNow(null)).isSameAs(response);
+        then(ctx.attrs().attr(DO_RETRY).get()).isNull();
+        ctx.clear();
     }
 
     @Test
@@ -155,8 +174,13 @@ class RetryInterceptorTest {
 
         final RetryInterceptor interceptor = new RetryInterceptor(RetryPredicateImpl.DEFAULT, intervalMs) {
             @Override
-            protected void backOff(HttpRequest request, int retryCount, IntToLongFunction intervalMs) {
-                backOffs.add(intervalMs.applyAsLong(retryCount));
+            protected void backOff(CompletableFuture<HttpResponse> response,
+                                   HttpRequest request,
+                                   int retryCount,
+                                   long intervalMs,
+                                   Runnable retry) {
+                backOffs.add(intervalMs);
+                retry.run();
             }
         };
 
@@ -169,6 +193,53 @@ class RetryInterceptorTest {
         }
     }
 
+    @Test
+    void testBackOffWithoutBlocking() throws Exception {
+        final MockContext ctx = new MockContext();
+        final ExecChain chain = mock(ExecChain.class);
+        when(chain.ctx()).thenReturn(ctx);
+        ctx.maxRetries(1);
+
+        final HttpResponse succeed = new MockHttpResponse(HttpStatus.OK.code());
+        when(chain.proceed(any(HttpRequest.class))).thenReturn(Futures.completed(new ConnectException()))
+                .thenReturn(Futures.completed(succeed));
+
+        final RetryInterceptor interceptor = new RetryInterceptor(RetryOptions.options()
+                .backoff((retryCount, previousMs, request, response, cause) -> 200L)
+                .build());
+
+        final long start = System.nanoTime();
+        final CompletableFuture<HttpResponse> response = interceptor.proceed(client.get("/abc"), chain);
+        // The calling thread mustn't be blocked by backing off
+        then(response.isDone()).isFalse();
+        then(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(200L);
+
+        then(response.get(3L, TimeUnit.SECONDS)).isSameAs(succeed);
+        then(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(190L);
+        then(ctx.attrs().attr(RetryInterceptor.LAST_INTERVAL_MS).get()).isEqualTo(200L);
+    }
+
+    @Test
+    void testBackOffCancelled() {
+        final MockContext ctx = new MockContext();
+        final ExecChain chain = mock(ExecChain.class);
+        when(chain.ctx()).thenReturn(ctx);
+        ctx.maxRetries(1);
+        when(chain.proceed(any(HttpRequest.class))).thenReturn(Futures.completed(new ConnectException()));
+
+        final RetryInterceptor interceptor = new RetryInterceptor(RetryOptions.options()
+                .backoff((retryCount, previousMs, request, response, cause) -> TimeUnit.HOURS.toMillis(1L))
+                .build());
+        final CompletableFuture<HttpResponse> response = interceptor.proceed(client.get("/abc"), chain);
+        then(response.isDone()).isFalse();
+
+        // The back off is cancelled once the client has been closed, no more request will be sent.
+        Schedulers.stop();
+        then(response.isCompletedExceptionally()).isTrue();
+        then(assertThrows(ExecutionException.class, response::get).getCause()).isInstanceOf(RetryException.class);
+        verify(chain).proceed(any(HttpRequest.class));
+    }
+
     private static final class AuxiliaryRetryInterceptor extends RetryInterceptor {
 
         private static final HttpResponse RESPONSE = new MockHttpResponse(HttpStatus.OK.code());
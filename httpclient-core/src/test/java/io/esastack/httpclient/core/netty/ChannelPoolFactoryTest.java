@@ -15,16 +15,17 @@
  */
 package io.esastack.httpclient.core.netty;
 
+import io.esastack.commons.net.http.HttpVersion;
 import io.esastack.httpclient.core.HttpClient;
 import io.esastack.httpclient.core.config.ChannelPoolOptions;
 import io.esastack.httpclient.core.config.NetOptions;
+import io.esastack.httpclient.core.resolver.AddressSelectors;
 import io.esastack.httpclient.core.resolver.SystemDefaultResolver;
 import io.esastack.httpclient.core.spi.SslEngineFactory;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.pool.FixedChannelPool;
 import io.netty.channel.pool.SimpleChannelPool;
 import org.junit.jupiter.api.Test;
 
@@ -78,13 +79,31 @@ class ChannelPoolFactoryTest {
         final ChannelPool channelPool0 = factory.create(false, true, address,
                 mock(EventLoopGroup.class), ChannelPoolOptions.ofDefault(), HttpClient.create());
         then(channelPool0.ssl).isFalse();
-        then(channelPool0.underlying).isInstanceOf(FixedChannelPool.class);
+        then(channelPool0.underlying).isInstanceOf(Http1ChannelPool.class);
 
         final ChannelPool channelPool1 = factory.create(false, false, address,
                 mock(EventLoopGroup.class), ChannelPoolOptions.ofDefault(), HttpClient.create());
         then(channelPool1.ssl).isFalse();
         then(channelPool1.underlying).isInstanceOf(SimpleChannelPool.class);
-        then(channelPool1.underlying).isNotInstanceOf(FixedChannelPool.class);
+        then(channelPool1.underlying).isNotInstanceOf(Http1ChannelPool.class);
+
+        final ChannelPool channelPool2 = factory.create(false, true, address,
+                mock(EventLoopGroup.class), ChannelPoolOptions.ofDefault(),
+                HttpClient.create().version(HttpVersion.HTTP_2));
+        then(channelPool2.ssl).isFalse();
+        then(channelPool2.underlying).isInstanceOf(Http2ChannelPool.class);
+
+        final ChannelPool channelPool3 = factory.create(false, true,
+                InetSocketAddress.createUnresolved("localhost", 8080),
+                mock(EventLoopGroup.class), ChannelPoolOptions.ofDefault(),
+                HttpClient.create().addressSelector(AddressSelectors.roundRobin()));
+        then(channelPool3.underlying).isInstanceOf(MultiAddressChannelPool.class);
+
+        // Ip address can't be resolved to multiple addresses.
+        final ChannelPool channelPool4 = factory.create(false, true, address,
+                mock(EventLoopGroup.class), ChannelPoolOptions.ofDefault(),
+                HttpClient.create().addressSelector(AddressSelectors.roundRobin()));
+        then(channelPool4.underlying).isInstanceOf(Http1ChannelPool.class);
     }
 
 }
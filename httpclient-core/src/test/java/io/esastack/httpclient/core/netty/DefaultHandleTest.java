@@ -16,9 +16,11 @@
 package io.esastack.httpclient.core.netty;
 
 import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpHeaders;
 import io.esastack.commons.net.http.HttpStatus;
 import io.esastack.commons.net.http.HttpVersion;
+import io.esastack.commons.net.netty.buffer.BufferImpl;
 import io.esastack.commons.net.netty.http.Http1HeadersImpl;
 import io.esastack.httpclient.core.ExecContextUtil;
 import io.esastack.httpclient.core.HttpClient;
@@ -27,9 +29,16 @@ import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.httpclient.core.NoopListener;
 import io.esastack.httpclient.core.exec.ExecContext;
+import io.esastack.httpclient.core.util.BufferUtils;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
@@ -107,6 +116,135 @@ class DefaultHandleTest {
         then(handle2.trailers().get("D")).isEqualTo("E");
     }
 
+    @Test
+    void testAggregatePresized() {
+        final HttpRequest request = HttpClient.ofDefault().get("/abc");
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final TimeoutHandle tHandle = new TimeoutHandle(NoopListener.INSTANCE);
+        final byte[] data = "Hello World!".getBytes();
+
+        final HandleImpl handle = new DefaultHandle(ByteBufAllocator.DEFAULT);
+        final ResponseHandle nHandle = new ResponseHandle(handle, request, ctx, tHandle, new CompletableFuture<>());
+        final HttpMessage message = new HttpMessageImpl(200, HttpVersion.HTTP_1_1, new Http1HeadersImpl());
+        message.headers().add(HttpHeaderNames.CONTENT_LENGTH, data.length * 2);
+
+        nHandle.onMessage(message);
+        nHandle.onData(Buffer.defaultAlloc().buffer().writeBytes(data));
+        nHandle.onData(Buffer.defaultAlloc().buffer().writeBytes(data));
+        nHandle.onEnd();
+
+        // The body is backed by an array which has the exact length of content.
+        final ByteBuf body = BufferUtils.toByteBuf(handle.body());
+        then(body.hasArray()).isTrue();
+        then(body.array().length).isEqualTo(data.length * 2);
+        then(body.readableBytes()).isEqualTo(data.length * 2);
+        then(body.toString(StandardCharsets.UTF_8)).isEqualTo("Hello World!Hello World!");
+    }
+
+    @Test
+    void testAggregateToExactLength() {
+        final HttpRequest request = HttpClient.ofDefault().get("/abc");
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final TimeoutHandle tHandle = new TimeoutHandle(NoopListener.INSTANCE);
+        final byte[] data = new byte[5000];
+        Arrays.fill(data, (byte) 'a');
+
+        // Grows up to the Content-Length exactly
+        final HandleImpl handle = new DefaultHandle(ByteBufAllocator.DEFAULT);
+        final ResponseHandle nHandle = new ResponseHandle(handle, request, ctx, tHandle, new CompletableFuture<>());
+        final HttpMessage message = new HttpMessageImpl(200, HttpVersion.HTTP_1_1, new Http1HeadersImpl());
+        message.headers().add(HttpHeaderNames.CONTENT_LENGTH, data.length * 4);
+        nHandle.onMessage(message);
+        for (int i = 0; i < 4; i++) {
+            nHandle.onData(Buffer.defaultAlloc().buffer().writeBytes(data));
+        }
+        nHandle.onEnd();
+
+        final ByteBuf body = BufferUtils.toByteBuf(handle.body());
+        then(body.hasArray()).isTrue();
+        then(body.array().length).isEqualTo(data.length * 4);
+        then(body.readableBytes()).isEqualTo(data.length * 4);
+
+        // More content than the Content-Length is tolerated
+        final HandleImpl handle1 = new DefaultHandle(ByteBufAllocator.DEFAULT);
+        final ResponseHandle nHandle1 = new ResponseHandle(handle1, request, ctx, tHandle,
+                new CompletableFuture<>());
+        final HttpMessage message1 = new HttpMessageImpl(200, HttpVersion.HTTP_1_1, new Http1HeadersImpl());
+        message1.headers().add(HttpHeaderNames.CONTENT_LENGTH, data.length);
+        nHandle1.onMessage(message1);
+        nHandle1.onData(Buffer.defaultAlloc().buffer().writeBytes(data));
+        nHandle1.onData(Buffer.defaultAlloc().buffer().writeBytes(data));
+        nHandle1.onEnd();
+        then(BufferUtils.toByteBuf(handle1.body()).readableBytes()).isEqualTo(data.length * 2);
+    }
+
+    @Test
+    void testAggregatePooled() {
+        final HttpRequest request = HttpClient.ofDefault().get("/abc");
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final TimeoutHandle tHandle = new TimeoutHandle(NoopListener.INSTANCE);
+        final byte[] data = "Hello World!".getBytes();
+
+        // Case 1: pre-sized from Content-Length
+        final HandleImpl handle1 = new DefaultHandle(PooledByteBufAllocator.DEFAULT, true);
+        final ResponseHandle nHandle1 = new ResponseHandle(handle1, request, ctx, tHandle,
+                new CompletableFuture<>());
+        final HttpMessage message1 = new HttpMessageImpl(200, HttpVersion.HTTP_1_1, new Http1HeadersImpl());
+        message1.headers().add(HttpHeaderNames.CONTENT_LENGTH, data.length);
+        nHandle1.onMessage(message1);
+        final ByteBuf content1 = Unpooled.wrappedBuffer(data);
+        nHandle1.onData(new BufferImpl(content1));
+        nHandle1.onEnd();
+
+        final ByteBuf body1 = BufferUtils.toByteBuf(handle1.body());
+        then(body1.refCnt()).isEqualTo(1);
+        then(body1.capacity()).isEqualTo(data.length);
+        then(body1.toString(StandardCharsets.UTF_8)).isEqualTo("Hello World!");
+        then(content1.refCnt()).isEqualTo(1);
+        body1.release();
+
+        // Case 2: the buffer grows as the content arrives rather than pre-sized from the claimed Content-Length
+        final HandleImpl handle4 = new DefaultHandle(PooledByteBufAllocator.DEFAULT, true);
+        final ResponseHandle nHandle4 = new ResponseHandle(handle4, request, ctx, tHandle,
+                new CompletableFuture<>());
+        final HttpMessage message4 = new HttpMessageImpl(200, HttpVersion.HTTP_1_1, new Http1HeadersImpl());
+        message4.headers().add(HttpHeaderNames.CONTENT_LENGTH, 16 * 1024 * 1024);
+        nHandle4.onMessage(message4);
+        nHandle4.onData(new BufferImpl(Unpooled.wrappedBuffer(data)));
+        nHandle4.onEnd();
+
+        final ByteBuf body4 = BufferUtils.toByteBuf(handle4.body());
+        then(body4.capacity()).isEqualTo(8 * 1024);
+        then(body4.toString(StandardCharsets.UTF_8)).isEqualTo("Hello World!");
+        body4.release();
+
+        // Case 3: the received contents are composed without copying
+        final HandleImpl handle2 = new DefaultHandle(PooledByteBufAllocator.DEFAULT, true);
+        final ResponseHandle nHandle2 = new ResponseHandle(handle2, request, ctx, tHandle,
+                new CompletableFuture<>());
+        nHandle2.onMessage(new HttpMessageImpl(200, HttpVersion.HTTP_1_1, new Http1HeadersImpl()));
+        final ByteBuf content2 = Unpooled.wrappedBuffer(data);
+        nHandle2.onData(new BufferImpl(content2));
+        nHandle2.onEnd();
+
+        final ByteBuf body2 = BufferUtils.toByteBuf(handle2.body());
+        then(body2).isInstanceOf(CompositeByteBuf.class);
+        then(body2.toString(StandardCharsets.UTF_8)).isEqualTo("Hello World!");
+        then(content2.refCnt()).isEqualTo(2);
+        body2.release();
+        then(content2.refCnt()).isEqualTo(1);
+
+        // Case 4: the staged body will be released on error
+        final HandleImpl handle3 = new DefaultHandle(PooledByteBufAllocator.DEFAULT, true);
+        final ResponseHandle nHandle3 = new ResponseHandle(handle3, request, ctx, tHandle,
+                new CompletableFuture<>());
+        nHandle3.onMessage(new HttpMessageImpl(200, HttpVersion.HTTP_1_1, new Http1HeadersImpl()));
+        final ByteBuf content3 = Unpooled.wrappedBuffer(data);
+        nHandle3.onData(new BufferImpl(content3));
+        nHandle3.onError(new IllegalStateException());
+        then(content3.refCnt()).isEqualTo(1);
+    }
+
     private static final class DefaultHandle0 extends DefaultHandle {
 
         private DefaultHandle0() {
@@ -16,6 +16,7 @@
 package io.esastack.httpclient.core.netty;
 
 import io.esastack.commons.net.http.HttpHeaders;
+import io.esastack.commons.net.http.HttpMethod;
 import io.esastack.commons.net.http.HttpVersion;
 import io.esastack.commons.net.netty.http.Http1HeadersImpl;
 import io.esastack.httpclient.core.Context;
@@ -37,6 +38,7 @@ import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -91,6 +93,66 @@ class H1TransceiverHandleTest {
         verify(delegate).onCompleted(any(), any(), any());
     }
 
+    @Test
+    void testReleaseOnWriteDoneWhenPipelining() {
+        final H1TransceiverHandle handle = new H1TransceiverHandle();
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final ChannelPool channelPool = mock(ChannelPool.class);
+        when(channelPool.release(any(Channel.class))).thenAnswer(answer -> mock(ChannelFuture.class));
+
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast(new Http1ChannelHandler(registry, -1L, 2));
+
+        final HttpRequest get = mock(HttpRequest.class);
+        when(get.method()).thenReturn(HttpMethod.GET);
+        when(get.headers()).thenReturn(new Http1HeadersImpl());
+        final HttpRequest post = mock(HttpRequest.class);
+        when(post.method()).thenReturn(HttpMethod.POST);
+        when(post.headers()).thenReturn(new Http1HeadersImpl());
+        final Context ctx = mock(Context.class);
+        final HttpResponse response = mock(HttpResponse.class);
+        when(response.headers()).thenReturn(new Http1HeadersImpl());
+
+        // Case 1: idempotent request releases the connection as soon as it has been written.
+        handle.addRspHandle(get, mock(ExecContext.class), channel, null, false, registry,
+                new TimeoutHandle(NoopListener.INSTANCE), new CompletableFuture<>());
+        final ListenerProxy proxy0 = handle.buildTimeoutHandle(channel, channelPool,
+                NoopListener.INSTANCE, HttpVersion.HTTP_1_1);
+        proxy0.onWriteDone(get, ctx);
+        verify(channelPool).release(channel);
+        proxy0.onCompleted(get, ctx, response);
+        verify(channelPool, times(1)).release(channel);
+
+        // Case 2: non-idempotent request holds the connection until it ends.
+        clearInvocations(channelPool);
+        final ListenerProxy proxy1 = handle.buildTimeoutHandle(channel, channelPool,
+                NoopListener.INSTANCE, HttpVersion.HTTP_1_1);
+        proxy1.onWriteDone(post, ctx);
+        verify(channelPool, never()).release(channel);
+        proxy1.onCompleted(post, ctx, response);
+        verify(channelPool).release(channel);
+
+        // Case 3: the number of in-flight requests has reached the limit.
+        clearInvocations(channelPool);
+        handle.addRspHandle(get, mock(ExecContext.class), channel, null, false, registry,
+                new TimeoutHandle(NoopListener.INSTANCE), new CompletableFuture<>());
+        final ListenerProxy proxy2 = handle.buildTimeoutHandle(channel, channelPool,
+                NoopListener.INSTANCE, HttpVersion.HTTP_1_1);
+        proxy2.onWriteDone(get, ctx);
+        verify(channelPool, never()).release(channel);
+
+        // Case 4: pipelining is disabled.
+        final EmbeddedChannel channel1 = new EmbeddedChannel();
+        channel1.pipeline().addLast(new Http1ChannelHandler(registry, -1L));
+        final ListenerProxy proxy3 = handle.buildTimeoutHandle(channel1, channelPool,
+                NoopListener.INSTANCE, HttpVersion.HTTP_1_1);
+        proxy3.onWriteDone(get, ctx);
+        verify(channelPool, never()).release(any(Channel.class));
+
+        channel.finishAndReleaseAll();
+        channel1.finishAndReleaseAll();
+    }
+
     @Test
     void testAddRspHandle() {
         final H1TransceiverHandle handle = new H1TransceiverHandle();
@@ -103,7 +165,7 @@ class H1TransceiverHandleTest {
         channel.pipeline().addLast(new Http1ChannelHandler(registry, -1L));
 
         int requestId = handle.addRspHandle(request, ctx, channel,
-                null, registry, new TimeoutHandle(NoopListener.INSTANCE), response);
+                null, false, registry, new TimeoutHandle(NoopListener.INSTANCE), response);
         then(requestId).isEqualTo(1);
         then(registry.get(requestId)).isNotNull();
     }
@@ -38,6 +38,7 @@ import java.util.concurrent.CompletableFuture;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -64,6 +65,11 @@ class H2TransceiverHandleTest {
         headers.add(io.esastack.commons.net.http.HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
         when(response.headers()).thenReturn(headers);
 
+        // the stream is still active after writing
+        proxy.onWriteDone(request, ctx);
+        verify(channelPool, never()).release(any());
+        verify(delegate).onWriteDone(any(), any());
+
         // release on Error
         proxy.onError(request, ctx, mock(Throwable.class));
         verify(channelPool).release(any());
@@ -85,7 +91,7 @@ class H2TransceiverHandleTest {
 
         then(registry.get(3)).isNull();
         int requestId = handle.addRspHandle(request, ctx, channel,
-                null, registry, new TimeoutHandle(NoopListener.INSTANCE), response);
+                null, false, registry, new TimeoutHandle(NoopListener.INSTANCE), response);
         then(requestId).isEqualTo(3);
         then(registry.get(requestId)).isNotNull();
         then(request.headers().getInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text())).isEqualTo(requestId);
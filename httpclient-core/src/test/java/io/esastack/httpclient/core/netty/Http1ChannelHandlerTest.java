@@ -17,16 +17,21 @@ package io.esastack.httpclient.core.netty;
 
 import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.httpclient.core.ExecContextUtil;
+import io.esastack.httpclient.core.FileHandler;
 import io.esastack.httpclient.core.HttpClient;
 import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
+import io.esastack.httpclient.core.RelayHandler;
 import io.esastack.httpclient.core.exception.ClosedConnectionException;
 import io.esastack.httpclient.core.exception.ContentOverSizedException;
 import io.esastack.httpclient.core.exception.ProtocolException;
 import io.esastack.httpclient.core.exec.ExecContext;
+import io.esastack.httpclient.core.util.BufferUtils;
 import io.esastack.httpclient.core.util.Futures;
 import io.esastack.httpclient.core.util.HttpHeadersUtils;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.DecoderResult;
@@ -42,9 +47,18 @@ import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.BDDAssertions.then;
@@ -773,6 +787,380 @@ class Http1ChannelHandlerTest {
         channel.finishAndReleaseAll();
     }
 
+    @Test
+    void testPipelining() throws Exception {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, -1L, 2);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast(handler);
+        then(handler.isPipelinable()).isTrue();
+
+        final CompletableFuture<HttpResponse> response0 = new CompletableFuture<>();
+        final int requestId0 = registry.put(newHandle(response0));
+        handler.updateRequestId(requestId0);
+        then(handler.isPipelinable()).isTrue();
+
+        final CompletableFuture<HttpResponse> response1 = new CompletableFuture<>();
+        final int requestId1 = registry.put(newHandle(response1));
+        handler.updateRequestId(requestId1);
+        then(handler.isPipelinable()).isFalse();
+
+        // The responses arrive in the same order as the requests were written.
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.buffer().writeBytes(DATA)));
+        then(response0.isDone()).isTrue();
+        then(response1.isDone()).isFalse();
+        then(response0.get().status()).isEqualTo(200);
+        then(response0.get().body().readableBytes()).isEqualTo(DATA.length);
+        then(handler.isPipelinable()).isTrue();
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_FOUND));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        then(response1.isDone()).isTrue();
+        then(response1.get().status()).isEqualTo(404);
+
+        then(registry.get(requestId0)).isNull();
+        then(registry.get(requestId1)).isNull();
+        then(handler.isPipelinable()).isTrue();
+
+        // Disabled
+        then(new Http1ChannelHandler(registry, -1L).isPipelinable()).isFalse();
+        assertThrows(IllegalArgumentException.class, () -> new Http1ChannelHandler(registry, -1L, 0));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testPipeliningChannelInactive() {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, -1L, 3);
+        final EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+        final CompletableFuture<HttpResponse> response0 = new CompletableFuture<>();
+        final int requestId0 = registry.put(newHandle(response0));
+        handler.updateRequestId(requestId0);
+        final CompletableFuture<HttpResponse> response1 = new CompletableFuture<>();
+        final int requestId1 = registry.put(newHandle(response1));
+        handler.updateRequestId(requestId1);
+        final CompletableFuture<HttpResponse> response2 = new CompletableFuture<>();
+        final int requestId2 = registry.put(newHandle(response2));
+        handler.updateRequestId(requestId2);
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        then(response0.isDone()).isTrue();
+        then(response0.isCompletedExceptionally()).isFalse();
+
+        // All the outstanding requests end exceptionally when the connection dies.
+        channel.pipeline().fireChannelInactive();
+        testChannelInactive0(response1, registry, requestId1, channel, ClosedConnectionException.class, false);
+        testChannelInactive0(response2, registry, requestId2, channel, ClosedConnectionException.class, false);
+        then(handler.isPipelinable()).isTrue();
+
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testPipeliningDecodeError() {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, -1L, 2);
+        final EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+        final CompletableFuture<HttpResponse> response0 = new CompletableFuture<>();
+        final int requestId0 = registry.put(newHandle(response0));
+        handler.updateRequestId(requestId0);
+        final CompletableFuture<HttpResponse> response1 = new CompletableFuture<>();
+        final int requestId1 = registry.put(newHandle(response1));
+        handler.updateRequestId(requestId1);
+
+        final DefaultHttpResponse rsp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        rsp.setDecoderResult(DecoderResult.failure(new IllegalArgumentException()));
+        channel.writeInbound(rsp);
+
+        // The boundary of the next response is unknown, so the connection must be closed.
+        testChannelInactive0(response0, registry, requestId0, channel, ProtocolException.class, true);
+        testChannelInactive0(response1, registry, requestId1, channel, ProtocolException.class, true);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testDemandDrivenContent() throws Exception {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, -1L);
+        channel.pipeline().addLast(handler);
+
+        final List<String> contents = new ArrayList<>();
+        final AtomicInteger ended = new AtomicInteger();
+        final HandleImpl handleImpl = new HandleImpl(new NettyResponse(false), h ->
+                h.onData(data -> contents.add(BufferUtils.toByteBuf(data).toString(StandardCharsets.UTF_8)))
+                        .onEnd(v -> ended.incrementAndGet())
+                        .request(1L));
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final ResponseHandle handle = new ResponseHandle(handleImpl, client.get("/abc"), ctx,
+                new TimeoutHandle(ctx.listener()), response);
+        final int requestId = registry.put(handle);
+        handler.updateRequestId(requestId);
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("a", StandardCharsets.UTF_8)));
+        then(contents).containsExactly("a");
+        then(channel.config().isAutoRead()).isFalse();
+
+        // The content which has been read is kept until requested.
+        final ByteBuf b = Unpooled.copiedBuffer("b", StandardCharsets.UTF_8);
+        channel.writeInbound(new DefaultHttpContent(b));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("c", StandardCharsets.UTF_8)));
+        then(contents).containsExactly("a");
+        then(b.refCnt()).isEqualTo(1);
+        then(response.isDone()).isFalse();
+        then(registry.get(requestId)).isNull();
+        // Nothing more needs to be read once the whole response has been received.
+        then(channel.config().isAutoRead()).isTrue();
+
+        handleImpl.request(1L);
+        then(contents).containsExactly("a", "b");
+        then(b.refCnt()).isEqualTo(0);
+        then(response.isDone()).isFalse();
+
+        handleImpl.request(Long.MAX_VALUE);
+        then(contents).containsExactly("a", "b", "c");
+        then(ended.get()).isEqualTo(1);
+        then(response.isDone() && !response.isCompletedExceptionally()).isTrue();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testDemandDrivenContentWhenPipelining() {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, -1L, 2);
+        channel.pipeline().addLast(handler);
+
+        final List<String> contents = new ArrayList<>();
+        final HandleImpl handleImpl = new HandleImpl(new NettyResponse(false), h ->
+                h.onData(data -> contents.add(BufferUtils.toByteBuf(data).toString(StandardCharsets.UTF_8)))
+                        .request(1L));
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final CompletableFuture<HttpResponse> response0 = new CompletableFuture<>();
+        final int requestId0 = registry.put(new ResponseHandle(handleImpl, client.get("/abc"), ctx,
+                new TimeoutHandle(ctx.listener()), response0));
+        handler.updateRequestId(requestId0);
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("a", StandardCharsets.UTF_8)));
+        then(channel.config().isAutoRead()).isFalse();
+
+        // The slow response mustn't block the reading of the pipelined one.
+        final CompletableFuture<HttpResponse> response1 = new CompletableFuture<>();
+        final int requestId1 = registry.put(newHandle(response1));
+        handler.updateRequestId(requestId1);
+        then(channel.config().isAutoRead()).isTrue();
+
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("b", StandardCharsets.UTF_8)));
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        then(channel.config().isAutoRead()).isTrue();
+        then(response1.isDone() && !response1.isCompletedExceptionally()).isTrue();
+        then(response0.isDone()).isFalse();
+        then(contents).containsExactly("a");
+
+        handleImpl.request(Long.MAX_VALUE);
+        then(contents).containsExactly("a", "b");
+        then(response0.isDone() && !response0.isCompletedExceptionally()).isTrue();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testWriteContentToFile() throws Exception {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        // The content is not limited by the maxContentLength.
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, 4L);
+        channel.pipeline().addLast(handler);
+
+        final File file = File.createTempFile("httpclient-", ".tmp");
+        file.deleteOnExit();
+        final Path path = file.toPath();
+        Files.write(path, new byte[64]);
+        final FileHandler fileHandler = FileHandler.builder(path)
+                .force(true)
+                .executor(Runnable::run)
+                .build();
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final ResponseHandle handle = new ResponseHandle(new HandleImpl(new NettyResponse(false), fileHandler),
+                client.get("/abc"), ctx, new TimeoutHandle(ctx.listener()), response);
+        final int requestId = registry.put(handle);
+        handler.updateRequestId(requestId);
+
+        final HttpHeaders headers = new DefaultHttpHeaders();
+        headers.add(HttpHeaderNames.CONTENT_LENGTH, DATA.length);
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, headers));
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(DATA, 0, 5)));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(DATA, 5, DATA.length - 5)));
+
+        then(response.isDone() && !response.isCompletedExceptionally()).isTrue();
+        then(fileHandler.written().toCompletableFuture().get()).isEqualTo((long) DATA.length);
+        then(Files.readAllBytes(path)).isEqualTo(DATA);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testWriteContentOfFailedResponseToFile() throws Exception {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, -1L);
+        channel.pipeline().addLast(handler);
+
+        final File file = File.createTempFile("httpclient-", ".tmp");
+        file.deleteOnExit();
+        final FileHandler fileHandler = FileHandler.builder(file.toPath())
+                .executor(Runnable::run)
+                .build();
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final ResponseHandle handle = new ResponseHandle(new HandleImpl(new NettyResponse(false), fileHandler),
+                client.get("/abc"), ctx, new TimeoutHandle(ctx.listener()), response);
+        handler.updateRequestId(registry.put(handle));
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_FOUND));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(DATA)));
+        then(response.isDone() && !response.isCompletedExceptionally()).isTrue();
+        then(fileHandler.written().toCompletableFuture().isDone()).isFalse();
+
+        // Nothing has been written once the final response isn't successful.
+        fileHandler.onCompleted(response.get(), null);
+        final ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> fileHandler.written().toCompletableFuture().get());
+        then(ex.getCause()).isInstanceOf(IllegalStateException.class);
+        then(Files.size(file.toPath())).isEqualTo(0L);
+
+        // The failure of the request
+        final FileHandler fileHandler1 = FileHandler.of(file.toPath());
+        final IOException cause = new IOException();
+        fileHandler1.onCompleted(null, cause);
+        then(assertThrows(ExecutionException.class,
+                () -> fileHandler1.written().toCompletableFuture().get()).getCause()).isSameAs(cause);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testRelayContentToChannel() throws Exception {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        // The content is not limited by the maxContentLength.
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, 4L);
+        channel.pipeline().addLast(handler);
+
+        final EmbeddedChannel target = new EmbeddedChannel();
+        final RelayHandler relay = RelayHandler.of(target);
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final ResponseHandle handle = new ResponseHandle(new HandleImpl(new NettyResponse(false), relay),
+                client.get("/abc"), ctx, new TimeoutHandle(ctx.listener()), response);
+        final int requestId = registry.put(handle);
+        handler.updateRequestId(requestId);
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(DATA, 0, 5)));
+        then(channel.config().isAutoRead()).isTrue();
+
+        // Stops reading while the target is unwritable.
+        target.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(DATA, 5, 3)));
+        then(channel.config().isAutoRead()).isFalse();
+
+        target.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+        then(channel.config().isAutoRead()).isTrue();
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(DATA, 8, DATA.length - 8)));
+
+        then(response.isDone() && !response.isCompletedExceptionally()).isTrue();
+        relay.relayed().toCompletableFuture().get();
+        final ByteBuf relayed = Unpooled.buffer();
+        ByteBuf msg;
+        while ((msg = target.readOutbound()) != null) {
+            relayed.writeBytes(msg);
+            msg.release();
+        }
+        then(ByteBufUtil.getBytes(relayed)).isEqualTo(DATA);
+        channel.finishAndReleaseAll();
+        target.finishAndReleaseAll();
+    }
+
+    @Test
+    void testRelayContentToByteChannel() throws Exception {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, -1L);
+        final EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final RelayHandler relay = RelayHandler.of(Channels.newChannel(out), Runnable::run);
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final ResponseHandle handle = new ResponseHandle(new HandleImpl(new NettyResponse(false), relay),
+                client.get("/abc"), ctx, new TimeoutHandle(ctx.listener()), response);
+        final int requestId = registry.put(handle);
+        handler.updateRequestId(requestId);
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(DATA, 0, 5)));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(DATA, 5, DATA.length - 5)));
+
+        then(response.isDone() && !response.isCompletedExceptionally()).isTrue();
+        relay.relayed().toCompletableFuture().get();
+        then(out.toByteArray()).isEqualTo(DATA);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testRelayRedirectedContent() throws Exception {
+        final byte[] moved = "moved".getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final RelayHandler relay0 = RelayHandler.of(Channels.newChannel(out), Runnable::run);
+        relayAttempt(relay0, HttpResponseStatus.FOUND, moved, true).finishAndReleaseAll();
+        relay0.relayed().toCompletableFuture().get();
+
+        // The content of the redirected attempt is discarded rather than mixed into the target.
+        relayAttempt(relay0, HttpResponseStatus.OK, DATA, true).finishAndReleaseAll();
+        then(out.toByteArray()).isEqualTo(moved);
+
+        // The redirected attempt starts while relaying.
+        out.reset();
+        final RelayHandler relay1 = RelayHandler.of(Channels.newChannel(out), Runnable::run);
+        final EmbeddedChannel channel = relayAttempt(relay1, HttpResponseStatus.FOUND, moved, false);
+        relayAttempt(relay1, HttpResponseStatus.OK, DATA, true).finishAndReleaseAll();
+        final ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> relay1.relayed().toCompletableFuture().get());
+        then(ex.getCause()).isInstanceOf(IllegalStateException.class);
+        then(out.toByteArray()).isEqualTo(moved);
+        channel.finishAndReleaseAll();
+    }
+
+    private EmbeddedChannel relayAttempt(RelayHandler relay, HttpResponseStatus status, byte[] content, boolean end) {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, -1L);
+        final EmbeddedChannel channel = new EmbeddedChannel(handler);
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final ResponseHandle handle = new ResponseHandle(new HandleImpl(new NettyResponse(false), relay),
+                client.get("/abc"), ctx, new TimeoutHandle(ctx.listener()), new CompletableFuture<>());
+        handler.updateRequestId(registry.put(handle));
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, status));
+        if (end) {
+            channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(content)));
+        } else {
+            channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(content)));
+        }
+        return channel;
+    }
+
+    private ResponseHandle newHandle(CompletableFuture<HttpResponse> response) {
+        final ExecContext ctx = ExecContextUtil.newAs();
+        return new ResponseHandle(new DefaultHandle(ByteBufAllocator.DEFAULT),
+                client.get("/abc"), ctx, new TimeoutHandle(ctx.listener()), response);
+    }
+
     private void testChannelInactive0(final CompletableFuture<HttpResponse> response,
                                       HandleRegistry registry,
                                       int requestId,
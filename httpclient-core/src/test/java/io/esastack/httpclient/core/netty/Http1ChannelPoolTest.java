@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.netty;
+
+import io.esastack.commons.net.http.HttpMethod;
+import io.esastack.commons.net.netty.http.Http1HeadersImpl;
+import io.esastack.httpclient.core.HttpClient;
+import io.esastack.httpclient.core.HttpRequest;
+import io.esastack.httpclient.core.config.Http1Options;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class Http1ChannelPoolTest {
+
+    private static final ChannelPoolHandler HANDLER = new AbstractChannelPoolHandler() {
+        @Override
+        public void channelCreated(Channel ch) {
+        }
+    };
+
+    private EventLoopGroup group;
+    private Channel server;
+    private Bootstrap bootstrap;
+    private ChannelInitializer initializer;
+
+    @BeforeEach
+    void setUp() {
+        group = new DefaultEventLoopGroup(2);
+        final LocalAddress address = new LocalAddress("Http1ChannelPoolTest");
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(address)
+                .syncUninterruptibly()
+                .channel();
+        bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        initializer = new ChannelInitializer(false, null, HttpClient.create());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    void testAcquireAndRelease() throws Exception {
+        final Http1ChannelPool pool = new Http1ChannelPool(bootstrap, HANDLER, initializer,
+                1000L, 2, 10);
+
+        final Channel channel0 = pool.acquire().get();
+        final Channel channel1 = pool.acquire().get();
+        then(channel1).isNotSameAs(channel0);
+        then(pool.connectionCount()).isEqualTo(2);
+        then(pool.acquiredCount()).isEqualTo(2);
+
+        final Future<Channel> pending = pool.acquire();
+        then(pending.isDone()).isFalse();
+        then(pool.pendingAcquireCount()).isEqualTo(1);
+
+        pool.release(channel0).get();
+        then(pending.get()).isSameAs(channel0);
+        then(pool.pendingAcquireCount()).isEqualTo(0);
+        then(pool.acquiredCount()).isEqualTo(2);
+
+        pool.release(channel0).get();
+        pool.release(channel1).get();
+        then(pool.acquiredCount()).isEqualTo(0);
+        then(pool.connectionCount()).isEqualTo(2);
+
+        pool.close();
+        channel0.closeFuture().syncUninterruptibly();
+        channel1.closeFuture().syncUninterruptibly();
+    }
+
+    @Test
+    void testEventLoopAffinity() throws Exception {
+        final Http1ChannelPool pool = new Http1ChannelPool(bootstrap, HANDLER, initializer,
+                1000L, 2, 10);
+        final EventLoop loop0 = group.next();
+        final EventLoop loop1 = group.next();
+        then(loop1).isNotSameAs(loop0);
+
+        final Channel channel0 = loop0.submit(pool::acquire).get().get();
+        then(channel0.eventLoop()).isSameAs(loop0);
+        pool.release(channel0).get();
+
+        // Prefer to open a new connection registered to current event loop rather than stealing.
+        final Channel channel1 = loop1.submit(pool::acquire).get().get();
+        then(channel1.eventLoop()).isSameAs(loop1);
+        pool.release(channel1).get();
+        then(pool.connectionCount()).isEqualTo(2);
+
+        then(loop0.submit(pool::acquire).get().get()).isSameAs(channel0);
+        then(loop1.submit(pool::acquire).get().get()).isSameAs(channel1);
+        pool.release(channel1).get();
+
+        // Steal from other event loop when the number of connections has reached the limit.
+        then(loop0.submit(pool::acquire).get().get()).isSameAs(channel1);
+        then(pool.connectionCount()).isEqualTo(2);
+        then(pool.acquiredCount()).isEqualTo(2);
+
+        pool.release(channel0).get();
+        pool.release(channel1).get();
+        pool.close();
+    }
+
+    @Test
+    void testReuseIdleChannelsWhenNotInEventLoop() throws Exception {
+        final Http1ChannelPool pool = new Http1ChannelPool(bootstrap, HANDLER, initializer,
+                1000L, 2, 10);
+        final Channel channel0 = group.next().submit(pool::acquire).get().get();
+        pool.release(channel0).get();
+
+        // The caller has no affinity to any event loop, the idle channel of other event loops is preferred
+        // to a new connection, whichever event loop is chosen.
+        for (int i = 0; i < 4; i++) {
+            final Channel channel = pool.acquire().get();
+            then(channel).isSameAs(channel0);
+            pool.release(channel).get();
+        }
+        then(pool.connectionCount()).isEqualTo(1);
+
+        pool.close();
+    }
+
+    @Test
+    void testPostAfterPipelinedGet() throws Exception {
+        final ChannelInitializer initializer = new ChannelInitializer(false, null, HttpClient.create()
+                .http1Options(Http1Options.options().maxPipelinedRequests(4).build()));
+        final Http1ChannelPool pool = new Http1ChannelPool(bootstrap, HANDLER, initializer,
+                1000L, 1, 10);
+        final HttpRequest get = mock(HttpRequest.class);
+        when(get.method()).thenReturn(HttpMethod.GET);
+        when(get.headers()).thenReturn(new Http1HeadersImpl());
+        final HttpRequest post = mock(HttpRequest.class);
+        when(post.method()).thenReturn(HttpMethod.POST);
+        when(post.headers()).thenReturn(new Http1HeadersImpl());
+        then(H1TransceiverHandle.isPipelinable(get)).isTrue();
+        then(H1TransceiverHandle.isPipelinable(post)).isFalse();
+
+        // The GET has been written and released in advance, its response is outstanding.
+        final Channel channel = pool.acquire().get();
+        final Http1ChannelHandler handler = (Http1ChannelHandler) channel.pipeline().last();
+        channel.eventLoop().submit(() -> handler.updateRequestId(1)).get();
+        then(handler.hasOutstandingResponses()).isTrue();
+        pool.release(channel).get();
+
+        // The POST mustn't be queued behind the outstanding response.
+        final Future<Channel> exclusive = pool.acquire(true);
+        then(exclusive.await(200L)).isFalse();
+        then(pool.pendingAcquireCount()).isEqualTo(1);
+
+        // While the other GETs can still be pipelined.
+        then(pool.acquire().get()).isSameAs(channel);
+        pool.release(channel).get();
+        then(exclusive.isDone()).isFalse();
+
+        channel.eventLoop().submit(() -> channel.pipeline().fireChannelRead(LastHttpContent.EMPTY_LAST_CONTENT))
+                .get();
+        then(handler.hasOutstandingResponses()).isFalse();
+        then(exclusive.get()).isSameAs(channel);
+        then(pool.pendingAcquireCount()).isEqualTo(0);
+
+        pool.release(channel).get();
+        pool.close();
+    }
+
+    @Test
+    void testAcquireTimeoutAndMaxPendingAcquires() throws Exception {
+        final Http1ChannelPool pool = new Http1ChannelPool(bootstrap, HANDLER, initializer,
+                100L, 1, 1);
+
+        final Channel channel = pool.acquire().get();
+        final Future<Channel> pending = pool.acquire();
+
+        // Exceeds the max pending acquires
+        final ExecutionException ex0 = assertThrows(ExecutionException.class, () -> pool.acquire().get());
+        then(ex0.getCause()).isInstanceOf(IllegalStateException.class);
+
+        final ExecutionException ex1 = assertThrows(ExecutionException.class, pending::get);
+        then(ex1.getCause()).isInstanceOf(TimeoutException.class);
+        then(pool.pendingAcquireCount()).isEqualTo(0);
+
+        pool.release(channel).get();
+        then(pool.acquire().get()).isSameAs(channel);
+        pool.close();
+    }
+
+    @Test
+    void testConnectionClosed() throws Exception {
+        final Http1ChannelPool pool = new Http1ChannelPool(bootstrap, HANDLER, initializer,
+                1000L, 1, 10);
+
+        final Channel channel0 = pool.acquire().get();
+        final Future<Channel> pending = pool.acquire();
+        channel0.close().syncUninterruptibly();
+        pool.release(channel0).get();
+
+        // A new connection will be opened for the pending acquire.
+        final Channel channel1 = pending.get();
+        then(channel1).isNotSameAs(channel0);
+        then(pool.connectionCount()).isEqualTo(1);
+
+        // Releasing a channel which doesn't belong to the pool
+        final Channel other = new EmbeddedChannel();
+        then(pool.release(other).await().cause()).isInstanceOf(IllegalArgumentException.class);
+
+        pool.close();
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> pool.acquire().get());
+        then(ex.getCause()).isInstanceOf(IllegalStateException.class);
+        pool.release(channel1).get();
+        channel1.closeFuture().syncUninterruptibly();
+    }
+
+}
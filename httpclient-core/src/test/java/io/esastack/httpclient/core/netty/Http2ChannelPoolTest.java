@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.netty;
+
+import io.esastack.commons.net.http.HttpVersion;
+import io.esastack.httpclient.core.HttpClient;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Http2ChannelPoolTest {
+
+    private static final ChannelPoolHandler HANDLER = new AbstractChannelPoolHandler() {
+        @Override
+        public void channelCreated(Channel ch) {
+        }
+    };
+
+    private EventLoopGroup group;
+    private Channel server;
+    private Bootstrap bootstrap;
+    private ChannelInitializer initializer;
+
+    @BeforeEach
+    void setUp() {
+        group = new DefaultEventLoopGroup(1);
+        final LocalAddress address = new LocalAddress("Http2ChannelPoolTest");
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(address)
+                .syncUninterruptibly()
+                .channel();
+        bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        initializer = new ChannelInitializer(false, null,
+                HttpClient.create().version(HttpVersion.HTTP_2).h2ClearTextUpgrade(false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    void testMultiplexing() throws Exception {
+        final Http2ChannelPool pool = new Http2ChannelPool(bootstrap, HANDLER, initializer,
+                1000L, 2, 10, 2);
+
+        final Channel channel0 = pool.acquire().get();
+        final Channel channel1 = pool.acquire().get();
+        then(channel1).isSameAs(channel0);
+        then(pool.connectionCount()).isEqualTo(1);
+        then(pool.acquiredCount()).isEqualTo(2);
+
+        // The first connection has been saturated.
+        final Channel channel2 = pool.acquire().get();
+        then(channel2).isNotSameAs(channel0);
+        then(pool.connectionCount()).isEqualTo(2);
+
+        // Pick the least-loaded connection.
+        final Channel channel3 = pool.acquire().get();
+        then(channel3).isSameAs(channel2);
+        then(pool.acquiredCount()).isEqualTo(4);
+
+        // Both of the connections have been saturated.
+        final Future<Channel> pending = pool.acquire();
+        then(pending.isDone()).isFalse();
+        then(pool.pendingAcquireCount()).isEqualTo(1);
+
+        pool.release(channel0).get();
+        then(pending.get()).isSameAs(channel0);
+        then(pool.pendingAcquireCount()).isEqualTo(0);
+        then(pool.acquiredCount()).isEqualTo(4);
+
+        pool.release(channel0).get();
+        pool.release(channel1).get();
+        pool.release(channel2).get();
+        pool.release(channel3).get();
+        then(pool.acquiredCount()).isEqualTo(0);
+        then(pool.connectionCount()).isEqualTo(2);
+
+        pool.close();
+        then(pool.connectionCount()).isEqualTo(0);
+        channel0.closeFuture().syncUninterruptibly();
+        channel2.closeFuture().syncUninterruptibly();
+    }
+
+    @Test
+    void testAcquireTimeoutAndMaxPendingAcquires() throws Exception {
+        final Http2ChannelPool pool = new Http2ChannelPool(bootstrap, HANDLER, initializer,
+                100L, 1, 1, 1);
+
+        final Channel channel = pool.acquire().get();
+        final Future<Channel> pending = pool.acquire();
+
+        // Exceeds the max pending acquires
+        final ExecutionException ex0 = assertThrows(ExecutionException.class, () -> pool.acquire().get());
+        then(ex0.getCause()).isInstanceOf(IllegalStateException.class);
+
+        final ExecutionException ex1 = assertThrows(ExecutionException.class, pending::get);
+        then(ex1.getCause()).isInstanceOf(TimeoutException.class);
+        then(pool.pendingAcquireCount()).isEqualTo(0);
+
+        pool.release(channel).get();
+        then(pool.acquire().get()).isSameAs(channel);
+        pool.close();
+    }
+
+    @Test
+    void testConnectionClosed() throws Exception {
+        final Http2ChannelPool pool = new Http2ChannelPool(bootstrap, HANDLER, initializer,
+                1000L, 1, 10, 10);
+
+        final Channel channel0 = pool.acquire().get();
+        channel0.close().syncUninterruptibly();
+        pool.release(channel0).get();
+        then(pool.connectionCount()).isEqualTo(0);
+
+        final Channel channel1 = pool.acquire().get();
+        then(channel1).isNotSameAs(channel0);
+        then(pool.connectionCount()).isEqualTo(1);
+
+        // Releasing a channel which doesn't belong to the pool
+        final Channel other = new EmbeddedChannel();
+        then(pool.release(other).await().cause()).isInstanceOf(IllegalArgumentException.class);
+
+        pool.close();
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> pool.acquire().get());
+        then(ex.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+
+}
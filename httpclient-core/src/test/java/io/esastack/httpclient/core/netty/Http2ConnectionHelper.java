@@ -51,7 +51,7 @@ class Http2ConnectionHelper {
     private Http2Connection connection;
 
     @Mock
-    private Http2Stream stream;
+    Http2Stream stream;
 
     @Mock
     private Http2ConnectionDecoder decoder;
@@ -63,7 +63,7 @@ class Http2ConnectionHelper {
     private Http2FrameWriter frameWriter;
 
     @Mock
-    private Http2RemoteFlowController remoteFlow;
+    Http2RemoteFlowController remoteFlow;
 
     @Mock
     private Http2LocalFlowController localFlow;
@@ -15,10 +15,13 @@
  */
 package io.esastack.httpclient.core.netty;
 
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpStatus;
 import io.esastack.commons.net.http.HttpVersion;
+import io.esastack.httpclient.core.Demand;
 import io.esastack.httpclient.core.ExecContextUtil;
+import io.esastack.httpclient.core.Handler;
 import io.esastack.httpclient.core.HttpClient;
 import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
@@ -26,6 +29,7 @@ import io.esastack.httpclient.core.NoopListener;
 import io.esastack.httpclient.core.exception.ClosedStreamException;
 import io.esastack.httpclient.core.exception.ContentOverSizedException;
 import io.esastack.httpclient.core.exec.ExecContext;
+import io.esastack.httpclient.core.util.BufferUtils;
 import io.esastack.httpclient.core.util.Futures;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
@@ -46,13 +50,19 @@ import io.netty.handler.codec.http2.Http2Error;
 import io.netty.handler.codec.http2.Http2FrameReader;
 import io.netty.handler.codec.http2.Http2FrameWriter;
 import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2LocalFlowController;
 import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2Stream;
 import org.junit.jupiter.api.Test;
 
 import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -67,10 +77,11 @@ class Http2FrameHandlerTest {
 
     private final HttpClient client = HttpClient.ofDefault();
     private EmbeddedChannel channel;
+    private Http2Connection connection;
     private Http2FrameInboundWriter frameInboundWriter;
 
     void setUp(HandleRegistry registry, long maxContentLength) {
-        final Http2Connection connection = new DefaultHttp2Connection(false);
+        connection = new DefaultHttp2Connection(false);
         final Http2FrameWriter frameWriter = Helper.mockHttp2FrameWriter();
         Http2FrameReader reader = new DefaultHttp2FrameReader();
 
@@ -640,4 +651,69 @@ class Http2FrameHandlerTest {
         then(registry.get(requestId)).isNull();
         channel.finishAndReleaseAll();
     }
+
+    @Test
+    void testDemandDrivenContent() throws Exception {
+        final HandleRegistry registry = new HandleRegistry(2, 0);
+        setUp(registry, -1L);
+
+        final List<String> contents = new ArrayList<>();
+        final AtomicReference<Demand> demand = new AtomicReference<>();
+        final Handler handler = new Handler() {
+            @Override
+            public void onSubscribe(Demand d) {
+                demand.set(d);
+            }
+
+            @Override
+            public void onData(Buffer content) {
+                contents.add(BufferUtils.toByteBuf(content).toString(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public void onEnd() {
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+            }
+        };
+        final HandleImpl handleImpl = new HandleImpl(new NettyResponse(false), handler);
+        demand.get().request(1L);
+
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final ResponseHandle handle = new ResponseHandle(handleImpl, client.get("/abc"), ctx,
+                new TimeoutHandle(NoopListener.INSTANCE), response);
+        final int requestId = registry.put(handle);
+
+        final Http2Headers headers = new DefaultHttp2Headers();
+        headers.status(HttpResponseStatus.OK.codeAsText());
+        frameInboundWriter.writeInboundHeaders(requestId, headers, 0, false);
+        frameInboundWriter.writeInboundData(requestId, Unpooled.copiedBuffer("a", StandardCharsets.UTF_8), 0,
+                false);
+        frameInboundWriter.writeInboundData(requestId, Unpooled.copiedBuffer("bc", StandardCharsets.UTF_8), 0,
+                false);
+
+        final Http2Stream stream = connection.stream(requestId);
+        final Http2LocalFlowController flowController = connection.local().flowController();
+        final int initialWindowSize = flowController.initialWindowSize();
+        then(contents).containsExactly("a");
+        // The window of the stream is withheld until the content has been consumed, while the window of the
+        // connection has been returned so that other streams won't be stalled.
+        then(flowController.initialWindowSize(stream)).isEqualTo(initialWindowSize - 2);
+        then(flowController.unconsumedBytes(connection.connectionStream())).isEqualTo(0);
+
+        demand.get().request(1L);
+        then(contents).containsExactly("a", "bc");
+        then(flowController.initialWindowSize(stream)).isEqualTo(initialWindowSize);
+
+        frameInboundWriter.writeInboundData(requestId, Unpooled.copiedBuffer("d", StandardCharsets.UTF_8), 0,
+                true);
+        then(response.isDone()).isFalse();
+        demand.get().request(1L);
+        then(contents).containsExactly("a", "bc", "d");
+        then(response.isDone() && !response.isCompletedExceptionally()).isTrue();
+        channel.finishAndReleaseAll();
+    }
 }
@@ -44,6 +44,7 @@ import java.io.IOException;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -295,6 +296,68 @@ class HttpTransceiverImplTest {
         then(Futures.getCause(response2)).isInstanceOf(IOException.class);
     }
 
+    @Test
+    void testCancel() {
+        final EventLoopGroup ioThreads = mock(EventLoopGroup.class);
+        final CachedChannelPools channelPools = mock(CachedChannelPools.class);
+        final HttpClientBuilder builder = HttpClient.create();
+        final ChannelPoolOptions options = ChannelPoolOptions.ofDefault();
+        final ChannelPoolFactory channelPoolFactory = new ChannelPoolFactory(mock(SslEngineFactory.class));
+        final io.netty.channel.pool.ChannelPool channelPool = mock(io.netty.channel.pool.ChannelPool.class);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        channel.pipeline().addLast(new Http1ChannelHandler(registry, -1L));
+
+        final HttpRequest request = client.get("http://127.0.0.1:8080/abc").segment();
+        final RequestWriter writer = mock(RequestWriter.class);
+        when(writer.writeAndFlush(any(HttpRequest.class),
+                any(Channel.class),
+                any(ExecContext.class),
+                any(ChannelPromise.class),
+                anyBoolean(),
+                any(io.netty.handler.codec.http.HttpVersion.class),
+                anyBoolean()))
+                .then(answer -> {
+                    ChannelPromise promise = answer.getArgument(3);
+                    promise.setSuccess();
+                    return channel.newSucceededFuture();
+                });
+
+        final HttpTransceiverImpl transceiver = new HttpTransceiverImpl(ioThreads,
+                channelPools,
+                builder,
+                options,
+                channelPoolFactory) {
+            @Override
+            protected RequestWriter detectWriter(HttpRequest request) {
+                return writer;
+            }
+        };
+
+        // Case 1: cancelled after writing
+        final TimeoutHandle h1 = mock(TimeoutHandle.class);
+        final ExecContext ctx1 = ExecContextUtil.from(new Context(), h1);
+        final CompletableFuture<HttpResponse> response1 = new CompletableFuture<>();
+        transceiver.doWrite(request, ctx1, false, HttpVersion.HTTP_1_1,
+                channel, channelPool, registry, response1);
+        then(channel.isOpen()).isTrue();
+
+        response1.cancel(false);
+        channel.runPendingTasks();
+        verify(h1).onError(any(), any(), any(CancellationException.class));
+        then(channel.isOpen()).isFalse();
+
+        // Case 2: cancelled before acquiring channel
+        final CompletableFuture<HttpResponse> response2 = new CompletableFuture<>();
+        response2.cancel(false);
+        final Channel channel2 = mock(Channel.class);
+        final ExecContext ctx2 = ExecContextUtil.from(new Context(), mock(Listener.class));
+        transceiver.onAcquireChannelSuccess(request, ctx2,
+                ServerSelector.DEFAULT.select(request, ctx2.ctx()), channelPool, channel2, response2);
+        verify(channelPool).release(channel2);
+        verify(channel2, never()).isActive();
+    }
+
     @Test
     void testGetChannelPool() {
         final HttpClientBuilder builder = HttpClient.create();
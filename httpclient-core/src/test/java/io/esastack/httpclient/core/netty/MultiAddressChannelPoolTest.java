@@ -0,0 +1,271 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.netty;
+
+import io.esastack.httpclient.core.resolver.AddressSelectors;
+import io.esastack.httpclient.core.resolver.HostResolver;
+import io.esastack.httpclient.core.util.Futures;
+import io.netty.channel.Channel;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MultiAddressChannelPoolTest {
+
+    private final Map<InetAddress, FakePool> pools = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger resolutions = new AtomicInteger();
+    private volatile CompletableFuture<List<InetAddress>> resolved;
+
+    private EventLoopGroup group;
+
+    @BeforeEach
+    void setUp() {
+        group = new DefaultEventLoopGroup(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        group.shutdownGracefully();
+    }
+
+    @Test
+    void testDistributeAcrossAddresses() throws Exception {
+        resolved = Futures.completed(Arrays.asList(ip(1), ip(2)));
+        final MultiAddressChannelPool pool = newPool();
+
+        final Channel channel0 = pool.acquire().get();
+        final Channel channel1 = pool.acquire().get();
+        final Channel channel2 = pool.acquire().get();
+        final Channel channel3 = pool.acquire().get();
+        then(resolutions.get()).isEqualTo(1);
+        then(pool.addresses()).hasSize(2);
+        then(pools.get(ip(1)).acquired.get()).isEqualTo(2);
+        then(pools.get(ip(2)).acquired.get()).isEqualTo(2);
+        then(pools.get(ip(1)).address.getHostString()).isEqualTo("foo.test");
+        then(pools.get(ip(1)).address.getPort()).isEqualTo(8080);
+        then(pool.acquiredCount()).isEqualTo(4);
+        then(pool.maxConnections()).isEqualTo(20);
+
+        pool.release(channel0).get();
+        pool.release(channel2).get();
+        then(pools.get(ip(1)).acquired.get()).isEqualTo(0);
+        then(pools.get(ip(2)).acquired.get()).isEqualTo(2);
+
+        pool.release(channel1).get();
+        pool.release(channel3).get();
+        then(pool.acquiredCount()).isEqualTo(0);
+
+        // Releasing a channel which doesn't belong to the pool
+        then(pool.release(new EmbeddedChannel()).await().cause()).isInstanceOf(IllegalArgumentException.class);
+        pool.close();
+    }
+
+    @Test
+    void testKeepInSyncWithResolver() throws Exception {
+        resolved = Futures.completed(Arrays.asList(ip(1), ip(2)));
+        final MultiAddressChannelPool pool = newPool();
+
+        final Channel channel0 = pool.acquire().get();
+        final Channel channel1 = pool.acquire().get();
+        pool.release(channel1).get();
+        then(pools.get(ip(1)).acquired.get()).isEqualTo(1);
+
+        // Not stale yet
+        resolved = Futures.completed(Arrays.asList(ip(2), ip(3)));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(9L));
+        pool.release(pool.acquire().get()).get();
+        then(resolutions.get()).isEqualTo(1);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1L));
+        pool.release(pool.acquire().get()).get();
+        then(resolutions.get()).isEqualTo(2);
+        then(pool.addresses()).containsExactly(new InetSocketAddress(ip(2), 8080),
+                new InetSocketAddress(ip(3), 8080));
+
+        // The retired pool won't be closed until all of its channels have been released.
+        final FakePool retired = pools.get(ip(1));
+        then(retired.closed).isFalse();
+        then(pool.acquiredCount()).isEqualTo(1);
+        pool.release(channel0).get();
+        then(retired.closed).isTrue();
+        then(pools.get(ip(2)).closed).isFalse();
+
+        // Failed or empty resolution never discards the existing pools.
+        resolved = Futures.completed(new IllegalStateException("Mocked"));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10L));
+        pool.release(pool.acquire().get()).get();
+        resolved = Futures.completed(Collections.emptyList());
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10L));
+        pool.release(pool.acquire().get()).get();
+        then(resolutions.get()).isEqualTo(4);
+        then(pool.addresses()).hasSize(2);
+
+        pool.close();
+        then(pools.get(ip(2)).closed).isTrue();
+        then(pools.get(ip(3)).closed).isTrue();
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> pool.acquire().get());
+        then(ex.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testResolveFailure() throws Exception {
+        resolved = Futures.completed(new IllegalStateException("Mocked"));
+        final MultiAddressChannelPool pool = newPool();
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> pool.acquire().get());
+        then(ex.getCause()).isInstanceOf(IllegalStateException.class);
+
+        resolved = Futures.completed(Collections.emptyList());
+        ex = assertThrows(ExecutionException.class, () -> pool.acquire().get());
+        then(ex.getCause()).isInstanceOf(UnknownHostException.class);
+
+        // Resolution in progress is shared by the concurrent acquires.
+        resolved = new CompletableFuture<>();
+        final Future<Channel> acquire0 = pool.acquire();
+        final Future<Channel> acquire1 = pool.acquire();
+        then(acquire0.isDone()).isFalse();
+        resolved.complete(Collections.singletonList(ip(1)));
+        then(acquire0.get()).isNotNull();
+        then(acquire1.get()).isNotNull();
+        then(resolutions.get()).isEqualTo(3);
+        then(pools.get(ip(1)).acquired.get()).isEqualTo(2);
+        pool.close();
+    }
+
+    @Test
+    void testIsApplicable() {
+        then(MultiAddressChannelPool.isApplicable(InetSocketAddress.createUnresolved("foo.test", 80))).isTrue();
+        then(MultiAddressChannelPool.isApplicable(InetSocketAddress.createUnresolved("127.0.0.1", 80))).isFalse();
+        then(MultiAddressChannelPool.isApplicable(InetSocketAddress.createUnresolved("::1", 80))).isFalse();
+        then(MultiAddressChannelPool.isApplicable(new InetSocketAddress(ip(1), 80))).isFalse();
+    }
+
+    private MultiAddressChannelPool newPool() {
+        final HostResolver resolver = new HostResolver() {
+            @Override
+            public CompletionStage<InetAddress> resolve(String inetHost) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletionStage<List<InetAddress>> resolveAddresses(String inetHost) {
+                then(inetHost).isEqualTo("foo.test");
+                resolutions.incrementAndGet();
+                return resolved;
+            }
+        };
+        return new MultiAddressChannelPool(InetSocketAddress.createUnresolved("foo.test", 8080),
+                resolver,
+                AddressSelectors.roundRobin(),
+                group,
+                address -> pools.computeIfAbsent(address.getAddress(), key -> new FakePool(address)),
+                10L,
+                clock::get);
+    }
+
+    private static InetAddress ip(int index) {
+        try {
+            return InetAddress.getByAddress(new byte[]{10, 0, 0, (byte) index});
+        } catch (UnknownHostException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class FakePool implements MeasurableChannelPool {
+
+        private final InetSocketAddress address;
+        private final AtomicInteger acquired = new AtomicInteger();
+        private volatile boolean closed;
+
+        private FakePool(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        @Override
+        public Future<Channel> acquire() {
+            return acquire(ImmediateEventExecutor.INSTANCE.newPromise());
+        }
+
+        @Override
+        public Future<Channel> acquire(Promise<Channel> promise) {
+            if (closed) {
+                return promise.setFailure(new IllegalStateException("closed"));
+            }
+            acquired.incrementAndGet();
+            return promise.setSuccess(new EmbeddedChannel());
+        }
+
+        @Override
+        public Future<Void> release(Channel channel) {
+            return release(channel, ImmediateEventExecutor.INSTANCE.newPromise());
+        }
+
+        @Override
+        public Future<Void> release(Channel channel, Promise<Void> promise) {
+            acquired.decrementAndGet();
+            return promise.setSuccess(null);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public int maxConnections() {
+            return 10;
+        }
+
+        @Override
+        public int maxPendingAcquires() {
+            return 10;
+        }
+
+        @Override
+        public int acquiredCount() {
+            return acquired.get();
+        }
+
+        @Override
+        public int pendingAcquireCount() {
+            return 0;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpMethod;
 import io.esastack.commons.net.http.HttpVersion;
 import io.esastack.httpclient.core.Context;
+import io.esastack.httpclient.core.Handler;
 import io.esastack.httpclient.core.HttpClient;
 import io.esastack.httpclient.core.HttpClientBuilder;
 import io.esastack.httpclient.core.HttpRequest;
@@ -26,6 +27,7 @@ import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.httpclient.core.config.CacheOptions;
 import io.esastack.httpclient.core.config.CallbackThreadPoolOptions;
 import io.esastack.httpclient.core.config.ChannelPoolOptions;
+import io.esastack.httpclient.core.config.ConcurrencyLimitOptions;
 import io.esastack.httpclient.core.config.Decompression;
 import io.esastack.httpclient.core.config.SslOptions;
 import io.esastack.httpclient.core.exec.ExecContext;
@@ -60,6 +62,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -121,6 +124,26 @@ class NettyHttpClientTest {
         then(request.headers().get(HttpHeaderNames.ACCEPT_ENCODING)).isEqualTo(Decompression.GZIP_DEFLATE.format());
     }
 
+    @Test
+    void testExecuteWithHandler() {
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final NettyHttpClientImpl client = new NettyHttpClientImpl(HttpClient.create());
+
+        when(EXECUTOR.execute(any(HttpRequest.class),
+                any(ExecContext.class)))
+                .thenAnswer(answer -> response);
+
+        final Handler handler = mock(Handler.class);
+        final HttpRequest request = client.get("http://127.0.0.1:8080");
+        final CompletableFuture<HttpResponse> rsp = client.execute(request, new Context(), null, handler);
+        verify(handler, never()).onCompleted(any(), any());
+
+        final HttpResponse response0 = mock(HttpResponse.class);
+        response.complete(response0);
+        then(rsp.getNow(null)).isSameAs(response0);
+        verify(handler).onCompleted(response0, null);
+    }
+
     @Test
     void testExecuteAndReleaseBuffer() {
         final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
@@ -152,6 +175,19 @@ class NettyHttpClientTest {
 
     }
 
+    @Test
+    void testConcurrencyLimitMetric() {
+        final CachedChannelPools channelPools = mock(CachedChannelPools.class);
+        final NettyHttpClientImpl client0 = new NettyHttpClientImpl(HttpClient.create(), channelPools);
+        then(client0.concurrencyLimitMetric().all()).isEmpty();
+
+        final HttpClientBuilder builder = HttpClient.create()
+                .concurrencyLimitOptions(ConcurrencyLimitOptions.ofDefault());
+        final NettyHttpClientImpl client1 = new NettyHttpClientImpl(builder, channelPools);
+        then(client1.concurrencyLimitMetric()).isNotNull();
+        then(client1.concurrencyLimitMetric().all()).isEmpty();
+    }
+
     @Test
     void testIoThreadsMetric() {
         final String id = "IO-Threads-Pool-1";
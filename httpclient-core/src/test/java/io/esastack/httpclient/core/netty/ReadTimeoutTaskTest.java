@@ -62,17 +62,14 @@ class ReadTimeoutTaskTest {
         when(registry.remove(1)).thenReturn(adapter0);
 
         final ReadTimeoutTask task1 = new ReadTimeoutTask(requestId1,
-                "",
+                mock(HttpRequest.class),
                 -1,
                 channel,
                 registry);
 
         final CountDownLatch latch = new CountDownLatch(1);
         channel.closeFuture().addListener(future -> latch.countDown());
-        task1.run(null);
-
-        // Fire task
-        embeddedChannel.runPendingTasks();
+        task1.run();
 
         // Wait unit finish closing
         latch.await(50, TimeUnit.MILLISECONDS);
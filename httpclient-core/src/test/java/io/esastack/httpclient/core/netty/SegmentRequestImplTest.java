@@ -17,6 +17,7 @@
 package io.esastack.httpclient.core.netty;
 
 import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpMethod;
 import io.esastack.commons.net.netty.buffer.BufferImpl;
 import io.esastack.httpclient.core.Handler;
@@ -24,15 +25,20 @@ import io.esastack.httpclient.core.HttpClient;
 import io.esastack.httpclient.core.HttpRequest;
 import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.httpclient.core.SegmentRequest;
+import io.esastack.httpclient.core.config.Compression;
 import io.esastack.httpclient.core.exec.ExecContext;
 import io.esastack.httpclient.core.exec.RequestExecutor;
+import io.esastack.httpclient.core.util.BufferUtils;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -41,6 +47,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -350,6 +357,62 @@ class SegmentRequestImplTest {
         then(request.isWritable()).isTrue();
     }
 
+    @Test
+    void testWriteCompressedData() throws IOException {
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final CompletableFuture<SegmentWriter> writerPromise = new CompletableFuture<>();
+
+        final RequestExecutor executor = mock(RequestExecutor.class);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        when(executor.execute(any(HttpRequest.class),
+                any(ExecContext.class)))
+                .thenAnswer(answer -> {
+                    final NettyExecContext ctx = answer.getArgument(1);
+                    ctx.segmentWriter(writerPromise);
+                    return response;
+                });
+
+        final SegmentRequest request = new SegmentRequestImpl(HttpClient.create(),
+                executor, HttpMethod.POST, "http://127.0.0.1/chunked");
+        request.setHeader(HttpHeaderNames.CONTENT_LENGTH, "1024");
+        request.compression(Compression.GZIP);
+        then(request.getHeader(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        then(request.getHeader(HttpHeaderNames.CONTENT_LENGTH)).isNull();
+
+        final ByteBuf out = Unpooled.buffer();
+        final SegmentWriter writer = mock(SegmentWriter.class);
+        when(writer.channel()).thenReturn(channel);
+        when(writer.write(any(), anyInt(), anyInt()))
+                .thenAnswer(answer -> {
+                    final Buffer data = answer.getArgument(0);
+                    out.writeBytes(BufferUtils.toByteBuf(data).duplicate());
+                    return channel.newSucceededFuture();
+                });
+        when(writer.end()).thenAnswer(answer -> channel.newSucceededFuture());
+        writerPromise.complete(writer);
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            final String chunk = COMMON_DATA + i;
+            expected.append(chunk).append(chunk);
+            request.write(chunk.getBytes(StandardCharsets.UTF_8));
+            request.write(new BufferImpl(Unpooled.copiedBuffer(chunk, StandardCharsets.UTF_8)));
+        }
+        expected.append(END);
+        request.end(END.getBytes(StandardCharsets.UTF_8));
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteBufInputStream(out, true))) {
+            final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            final byte[] buf = new byte[1024];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                decompressed.write(buf, 0, len);
+            }
+            then(new String(decompressed.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected.toString());
+        }
+        assertThrows(IllegalStateException.class, () -> request.compression(Compression.DEFLATE));
+    }
+
     @Test
     void testUnmodifiableAfterStarted() {
         final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
@@ -405,6 +468,10 @@ class SegmentRequestImplTest {
         request.addParam("p", "q");
         then(request.getParam("p")).isEqualTo("q");
 
+        assertThrows(IllegalArgumentException.class, () -> request.coalesce(0, 0L));
+        assertThrows(IllegalArgumentException.class, () -> request.coalesce(1024, -1L));
+        request.coalesce(1024, 0L);
+
         request.write(dataToWrite);
 
         // After writing
@@ -419,6 +486,7 @@ class SegmentRequestImplTest {
         assertThrows(IllegalStateException.class, () -> request.handler(mock(Handler.class)));
 
         assertThrows(IllegalStateException.class, () -> request.addParam("p", "q"));
+        assertThrows(IllegalStateException.class, () -> request.coalesce(1024, 0L));
 
         // Header ops are allowed
         request.addHeaders(Collections.singletonMap("a", "b"));
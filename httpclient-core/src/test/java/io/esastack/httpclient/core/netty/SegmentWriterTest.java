@@ -31,14 +31,20 @@ import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2RemoteFlowController;
 import io.netty.handler.codec.http2.HttpConversionUtil;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class SegmentWriterTest extends Http2ConnectionHelper {
 
@@ -131,6 +137,58 @@ class SegmentWriterTest extends Http2ConnectionHelper {
         then(end.isDone()).isTrue();
     }
 
+    @Test
+    void testCoalesceWrites1() throws IOException {
+        final SegmentWriter writer = new SegmentWriter();
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final HttpClient client = HttpClient.ofDefault();
+
+        final SegmentRequest request = client.post("http://127.0.0.1/abc").segment().coalesce(16, 0L);
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final ChannelFuture end = writer.writeAndFlush(request,
+                channel,
+                ctx,
+                channel.newPromise(),
+                false,
+                HttpVersion.HTTP_1_1,
+                false);
+        channel.flush();
+        channel.readOutbound();
+
+        // Small writes are coalesced and flushed at the end of current event loop iteration.
+        for (int i = 0; i < 3; i++) {
+            then(writer.write("Hello".getBytes(), 0, 5).isSuccess()).isTrue();
+        }
+        then((Object) channel.readOutbound()).isNull();
+        channel.runPendingTasks();
+        HttpContent content = channel.readOutbound();
+        then(content.content().toString(StandardCharsets.UTF_8)).isEqualTo("HelloHelloHello");
+        content.release();
+
+        // Large writes are written directly.
+        final byte[] data = new byte[32];
+        ThreadLocalRandom.current().nextBytes(data);
+        writer.write(data, 0, data.length);
+        content = channel.readOutbound();
+        then(content.content().readableBytes()).isEqualTo(data.length);
+        content.release();
+
+        // Writes are paced by the writability of the channel.
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+        final ChannelFuture paced = writer.write("World".getBytes(), 0, 5);
+        then(paced.isDone()).isFalse();
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+        then(paced.isSuccess()).isTrue();
+
+        // The remaining frame is written before the end.
+        writer.end();
+        content = channel.readOutbound();
+        then(content.content().toString(StandardCharsets.UTF_8)).isEqualTo("World");
+        content.release();
+        then((Object) channel.readOutbound()).isInstanceOf(LastHttpContent.class);
+        then(end.isDone()).isTrue();
+    }
+
     ////////*********************************HTTP2 CHUNK WRITER**************************************////////
 
     @Test
@@ -201,6 +259,49 @@ class SegmentWriterTest extends Http2ConnectionHelper {
         then(ended.cause()).isInstanceOf(IllegalStateException.class);
     }
 
+    @Test
+    void testCoalesceWrites2() throws Exception {
+        setUp();
+        final ArgumentCaptor<Http2RemoteFlowController.Listener> listener =
+                ArgumentCaptor.forClass(Http2RemoteFlowController.Listener.class);
+        verify(remoteFlow).listener(listener.capture());
+        final SegmentWriter writer = new SegmentWriter();
+
+        final HttpClient client = HttpClient.ofDefault();
+        final SegmentRequest request = client.post("http://127.0.0.1/abc").segment().coalesce(16, 0L);
+        final ExecContext ctx = ExecContextUtil.newAs();
+        request.headers().add(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), STREAM_ID);
+        writer.writeAndFlush(request,
+                channel,
+                ctx,
+                channel.newPromise(),
+                false,
+                null,
+                true);
+        channel.flush();
+
+        // Writes are paced by the writability of the stream even if the connection is writable.
+        when(remoteFlow.isWritable(stream)).thenReturn(false);
+        then(channel.isWritable()).isTrue();
+        final ChannelFuture paced = writer.write("Hello".getBytes(), 0, 5);
+        then(paced.isDone()).isFalse();
+
+        final ArgumentCaptor<Object> property = ArgumentCaptor.forClass(Object.class);
+        verify(stream).setProperty(any(), property.capture());
+        when(stream.getProperty(any())).thenReturn(property.getValue());
+        listener.getValue().writabilityChanged(stream);
+        then(paced.isDone()).isFalse();
+
+        when(remoteFlow.isWritable(stream)).thenReturn(true);
+        listener.getValue().writabilityChanged(stream);
+        then(paced.isSuccess()).isTrue();
+
+        // The listener is removed at the end.
+        writer.end();
+        verify(stream).removeProperty(any());
+        channel.finishAndReleaseAll();
+    }
+
     @Test
     void testEndH2WithEmptyData() throws Exception {
         setUp();
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.netty;
+
+import io.esastack.httpclient.core.ExecContextUtil;
+import io.esastack.httpclient.core.HttpClient;
+import io.esastack.httpclient.core.StreamBody;
+import io.esastack.httpclient.core.StreamRequest;
+import io.esastack.httpclient.core.exec.ExecContext;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class StreamWriterTest {
+
+    private final HttpClient client = HttpClient.ofDefault();
+
+    @Test
+    void testWriteInputStream1() throws IOException {
+        final byte[] data = new byte[1024 * 10 + 24];
+        ThreadLocalRandom.current().nextBytes(data);
+        final StreamRequest request = client.post("http://127.0.0.1/abc")
+                .body(StreamBody.of(new ByteArrayInputStream(data), 1024));
+
+        final EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+        final ChannelFuture end = write(request, channel);
+
+        HttpRequest req = channel.readOutbound();
+        then(req.headers().get(HttpHeaderNames.TRANSFER_ENCODING)).isEqualTo(HttpHeaderValues.CHUNKED.toString());
+        then(req.headers().get(HttpHeaderNames.CONTENT_TYPE)
+                .contentEquals(HttpHeaderValues.APPLICATION_OCTET_STREAM)).isTrue();
+
+        then(readContent(channel, 11)).isEqualTo(data);
+        then(end.isSuccess()).isTrue();
+
+        // The stream can't be replayed.
+        final ChannelFuture replayed = write(request, new EmbeddedChannel(new ChunkedWriteHandler()));
+        then(replayed.cause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testWriteByteChannel1() throws IOException {
+        final byte[] data = new byte[1024 * 3];
+        ThreadLocalRandom.current().nextBytes(data);
+        final StreamRequest request = client.post("http://127.0.0.1/abc")
+                .body(Channels.newChannel(new ByteArrayInputStream(data)));
+        request.setHeader(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(data.length));
+
+        final EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+        final ChannelFuture end = write(request, channel);
+
+        HttpRequest req = channel.readOutbound();
+        then(req.headers().get(HttpHeaderNames.TRANSFER_ENCODING)).isNull();
+
+        then(readContent(channel, 1)).isEqualTo(data);
+        then(end.isSuccess()).isTrue();
+    }
+
+    private static ChannelFuture write(StreamRequest request, EmbeddedChannel channel) throws IOException {
+        final ExecContext ctx = ExecContextUtil.newAs();
+        final ChannelFuture end = StreamWriter.singleton().writeAndFlush(request,
+                channel,
+                ctx,
+                channel.newPromise(),
+                false,
+                HttpVersion.HTTP_1_1,
+                false);
+        channel.flush();
+        return end;
+    }
+
+    private static byte[] readContent(EmbeddedChannel channel, int chunks) {
+        final ByteBuf content = Unpooled.buffer();
+        int count = 0;
+        HttpContent chunk;
+        while ((chunk = channel.readOutbound()) != null) {
+            content.writeBytes(chunk.content());
+            chunk.release();
+            if (chunk instanceof LastHttpContent) {
+                break;
+            }
+            count++;
+        }
+        then(count).isEqualTo(chunks);
+        final byte[] bytes = new byte[content.readableBytes()];
+        content.readBytes(bytes);
+        return bytes;
+    }
+}
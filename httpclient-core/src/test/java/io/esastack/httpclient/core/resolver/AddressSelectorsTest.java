@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class AddressSelectorsTest {
+
+    @Test
+    void testRoundRobin() {
+        final Candidate c0 = new Candidate(0, 0, 0);
+        final Candidate c1 = new Candidate(1, 0, 0);
+        final Candidate c2 = new Candidate(2, 0, 0);
+        final List<Candidate> candidates = Arrays.asList(c0, c1, c2);
+
+        final AddressSelector selector = AddressSelectors.roundRobin();
+        then(selector.select(candidates)).isSameAs(c0);
+        then(selector.select(candidates)).isSameAs(c1);
+        then(selector.select(candidates)).isSameAs(c2);
+        then(selector.select(candidates)).isSameAs(c0);
+    }
+
+    @Test
+    void testLeastOutstanding() {
+        final Candidate c0 = new Candidate(0, 5, 0);
+        final Candidate c1 = new Candidate(1, 2, 1);
+        final Candidate c2 = new Candidate(2, 1, 3);
+        final List<Candidate> candidates = Arrays.asList(c0, c1, c2);
+
+        final AddressSelector selector = AddressSelectors.leastOutstanding();
+        for (int i = 0; i < 100; i++) {
+            then(selector.select(candidates)).isSameAs(c1);
+        }
+        then(selector.select(Collections.singletonList(c0))).isSameAs(c0);
+    }
+
+    @Test
+    void testPowerOfTwoChoices() {
+        final Candidate c0 = new Candidate(0, 10, 0);
+        final Candidate c1 = new Candidate(1, 0, 0);
+        final AddressSelector selector = AddressSelectors.powerOfTwoChoices();
+
+        // Both candidates are always picked when there are only two.
+        for (int i = 0; i < 100; i++) {
+            then(selector.select(Arrays.asList(c0, c1))).isSameAs(c1);
+        }
+
+        // The busiest one is never selected.
+        final Candidate c2 = new Candidate(2, 1, 0);
+        for (int i = 0; i < 100; i++) {
+            then(selector.select(Arrays.asList(c0, c1, c2))).isNotSameAs(c0);
+        }
+        then(selector.select(Collections.singletonList(c0))).isSameAs(c0);
+    }
+
+    private static final class Candidate implements AddressSelector.Candidate {
+
+        private final InetSocketAddress address;
+        private final int active;
+        private final int pendingAcquireCount;
+
+        private Candidate(int index, int active, int pendingAcquireCount) {
+            this.address = InetSocketAddress.createUnresolved("10.0.0." + index, 80);
+            this.active = active;
+            this.pendingAcquireCount = pendingAcquireCount;
+        }
+
+        @Override
+        public InetSocketAddress address() {
+            return address;
+        }
+
+        @Override
+        public int active() {
+            return active;
+        }
+
+        @Override
+        public int pendingAcquireCount() {
+            return pendingAcquireCount;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
 class BalancedHostResolverTest {
@@ -51,6 +52,21 @@ class BalancedHostResolverTest {
         assertSame(address3, resolver.resolve("localhost").toCompletableFuture().get());
     }
 
+    @Test
+    void testResolveAddresses() throws Throwable {
+        final List<InetAddress> addresses = new ArrayList<>();
+        addresses.add(mock(InetAddress.class));
+        addresses.add(mock(InetAddress.class));
+
+        final HostResolver resolver = new HostResolverImpl(new RoundRobinLoadBalancer<>(),
+                (address) -> Futures.completed(addresses));
+        assertSame(addresses, resolver.resolveAddresses("localhost").toCompletableFuture().get());
+
+        final HostResolver absent = new HostResolverImpl(new RoundRobinLoadBalancer<>(),
+                (address) -> Futures.completed((List<InetAddress>) null));
+        assertTrue(absent.resolveAddresses("localhost").toCompletableFuture().get().isEmpty());
+    }
+
     private static class HostResolverImpl extends BalancedHostResolver {
 
         private final Function<String, CompletableFuture<List<InetAddress>>> function;
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.resolver;
+
+import io.esastack.httpclient.core.metrics.DnsCacheMetric;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DatagramDnsQuery;
+import io.netty.handler.codec.dns.DatagramDnsQueryDecoder;
+import io.netty.handler.codec.dns.DatagramDnsResponse;
+import io.netty.handler.codec.dns.DatagramDnsResponseEncoder;
+import io.netty.handler.codec.dns.DefaultDnsQuestion;
+import io.netty.handler.codec.dns.DefaultDnsRawRecord;
+import io.netty.handler.codec.dns.DnsQuestion;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.handler.codec.dns.DnsResponseCode;
+import io.netty.handler.codec.dns.DnsSection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingDnsResolverTest {
+
+    private final Map<String, ARecord> records = new ConcurrentHashMap<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    private final AtomicLong clock = new AtomicLong();
+
+    private EventLoopGroup group;
+    private Channel server;
+
+    @BeforeEach
+    void setUp() {
+        group = new NioEventLoopGroup(1);
+        server = new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .handler(new ChannelInitializer<NioDatagramChannel>() {
+                    @Override
+                    protected void initChannel(NioDatagramChannel ch) {
+                        ch.pipeline().addLast(new DatagramDnsQueryDecoder(),
+                                new DatagramDnsResponseEncoder(),
+                                new StandInDnsServer());
+                    }
+                })
+                .bind(new InetSocketAddress("127.0.0.1", 0))
+                .syncUninterruptibly()
+                .channel();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    void testCacheWithTtl() throws Exception {
+        records.put("foo.test.", new ARecord(new byte[]{10, 0, 0, 1}, 10));
+        final CachingDnsResolver resolver = newResolver(CachingDnsResolver.builder().prefetch(0.0d, 1));
+        final DnsCacheMetric metric = resolver.metric();
+
+        then(resolver.resolve("foo.test").get().getAddress()).isEqualTo(new byte[]{10, 0, 0, 1});
+        then(queries.get()).isEqualTo(1);
+        then(metric.missCount()).isEqualTo(1L);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(9L));
+        then(resolver.resolve("foo.test").get().getHostName()).isEqualTo("foo.test");
+        then(queries.get()).isEqualTo(1);
+        then(metric.hitCount()).isEqualTo(1L);
+        then(metric.size()).isEqualTo(1);
+
+        // Expired
+        records.put("foo.test.", new ARecord(new byte[]{10, 0, 0, 2}, 10));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1L));
+        then(resolver.resolve("foo.test").get().getAddress()).isEqualTo(new byte[]{10, 0, 0, 2});
+        then(queries.get()).isEqualTo(2);
+        then(metric.missCount()).isEqualTo(2L);
+        resolver.close();
+    }
+
+    @Test
+    void testTtlBounds() throws Exception {
+        records.put("foo.test.", new ARecord(new byte[]{10, 0, 0, 1}, 1));
+        final CachingDnsResolver resolver = newResolver(CachingDnsResolver.builder()
+                .minTtlSeconds(5)
+                .prefetch(0.0d, 1));
+
+        resolver.resolve("foo.test").get();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(4L));
+        resolver.resolve("foo.test").get();
+        then(queries.get()).isEqualTo(1);
+        resolver.close();
+
+        queries.set(0);
+        final CachingDnsResolver noCache = newResolver(CachingDnsResolver.builder()
+                .maxTtlSeconds(0));
+        noCache.resolve("foo.test").get();
+        noCache.resolve("foo.test").get();
+        then(queries.get()).isEqualTo(2);
+        then(noCache.metric().size()).isEqualTo(0);
+        noCache.close();
+    }
+
+    @Test
+    void testNegativeCache() {
+        final CachingDnsResolver resolver = newResolver(CachingDnsResolver.builder().negativeTtlSeconds(5));
+        final DnsCacheMetric metric = resolver.metric();
+
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> resolver.resolve("absent.test").get());
+        then(ex.getCause()).isInstanceOf(UnknownHostException.class);
+        then(queries.get()).isEqualTo(1);
+
+        ex = assertThrows(ExecutionException.class, () -> resolver.resolve("absent.test").get());
+        then(ex.getCause()).isInstanceOf(UnknownHostException.class);
+        then(queries.get()).isEqualTo(1);
+        then(metric.negativeHitCount()).isEqualTo(1L);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5L));
+        assertThrows(ExecutionException.class, () -> resolver.resolve("absent.test").get());
+        then(queries.get()).isEqualTo(2);
+        resolver.close();
+    }
+
+    @Test
+    void testPrefetch() throws Exception {
+        records.put("foo.test.", new ARecord(new byte[]{10, 0, 0, 1}, 10));
+        final CachingDnsResolver resolver = newResolver(CachingDnsResolver.builder().prefetch(0.2d, 2));
+        final DnsCacheMetric metric = resolver.metric();
+
+        resolver.resolve("foo.test").get();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(9L));
+
+        // Not popular enough
+        resolver.resolve("foo.test").get();
+        then(metric.prefetchCount()).isEqualTo(0L);
+
+        records.put("foo.test.", new ARecord(new byte[]{10, 0, 0, 2}, 10));
+        then(resolver.resolve("foo.test").get().getAddress()).isEqualTo(new byte[]{10, 0, 0, 1});
+        then(metric.prefetchCount()).isEqualTo(1L);
+
+        // Wait until the entry has been refreshed.
+        final long deadline = System.currentTimeMillis() + 3000L;
+        while (System.currentTimeMillis() < deadline &&
+                resolver.resolve("foo.test").get().getAddress()[3] != 2) {
+            Thread.sleep(10L);
+        }
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5L));
+        then(resolver.resolve("foo.test").get().getAddress()).isEqualTo(new byte[]{10, 0, 0, 2});
+        then(queries.get()).isEqualTo(2);
+        then(metric.missCount()).isEqualTo(1L);
+        resolver.close();
+    }
+
+    @Test
+    void testResolveLocally() throws Exception {
+        final CachingDnsResolver resolver = newResolver(CachingDnsResolver.builder());
+        then(resolver.resolve("127.0.0.1").get()).isEqualTo(InetAddress.getByName("127.0.0.1"));
+        then(queries.get()).isEqualTo(0);
+        then(resolver.metric().missCount()).isEqualTo(0L);
+        resolver.close();
+    }
+
+    private CachingDnsResolver newResolver(CachingDnsResolver.CachingDnsResolverBuilder builder) {
+        return new CachingDnsResolver(builder
+                .nameServer((InetSocketAddress) server.localAddress())
+                .searchDomains(Collections.emptyList())
+                .queryTimeoutMillis(1000L), clock::get);
+    }
+
+    private static final class ARecord {
+
+        private final byte[] address;
+        private final long ttl;
+
+        private ARecord(byte[] address, long ttl) {
+            this.address = address;
+            this.ttl = ttl;
+        }
+    }
+
+    private final class StandInDnsServer extends SimpleChannelInboundHandler<DatagramDnsQuery> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramDnsQuery query) {
+            queries.incrementAndGet();
+            final DnsQuestion question = query.recordAt(DnsSection.QUESTION);
+            final DatagramDnsResponse response = new DatagramDnsResponse(query.recipient(), query.sender(),
+                    query.id());
+            response.setRecursionDesired(query.isRecursionDesired());
+            response.setRecursionAvailable(true);
+            response.addRecord(DnsSection.QUESTION, new DefaultDnsQuestion(question.name(), question.type()));
+
+            final ARecord record = records.get(question.name());
+            if (record == null || !DnsRecordType.A.equals(question.type())) {
+                response.setCode(DnsResponseCode.NXDOMAIN);
+            } else {
+                response.addRecord(DnsSection.ANSWER, new DefaultDnsRawRecord(question.name(),
+                        DnsRecordType.A, record.ttl, Unpooled.wrappedBuffer(record.address)));
+            }
+            ctx.writeAndFlush(response);
+        }
+    }
+}
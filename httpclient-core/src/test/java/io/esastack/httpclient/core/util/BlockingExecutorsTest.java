@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class BlockingExecutorsTest {
+
+    @Test
+    void testShared() throws Exception {
+        then(BlockingExecutors.shared()).isSameAs(BlockingExecutors.shared());
+
+        final CompletableFuture<String> thread = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(),
+                BlockingExecutors.shared());
+        then(thread.get(3L, TimeUnit.SECONDS)).startsWith("ESAHttpClient-Blocking-");
+    }
+}
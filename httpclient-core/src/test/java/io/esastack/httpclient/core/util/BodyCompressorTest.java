@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.util;
+
+import io.esastack.httpclient.core.config.Compression;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BodyCompressorTest {
+
+    private static final String CONTENT = "{\"name\":\"Bob\",\"sex\":\"boy\"}";
+
+    @Test
+    void testGzip() throws IOException {
+        final byte[] compressed = compress(Compression.GZIP);
+        then(decompress(new GZIPInputStream(new ByteArrayInputStream(compressed)))).isEqualTo(expected());
+    }
+
+    @Test
+    void testDeflate() throws IOException {
+        final byte[] compressed = compress(Compression.DEFLATE);
+        then(decompress(new InflaterInputStream(new ByteArrayInputStream(compressed)))).isEqualTo(expected());
+    }
+
+    @Test
+    void testIllegalLevel() {
+        assertThrows(NullPointerException.class, () -> new BodyCompressor(null));
+        assertThrows(IllegalArgumentException.class, () -> new BodyCompressor(Compression.GZIP, 10));
+    }
+
+    @Test
+    void testClose() {
+        final BodyCompressor compressor = new BodyCompressor(Compression.GZIP);
+        final ByteBuf chunk = Unpooled.copiedBuffer(CONTENT, StandardCharsets.UTF_8);
+        final ByteBuf compressed = compressor.compress(chunk);
+        then(chunk.refCnt()).isEqualTo(0);
+        then(compressed.isReadable()).isTrue();
+        compressed.release();
+        compressor.close();
+    }
+
+    private static byte[] compress(Compression compression) {
+        final ByteBuf out = Unpooled.buffer();
+        final BodyCompressor compressor = new BodyCompressor(compression);
+        for (int i = 0; i < 100; i++) {
+            final ByteBuf compressed = compressor.compress(Unpooled.copiedBuffer(CONTENT, StandardCharsets.UTF_8));
+            // Every chunk is flushed immediately.
+            then(compressed.isReadable()).isTrue();
+            out.writeBytes(compressed);
+            compressed.release();
+        }
+        final ByteBuf tail = compressor.finish();
+        out.writeBytes(tail);
+        tail.release();
+        return ByteBufUtil.getBytes(out);
+    }
+
+    private static String expected() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append(CONTENT);
+        }
+        return sb.toString();
+    }
+
+    private static String decompress(InputStream in) throws IOException {
+        try (InputStream in0 = in) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[1024];
+            int len;
+            while ((len = in0.read(buf)) != -1) {
+                out.write(buf, 0, len);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
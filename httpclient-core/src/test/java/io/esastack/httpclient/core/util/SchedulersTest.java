@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.httpclient.core.util;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SchedulersTest {
+
+    @Test
+    void testScheduleOnTimer() throws InterruptedException {
+        assertThrows(NullPointerException.class, () -> Schedulers.schedule(null, 1L, TimeUnit.MILLISECONDS));
+        assertThrows(NullPointerException.class, () -> Schedulers.schedule(() -> { }, 1L, null));
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<String> thread = new AtomicReference<>();
+        Schedulers.schedule(() -> {
+            thread.set(Thread.currentThread().getName());
+            latch.countDown();
+        }, 10L, TimeUnit.MILLISECONDS);
+        then(latch.await(3L, TimeUnit.SECONDS)).isTrue();
+        then(thread.get()).startsWith("ESAHttpClient-Timer-");
+    }
+
+    @Test
+    void testScheduleOnEventExecutor() throws InterruptedException {
+        final EventLoop loop = new DefaultEventLoop();
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final AtomicReference<Boolean> inEventLoop = new AtomicReference<>();
+            loop.execute(() -> Schedulers.schedule(() -> {
+                inEventLoop.set(loop.inEventLoop());
+                latch.countDown();
+            }, 10L, TimeUnit.MILLISECONDS));
+            then(latch.await(3L, TimeUnit.SECONDS)).isTrue();
+            then(inEventLoop.get()).isTrue();
+        } finally {
+            loop.shutdownGracefully();
+        }
+    }
+
+    @Test
+    void testCancelOnEventExecutor() throws InterruptedException {
+        final EventLoop loop = new DefaultEventLoop();
+        final CountDownLatch scheduled = new CountDownLatch(1);
+        final AtomicBoolean ran = new AtomicBoolean();
+        final AtomicReference<Throwable> cancelled = new AtomicReference<>();
+        loop.execute(() -> {
+            Schedulers.schedule(() -> ran.set(true), cancelled::set, 1L, TimeUnit.HOURS);
+            scheduled.countDown();
+        });
+        then(scheduled.await(3L, TimeUnit.SECONDS)).isTrue();
+
+        // The scheduled tasks are cancelled once the executor has been shut down.
+        then(loop.shutdownGracefully(0L, 0L, TimeUnit.MILLISECONDS).await(3L, TimeUnit.SECONDS)).isTrue();
+        then(ran.get()).isFalse();
+        then(cancelled.get()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testStop() throws InterruptedException {
+        Schedulers.stop();
+
+        // Unfinished tasks are cancelled instead of running once the timer has been stopped
+        final AtomicBoolean ran = new AtomicBoolean();
+        final AtomicReference<Throwable> cancelled = new AtomicReference<>();
+        Schedulers.schedule(() -> ran.set(true), cancelled::set, 1L, TimeUnit.HOURS);
+        Schedulers.schedule(() -> ran.set(true), 1L, TimeUnit.HOURS);
+        Schedulers.stop();
+        then(ran.get()).isFalse();
+        then(cancelled.get()).isInstanceOf(IllegalStateException.class);
+
+        // A new timer will be started if needed
+        final CountDownLatch latch1 = new CountDownLatch(1);
+        Schedulers.schedule(latch1::countDown, 10L, TimeUnit.MILLISECONDS);
+        then(latch1.await(3L, TimeUnit.SECONDS)).isTrue();
+    }
+}
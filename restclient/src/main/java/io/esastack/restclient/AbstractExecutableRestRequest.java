@@ -16,15 +16,15 @@
 package io.esastack.restclient;
 
 import esa.commons.Checks;
-import esa.commons.StringUtils;
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.Cookie;
 import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpHeaders;
 import io.esastack.commons.net.http.HttpMethod;
 import io.esastack.commons.net.http.MediaType;
-import io.esastack.commons.net.http.MediaTypeUtil;
 import io.esastack.httpclient.core.CompositeRequest;
 import io.esastack.httpclient.core.Context;
+import io.esastack.httpclient.core.FileHandler;
 import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.httpclient.core.HttpUri;
 import io.esastack.httpclient.core.MultipartBody;
@@ -32,11 +32,17 @@ import io.esastack.httpclient.core.util.Futures;
 import io.esastack.restclient.codec.Decoder;
 import io.esastack.restclient.codec.Encoder;
 import io.esastack.restclient.codec.RequestContent;
+import io.esastack.restclient.codec.impl.CodecDispatchCache;
 import io.esastack.restclient.codec.impl.EncodeChainImpl;
+import io.esastack.restclient.codec.impl.JacksonCodec;
+import io.esastack.restclient.codec.impl.JsonElementStream;
+import io.esastack.restclient.codec.impl.StreamingJsonHandle;
 import io.esastack.restclient.exec.RestRequestExecutor;
+import io.esastack.restclient.utils.ContentTypeUtil;
 import io.esastack.restclient.utils.CookiesUtil;
 
 import java.io.File;
+import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -49,16 +55,29 @@ abstract class AbstractExecutableRestRequest implements ExecutableRestRequest {
     protected final RestRequestExecutor requestExecutor;
     private Encoder encoder;
     private Decoder decoder;
+    private StreamingJsonHandle streamingHandle;
+    private JsonElementStream<?> elementStream;
+    private FileHandler fileHandler;
+    private final CodecDispatchCache dispatchCache;
+    private final ContentTypeUtil.Memo contentTypeMemo = new ContentTypeUtil.Memo();
 
     protected AbstractExecutableRestRequest(CompositeRequest request,
                                             RestClientOptions clientOptions,
                                             RestRequestExecutor requestExecutor) {
+        this(request, clientOptions, requestExecutor, null);
+    }
+
+    protected AbstractExecutableRestRequest(CompositeRequest request,
+                                            RestClientOptions clientOptions,
+                                            RestRequestExecutor requestExecutor,
+                                            CodecDispatchCache dispatchCache) {
         Checks.checkNotNull(request, "request");
         Checks.checkNotNull(clientOptions, "clientOptions");
         Checks.checkNotNull(requestExecutor, "requestExecutor");
         this.target = request;
         this.clientOptions = clientOptions;
         this.requestExecutor = requestExecutor;
+        this.dispatchCache = dispatchCache;
     }
 
     @Override
@@ -127,6 +146,25 @@ abstract class AbstractExecutableRestRequest implements ExecutableRestRequest {
         return requestExecutor.execute(this);
     }
 
+    @Override
+    public <T> ResponseStream<T> executeToStream(Type elementType) {
+        final JacksonCodec codec = detectJacksonCodec();
+        final JsonElementStream<T> stream = new JsonElementStream<>(codec == null ? new JacksonCodec() : codec,
+                elementType);
+        elementStream = stream;
+        stream.bind(execute());
+        return stream;
+    }
+
+    @Override
+    public CompletionStage<RestResponseBase> executeToFile(FileHandler handler) {
+        Checks.checkNotNull(handler, "handler");
+        fileHandler = handler;
+        return execute().thenCompose(rsp -> rsp.status() >= 200 && rsp.status() < 300
+                ? handler.written().thenApply(bytes -> rsp)
+                : Futures.completed(rsp));
+    }
+
     CompletionStage<HttpResponse> sendRequest() {
         try {
             if (hasBody()) {
@@ -135,9 +173,56 @@ abstract class AbstractExecutableRestRequest implements ExecutableRestRequest {
         } catch (Exception e) {
             return Futures.completed(e);
         }
+        if (fileHandler != null) {
+            target.handler(fileHandler);
+            return target.execute();
+        }
+        if (elementStream != null) {
+            target.handle(elementStream);
+            final CompletionStage<HttpResponse> response = target.execute();
+            elementStream.onSent(response);
+            return response;
+        }
+        if (clientOptions.isUseStreamingDecode()) {
+            final JacksonCodec codec = detectJacksonCodec();
+            if (codec != null) {
+                streamingHandle = new StreamingJsonHandle(codec);
+                target.handle(streamingHandle);
+            }
+        }
         return target.execute();
     }
 
+    /**
+     * Obtains the handle which has parsed the response while receiving.
+     *
+     * @return handle, which is {@code null} if the streaming decode isn't used
+     */
+    StreamingJsonHandle streamingHandle() {
+        return streamingHandle;
+    }
+
+    /**
+     * Obtains the cache of the codecs of the client.
+     *
+     * @return cache, which may be {@code null}
+     */
+    CodecDispatchCache dispatchCache() {
+        return dispatchCache;
+    }
+
+    private JacksonCodec detectJacksonCodec() {
+        if (decoder != null) {
+            return decoder instanceof JacksonCodec ? (JacksonCodec) decoder : null;
+        }
+        for (Decoder decoder0 : clientOptions.unmodifiableDecoders()) {
+            if (decoder0 instanceof JacksonCodec) {
+                return (JacksonCodec) decoder0;
+            }
+        }
+        return null;
+    }
+
     private boolean hasBody() {
         return entity() != null;
     }
@@ -148,13 +233,17 @@ abstract class AbstractExecutableRestRequest implements ExecutableRestRequest {
                 type(),
                 generics(),
                 clientOptions.unmodifiableEncodeAdvices(),
-                clientOptions.unmodifiableEncoders()).next();
+                clientOptions.unmodifiableEncoders(),
+                clientOptions.isUseBufferEncode(),
+                dispatchCache).next();
     }
 
     private void fillBody(RequestContent<?> requestContent) {
         Object entity = requestContent.value();
         if (entity instanceof byte[]) {
             target.body((byte[]) entity);
+        } else if (entity instanceof Buffer) {
+            target.body((Buffer) entity);
         } else if (entity instanceof File) {
             target.body((File) entity);
         } else if (entity instanceof MultipartBody) {
@@ -240,11 +329,7 @@ abstract class AbstractExecutableRestRequest implements ExecutableRestRequest {
     @Override
     public MediaType contentType() {
         String contentTypeString = headers().get(HttpHeaderNames.CONTENT_TYPE);
-        if (StringUtils.isBlank(contentTypeString)) {
-            return null;
-        }
-
-        return MediaTypeUtil.parseMediaType(contentTypeString);
+        return contentTypeMemo.get(contentTypeString);
     }
 
     @Override
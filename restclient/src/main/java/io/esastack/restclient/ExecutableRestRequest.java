@@ -17,9 +17,12 @@ package io.esastack.restclient;
 
 import io.esastack.commons.net.http.Cookie;
 import io.esastack.commons.net.http.MediaType;
+import io.esastack.httpclient.core.FileHandler;
 import io.esastack.restclient.codec.Decoder;
 import io.esastack.restclient.codec.Encoder;
 
+import java.lang.reflect.Type;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.concurrent.CompletionStage;
 
@@ -27,6 +30,57 @@ public interface ExecutableRestRequest extends RestRequestBase {
 
     CompletionStage<RestResponseBase> execute();
 
+    /**
+     * Executes the request and decodes the response body, which is a JSON array or newline-delimited JSON, to
+     * elements incrementally while receiving, see {@link ResponseStream}. The elements are always bound by the
+     * {@link io.esastack.restclient.codec.impl.JacksonCodec} of the client or the request.
+     *
+     * @param elementType type of element
+     * @param <T>         type of element
+     * @return stream of elements
+     */
+    default <T> ResponseStream<T> executeToStream(Class<T> elementType) {
+        return executeToStream((Type) elementType);
+    }
+
+    /**
+     * Executes the request and decodes the response body to elements incrementally, see
+     * {@link #executeToStream(Class)}. The default implementation throws {@link UnsupportedOperationException},
+     * which has been overridden by the requests created by {@link RestClient}.
+     *
+     * @param elementType generic type of element
+     * @param <T>         type of element
+     * @return stream of elements
+     */
+    default <T> ResponseStream<T> executeToStream(Type elementType) {
+        throw new UnsupportedOperationException("executeToStream");
+    }
+
+    /**
+     * Executes the request and writes the response body to the given file while receiving, see
+     * {@link #executeToFile(FileHandler)}.
+     *
+     * @param path path of file
+     * @return response
+     */
+    default CompletionStage<RestResponseBase> executeToFile(Path path) {
+        return executeToFile(FileHandler.of(path));
+    }
+
+    /**
+     * Executes the request and writes the response body to file by the given {@link FileHandler}, so the body is
+     * neither aggregated in memory nor limited by the {@code maxContentLength}. The returned response completes
+     * once the body of the successful(2xx) response has been written, and the body of others is discarded. The
+     * default implementation throws {@link UnsupportedOperationException}, which has been overridden by the
+     * requests created by {@link RestClient}.
+     *
+     * @param handler handler
+     * @return response
+     */
+    default CompletionStage<RestResponseBase> executeToFile(FileHandler handler) {
+        throw new UnsupportedOperationException("executeToFile");
+    }
+
     @Override
     ExecutableRestRequest readTimeout(long readTimeout);
 
@@ -39,9 +39,10 @@ public final class RequestTransceiver implements InvocationChain {
                 .thenApply((response) -> processResponse(executableRequest, response, executableRequest.clientOptions));
     }
 
-    private RestResponse processResponse(RestRequestBase request,
+    private RestResponse processResponse(AbstractExecutableRestRequest request,
                                          HttpResponse response,
                                          RestClientOptions clientOptions) {
-        return new RestResponseBaseImpl(request, response, clientOptions);
+        return new RestResponseBaseImpl(request, response, clientOptions, request.streamingHandle(),
+                request.dispatchCache());
     }
 }
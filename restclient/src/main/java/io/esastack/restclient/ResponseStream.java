@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The elements which are decoded from the response body incrementally, eg: the elements of a JSON array or the
+ * values of newline-delimited JSON, so that a huge response can be consumed without aggregating the whole body.
+ * The elements are parsed as soon as the chunks of the body arrive, and bound to the target type lazily while
+ * being pulled by {@link #next()}.
+ * <p>
+ * {@link #hasNext()} and {@link #next()} block until the next element is available or the response has ended,
+ * and throw a {@link java.util.concurrent.CompletionException} which wraps the cause if the request fails or
+ * the body can't be decoded.
+ *
+ * @param <T> type of element
+ */
+public interface ResponseStream<T> extends Iterator<T>, AutoCloseable {
+
+    /**
+     * Obtains the response, which is completed once the whole body has been received. Be aware that the body has
+     * been consumed by this stream, so it can't be decoded by {@link RestResponseBase#bodyToEntity(Class)} any more.
+     *
+     * @return response
+     */
+    CompletionStage<RestResponseBase> response();
+
+    /**
+     * Stops pulling the elements, and aborts the request if the response hasn't ended.
+     */
+    @Override
+    void close();
+}
@@ -21,12 +21,15 @@ import esa.commons.spi.SpiLoader;
 import io.esastack.commons.net.http.HttpVersion;
 import io.esastack.httpclient.core.HttpClientBuilder;
 import io.esastack.httpclient.core.Reusable;
+import io.esastack.httpclient.core.config.ConcurrencyLimitOptions;
 import io.esastack.httpclient.core.config.Decompression;
+import io.esastack.httpclient.core.config.HedgeOptions;
 import io.esastack.httpclient.core.config.Http1Options;
 import io.esastack.httpclient.core.config.Http2Options;
 import io.esastack.httpclient.core.config.NetOptions;
 import io.esastack.httpclient.core.config.RetryOptions;
 import io.esastack.httpclient.core.config.SslOptions;
+import io.esastack.httpclient.core.resolver.AddressSelector;
 import io.esastack.httpclient.core.resolver.HostResolver;
 import io.esastack.httpclient.core.spi.ChannelPoolOptionsProvider;
 import io.esastack.httpclient.core.util.LoggerUtils;
@@ -37,6 +40,11 @@ import io.esastack.restclient.codec.DecodeAdvice;
 import io.esastack.restclient.codec.Decoder;
 import io.esastack.restclient.codec.EncodeAdvice;
 import io.esastack.restclient.codec.Encoder;
+import io.esastack.restclient.codec.RequestContent;
+import io.esastack.restclient.codec.ResponseContent;
+import io.esastack.restclient.codec.impl.JacksonCodec;
+import io.esastack.restclient.codec.impl.ProtoBufCodec;
+import io.esastack.restclient.codec.impl.StringCodec;
 import io.esastack.restclient.exec.RestInterceptor;
 import io.esastack.restclient.spi.DecodeAdviceFactory;
 import io.esastack.restclient.spi.DecoderFactory;
@@ -65,6 +73,8 @@ public class RestClientBuilder implements Reusable<RestClientBuilder>, RestClien
     private final List<Decoder> decoders = new ArrayList<>();
     private final List<Encoder> encoders = new ArrayList<>();
     private String name = CLIENT;
+    private boolean useStreamingDecode = false;
+    private boolean useBufferEncode = false;
 
     RestClientBuilder() {
         this.httpClientBuilder = new HttpClientBuilder();
@@ -84,6 +94,11 @@ public class RestClientBuilder implements Reusable<RestClientBuilder>, RestClien
         return self();
     }
 
+    public RestClientBuilder addressSelector(AddressSelector addressSelector) {
+        httpClientBuilder.addressSelector(addressSelector);
+        return self();
+    }
+
     public RestClientBuilder h2ClearTextUpgrade(boolean h2ClearTextUpgrade) {
         httpClientBuilder.h2ClearTextUpgrade(h2ClearTextUpgrade);
         return self();
@@ -144,6 +159,37 @@ public class RestClientBuilder implements Reusable<RestClientBuilder>, RestClien
         return self();
     }
 
+    /**
+     * Sets whether to parse the JSON response incrementally with Jackson's non-blocking parser while receiving,
+     * so that {@link RestResponseBase#bodyToEntity(Class)} can be completed shortly after the last byte has
+     * arrived, and the raw bytes of the body needn't be staged. It takes effect only when the decoder of the
+     * request is absent or a {@link JacksonCodec}, and a {@link JacksonCodec} will be used to decode the JSON
+     * response, which means the {@link DecodeAdvice}s will see a {@link ResponseContent} whose value is a
+     * {@link com.fasterxml.jackson.databind.util.TokenBuffer} rather than {@code byte[]}. Default {@code false}.
+     *
+     * @param useStreamingDecode useStreamingDecode
+     * @return this builder
+     */
+    public RestClientBuilder useStreamingDecode(boolean useStreamingDecode) {
+        this.useStreamingDecode = useStreamingDecode;
+        return self();
+    }
+
+    /**
+     * Sets whether to serialize the request entity into a pooled (direct preferred) buffer straightly rather
+     * than a {@code byte[]}, which saves an allocation and a copy of the whole body per request. The buffer will
+     * be released automatically once the request completes. It takes effect for the built-in {@link StringCodec},
+     * {@link ProtoBufCodec} and the JSON codecs, which means the {@link EncodeAdvice}s may see a
+     * {@link RequestContent} whose value is a {@link io.esastack.commons.net.buffer.Buffer}. Default {@code false}.
+     *
+     * @param useBufferEncode useBufferEncode
+     * @return this builder
+     */
+    public RestClientBuilder useBufferEncode(boolean useBufferEncode) {
+        this.useBufferEncode = useBufferEncode;
+        return self();
+    }
+
     public RestClientBuilder addInterceptor(RestInterceptor interceptor) {
         Checks.checkNotNull(interceptor, "interceptor");
         this.interceptors.add(interceptor);
@@ -258,6 +304,16 @@ public class RestClientBuilder implements Reusable<RestClientBuilder>, RestClien
         return self();
     }
 
+    public RestClientBuilder hedgeOptions(HedgeOptions hedgeOptions) {
+        httpClientBuilder.hedgeOptions(hedgeOptions);
+        return self();
+    }
+
+    public RestClientBuilder concurrencyLimitOptions(ConcurrencyLimitOptions concurrencyLimitOptions) {
+        httpClientBuilder.concurrencyLimitOptions(concurrencyLimitOptions);
+        return self();
+    }
+
     public RestClientBuilder maxRedirects(int maxRedirects) {
         Checks.checkArg(maxRedirects >= 0, "MaxRedirects must be >= 0!");
         httpClientBuilder.maxRedirects(maxRedirects);
@@ -275,6 +331,11 @@ public class RestClientBuilder implements Reusable<RestClientBuilder>, RestClien
         return httpClientBuilder.resolver();
     }
 
+    @Override
+    public AddressSelector addressSelector() {
+        return httpClientBuilder.addressSelector();
+    }
+
     @Override
     public boolean isH2ClearTextUpgrade() {
         return httpClientBuilder.isH2ClearTextUpgrade();
@@ -335,6 +396,16 @@ public class RestClientBuilder implements Reusable<RestClientBuilder>, RestClien
         return httpClientBuilder.isUseExpectContinue();
     }
 
+    @Override
+    public boolean isUseStreamingDecode() {
+        return useStreamingDecode;
+    }
+
+    @Override
+    public boolean isUseBufferEncode() {
+        return useBufferEncode;
+    }
+
     @Override
     public SslOptions sslOptions() {
         return httpClientBuilder.sslOptions();
@@ -360,6 +431,16 @@ public class RestClientBuilder implements Reusable<RestClientBuilder>, RestClien
         return httpClientBuilder.retryOptions();
     }
 
+    @Override
+    public HedgeOptions hedgeOptions() {
+        return httpClientBuilder.hedgeOptions();
+    }
+
+    @Override
+    public ConcurrencyLimitOptions concurrencyLimitOptions() {
+        return httpClientBuilder.concurrencyLimitOptions();
+    }
+
     @Override
     public int maxRedirects() {
         return httpClientBuilder.maxRedirects();
@@ -529,6 +610,8 @@ public class RestClientBuilder implements Reusable<RestClientBuilder>, RestClien
         restClientBuilder.addDecodeAdvices(decodeAdvices);
         restClientBuilder.addDecoders(decoders);
         restClientBuilder.addEncoders(encoders);
+        restClientBuilder.useStreamingDecode(useStreamingDecode);
+        restClientBuilder.useBufferEncode(useBufferEncode);
         return restClientBuilder;
     }
 }
@@ -19,8 +19,10 @@ import esa.commons.Checks;
 import io.esastack.httpclient.core.CompositeRequest;
 import io.esastack.httpclient.core.HttpClient;
 import io.esastack.httpclient.core.metrics.CallbackExecutorMetric;
+import io.esastack.httpclient.core.metrics.ConcurrencyLimitMetricProvider;
 import io.esastack.httpclient.core.metrics.ConnectionPoolMetricProvider;
 import io.esastack.httpclient.core.metrics.IoThreadGroupMetric;
+import io.esastack.restclient.codec.impl.CodecDispatchCache;
 import io.esastack.restclient.exec.RestRequestExecutor;
 import io.esastack.restclient.exec.RestRequestExecutorImpl;
 
@@ -31,6 +33,7 @@ public class RestClientImpl implements RestClient {
     private final RestRequestExecutor requestExecutor;
     private final HttpClient httpClient;
     private final RestClientOptions clientOptions;
+    private final CodecDispatchCache dispatchCache = new CodecDispatchCache();
 
     RestClientImpl(RestClientOptions clientOptions, HttpClient httpClient) {
         Checks.checkNotNull(clientOptions, "clientOptions");
@@ -43,37 +46,37 @@ public class RestClientImpl implements RestClient {
     @Override
     public ExecutableRestRequest get(String uri) {
         return new RestCompositeRequest((CompositeRequest) httpClient.get(uri),
-                clientOptions, requestExecutor);
+                clientOptions, requestExecutor, dispatchCache);
     }
 
     @Override
     public RestRequestFacade post(String uri) {
         return new RestCompositeRequest((CompositeRequest) httpClient.post(uri),
-                clientOptions, requestExecutor);
+                clientOptions, requestExecutor, dispatchCache);
     }
 
     @Override
     public RestRequestFacade delete(String uri) {
         return new RestCompositeRequest((CompositeRequest) httpClient.delete(uri),
-                clientOptions, requestExecutor);
+                clientOptions, requestExecutor, dispatchCache);
     }
 
     @Override
     public RestRequestFacade put(String uri) {
         return new RestCompositeRequest((CompositeRequest) httpClient.put(uri),
-                clientOptions, requestExecutor);
+                clientOptions, requestExecutor, dispatchCache);
     }
 
     @Override
     public ExecutableRestRequest head(String uri) {
         return new RestCompositeRequest((CompositeRequest) httpClient.head(uri),
-                clientOptions, requestExecutor);
+                clientOptions, requestExecutor, dispatchCache);
     }
 
     @Override
     public ExecutableRestRequest options(String uri) {
         return new RestCompositeRequest((CompositeRequest) httpClient
-                .options(uri), clientOptions, requestExecutor);
+                .options(uri), clientOptions, requestExecutor, dispatchCache);
     }
 
     @Override
@@ -96,6 +99,11 @@ public class RestClientImpl implements RestClient {
         return httpClient.callbackExecutorMetric();
     }
 
+    @Override
+    public ConcurrencyLimitMetricProvider concurrencyLimitMetric() {
+        return httpClient.concurrencyLimitMetric();
+    }
+
     @Override
     public void close() throws IOException {
         httpClient.close();
@@ -16,18 +16,22 @@
 package io.esastack.restclient;
 
 import io.esastack.commons.net.http.HttpVersion;
+import io.esastack.httpclient.core.config.ConcurrencyLimitOptions;
 import io.esastack.httpclient.core.config.Decompression;
+import io.esastack.httpclient.core.config.HedgeOptions;
 import io.esastack.httpclient.core.config.Http1Options;
 import io.esastack.httpclient.core.config.Http2Options;
 import io.esastack.httpclient.core.config.NetOptions;
 import io.esastack.httpclient.core.config.RetryOptions;
 import io.esastack.httpclient.core.config.SslOptions;
+import io.esastack.httpclient.core.resolver.AddressSelector;
 import io.esastack.httpclient.core.resolver.HostResolver;
 import io.esastack.httpclient.core.spi.ChannelPoolOptionsProvider;
 import io.esastack.restclient.codec.DecodeAdvice;
 import io.esastack.restclient.codec.Decoder;
 import io.esastack.restclient.codec.EncodeAdvice;
 import io.esastack.restclient.codec.Encoder;
+import io.esastack.restclient.codec.impl.StreamingJsonHandle;
 import io.esastack.restclient.exec.RestInterceptor;
 
 import java.util.List;
@@ -41,6 +45,16 @@ public interface RestClientOptions {
 
     HostResolver resolver();
 
+    /**
+     * Obtains the {@link AddressSelector} which selects one of the addresses resolved for a host, {@code null}
+     * means that only the first resolved address is used.
+     *
+     * @return selector, {@code null} by default
+     */
+    default AddressSelector addressSelector() {
+        return null;
+    }
+
     boolean isH2ClearTextUpgrade();
 
     int connectTimeout();
@@ -65,6 +79,25 @@ public interface RestClientOptions {
 
     boolean isUseExpectContinue();
 
+    /**
+     * Whether to parse the JSON response incrementally while receiving, see {@link StreamingJsonHandle}.
+     *
+     * @return {@code true} if enabled, {@code false} by default
+     */
+    default boolean isUseStreamingDecode() {
+        return false;
+    }
+
+    /**
+     * Whether to serialize the request entity into a pooled {@link io.esastack.commons.net.buffer.Buffer}
+     * directly, see {@link io.esastack.restclient.codec.EncodeContext#isBufferPreferred()}.
+     *
+     * @return {@code true} if enabled, {@code false} by default
+     */
+    default boolean isUseBufferEncode() {
+        return false;
+    }
+
     SslOptions sslOptions();
 
     NetOptions netOptions();
@@ -75,6 +108,24 @@ public interface RestClientOptions {
 
     RetryOptions retryOptions();
 
+    /**
+     * Obtains the options of hedging, {@code null} means that the hedging is disabled.
+     *
+     * @return options, {@code null} by default
+     */
+    default HedgeOptions hedgeOptions() {
+        return null;
+    }
+
+    /**
+     * Obtains the options of the adaptive concurrency limit, {@code null} means that the concurrency is unlimited.
+     *
+     * @return options, {@code null} by default
+     */
+    default ConcurrencyLimitOptions concurrencyLimitOptions() {
+        return null;
+    }
+
     int maxRedirects();
 
     ChannelPoolOptionsProvider channelPoolOptionsProvider();
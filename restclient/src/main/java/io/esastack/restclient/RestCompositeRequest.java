@@ -28,6 +28,7 @@ import io.esastack.httpclient.core.MultipartConfigure;
 import io.esastack.httpclient.core.MultipartFileItem;
 import io.esastack.restclient.codec.Decoder;
 import io.esastack.restclient.codec.Encoder;
+import io.esastack.restclient.codec.impl.CodecDispatchCache;
 import io.esastack.restclient.exec.RestRequestExecutor;
 import io.esastack.restclient.utils.GenericsUtil;
 
@@ -46,7 +47,14 @@ public class RestCompositeRequest extends AbstractExecutableRestRequest
     RestCompositeRequest(CompositeRequest request,
                          RestClientOptions clientOptions,
                          RestRequestExecutor requestExecutor) {
-        super(request, clientOptions, requestExecutor);
+        this(request, clientOptions, requestExecutor, null);
+    }
+
+    RestCompositeRequest(CompositeRequest request,
+                         RestClientOptions clientOptions,
+                         RestRequestExecutor requestExecutor,
+                         CodecDispatchCache dispatchCache) {
+        super(request, clientOptions, requestExecutor, dispatchCache);
     }
 
     @Override
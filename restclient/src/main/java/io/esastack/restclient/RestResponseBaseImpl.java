@@ -16,41 +16,82 @@
 package io.esastack.restclient;
 
 import esa.commons.Checks;
-import esa.commons.StringUtils;
 import io.esastack.commons.net.http.Cookie;
 import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpHeaders;
 import io.esastack.commons.net.http.HttpVersion;
 import io.esastack.commons.net.http.MediaType;
-import io.esastack.commons.net.http.MediaTypeUtil;
 import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.httpclient.core.util.BufferUtils;
 import io.esastack.restclient.codec.DecodeAdviceContext;
+import io.esastack.restclient.codec.ResponseContent;
+import io.esastack.restclient.codec.impl.CodecDispatchCache;
 import io.esastack.restclient.codec.impl.DecodeChainImpl;
+import io.esastack.restclient.codec.impl.StreamingJsonHandle;
+import io.esastack.restclient.utils.ContentTypeUtil;
 import io.esastack.restclient.utils.CookiesUtil;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RestResponseBaseImpl implements RestResponseBase {
 
+    /**
+     * Placeholder of the {@code null} entity, which can't be kept in a {@link ConcurrentHashMap}.
+     */
+    private static final Object NULL_ENTITY = new Object();
+
     private final RestRequestBase request;
     private final HttpResponse response;
     private final RestClientOptions clientOptions;
+    private final StreamingJsonHandle streamingHandle;
+    private final CodecDispatchCache dispatchCache;
+    private final ContentTypeUtil.Memo contentTypeMemo = new ContentTypeUtil.Memo();
+
+    /**
+     * The raw content of the body which is extracted at most once and shared by all the decodings.
+     */
+    private volatile ResponseContent<?> content;
+
+    /**
+     * The decoded entities keyed by the requested {@link Type}, which is created on first decoding.
+     */
+    private volatile Map<Type, Object> entities;
 
     RestResponseBaseImpl(
             RestRequestBase request,
             HttpResponse response,
             RestClientOptions clientOptions) {
+        this(request, response, clientOptions, null);
+    }
+
+    RestResponseBaseImpl(
+            RestRequestBase request,
+            HttpResponse response,
+            RestClientOptions clientOptions,
+            StreamingJsonHandle streamingHandle) {
+        this(request, response, clientOptions, streamingHandle, null);
+    }
+
+    RestResponseBaseImpl(
+            RestRequestBase request,
+            HttpResponse response,
+            RestClientOptions clientOptions,
+            StreamingJsonHandle streamingHandle,
+            CodecDispatchCache dispatchCache) {
         Checks.checkNotNull(request, "request");
         Checks.checkNotNull(response, "response");
         Checks.checkNotNull(clientOptions, "clientOptions");
         this.request = request;
         this.response = response;
         this.clientOptions = clientOptions;
+        this.streamingHandle = streamingHandle;
+        this.dispatchCache = dispatchCache;
     }
 
     @Override
@@ -78,17 +119,67 @@ public class RestResponseBaseImpl implements RestResponseBase {
         return bodyToEntity((Type) entityClass);
     }
 
+    /**
+     * Decodes the body to the given {@code generics}. The result is memoized per {@link Type}, so the body is
+     * only decoded once no matter how many times it's inspected, eg: by an interceptor and the caller, and
+     * the same instance is returned for the same type. Failed decodings are not memoized.
+     *
+     * @param generics target type
+     * @param <T>      type of entity
+     * @return entity
+     * @throws Exception if failed to decode
+     */
     @SuppressWarnings("unchecked")
     @Override
     public <T> T bodyToEntity(Type generics) throws Exception {
+        Checks.checkNotNull(generics, "generics");
+        Map<Type, Object> entities = this.entities;
+        if (entities != null) {
+            final Object entity = entities.get(generics);
+            if (entity != null) {
+                return entity == NULL_ENTITY ? null : (T) entity;
+            }
+        }
+
         DecodeAdviceContext ctx = new DecodeChainImpl(
                 request,
                 this,
                 clientOptions,
                 getClass(generics),
                 generics,
-                BufferUtils.toByteBuf(response.body()));
-        return (T) ctx.next();
+                content(),
+                dispatchCache);
+        final Object entity = ctx.next();
+
+        if (entities == null) {
+            synchronized (this) {
+                if ((entities = this.entities) == null) {
+                    this.entities = entities = new ConcurrentHashMap<>(4);
+                }
+            }
+        }
+        // Keeps the first one if decoded concurrently, so that the same instance is always returned.
+        final Object existing = entities.putIfAbsent(generics, entity == null ? NULL_ENTITY : entity);
+        if (existing != null) {
+            return existing == NULL_ENTITY ? null : (T) existing;
+        }
+        return (T) entity;
+    }
+
+    private ResponseContent<?> content() throws Exception {
+        ResponseContent<?> content = this.content;
+        if (content != null) {
+            return content;
+        }
+        if (streamingHandle != null) {
+            content = streamingHandle.content();
+        }
+        if (content == null) {
+            content = DecodeChainImpl.toContent(BufferUtils.toByteBuf(response.body()));
+        }
+        // Racing is harmless since the extracting is idempotent.
+        this.content = content;
+        return content;
     }
 
     @Override
@@ -103,11 +194,8 @@ public class RestResponseBaseImpl implements RestResponseBase {
 
     @Override
     public MediaType contentType() {
-        String contentType = headers().get(HttpHeaderNames.CONTENT_TYPE);
-        if (StringUtils.isNotBlank(contentType)) {
-            return MediaTypeUtil.parseMediaType(contentType);
-        }
-        return null;
+        String contentTypeString = headers().get(HttpHeaderNames.CONTENT_TYPE);
+        return contentTypeMemo.get(contentTypeString);
     }
 
     /**
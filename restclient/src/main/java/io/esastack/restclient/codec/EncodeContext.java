@@ -15,6 +15,7 @@
  */
 package io.esastack.restclient.codec;
 
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.HttpHeaders;
 
 public interface EncodeContext<V> extends EncodeChain {
@@ -24,6 +25,16 @@ public interface EncodeContext<V> extends EncodeChain {
      */
     HttpHeaders headers();
 
+    /**
+     * Whether the entity is expected to be serialized into a {@link Buffer} directly rather than an
+     * intermediate {@code byte[]}. Encoders which are unable to do that may still return {@code byte[]}.
+     *
+     * @return {@code true} if a {@link RequestContent} of {@link Buffer} is preferred
+     */
+    default boolean isBufferPreferred() {
+        return false;
+    }
+
     @Override
     RequestContent<V> next() throws Exception;
 }
@@ -16,11 +16,26 @@
 package io.esastack.restclient.codec;
 
 import esa.commons.DateUtils;
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.MediaType;
 
 public interface JsonCodec extends ByteCodec {
     String DEFAULT_DATE_FORMAT = DateUtils.yyyyMMddHHmmss;
 
+    @Override
+    default RequestContent<?> encode(EncodeContext<?> ctx) throws Exception {
+        if (ctx.isBufferPreferred()) {
+            MediaType contentType = ctx.contentType();
+            if (contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+                RequestContent<Buffer> content = encodeToJsonBuffer(ctx);
+                if (content != null) {
+                    return content;
+                }
+            }
+        }
+        return ByteCodec.super.encode(ctx);
+    }
+
     @Override
     default RequestContent<byte[]> doEncode(EncodeContext<byte[]> ctx) throws Exception {
         MediaType contentType = ctx.contentType();
@@ -33,6 +48,18 @@ public interface JsonCodec extends ByteCodec {
 
     RequestContent<byte[]> encodeToJson(EncodeContext<byte[]> ctx) throws Exception;
 
+    /**
+     * Serializes the entity into a {@link Buffer} directly, which is used only when
+     * {@link EncodeContext#isBufferPreferred()} is {@code true}.
+     *
+     * @param ctx ctx
+     * @return content, or {@code null} to fall back to {@link #encodeToJson(EncodeContext)}
+     * @throws Exception ex
+     */
+    default RequestContent<Buffer> encodeToJsonBuffer(EncodeContext<?> ctx) throws Exception {
+        return null;
+    }
+
     @Override
     default Object doDecode(DecodeContext<byte[]> ctx) throws Exception {
         MediaType contentType = ctx.contentType();
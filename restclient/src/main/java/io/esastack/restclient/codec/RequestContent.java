@@ -15,6 +15,7 @@
  */
 package io.esastack.restclient.codec;
 
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.httpclient.core.MultipartBody;
 import io.esastack.restclient.codec.impl.RequestContentImpl;
 
@@ -26,6 +27,17 @@ public interface RequestContent<V> extends Content<V> {
         return new RequestContentImpl<>(content);
     }
 
+    /**
+     * Obtains a {@link RequestContent} of {@link Buffer}, which will be released automatically when the request
+     * completes.
+     *
+     * @param content content
+     * @return request content
+     */
+    static RequestContent<Buffer> of(Buffer content) {
+        return new RequestContentImpl<>(content);
+    }
+
     static RequestContent<File> of(File content) {
         return new RequestContentImpl<>(content);
     }
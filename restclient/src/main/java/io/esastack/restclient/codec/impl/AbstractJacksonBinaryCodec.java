@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import esa.commons.Checks;
+import io.esastack.commons.net.http.MediaType;
+import io.esastack.restclient.codec.ByteCodec;
+import io.esastack.restclient.codec.DecodeContext;
+import io.esastack.restclient.codec.EncodeContext;
+import io.esastack.restclient.codec.RequestContent;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.OutputStream;
+
+/**
+ * The base codec of the binary formats of Jackson, eg: Smile and CBOR, which (de)serializes the entity with an
+ * {@link ObjectMapper} whose {@link com.fasterxml.jackson.core.JsonFactory} is of the binary format when the
+ * content type is compatible with {@link #mediaType()}.
+ */
+public abstract class AbstractJacksonBinaryCodec implements ByteCodec {
+
+    private final ObjectMapper objectMapper;
+    private final MediaType mediaType;
+    private final ObjectMapperCache cache;
+
+    /**
+     * Creates the codec with the given {@code objectMapper}, which can be reconfigured afterwards because its
+     * readers and writer aren't cached.
+     *
+     * @param objectMapper objectMapper
+     * @param mediaType    mediaType
+     */
+    protected AbstractJacksonBinaryCodec(ObjectMapper objectMapper, MediaType mediaType) {
+        this(objectMapper, mediaType, false);
+    }
+
+    /**
+     * Creates the codec with the given {@code objectMapper}. Only the internal default mappers are cacheable, see
+     * {@link ObjectMapperCache}.
+     *
+     * @param objectMapper objectMapper
+     * @param mediaType    mediaType
+     * @param cacheable    whether to cache the readers and writer
+     */
+    AbstractJacksonBinaryCodec(ObjectMapper objectMapper, MediaType mediaType, boolean cacheable) {
+        Checks.checkNotNull(objectMapper, "objectMapper");
+        Checks.checkNotNull(mediaType, "mediaType");
+        this.objectMapper = objectMapper;
+        this.mediaType = mediaType;
+        this.cache = new ObjectMapperCache(objectMapper, cacheable);
+    }
+
+    @Override
+    public RequestContent<?> encode(EncodeContext<?> ctx) throws Exception {
+        if (ctx.isBufferPreferred() && isCompatible(ctx.contentType())) {
+            final Object entity = ctx.entity();
+            final ObjectWriter writer = cache.writer();
+            return BufferContents.encode(buf ->
+                    writer.writeValue((OutputStream) new ByteBufOutputStream(buf), entity));
+        }
+        return ByteCodec.super.encode(ctx);
+    }
+
+    @Override
+    public RequestContent<byte[]> doEncode(EncodeContext<byte[]> ctx) throws Exception {
+        if (isCompatible(ctx.contentType())) {
+            final Object entity = ctx.entity();
+            return RequestContent.of(cache.writer().writeValueAsBytes(entity));
+        }
+        return ctx.next();
+    }
+
+    @Override
+    public Object doDecode(DecodeContext<byte[]> ctx) throws Exception {
+        if (isCompatible(ctx.contentType())) {
+            byte[] content = ctx.content().value();
+            if (content == null) {
+                return null;
+            }
+            return cache.reader(ctx.targetGenerics()).readValue(content);
+        }
+        return ctx.next();
+    }
+
+    public ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Whether the class of given name is present, which is used to detect the optional dependency of the binary
+     * format without initializing it.
+     *
+     * @param className the name of class
+     * @return {@code true} if present
+     */
+    protected static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, AbstractJacksonBinaryCodec.class.getClassLoader());
+            return true;
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    private boolean isCompatible(MediaType contentType) {
+        return contentType != null && mediaType.isCompatibleWith(contentType);
+    }
+}
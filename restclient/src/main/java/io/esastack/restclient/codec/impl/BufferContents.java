@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec.impl;
+
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.netty.buffer.BufferImpl;
+import io.esastack.restclient.codec.RequestContent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * Utils to serialize the entity into a pooled {@link ByteBuf} directly. The channels use
+ * {@link ByteBufAllocator#DEFAULT} unless configured otherwise, so the buffer is allocated from it, which
+ * prefers direct memory and can be written to the socket without copying. The buffer will be released by the
+ * underlying http client once the request completes.
+ */
+final class BufferContents {
+
+    private BufferContents() {
+    }
+
+    static RequestContent<Buffer> encode(Writer writer) throws Exception {
+        return encode(ByteBufAllocator.DEFAULT.buffer(), writer);
+    }
+
+    static RequestContent<Buffer> encode(int initialCapacity, Writer writer) throws Exception {
+        return encode(ByteBufAllocator.DEFAULT.buffer(initialCapacity), writer);
+    }
+
+    private static RequestContent<Buffer> encode(ByteBuf buf, Writer writer) throws Exception {
+        try {
+            writer.write(buf);
+        } catch (Throwable ex) {
+            buf.release();
+            throw ex;
+        }
+        return RequestContent.of(new BufferImpl(buf));
+    }
+
+    @FunctionalInterface
+    interface Writer {
+
+        void write(ByteBuf buf) throws Exception;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec.impl;
+
+import io.esastack.commons.net.http.MediaType;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The cache which remembers the index of the {@link io.esastack.restclient.codec.Encoder} or
+ * {@link io.esastack.restclient.codec.Decoder} which has handled the given content type and entity type, so that
+ * the subsequent encoding or decoding can dispatch straight to it instead of walking the codecs before it, which
+ * all have declined the same kind of entity. Only the built-in codecs choose whether to handle an entity by the
+ * content type and the type of it merely, so the index is cached only if all the codecs before it are built-in,
+ * the custom ones may decide by the headers, status or the value of the entity and can never be skipped.
+ * <p>
+ * The cache is shared by all the requests of a client, and only the codecs of the client are cached, the
+ * {@link io.esastack.restclient.RestRequest#encoder()} and {@link io.esastack.restclient.RestRequest#decoder()}
+ * are always used directly.
+ */
+public final class CodecDispatchCache {
+
+    /**
+     * The max number of keys to cache, the content types may contain the parameters which vary per request, eg:
+     * the boundary of multipart.
+     */
+    private static final int MAX_SIZE = 1024;
+
+    private static final String BUILT_IN_PACKAGE = CodecDispatchCache.class.getName()
+            .substring(0, CodecDispatchCache.class.getName().lastIndexOf('.') + 1);
+
+    private final ConcurrentMap<Key, Integer> encoders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, Integer> decoders = new ConcurrentHashMap<>();
+
+    int encoderIndex(MediaType contentType, Class<?> type) {
+        return get(encoders, new Key(contentType, type, null));
+    }
+
+    void encoderIndex(MediaType contentType, Class<?> type, int index) {
+        put(encoders, new Key(contentType, type, null), index);
+    }
+
+    int decoderIndex(MediaType contentType, Class<?> type, Class<?> contentClass) {
+        return get(decoders, new Key(contentType, type, contentClass));
+    }
+
+    void decoderIndex(MediaType contentType, Class<?> type, Class<?> contentClass, int index) {
+        put(decoders, new Key(contentType, type, contentClass), index);
+    }
+
+    /**
+     * Whether the codecs before the given {@code index} can be skipped, which are all built-in.
+     *
+     * @param codecs codecs
+     * @param index  index of the codec which has handled the entity
+     * @return {@code true} if skippable, otherwise {@code false}.
+     */
+    static boolean isSkippable(List<?> codecs, int index) {
+        for (int i = 0; i < index; i++) {
+            if (!codecs.get(i).getClass().getName().startsWith(BUILT_IN_PACKAGE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int get(ConcurrentMap<Key, Integer> cache, Key key) {
+        final Integer index = cache.get(key);
+        return index == null ? -1 : index;
+    }
+
+    private static void put(ConcurrentMap<Key, Integer> cache, Key key, int index) {
+        if (cache.size() < MAX_SIZE) {
+            cache.put(key, index);
+        }
+    }
+
+    private static final class Key {
+
+        private final MediaType contentType;
+        private final Class<?> type;
+        private final Class<?> contentClass;
+        private final int hash;
+
+        private Key(MediaType contentType, Class<?> type, Class<?> contentClass) {
+            this.contentType = contentType;
+            this.type = type;
+            this.contentClass = contentClass;
+            this.hash = Objects.hash(contentType, type, contentClass);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return type == key.type
+                    && contentClass == key.contentClass
+                    && Objects.equals(contentType, key.contentType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
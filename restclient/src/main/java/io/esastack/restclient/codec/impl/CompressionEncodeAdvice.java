@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec.impl;
+
+import esa.commons.Checks;
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaderNames;
+import io.esastack.commons.net.http.HttpHeaders;
+import io.esastack.commons.net.http.MediaType;
+import io.esastack.commons.net.netty.buffer.BufferImpl;
+import io.esastack.httpclient.core.config.Compression;
+import io.esastack.httpclient.core.util.BodyCompressor;
+import io.esastack.httpclient.core.util.BufferUtils;
+import io.esastack.restclient.codec.EncodeAdvice;
+import io.esastack.restclient.codec.EncodeAdviceContext;
+import io.esastack.restclient.codec.RequestContent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * This advice is designed to compress the encoded request body whose size is not less than {@code minSize} and
+ * whose content type is compatible with any of the given {@code mediaTypes} (any content type if absent), the
+ * body is compressed into the pooled buffers by {@link BodyCompressor} and the {@code Content-Encoding} header is
+ * set, while the stale {@code Content-Length} header is removed. The body which has been compressed by the user,
+ * eg: the {@code Content-Encoding} header has been set, is left untouched, and so are the file and multipart
+ * bodies.
+ * <p>
+ * It is ordered as {@link #HIGHEST_PRECEDENCE} so that it wraps all the other advices and compresses the final
+ * encoded body.
+ */
+public class CompressionEncodeAdvice implements EncodeAdvice {
+
+    private final Compression compression;
+    private final int minSize;
+    private final int level;
+    private final MediaType[] mediaTypes;
+
+    public CompressionEncodeAdvice(Compression compression, int minSize, MediaType... mediaTypes) {
+        this(compression, minSize, BodyCompressor.DEFAULT_LEVEL, mediaTypes);
+    }
+
+    public CompressionEncodeAdvice(Compression compression, int minSize, int level, MediaType... mediaTypes) {
+        Checks.checkNotNull(compression, "compression");
+        Checks.checkArg(minSize >= 0, "minSize must be >= 0");
+        Checks.checkArg(level >= 0 && level <= 9, "level must be in [0, 9]");
+        this.compression = compression;
+        this.minSize = minSize;
+        this.level = level;
+        this.mediaTypes = mediaTypes == null ? new MediaType[0] : mediaTypes.clone();
+    }
+
+    @Override
+    public RequestContent<?> aroundEncode(EncodeAdviceContext ctx) throws Exception {
+        final RequestContent<?> content = ctx.next();
+        final HttpHeaders headers = ctx.request().headers();
+        if (headers.contains(HttpHeaderNames.CONTENT_ENCODING) || !isCompressible(ctx.request().contentType())) {
+            return content;
+        }
+
+        final Object value = content.value();
+        final ByteBuf body;
+        if (value instanceof byte[]) {
+            if (((byte[]) value).length < minSize) {
+                return content;
+            }
+            body = Unpooled.wrappedBuffer((byte[]) value);
+        } else if (value instanceof Buffer) {
+            body = BufferUtils.toByteBuf((Buffer) value);
+            if (body.readableBytes() < minSize) {
+                return content;
+            }
+        } else {
+            return content;
+        }
+
+        final ByteBuf compressed;
+        try (BodyCompressor compressor = new BodyCompressor(compression, level)) {
+            final ByteBuf head = compressor.compress(body);
+            try {
+                compressed = Unpooled.wrappedBuffer(head, compressor.finish());
+            } catch (Throwable ex) {
+                head.release();
+                throw ex;
+            }
+        }
+        // The Content-Length set by the user is the length of the uncompressed body.
+        headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+        headers.set(HttpHeaderNames.CONTENT_ENCODING, compression.format());
+        return RequestContent.of(new BufferImpl(compressed));
+    }
+
+    @Override
+    public int getOrder() {
+        return HIGHEST_PRECEDENCE;
+    }
+
+    private boolean isCompressible(MediaType contentType) {
+        if (mediaTypes.length == 0) {
+            return true;
+        }
+        if (contentType == null) {
+            return false;
+        }
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.isCompatibleWith(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
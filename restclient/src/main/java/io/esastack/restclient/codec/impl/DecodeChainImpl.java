@@ -48,10 +48,14 @@ public final class DecodeChainImpl implements DecodeAdviceContext, DecodeContext
     private final int decodersSize;
     private final Class<?> type;
     private final Type generics;
+    private final CodecDispatchCache dispatchCache;
     private int adviceIndex = 0;
     private int decodeIndex = 0;
     private boolean decodeHadStart = false;
     private ResponseContent<?> responseContent;
+    private boolean dispatched = false;
+    private int resolvedIndex = -1;
+    private Object resolvedResult;
 
     public DecodeChainImpl(RestRequestBase request,
                            RestResponse response,
@@ -59,26 +63,87 @@ public final class DecodeChainImpl implements DecodeAdviceContext, DecodeContext
                            Class<?> type,
                            Type generics,
                            ByteBuf byteBuf) {
+        this(request, response, clientOptions, type, generics, toContent(byteBuf));
+    }
+
+    public DecodeChainImpl(RestRequestBase request,
+                           RestResponse response,
+                           RestClientOptions clientOptions,
+                           Class<?> type,
+                           Type generics,
+                           ByteBuf byteBuf,
+                           CodecDispatchCache dispatchCache) {
+        this(request, response, clientOptions, type, generics, toContent(byteBuf), dispatchCache);
+    }
+
+    public DecodeChainImpl(RestRequestBase request,
+                           RestResponse response,
+                           RestClientOptions clientOptions,
+                           Class<?> type,
+                           Type generics,
+                           ResponseContent<?> responseContent) {
+        this(request, response, clientOptions, type, generics, responseContent, null);
+    }
+
+    public DecodeChainImpl(RestRequestBase request,
+                           RestResponse response,
+                           RestClientOptions clientOptions,
+                           Class<?> type,
+                           Type generics,
+                           ResponseContent<?> responseContent,
+                           CodecDispatchCache dispatchCache) {
         Checks.checkNotNull(request, "request");
         Checks.checkNotNull(response, "response");
         Checks.checkNotNull(clientOptions, "clientOptions");
         Checks.checkNotNull(type, "type");
-        Checks.checkNotNull(byteBuf, "byteBuf");
+        Checks.checkNotNull(responseContent, "responseContent");
         this.request = request;
         this.response = response;
         this.advices = clientOptions.unmodifiableDecodeAdvices();
         this.advicesSize = this.advices.size();
         this.type = type;
         this.generics = generics;
-        this.responseContent = ResponseContent.of(ByteBufUtil.getBytes(byteBuf));
+        this.responseContent = responseContent;
         Decoder decoderOfRequest = request.decoder();
         if (decoderOfRequest == null) {
             this.decoders = clientOptions.unmodifiableDecoders();
             this.decodersSize = this.decoders.size();
+            this.dispatchCache = dispatchCache;
         } else {
             this.decoders = Collections.singletonList(decoderOfRequest);
             this.decodersSize = 1;
+            this.dispatchCache = null;
+        }
+    }
+
+    /**
+     * Wraps the readable bytes of {@code byteBuf} as a {@link ResponseContent}, which can be shared by multiple
+     * chains as long as none of the decoders modifies the bytes.
+     *
+     * @param byteBuf byteBuf
+     * @return content
+     */
+    public static ResponseContent<byte[]> toContent(ByteBuf byteBuf) {
+        Checks.checkNotNull(byteBuf, "byteBuf");
+        return ResponseContent.of(toBytes(byteBuf));
+    }
+
+    /**
+     * Obtains the readable bytes of {@code byteBuf}, the backing array will be used directly without copying if
+     * it contains exactly the readable bytes, eg: the body of a response which has been pre-sized from the
+     * {@code Content-Length}.
+     *
+     * @param byteBuf byteBuf
+     * @return bytes
+     */
+    static byte[] toBytes(ByteBuf byteBuf) {
+        if (byteBuf.hasArray()
+                && byteBuf.arrayOffset() == 0
+                && byteBuf.readerIndex() == 0
+                && byteBuf.readableBytes() == byteBuf.array().length) {
+            return byteBuf.array();
         }
+        return ByteBufUtil.getBytes(byteBuf);
     }
 
     @Override
@@ -137,8 +202,19 @@ public final class DecodeChainImpl implements DecodeAdviceContext, DecodeContext
     }
 
     private Object decode() throws Exception {
+        if (dispatchCache != null && !dispatched) {
+            return dispatch();
+        }
+
         if (decodeIndex < decodersSize) {
-            return decoders.get(decodeIndex++).decode(this);
+            final int index = decodeIndex++;
+            final Object result = decoders.get(index).decode(this);
+            // The innermost one returns firstly, which is the one that has handled the content.
+            if (resolvedIndex < 0) {
+                resolvedIndex = index;
+                resolvedResult = result;
+            }
+            return result;
         }
 
         if (logger.isDebugEnabled()) {
@@ -162,4 +238,24 @@ public final class DecodeChainImpl implements DecodeAdviceContext, DecodeContext
                 + " , expected generics : " + generics);
     }
 
+    private Object dispatch() throws Exception {
+        dispatched = true;
+        final MediaType contentType = contentType();
+        final Object content = responseContent.value();
+        final Class<?> contentClass = content == null ? null : content.getClass();
+        final int index = dispatchCache.decoderIndex(contentType, type, contentClass);
+        if (index > 0 && index < decodersSize) {
+            decodeIndex = index;
+        }
+
+        final Object result = decode();
+        // Don't cache if the result has been replaced by an outer decoder, which means that the outer one
+        // can't be skipped, nor if any custom decoder has declined.
+        if (index < 0 && resolvedIndex >= 0 && result == resolvedResult
+                && CodecDispatchCache.isSkippable(decoders, resolvedIndex)) {
+            dispatchCache.decoderIndex(contentType, type, contentClass, resolvedIndex);
+        }
+        return result;
+    }
+
 }
@@ -42,9 +42,14 @@ public final class EncodeChainImpl implements EncodeAdviceContext, EncodeContext
     private final int advicesSize;
     private final List<Encoder> encoders;
     private final int encodersSize;
+    private final boolean bufferPreferred;
+    private final CodecDispatchCache dispatchCache;
     private int adviceIndex = 0;
     private int encodeIndex = 0;
     private boolean encodeHadStart = false;
+    private boolean dispatched = false;
+    private int resolvedIndex = -1;
+    private RequestContent<?> resolvedContent;
     private Object entity;
     private Class<?> type;
     private Type generics;
@@ -55,6 +60,27 @@ public final class EncodeChainImpl implements EncodeAdviceContext, EncodeContext
                            Type geneticType,
                            List<EncodeAdvice> advices,
                            List<Encoder> encodersOfClient) {
+        this(request, entity, type, geneticType, advices, encodersOfClient, false);
+    }
+
+    public EncodeChainImpl(RestRequestBase request,
+                           Object entity,
+                           Class<?> type,
+                           Type geneticType,
+                           List<EncodeAdvice> advices,
+                           List<Encoder> encodersOfClient,
+                           boolean bufferPreferred) {
+        this(request, entity, type, geneticType, advices, encodersOfClient, bufferPreferred, null);
+    }
+
+    public EncodeChainImpl(RestRequestBase request,
+                           Object entity,
+                           Class<?> type,
+                           Type geneticType,
+                           List<EncodeAdvice> advices,
+                           List<Encoder> encodersOfClient,
+                           boolean bufferPreferred,
+                           CodecDispatchCache dispatchCache) {
         Checks.checkNotNull(request, "request");
         Checks.checkNotNull(entity, "entity");
         Checks.checkNotNull(advices, "advices");
@@ -65,13 +91,16 @@ public final class EncodeChainImpl implements EncodeAdviceContext, EncodeContext
         this.generics = geneticType;
         this.advices = advices;
         this.advicesSize = this.advices.size();
+        this.bufferPreferred = bufferPreferred;
         Encoder encoderOfRequest = request.encoder();
         if (encoderOfRequest == null) {
             this.encoders = encodersOfClient;
             this.encodersSize = this.encoders.size();
+            this.dispatchCache = dispatchCache;
         } else {
             this.encoders = Collections.singletonList(encoderOfRequest);
             this.encodersSize = 1;
+            this.dispatchCache = null;
         }
     }
 
@@ -90,6 +119,11 @@ public final class EncodeChainImpl implements EncodeAdviceContext, EncodeContext
         return request.headers();
     }
 
+    @Override
+    public boolean isBufferPreferred() {
+        return bufferPreferred;
+    }
+
     @Override
     public Object entity() {
         return entity;
@@ -138,8 +172,19 @@ public final class EncodeChainImpl implements EncodeAdviceContext, EncodeContext
     }
 
     private RequestContent<?> encode() throws Exception {
+        if (dispatchCache != null && !dispatched) {
+            return dispatch();
+        }
+
         if (encodeIndex < encodersSize) {
-            return encoders.get(encodeIndex++).encode(this);
+            final int index = encodeIndex++;
+            final RequestContent<?> content = encoders.get(index).encode(this);
+            // The innermost one returns firstly, which is the one that has handled the entity.
+            if (resolvedIndex < 0) {
+                resolvedIndex = index;
+                resolvedContent = content;
+            }
+            return content;
         }
 
         if (logger.isDebugEnabled()) {
@@ -161,4 +206,23 @@ public final class EncodeChainImpl implements EncodeAdviceContext, EncodeContext
                 + " , generics of entity : " + generics);
     }
 
+    private RequestContent<?> dispatch() throws Exception {
+        dispatched = true;
+        final MediaType contentType = contentType();
+        final Class<?> type0 = type;
+        final int index = dispatchCache.encoderIndex(contentType, type0);
+        if (index > 0 && index < encodersSize) {
+            encodeIndex = index;
+        }
+
+        final RequestContent<?> content = encode();
+        // Don't cache if the content has been replaced by an outer encoder, which means that the outer one
+        // can't be skipped, nor if any custom encoder has declined.
+        if (index < 0 && resolvedIndex >= 0 && content == resolvedContent
+                && CodecDispatchCache.isSkippable(encoders, resolvedIndex)) {
+            dispatchCache.encoderIndex(contentType, type0, resolvedIndex);
+        }
+        return content;
+    }
+
 }
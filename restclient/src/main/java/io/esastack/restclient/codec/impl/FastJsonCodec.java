@@ -17,11 +17,13 @@ package io.esastack.restclient.codec.impl;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.restclient.codec.DecodeContext;
 import io.esastack.restclient.codec.EncodeContext;
 import io.esastack.restclient.codec.JsonCodec;
 import io.esastack.restclient.codec.RequestContent;
 import io.esastack.restclient.utils.Constants;
+import io.netty.buffer.ByteBufOutputStream;
 
 public class FastJsonCodec implements JsonCodec {
 
@@ -36,6 +38,11 @@ public class FastJsonCodec implements JsonCodec {
         return RequestContent.of(JSON.toJSONBytes(ctx.entity()));
     }
 
+    @Override
+    public RequestContent<Buffer> encodeToJsonBuffer(EncodeContext<?> ctx) throws Exception {
+        return BufferContents.encode(buf -> JSON.writeJSONString(new ByteBufOutputStream(buf), ctx.entity()));
+    }
+
     @Override
     public Object decodeFromJson(DecodeContext<byte[]> ctx) {
         return JSON.parseObject(ctx.content().value(), ctx.targetGenerics());
@@ -17,13 +17,17 @@ package io.esastack.restclient.codec.impl;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.MediaType;
 import io.esastack.restclient.codec.DecodeContext;
 import io.esastack.restclient.codec.EncodeContext;
 import io.esastack.restclient.codec.JsonCodec;
 import io.esastack.restclient.codec.RequestContent;
 import io.esastack.restclient.utils.Constants;
+import io.netty.buffer.ByteBufOutputStream;
 
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -57,6 +61,18 @@ public class GsonCodec implements JsonCodec {
         }
     }
 
+    @Override
+    public RequestContent<Buffer> encodeToJsonBuffer(EncodeContext<?> ctx) throws Exception {
+        MediaType contentType = ctx.contentType();
+        Charset charset = contentType == null ? null : contentType.charset();
+        final Charset charset0 = charset == null ? StandardCharsets.UTF_8 : charset;
+        return BufferContents.encode(buf -> {
+            Writer writer = new OutputStreamWriter(new ByteBufOutputStream(buf), charset0);
+            gson.toJson(ctx.entity(), writer);
+            writer.flush();
+        });
+    }
+
     @Override
     public Object decodeFromJson(DecodeContext<byte[]> ctx) {
         MediaType contentType = ctx.contentType();
@@ -19,68 +19,126 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import esa.commons.Checks;
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.restclient.codec.DecodeContext;
 import io.esastack.restclient.codec.EncodeContext;
 import io.esastack.restclient.codec.JsonCodec;
 import io.esastack.restclient.codec.RequestContent;
 import io.esastack.restclient.utils.Constants;
+import io.netty.buffer.ByteBufOutputStream;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.text.SimpleDateFormat;
 
 public class JacksonCodec implements JsonCodec {
 
-    private static ObjectMapper DEFAULT_OBJECT_MAPPER;
-
     private final ObjectMapper objectMapper;
+    private final ObjectMapperCache cache;
 
     public JacksonCodec() {
-        this(getDefaultMapper());
+        this(getDefaultMapper(), true);
     }
 
+    /**
+     * Creates the codec with the given {@code objectMapper}, which can be reconfigured afterwards because its
+     * readers and writer aren't cached.
+     *
+     * @param objectMapper objectMapper
+     */
     public JacksonCodec(ObjectMapper objectMapper) {
+        this(objectMapper, false);
+    }
+
+    private JacksonCodec(ObjectMapper objectMapper, boolean cacheable) {
         Checks.checkNotNull(objectMapper, "objectMapper");
         this.objectMapper = objectMapper;
+        this.cache = new ObjectMapperCache(objectMapper, cacheable);
     }
 
     @Override
     public RequestContent<byte[]> encodeToJson(EncodeContext<byte[]> ctx) throws JsonProcessingException {
-        return RequestContent.of(objectMapper.writeValueAsBytes(ctx.entity()));
+        final Object entity = ctx.entity();
+        return RequestContent.of(cache.writer().writeValueAsBytes(entity));
     }
 
     @Override
-    public Object decodeFromJson(DecodeContext<byte[]> ctx) throws IOException {
-        return objectMapper.readValue(ctx.content().value(), getJavaType(ctx.targetGenerics()));
+    public RequestContent<Buffer> encodeToJsonBuffer(EncodeContext<?> ctx) throws Exception {
+        final Object entity = ctx.entity();
+        final ObjectWriter writer = cache.writer();
+        return BufferContents.encode(buf -> writer.writeValue((OutputStream) new ByteBufOutputStream(buf), entity));
     }
 
-    public static synchronized ObjectMapper getDefaultMapper() {
-        if (DEFAULT_OBJECT_MAPPER == null) {
-            final ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.setDateFormat(new SimpleDateFormat(DEFAULT_DATE_FORMAT));
-            objectMapper.configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
-            objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-            objectMapper.setSerializationInclusion(JsonInclude.Include.ALWAYS);
-            objectMapper.configure(JsonParser.Feature.ALLOW_UNQUOTED_CONTROL_CHARS, true);
-            objectMapper.configure(JsonParser.Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER, true);
-            objectMapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
-            DEFAULT_OBJECT_MAPPER = objectMapper;
+    @Override
+    public Object decode(DecodeContext<?> ctx) throws Exception {
+        // The content has been parsed to tokens while receiving, see StreamingJsonHandle.
+        final Object content = ctx.content().value();
+        if (content instanceof TokenBuffer) {
+            try (JsonParser parser = ((TokenBuffer) content).asParser(objectMapper)) {
+                return cache.reader(ctx.targetGenerics()).readValue(parser);
+            }
         }
-        return DEFAULT_OBJECT_MAPPER;
+        return JsonCodec.super.decode(ctx);
+    }
+
+    @Override
+    public Object decodeFromJson(DecodeContext<byte[]> ctx) throws IOException {
+        return cache.reader(ctx.targetGenerics()).readValue(ctx.content().value());
     }
 
-    private JavaType getJavaType(Type type) {
-        TypeFactory typeFactory = objectMapper.getTypeFactory();
-        return typeFactory.constructType(type);
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    ObjectReader reader(Type type) {
+        return cache.reader(type);
+    }
+
+    /**
+     * Obtains the default {@link ObjectMapper}, which is shared and whose readers and writer are cached by the
+     * codecs created by {@link #JacksonCodec()}, so it shouldn't be reconfigured other than the features.
+     *
+     * @return objectMapper
+     */
+    public static ObjectMapper getDefaultMapper() {
+        return DefaultMapperHolder.INSTANCE;
     }
 
     @Override
     public int getOrder() {
         return Constants.Order.JACKSON;
     }
+
+    /**
+     * Applies the configuration of {@link #getDefaultMapper()} to the given {@code objectMapper}, which is also used
+     * by the codecs of the binary formats, eg: {@link JacksonSmileCodec}.
+     *
+     * @param objectMapper objectMapper
+     * @return the given objectMapper
+     */
+    static ObjectMapper configureAsDefault(ObjectMapper objectMapper) {
+        objectMapper.setDateFormat(new SimpleDateFormat(DEFAULT_DATE_FORMAT));
+        objectMapper.configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.setSerializationInclusion(JsonInclude.Include.ALWAYS);
+        objectMapper.configure(JsonParser.Feature.ALLOW_UNQUOTED_CONTROL_CHARS, true);
+        objectMapper.configure(JsonParser.Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER, true);
+        objectMapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        return objectMapper;
+    }
+
+    /**
+     * Initializes the default {@link ObjectMapper} lazily and lock-free by the class loading.
+     */
+    private static final class DefaultMapperHolder {
+
+        private static final ObjectMapper INSTANCE = configureAsDefault(new ObjectMapper());
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.esastack.commons.net.http.MediaType;
+
+/**
+ * The codec of <a href="https://github.com/FasterXML/smile-format-specification">Smile</a>, a binary encoding
+ * of JSON, which needs the dependency of {@code jackson-dataformat-smile}.
+ */
+public class JacksonSmileCodec extends AbstractJacksonBinaryCodec {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.builder("application")
+            .subtype("x-jackson-smile")
+            .build();
+
+    private static final boolean AVAILABLE = isPresent("com.fasterxml.jackson.dataformat.smile.SmileFactory");
+
+    public JacksonSmileCodec() {
+        super(getDefaultMapper(), APPLICATION_SMILE, true);
+    }
+
+    public JacksonSmileCodec(ObjectMapper objectMapper) {
+        super(objectMapper, APPLICATION_SMILE);
+    }
+
+    /**
+     * Obtains the default {@link ObjectMapper} of Smile, which has the same configuration as
+     * {@link JacksonCodec#getDefaultMapper()}.
+     *
+     * @return objectMapper
+     */
+    public static ObjectMapper getDefaultMapper() {
+        return DefaultMapperHolder.INSTANCE;
+    }
+
+    /**
+     * Whether the {@code jackson-dataformat-smile} is present in the classpath, this codec can't be used if not.
+     *
+     * @return {@code true} if present
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    private static final class DefaultMapperHolder {
+
+        private static final ObjectMapper INSTANCE =
+                JacksonCodec.configureAsDefault(new ObjectMapper(new SmileFactory()));
+    }
+}
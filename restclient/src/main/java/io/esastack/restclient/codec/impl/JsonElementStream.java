@@ -0,0 +1,424 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import esa.commons.Checks;
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaderNames;
+import io.esastack.commons.net.http.MediaType;
+import io.esastack.httpclient.core.Handle;
+import io.esastack.httpclient.core.util.BufferUtils;
+import io.esastack.restclient.ResponseStream;
+import io.esastack.restclient.RestResponseBase;
+import io.esastack.restclient.utils.ContentTypeUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CodecException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * This handle is designed to split the JSON response into elements while receiving: every chunk is fed to
+ * Jackson's non-blocking parser as soon as it arrives, and the tokens of every completed element are handed over
+ * to the consumer, which binds them to the target type by {@link JacksonCodec} in its own thread. The elements of
+ * the root array are split if the response is {@link MediaType#APPLICATION_JSON}, otherwise every root value is
+ * an element, eg: {@link #APPLICATION_NDJSON}.
+ * <p>
+ * The {@link Handle}s of a request are driven one by one, eg: the response of the retried or redirected requests,
+ * and only the successful ones whose media type is JSON are parsed. Once an element has been handed over, the
+ * elements of other responses are discarded, and the failure of current response fails this stream directly.
+ * <p>
+ * The content is requested chunk by chunk, see {@link Handle#request(long)}, and no more content is requested
+ * once {@value #MAX_BUFFERED_ELEMENTS} elements have been buffered until half of them have been consumed, so that
+ * a slow consumer stops the client from reading instead of buffering the whole response.
+ */
+public final class JsonElementStream<T> implements ResponseStream<T>, Consumer<Handle> {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.builder("application")
+            .subtype("x-ndjson")
+            .build();
+
+    public static final MediaType APPLICATION_STREAM_JSON = MediaType.builder("application")
+            .subtype("stream+json")
+            .build();
+
+    private static final Object END = new Object();
+    private static final int MAX_BUFFERED_ELEMENTS = 256;
+
+    private final JacksonCodec codec;
+    private final Type elementType;
+    private final BlockingQueue<Object> elements = new LinkedBlockingQueue<>();
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    /**
+     * The attempt whose elements have been handed over.
+     */
+    private final AtomicReference<Attempt> owner = new AtomicReference<>();
+
+    /**
+     * The attempt which stops requesting content since too many elements have been buffered.
+     */
+    private final AtomicReference<Attempt> suspended = new AtomicReference<>();
+
+    private volatile boolean decoded;
+    private volatile CompletionStage<?> underlying;
+    private volatile CompletionStage<RestResponseBase> response;
+
+    /**
+     * The element, {@link #END} or {@link Failure} which has been taken but not consumed, which is only accessed
+     * by the consumer.
+     */
+    private Object head;
+
+    public JsonElementStream(JacksonCodec codec, Type elementType) {
+        Checks.checkNotNull(codec, "codec");
+        Checks.checkNotNull(elementType, "elementType");
+        this.codec = codec;
+        this.elementType = elementType;
+    }
+
+    @Override
+    public void accept(Handle handle) {
+        final Attempt attempt = new Attempt(handle);
+        handle.onStart(v -> attempt.onStart())
+                .onData(attempt::onData)
+                .onTrailer(trailers -> handle.trailers().add(trailers))
+                .onEnd(v -> attempt.onEnd())
+                .onError(attempt::onError)
+                .request(1L);
+    }
+
+    /**
+     * Sets the result of the request which has been sent, which is cancelled once this stream has been closed or
+     * failed to decode the body.
+     *
+     * @param underlying underlying
+     */
+    public void onSent(CompletionStage<?> underlying) {
+        this.underlying = underlying;
+        if (terminated.get()) {
+            abort();
+        }
+    }
+
+    /**
+     * Binds this stream to the response, which ends or fails this stream once it has completed.
+     *
+     * @param response response
+     */
+    public void bind(CompletionStage<RestResponseBase> response) {
+        Checks.checkNotNull(response, "response");
+        this.response = response;
+        response.whenComplete((rsp, th) -> {
+            if (th != null) {
+                fail(th instanceof CompletionException && th.getCause() != null ? th.getCause() : th);
+            } else if (decoded) {
+                if (terminated.compareAndSet(false, true)) {
+                    elements.offer(END);
+                }
+            } else {
+                fail(new CodecException("Unsupported response to be decoded as elements, status: "
+                        + rsp.status() + ", content-type: " + rsp.contentType()));
+            }
+        });
+    }
+
+    @Override
+    public CompletionStage<RestResponseBase> response() {
+        return response;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (head == null) {
+            head = take();
+            if (elements.size() <= MAX_BUFFERED_ELEMENTS / 2) {
+                resumeSuspended();
+            }
+        }
+        if (head instanceof Failure) {
+            throw new CompletionException(((Failure) head).cause);
+        }
+        return head != END;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final TokenBuffer tokens = (TokenBuffer) head;
+        head = null;
+        try (JsonParser parser = tokens.asParser(codec.objectMapper())) {
+            return (T) codec.reader(elementType).readValue(parser);
+        } catch (IOException ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        head = END;
+        if (terminated.compareAndSet(false, true)) {
+            abort();
+        }
+        elements.clear();
+        // Wake up the consumer which is waiting for the next element.
+        elements.offer(END);
+    }
+
+    private Object take() {
+        try {
+            return elements.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ex);
+        }
+    }
+
+    private void resumeSuspended() {
+        final Attempt attempt = suspended.getAndSet(null);
+        if (attempt != null) {
+            attempt.handle.request(1L);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        if (terminated.compareAndSet(false, true)) {
+            elements.offer(new Failure(cause));
+            abort();
+        }
+    }
+
+    private void abort() {
+        final CompletionStage<?> underlying0 = underlying;
+        if (underlying0 != null) {
+            underlying0.toCompletableFuture().cancel(false);
+        }
+    }
+
+    private static boolean isJson(MediaType mediaType) {
+        return MediaType.APPLICATION_JSON.isCompatibleWith(mediaType) || isJsonSequence(mediaType);
+    }
+
+    private static boolean isJsonSequence(MediaType mediaType) {
+        return APPLICATION_NDJSON.isCompatibleWith(mediaType) || APPLICATION_STREAM_JSON.isCompatibleWith(mediaType);
+    }
+
+    private final class Attempt {
+
+        private final Handle handle;
+
+        private JsonParser parser;
+        private ByteArrayFeeder feeder;
+        private byte[] scratch;
+
+        /**
+         * Whether to split the root arrays into elements.
+         */
+        private boolean splitArray;
+        private boolean inArray;
+
+        private TokenBuffer element;
+        private int depth;
+
+        private Attempt(Handle handle) {
+            this.handle = handle;
+        }
+
+        private void onStart() {
+            final int status = handle.status();
+            if (terminated.get() || status < 200 || status >= 300) {
+                return;
+            }
+            final MediaType mediaType = ContentTypeUtil.parse(handle.headers().get(HttpHeaderNames.CONTENT_TYPE));
+            if (mediaType != null && !isJson(mediaType)) {
+                return;
+            }
+
+            try {
+                splitArray = mediaType == null || !isJsonSequence(mediaType);
+                parser = codec.objectMapper().getFactory().createNonBlockingByteArrayParser();
+                feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+            } catch (IOException ex) {
+                onFailed(ex);
+            }
+        }
+
+        private void onData(Buffer data) {
+            try {
+                onData0(data);
+            } finally {
+                requestMore();
+            }
+        }
+
+        private void onData0(Buffer data) {
+            if (!isActive()) {
+                return;
+            }
+
+            final ByteBuf buf = BufferUtils.toByteBuf(data);
+            final int length = buf.readableBytes();
+            try {
+                if (buf.hasArray()) {
+                    final int start = buf.arrayOffset() + buf.readerIndex();
+                    feeder.feedInput(buf.array(), start, start + length);
+                } else {
+                    if (scratch == null || scratch.length < length) {
+                        scratch = new byte[length];
+                    }
+                    buf.getBytes(buf.readerIndex(), scratch, 0, length);
+                    feeder.feedInput(scratch, 0, length);
+                }
+                drain();
+            } catch (IOException ex) {
+                onFailed(ex);
+            }
+        }
+
+        private void requestMore() {
+            if (elements.size() < MAX_BUFFERED_ELEMENTS) {
+                handle.request(1L);
+                return;
+            }
+            suspended.set(this);
+            // The consumer may have taken the elements in the meantime.
+            if (elements.size() < MAX_BUFFERED_ELEMENTS) {
+                resumeSuspended();
+            }
+        }
+
+        private void onEnd() {
+            if (!isActive()) {
+                return;
+            }
+
+            try {
+                feeder.endOfInput();
+                drain();
+                if (owner.compareAndSet(null, this) || owner.get() == this) {
+                    decoded = true;
+                }
+            } catch (IOException ex) {
+                onFailed(ex);
+            } finally {
+                closeQuietly();
+            }
+        }
+
+        private void onError(Throwable th) {
+            closeQuietly();
+            if (owner.get() == this) {
+                fail(th);
+            }
+        }
+
+        private boolean isActive() {
+            if (parser == null) {
+                return false;
+            }
+            final Attempt owner0 = owner.get();
+            if (terminated.get() || (owner0 != null && owner0 != this)) {
+                // Discard the remaining content.
+                closeQuietly();
+                return false;
+            }
+            return true;
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (element == null) {
+                    if (inArray && token == JsonToken.END_ARRAY) {
+                        inArray = false;
+                        continue;
+                    }
+                    if (!inArray && splitArray && token == JsonToken.START_ARRAY) {
+                        inArray = true;
+                        continue;
+                    }
+                    element = new TokenBuffer(parser);
+                    // Same as the buffering of Jackson itself, eg: while resolving polymorphic types.
+                    element.forceUseOfBigDecimal(codec.objectMapper()
+                            .isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS));
+                }
+
+                element.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                }
+                if (depth == 0) {
+                    emit(element);
+                    element = null;
+                }
+            }
+        }
+
+        private void emit(TokenBuffer tokens) {
+            if (owner.get() == this || owner.compareAndSet(null, this)) {
+                if (!terminated.get()) {
+                    elements.offer(tokens);
+                }
+            }
+        }
+
+        private void onFailed(IOException ex) {
+            closeQuietly();
+            fail(ex);
+        }
+
+        private void closeQuietly() {
+            if (parser == null) {
+                return;
+            }
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // Never happens for the non-blocking parser.
+            }
+            parser = null;
+            element = null;
+            scratch = null;
+        }
+    }
+
+    private static final class Failure {
+
+        private final Throwable cause;
+
+        private Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
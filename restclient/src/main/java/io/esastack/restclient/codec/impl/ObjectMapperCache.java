@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The cache of the {@link ObjectReader}s and the {@link ObjectWriter} of an {@link ObjectMapper}. The readers and
+ * writer are immutable and thread-safe, and the readers hold the resolved root deserializers, which saves
+ * constructing the {@link com.fasterxml.jackson.databind.JavaType} and looking up the deserializers on every call.
+ * <p>
+ * Be aware that they are snapshots of the configuration of the {@link ObjectMapper}. The readers are keyed by the
+ * target type and the deserialization features, and the writer is rebuilt once the serialization features have
+ * changed, but other changes, eg: registering modules, can't be detected. So the caching is only enabled for the
+ * internal default mappers, and the readers and writer of the others are built on every call, which reflects any
+ * change of the configuration the same as {@link ObjectMapper#readValue(byte[], Class)}.
+ */
+final class ObjectMapperCache {
+
+    /**
+     * The max number of readers which can be cached, the excess ones will be built on every call so that the
+     * memory won't grow unboundedly with the dynamic generated types.
+     */
+    private static final int MAX_CACHED_READERS = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final ConcurrentMap<ReaderKey, ObjectReader> readers = new ConcurrentHashMap<>();
+    private volatile CachedWriter writer;
+
+    ObjectMapperCache(ObjectMapper objectMapper, boolean enabled) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    ObjectReader reader(Type type) {
+        if (!enabled) {
+            return newReader(type);
+        }
+
+        final ReaderKey key = new ReaderKey(type,
+                objectMapper.getDeserializationConfig().getDeserializationFeatures());
+        ObjectReader reader = readers.get(key);
+        if (reader == null) {
+            reader = newReader(type);
+            if (readers.size() < MAX_CACHED_READERS) {
+                readers.putIfAbsent(key, reader);
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * Obtains the writer without a root type, which resolves the serializer by the runtime type of the value and
+     * behaves the same as {@link ObjectMapper#writeValueAsBytes(Object)}.
+     *
+     * @return writer
+     */
+    ObjectWriter writer() {
+        if (!enabled) {
+            return objectMapper.writer();
+        }
+
+        final int features = objectMapper.getSerializationConfig().getSerializationFeatures();
+        CachedWriter cached = writer;
+        if (cached == null || cached.features != features) {
+            cached = new CachedWriter(objectMapper.writer(), features);
+            writer = cached;
+        }
+        return cached.writer;
+    }
+
+    private ObjectReader newReader(Type type) {
+        return objectMapper.readerFor(objectMapper.getTypeFactory().constructType(type));
+    }
+
+    private static final class ReaderKey {
+
+        private final Type type;
+        private final int features;
+
+        private ReaderKey(Type type, int features) {
+            this.type = type;
+            this.features = features;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ReaderKey that = (ReaderKey) o;
+            return features == that.features && type.equals(that.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + features;
+        }
+    }
+
+    private static final class CachedWriter {
+
+        private final ObjectWriter writer;
+        private final int features;
+
+        private CachedWriter(ObjectWriter writer, int features) {
+            this.writer = writer;
+            this.features = features;
+        }
+    }
+}
@@ -15,9 +15,12 @@
  */
 package io.esastack.restclient.codec.impl;
 
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.ExtensionRegistry;
 import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.HttpHeaders;
 import io.esastack.commons.net.http.MediaType;
 import io.esastack.restclient.codec.ByteCodec;
@@ -33,7 +36,10 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class ProtoBufCodec implements ByteCodec {
 
-    private static final Map<Class<?>, Method> METHOD_CACHE = new ConcurrentHashMap<>();
+    /**
+     * The parsers of the message classes, which are thread-safe and parse the message without creating a builder.
+     */
+    private static final Map<Class<?>, Parser<?>> PARSER_CACHE = new ConcurrentHashMap<>();
 
     private final ExtensionRegistry extensionRegistry;
 
@@ -60,45 +66,68 @@ public class ProtoBufCodec implements ByteCodec {
         this.extensionRegistry = extensionRegistry;
     }
 
+    @Override
+    public RequestContent<?> encode(EncodeContext<?> ctx) throws Exception {
+        if (ctx.isBufferPreferred() && isProtoBuf(ctx)) {
+            final Message message = prepare(ctx);
+            final int size = message.getSerializedSize();
+            return BufferContents.encode(size, buf -> {
+                // Writes to the memory of buf directly, which is shared by the nio buffer.
+                CodedOutputStream output = CodedOutputStream.newInstance(buf.nioBuffer(buf.writerIndex(), size));
+                message.writeTo(output);
+                output.checkNoSpaceLeft();
+                buf.writerIndex(buf.writerIndex() + size);
+            });
+        }
+        return ByteCodec.super.encode(ctx);
+    }
+
     @Override
     public RequestContent<byte[]> doEncode(EncodeContext<byte[]> ctx) throws Exception {
-        if (PROTO_BUF.isCompatibleWith(ctx.contentType()) &&
-                Message.class.isAssignableFrom(ctx.entityType())) {
-            Message message = (Message) ctx.entity();
-            Descriptors.Descriptor descriptor = message.getDescriptorForType();
-            if (descriptor != null) {
-                HttpHeaders headers = ctx.headers();
-                headers.set(X_PROTOBUF_MESSAGE_HEADER, message.getDescriptorForType().getFullName());
-                Descriptors.FileDescriptor fileDescriptor = message.getDescriptorForType().getFile();
-                if (fileDescriptor != null) {
-                    headers.set(X_PROTOBUF_SCHEMA_HEADER, message.getDescriptorForType().getFile().getName());
-                }
-            }
-            return RequestContent.of(message.toByteArray());
+        if (isProtoBuf(ctx)) {
+            return RequestContent.of(prepare(ctx).toByteArray());
         }
         return ctx.next();
     }
 
+    private static boolean isProtoBuf(EncodeContext<?> ctx) {
+        return PROTO_BUF.isCompatibleWith(ctx.contentType()) &&
+                Message.class.isAssignableFrom(ctx.entityType());
+    }
+
+    private static Message prepare(EncodeContext<?> ctx) {
+        Message message = (Message) ctx.entity();
+        Descriptors.Descriptor descriptor = message.getDescriptorForType();
+        if (descriptor != null) {
+            HttpHeaders headers = ctx.headers();
+            headers.set(X_PROTOBUF_MESSAGE_HEADER, message.getDescriptorForType().getFullName());
+            Descriptors.FileDescriptor fileDescriptor = message.getDescriptorForType().getFile();
+            if (fileDescriptor != null) {
+                headers.set(X_PROTOBUF_SCHEMA_HEADER, message.getDescriptorForType().getFile().getName());
+            }
+        }
+        return message;
+    }
+
     @Override
     public Object doDecode(DecodeContext<byte[]> ctx) throws Exception {
         Class<?> type = ctx.targetType();
         if (PROTO_BUF.isCompatibleWith(ctx.contentType())
                 && Message.class.isAssignableFrom(type)) {
-            Message.Builder builder = getMessageBuilder(type);
-            builder.mergeFrom(ctx.content().value(), extensionRegistry);
-            return builder.build();
+            return getParser(type).parseFrom(ctx.content().value(), extensionRegistry);
         }
 
         return ctx.next();
     }
 
-    private Message.Builder getMessageBuilder(Class<?> clazz) throws Exception {
-        Method method = METHOD_CACHE.get(clazz);
-        if (method == null) {
-            method = clazz.getMethod("newBuilder");
-            METHOD_CACHE.put(clazz, method);
+    private static Parser<?> getParser(Class<?> clazz) throws Exception {
+        Parser<?> parser = PARSER_CACHE.get(clazz);
+        if (parser == null) {
+            Method method = clazz.getMethod("getDefaultInstance");
+            parser = ((Message) method.invoke(null)).getParserForType();
+            PARSER_CACHE.put(clazz, parser);
         }
-        return (Message.Builder) method.invoke(clazz);
+        return parser;
     }
 
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import esa.commons.Checks;
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaderNames;
+import io.esastack.commons.net.http.MediaType;
+import io.esastack.httpclient.core.Handle;
+import io.esastack.httpclient.core.util.BufferUtils;
+import io.esastack.restclient.codec.ResponseContent;
+import io.esastack.restclient.utils.ContentTypeUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * This handle is designed to decode the JSON response incrementally: every chunk is fed to Jackson's non-blocking
+ * parser as soon as it arrives, so that the parsing overlaps with the network transfer, and the parsed tokens
+ * rather than the raw bytes are staged. When the whole body has been received, the staged {@link TokenBuffer}
+ * is used as the {@link ResponseContent} which can be bound to the target type by {@link JacksonCodec} in a
+ * short time. The content of other media types is aggregated to {@code byte[]} as usual.
+ * <p>
+ * Note that the {@link Handle}s of a request are driven one by one, eg: the response of the retried or
+ * redirected requests, and only the outcome of the last ended one is kept, which is either the content or the
+ * failure. The cancelled ones, eg: the loser of hedged requests, are ignored because they have nothing to do
+ * with the response.
+ */
+public final class StreamingJsonHandle implements Consumer<Handle> {
+
+    private final JacksonCodec codec;
+
+    private volatile Attempt last;
+
+    public StreamingJsonHandle(JacksonCodec codec) {
+        Checks.checkNotNull(codec, "codec");
+        this.codec = codec;
+    }
+
+    @Override
+    public void accept(Handle handle) {
+        final Attempt attempt = new Attempt(handle);
+        handle.onStart(v -> attempt.onStart())
+                .onData(attempt::onData)
+                .onTrailer(trailers -> handle.trailers().add(trailers))
+                .onEnd(v -> {
+                    attempt.onEnd();
+                    last = attempt;
+                })
+                .onError(th -> {
+                    attempt.onError(th);
+                    if (!(th instanceof CancellationException)) {
+                        last = attempt;
+                    }
+                });
+    }
+
+    /**
+     * Obtains the content of the last ended response.
+     *
+     * @return content, which is {@code null} if there is no response has ended
+     * @throws IOException if failed to parse the content or the last response has ended exceptionally
+     */
+    public ResponseContent<?> content() throws IOException {
+        final Attempt attempt = last;
+        if (attempt == null) {
+            return null;
+        }
+        if (attempt.cause != null) {
+            throw attempt.cause;
+        }
+        return attempt.content;
+    }
+
+    private final class Attempt {
+
+        private final Handle handle;
+
+        private JsonParser parser;
+        private ByteArrayFeeder feeder;
+        private TokenBuffer tokens;
+        private byte[] scratch;
+
+        private ByteBuf bytes;
+
+        private IOException cause;
+        private ResponseContent<?> content;
+
+        private Attempt(Handle handle) {
+            this.handle = handle;
+        }
+
+        private void onStart() {
+            final String contentType = handle.headers().get(HttpHeaderNames.CONTENT_TYPE);
+            final MediaType mediaType = ContentTypeUtil.parse(contentType);
+            if (mediaType == null || !MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+                return;
+            }
+
+            try {
+                parser = codec.objectMapper().getFactory().createNonBlockingByteArrayParser();
+                feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+                tokens = new TokenBuffer(parser);
+                // Same as the buffering of Jackson itself, eg: while resolving polymorphic types.
+                tokens.forceUseOfBigDecimal(codec.objectMapper()
+                        .isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS));
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        private void onData(Buffer data) {
+            final ByteBuf buf = BufferUtils.toByteBuf(data);
+            if (!isJson()) {
+                if (bytes == null) {
+                    bytes = Unpooled.buffer(buf.readableBytes());
+                }
+                bytes.writeBytes(buf);
+                return;
+            }
+            if (cause != null) {
+                // Discard the remaining content.
+                return;
+            }
+
+            final int length = buf.readableBytes();
+            try {
+                if (buf.hasArray()) {
+                    final int start = buf.arrayOffset() + buf.readerIndex();
+                    feeder.feedInput(buf.array(), start, start + length);
+                } else {
+                    if (scratch == null || scratch.length < length) {
+                        scratch = new byte[length];
+                    }
+                    buf.getBytes(buf.readerIndex(), scratch, 0, length);
+                    feeder.feedInput(scratch, 0, length);
+                }
+                drain();
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        private void onEnd() {
+            if (!isJson()) {
+                content = ResponseContent.of(bytes == null ? new byte[0] : DecodeChainImpl.toBytes(bytes));
+                bytes = null;
+                return;
+            }
+            if (cause != null) {
+                return;
+            }
+
+            try {
+                feeder.endOfInput();
+                drain();
+                content = new ResponseContentImpl<>(tokens);
+                parser.close();
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        private void onError(Throwable th) {
+            if (cause == null) {
+                cause = th instanceof IOException ? (IOException) th
+                        : new IOException("Failed to receive the content of response", th);
+            }
+            bytes = null;
+            tokens = null;
+            closeQuietly();
+        }
+
+        private boolean isJson() {
+            return parser != null || cause != null;
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                tokens.copyCurrentEvent(parser);
+            }
+        }
+
+        private void fail(IOException ex) {
+            cause = ex;
+            tokens = null;
+            scratch = null;
+            closeQuietly();
+        }
+
+        private void closeQuietly() {
+            if (parser == null) {
+                return;
+            }
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // Never happens for the non-blocking parser.
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package io.esastack.restclient.codec.impl;
 
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.MediaType;
 import io.esastack.restclient.codec.ByteCodec;
 import io.esastack.restclient.codec.DecodeContext;
@@ -27,6 +28,18 @@ import java.nio.charset.StandardCharsets;
 
 public class StringCodec implements ByteCodec {
 
+    @Override
+    public RequestContent<?> encode(EncodeContext<?> ctx) throws Exception {
+        if (ctx.isBufferPreferred() && String.class.isAssignableFrom(ctx.entityType())) {
+            MediaType contentType = ctx.contentType();
+            Charset charset = contentType == null ? null : contentType.charset();
+            final String value = (String) ctx.entity();
+            final Charset charset0 = charset == null ? StandardCharsets.UTF_8 : charset;
+            return BufferContents.encode(value.length(), buf -> buf.writeCharSequence(value, charset0));
+        }
+        return ByteCodec.super.encode(ctx);
+    }
+
     @Override
     public RequestContent<byte[]> doEncode(EncodeContext<byte[]> ctx) throws Exception {
         if (String.class.isAssignableFrom(ctx.entityType())) {
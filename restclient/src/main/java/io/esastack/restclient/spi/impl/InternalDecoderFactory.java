@@ -18,7 +18,9 @@ package io.esastack.restclient.spi.impl;
 import io.esastack.restclient.RestClientOptions;
 import io.esastack.restclient.codec.Decoder;
 import io.esastack.restclient.codec.impl.ByteToByteCodec;
+import io.esastack.restclient.codec.impl.JacksonCborCodec;
 import io.esastack.restclient.codec.impl.JacksonCodec;
+import io.esastack.restclient.codec.impl.JacksonSmileCodec;
 import io.esastack.restclient.codec.impl.StringCodec;
 import io.esastack.restclient.spi.DecoderFactory;
 
@@ -30,9 +32,15 @@ public final class InternalDecoderFactory implements DecoderFactory {
 
     @Override
     public Collection<Decoder> decoders(RestClientOptions clientOptions) {
-        List<Decoder> decoders = new ArrayList<>(3);
+        List<Decoder> decoders = new ArrayList<>(5);
         decoders.add(new ByteToByteCodec());
         decoders.add(new JacksonCodec());
+        if (JacksonSmileCodec.isAvailable()) {
+            decoders.add(new JacksonSmileCodec());
+        }
+        if (JacksonCborCodec.isAvailable()) {
+            decoders.add(new JacksonCborCodec());
+        }
         decoders.add(new StringCodec());
         return decoders;
     }
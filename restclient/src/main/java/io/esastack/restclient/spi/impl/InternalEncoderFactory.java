@@ -20,7 +20,9 @@ import io.esastack.restclient.codec.Encoder;
 import io.esastack.restclient.codec.impl.ByteToByteCodec;
 import io.esastack.restclient.codec.impl.FileEncoder;
 import io.esastack.restclient.codec.impl.FormURLEncodedEncoder;
+import io.esastack.restclient.codec.impl.JacksonCborCodec;
 import io.esastack.restclient.codec.impl.JacksonCodec;
+import io.esastack.restclient.codec.impl.JacksonSmileCodec;
 import io.esastack.restclient.codec.impl.MultipartEncoder;
 import io.esastack.restclient.codec.impl.StringCodec;
 import io.esastack.restclient.spi.EncoderFactory;
@@ -33,11 +35,17 @@ public final class InternalEncoderFactory implements EncoderFactory {
 
     @Override
     public Collection<Encoder> encoders(RestClientOptions clientOptions) {
-        List<Encoder> encoders = new ArrayList<>(6);
+        List<Encoder> encoders = new ArrayList<>(8);
         encoders.add(new ByteToByteCodec());
         encoders.add(new FileEncoder());
         encoders.add(new FormURLEncodedEncoder());
         encoders.add(new JacksonCodec());
+        if (JacksonSmileCodec.isAvailable()) {
+            encoders.add(new JacksonSmileCodec());
+        }
+        if (JacksonCborCodec.isAvailable()) {
+            encoders.add(new JacksonCborCodec());
+        }
         encoders.add(new MultipartEncoder());
         encoders.add(new StringCodec());
         return encoders;
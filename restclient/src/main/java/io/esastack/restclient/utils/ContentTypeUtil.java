@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.utils;
+
+import esa.commons.StringUtils;
+import io.esastack.commons.net.http.MediaType;
+import io.esastack.commons.net.http.MediaTypeUtil;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public final class ContentTypeUtil {
+
+    /**
+     * The max number of the parsed {@link MediaType}s to cache, the cache will be cleared once it's full, so that
+     * the values which are different per message, eg: the boundary of multipart, won't occupy the cache forever.
+     */
+    private static final int MAX_CACHED_SIZE = 256;
+
+    /**
+     * The max length of the header value to cache.
+     */
+    private static final int MAX_CACHED_LENGTH = 128;
+
+    private static final ConcurrentMap<String, MediaType> CACHE = new ConcurrentHashMap<>();
+
+    private ContentTypeUtil() {
+    }
+
+    /**
+     * Parses the value of {@code Content-Type} header to {@link MediaType}, which will be shared by the same
+     * values as the {@link MediaType} is immutable.
+     *
+     * @param contentType the value of header
+     * @return the parsed media type, {@code null} if the {@code contentType} is blank
+     */
+    public static MediaType parse(String contentType) {
+        if (StringUtils.isBlank(contentType)) {
+            return null;
+        }
+        if (contentType.length() > MAX_CACHED_LENGTH) {
+            return MediaTypeUtil.parseMediaType(contentType);
+        }
+
+        MediaType mediaType = CACHE.get(contentType);
+        if (mediaType == null) {
+            mediaType = MediaTypeUtil.parseMediaType(contentType);
+            if (CACHE.size() >= MAX_CACHED_SIZE) {
+                CACHE.clear();
+            }
+            CACHE.put(contentType, mediaType);
+        }
+        return mediaType;
+    }
+
+    /**
+     * The memo of the parsed {@code Content-Type} of a message, which is invalidated once the value of header
+     * changes. It's safe to be shared by multiple threads because the memorized entry is immutable.
+     */
+    public static final class Memo {
+
+        private Entry entry;
+
+        /**
+         * Obtains the parsed value of the {@code contentType}.
+         *
+         * @param contentType the current value of header
+         * @return the parsed media type, {@code null} if the {@code contentType} is blank
+         */
+        public MediaType get(String contentType) {
+            if (StringUtils.isBlank(contentType)) {
+                return null;
+            }
+
+            Entry entry0 = entry;
+            if (entry0 == null || !contentType.equals(entry0.value)) {
+                entry0 = new Entry(contentType, parse(contentType));
+                entry = entry0;
+            }
+            return entry0.mediaType;
+        }
+    }
+
+    private static final class Entry {
+
+        private final String value;
+        private final MediaType mediaType;
+
+        private Entry(String value, MediaType mediaType) {
+            this.value = value;
+            this.mediaType = mediaType;
+        }
+    }
+}
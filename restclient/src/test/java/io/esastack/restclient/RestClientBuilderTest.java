@@ -16,12 +16,16 @@
 package io.esastack.restclient;
 
 import io.esastack.commons.net.http.HttpVersion;
+import io.esastack.httpclient.core.config.ConcurrencyLimitOptions;
 import io.esastack.httpclient.core.config.Decompression;
+import io.esastack.httpclient.core.config.HedgeOptions;
 import io.esastack.httpclient.core.config.Http1Options;
 import io.esastack.httpclient.core.config.Http2Options;
 import io.esastack.httpclient.core.config.NetOptions;
 import io.esastack.httpclient.core.config.RetryOptions;
 import io.esastack.httpclient.core.config.SslOptions;
+import io.esastack.httpclient.core.resolver.AddressSelector;
+import io.esastack.httpclient.core.resolver.AddressSelectors;
 import io.esastack.httpclient.core.resolver.HostResolver;
 import io.esastack.httpclient.core.spi.ChannelPoolOptionsProvider;
 import io.esastack.restclient.codec.ByteDecoder;
@@ -108,12 +112,28 @@ class RestClientBuilderTest {
         builder.resolver(resolver);
         then(builder.resolver()).isEqualTo(resolver);
 
+        AddressSelector addressSelector = AddressSelectors.powerOfTwoChoices();
+        builder.addressSelector(addressSelector);
+        then(builder.addressSelector()).isEqualTo(addressSelector);
+
         RetryOptions retryOptions = RetryOptions.options()
                 .maxRetries(3)
                 .build();
         builder.retryOptions(retryOptions);
         then(builder.retryOptions()).isEqualTo(retryOptions);
 
+        HedgeOptions hedgeOptions = HedgeOptions.options()
+                .delayMillis(50L)
+                .build();
+        builder.hedgeOptions(hedgeOptions);
+        then(builder.hedgeOptions()).isEqualTo(hedgeOptions);
+
+        ConcurrencyLimitOptions concurrencyLimitOptions = ConcurrencyLimitOptions.options()
+                .aimd(10, 1, 100)
+                .build();
+        builder.concurrencyLimitOptions(concurrencyLimitOptions);
+        then(builder.concurrencyLimitOptions()).isEqualTo(concurrencyLimitOptions);
+
         SslOptions sslOptions = SslOptions.options()
                 .sessionCacheSize(10)
                 .build();
@@ -129,6 +149,12 @@ class RestClientBuilderTest {
         builder.useExpectContinue(true);
         then(builder.isUseExpectContinue()).isTrue();
 
+        builder.useStreamingDecode(true);
+        then(builder.isUseStreamingDecode()).isTrue();
+
+        builder.useBufferEncode(true);
+        then(builder.isUseBufferEncode()).isTrue();
+
         builder.addInterceptor(createInterceptor(2));
         builder.addDecodeAdvice(createDecodeAdvice(2));
         builder.addEncodeAdvice(createEncodeAdvice(2));
@@ -162,11 +188,14 @@ class RestClientBuilderTest {
         then(origin.netOptions().soLinger()).isEqualTo(other.netOptions().soLinger());
         then(origin.readTimeout()).isEqualTo(other.readTimeout());
         then(origin.resolver()).isEqualTo(other.resolver());
+        then(origin.addressSelector()).isEqualTo(other.addressSelector());
         then(origin.retryOptions().maxRetries()).isEqualTo(other.retryOptions().maxRetries());
         then(origin.sslOptions().sessionTimeout()).isEqualTo(other.sslOptions().sessionTimeout());
         then(origin.version()).isEqualTo(other.version());
         then(origin.isUseDecompress()).isEqualTo(other.isUseDecompress());
         then(origin.isUseExpectContinue()).isEqualTo(other.isUseExpectContinue());
+        then(origin.isUseStreamingDecode()).isEqualTo(other.isUseStreamingDecode());
+        then(origin.isUseBufferEncode()).isEqualTo(other.isUseBufferEncode());
 
         then(origin.unmodifiableDecodeAdvices().size()).isEqualTo(other.unmodifiableDecodeAdvices().size());
         then(origin.unmodifiableEncodeAdvices().size()).isEqualTo(other.unmodifiableEncodeAdvices().size());
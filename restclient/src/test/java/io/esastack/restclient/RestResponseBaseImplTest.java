@@ -20,17 +20,23 @@ import io.esastack.commons.net.http.HttpHeaderNames;
 import io.esastack.commons.net.http.HttpHeaders;
 import io.esastack.commons.net.http.HttpStatus;
 import io.esastack.commons.net.http.HttpVersion;
+import io.esastack.commons.net.http.MediaType;
 import io.esastack.commons.net.netty.http.Http1HeadersImpl;
 import io.esastack.httpclient.core.HttpResponse;
 import io.esastack.restclient.codec.impl.StringCodec;
 import org.junit.jupiter.api.Test;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class RestResponseBaseImplTest {
@@ -107,6 +113,29 @@ class RestResponseBaseImplTest {
         then(restResponse.version()).isEqualTo(null);
     }
 
+    @Test
+    void testContentType() {
+        RestRequestBase request = mock(RestRequestBase.class);
+        HttpResponse response = mock(HttpResponse.class);
+        RestClientOptions clientOptions = mock(RestClientOptions.class);
+        RestResponseBase restResponse = new RestResponseBaseImpl(request, response, clientOptions);
+        HttpHeaders headers = new Http1HeadersImpl();
+        when(response.headers()).thenReturn(headers);
+        then(restResponse.contentType()).isNull();
+
+        headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json;charset=UTF-8");
+        MediaType contentType = restResponse.contentType();
+        then(contentType.isCompatibleWith(MediaType.APPLICATION_JSON)).isTrue();
+        then(contentType.charset()).isEqualTo(StandardCharsets.UTF_8);
+        then(restResponse.contentType()).isSameAs(contentType);
+
+        headers.set(HttpHeaderNames.CONTENT_TYPE, "text/plain");
+        then(restResponse.contentType().isCompatibleWith(MediaType.TEXT_PLAIN)).isTrue();
+
+        headers.remove(HttpHeaderNames.CONTENT_TYPE);
+        then(restResponse.contentType()).isNull();
+    }
+
     @Test
     void testCookieOperate() {
         RestRequestBase request = mock(RestRequestBase.class);
@@ -146,6 +175,7 @@ class RestResponseBaseImplTest {
         then(restResponse.bodyToEntity(String.class)).isEqualTo("Hello");
 
         //decodeAdvices is not empty
+        restResponse = new RestResponseBaseImpl(request, response, clientOptions);
         when(clientOptions.unmodifiableDecodeAdvices())
                 .thenReturn(Arrays.asList(
                         context -> {
@@ -159,4 +189,42 @@ class RestResponseBaseImplTest {
                 ));
         then(restResponse.bodyToEntity(String.class)).isEqualTo("Hello Test2 Test1");
     }
+
+    @Test
+    void testBodyToEntityMemoized() throws Exception {
+        RestRequestBase request = mock(RestRequestBase.class);
+        HttpResponse response = mock(HttpResponse.class);
+        RestClientOptions clientOptions = mock(RestClientOptions.class);
+        RestResponseBase restResponse = new RestResponseBaseImpl(request, response, clientOptions);
+        when(response.headers()).thenReturn(new Http1HeadersImpl());
+        when(response.body()).thenReturn(Buffer.defaultAlloc().buffer("Hello".getBytes(StandardCharsets.UTF_8)));
+        when(request.decoder()).thenReturn(new StringCodec());
+
+        final AtomicInteger decoded = new AtomicInteger();
+        final List<Object> contents = new ArrayList<>();
+        when(clientOptions.unmodifiableDecodeAdvices()).thenReturn(Collections.singletonList(context -> {
+            decoded.incrementAndGet();
+            contents.add(context.content());
+            return context.next();
+        }));
+
+        final String first = restResponse.bodyToEntity(String.class);
+        then(first).isEqualTo("Hello");
+        then(restResponse.<String>bodyToEntity(String.class)).isSameAs(first);
+        then(decoded.get()).isEqualTo(1);
+        verify(response, times(1)).body();
+
+        // Another type shares the extracted content.
+        when(request.decoder()).thenReturn(context -> ((byte[]) context.content().value()).length);
+        then(restResponse.<Object>bodyToEntity(Integer.class)).isEqualTo(5);
+        then(decoded.get()).isEqualTo(2);
+        then(contents.get(1)).isSameAs(contents.get(0));
+        verify(response, times(1)).body();
+
+        // Null is memoized as well.
+        when(request.decoder()).thenReturn(context -> null);
+        then(restResponse.<Object>bodyToEntity(Long.class)).isNull();
+        then(restResponse.<Object>bodyToEntity(Long.class)).isNull();
+        then(decoded.get()).isEqualTo(3);
+    }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec;
+
+import io.esastack.commons.net.http.HttpHeaders;
+import io.esastack.commons.net.http.MediaType;
+import io.esastack.commons.net.netty.http.Http1HeadersImpl;
+import io.esastack.restclient.RestClientOptions;
+import io.esastack.restclient.RestRequestBase;
+import io.esastack.restclient.RestResponse;
+import io.esastack.restclient.codec.impl.ByteToByteCodec;
+import io.esastack.restclient.codec.impl.CodecDispatchCache;
+import io.esastack.restclient.codec.impl.DecodeChainImpl;
+import io.esastack.restclient.codec.impl.EncodeChainImpl;
+import io.esastack.restclient.codec.impl.StringCodec;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CodecDispatchCacheTest {
+
+    @Test
+    void testDispatchEncoder() throws Exception {
+        final CodecDispatchCache cache = new CodecDispatchCache();
+        final ByteToByteCodec skipped = spy(new ByteToByteCodec());
+        final List<Encoder> encoders = Arrays.asList(skipped, new StringCodec());
+
+        final RestRequestBase request = mock(RestRequestBase.class);
+        when(request.contentType()).thenReturn(MediaType.TEXT_PLAIN);
+        for (int i = 0; i < 3; i++) {
+            EncodeChainImpl ctx = new EncodeChainImpl(request, "data", String.class, String.class,
+                    Collections.emptyList(), encoders, false, cache);
+            then(ctx.next().value()).isEqualTo("data".getBytes(StandardCharsets.UTF_8));
+        }
+        verify(skipped, times(1)).encode(any());
+
+        // Another content type
+        when(request.contentType()).thenReturn(MediaType.APPLICATION_JSON);
+        EncodeChainImpl ctx = new EncodeChainImpl(request, "data", String.class, String.class,
+                Collections.emptyList(), encoders, false, cache);
+        ctx.next();
+        verify(skipped, times(2)).encode(any());
+
+        // The encoder of request is always used.
+        final Encoder encoderOfRequest = c -> RequestContent.of(new byte[0]);
+        when(request.encoder()).thenReturn(encoderOfRequest);
+        ctx = new EncodeChainImpl(request, "data", String.class, String.class,
+                Collections.emptyList(), encoders, false, cache);
+        then(ctx.next().value()).isEqualTo(new byte[0]);
+    }
+
+    @Test
+    void testNotSkipCustomEncoder() throws Exception {
+        final CodecDispatchCache cache = new CodecDispatchCache();
+        final AtomicInteger declined = new AtomicInteger();
+        // Decides by the headers rather than the content type and the type of entity.
+        final List<Encoder> encoders = Arrays.asList(ctx -> {
+            if (ctx.headers().contains("X-Custom-Codec")) {
+                return RequestContent.of(new byte[]{1});
+            }
+            declined.incrementAndGet();
+            return ctx.next();
+        }, new StringCodec());
+
+        final RestRequestBase request = mock(RestRequestBase.class);
+        when(request.contentType()).thenReturn(MediaType.TEXT_PLAIN);
+        final HttpHeaders headers = new Http1HeadersImpl();
+        when(request.headers()).thenReturn(headers);
+        for (int i = 0; i < 2; i++) {
+            EncodeChainImpl ctx = new EncodeChainImpl(request, "data", String.class, String.class,
+                    Collections.emptyList(), encoders, false, cache);
+            then(ctx.next().value()).isEqualTo("data".getBytes(StandardCharsets.UTF_8));
+        }
+        then(declined.get()).isEqualTo(2);
+
+        headers.add("X-Custom-Codec", "true");
+        EncodeChainImpl ctx = new EncodeChainImpl(request, "data", String.class, String.class,
+                Collections.emptyList(), encoders, false, cache);
+        then(ctx.next().value()).isEqualTo(new byte[]{1});
+    }
+
+    @Test
+    void testNotSkipCustomDecoder() throws Exception {
+        final CodecDispatchCache cache = new CodecDispatchCache();
+        final RestClientOptions clientOptions = mock(RestClientOptions.class);
+        when(clientOptions.unmodifiableDecodeAdvices()).thenReturn(Collections.emptyList());
+        when(clientOptions.unmodifiableDecoders()).thenReturn(Arrays.asList(ctx -> {
+            if (ctx.headers().contains("X-Custom-Codec")) {
+                return "custom";
+            }
+            return ctx.next();
+        }, new StringCodec()));
+
+        final RestResponse response = mock(RestResponse.class);
+        when(response.contentType()).thenReturn(MediaType.TEXT_PLAIN);
+        final HttpHeaders headers = new Http1HeadersImpl();
+        when(response.headers()).thenReturn(headers);
+        DecodeAdviceContext ctx = new DecodeChainImpl(mock(RestRequestBase.class), response, clientOptions,
+                String.class, String.class, Unpooled.copiedBuffer("data", StandardCharsets.UTF_8), cache);
+        then(ctx.next()).isEqualTo("data");
+
+        headers.add("X-Custom-Codec", "true");
+        ctx = new DecodeChainImpl(mock(RestRequestBase.class), response, clientOptions,
+                String.class, String.class, Unpooled.copiedBuffer("data", StandardCharsets.UTF_8), cache);
+        then(ctx.next()).isEqualTo("custom");
+    }
+
+    @Test
+    void testNotDispatchToReplacedEncoder() throws Exception {
+        final CodecDispatchCache cache = new CodecDispatchCache();
+        final AtomicInteger wrapped = new AtomicInteger();
+        final List<Encoder> encoders = Arrays.asList(ctx -> {
+            wrapped.incrementAndGet();
+            ctx.next();
+            return RequestContent.of(new byte[]{1});
+        }, new StringCodec());
+
+        final RestRequestBase request = mock(RestRequestBase.class);
+        when(request.contentType()).thenReturn(MediaType.TEXT_PLAIN);
+        for (int i = 0; i < 2; i++) {
+            EncodeChainImpl ctx = new EncodeChainImpl(request, "data", String.class, String.class,
+                    Collections.emptyList(), encoders, false, cache);
+            then(ctx.next().value()).isEqualTo(new byte[]{1});
+        }
+        then(wrapped.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testDispatchDecoder() throws Exception {
+        final CodecDispatchCache cache = new CodecDispatchCache();
+        final ByteToByteCodec skipped = spy(new ByteToByteCodec());
+        final RestClientOptions clientOptions = mock(RestClientOptions.class);
+        when(clientOptions.unmodifiableDecodeAdvices()).thenReturn(Collections.emptyList());
+        when(clientOptions.unmodifiableDecoders()).thenReturn(Arrays.asList(skipped, new StringCodec()));
+
+        final RestResponse response = mock(RestResponse.class);
+        when(response.contentType()).thenReturn(MediaType.TEXT_PLAIN);
+        for (int i = 0; i < 3; i++) {
+            DecodeAdviceContext ctx = new DecodeChainImpl(mock(RestRequestBase.class), response, clientOptions,
+                    String.class, String.class, Unpooled.copiedBuffer("data", StandardCharsets.UTF_8), cache);
+            then(ctx.next()).isEqualTo("data");
+        }
+        verify(skipped, times(1)).decode(any());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec;
+
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaderNames;
+import io.esastack.commons.net.http.HttpHeaders;
+import io.esastack.commons.net.http.MediaType;
+import io.esastack.commons.net.netty.http.Http1HeadersImpl;
+import io.esastack.httpclient.core.config.Compression;
+import io.esastack.httpclient.core.util.BufferUtils;
+import io.esastack.restclient.RestRequestBase;
+import io.esastack.restclient.codec.impl.ByteToByteCodec;
+import io.esastack.restclient.codec.impl.CompressionEncodeAdvice;
+import io.esastack.restclient.codec.impl.EncodeChainImpl;
+import io.esastack.restclient.codec.impl.StringCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompressionEncodeAdviceTest {
+
+    private static final String JSON = "[{\"name\":\"Bob\",\"sex\":\"boy\"},{\"name\":\"Bob\",\"sex\":\"boy\"}]";
+
+    @Test
+    void testIllegalArguments() {
+        assertThrows(NullPointerException.class, () -> new CompressionEncodeAdvice(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CompressionEncodeAdvice(Compression.GZIP, -1));
+        assertThrows(IllegalArgumentException.class, () -> new CompressionEncodeAdvice(Compression.GZIP, 0, 10));
+    }
+
+    @Test
+    void testCompress() throws Exception {
+        final CompressionEncodeAdvice advice = new CompressionEncodeAdvice(Compression.GZIP, 16,
+                MediaType.APPLICATION_JSON);
+        for (boolean bufferPreferred : new boolean[]{false, true}) {
+            final HttpHeaders headers = new Http1HeadersImpl();
+            headers.set(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(JSON.length()));
+            final RequestContent<?> content = encode(advice, MediaType.APPLICATION_JSON_UTF8, headers, JSON,
+                    bufferPreferred);
+            then(content.value()).isInstanceOf(Buffer.class);
+            then(headers.get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+            then(headers.contains(HttpHeaderNames.CONTENT_LENGTH)).isFalse();
+
+            final ByteBuf buf = BufferUtils.toByteBuf((Buffer) content.value());
+            then(gunzip(new ByteBufInputStream(buf, true))).isEqualTo(JSON);
+        }
+    }
+
+    @Test
+    void testNotCompress() throws Exception {
+        final CompressionEncodeAdvice advice = new CompressionEncodeAdvice(Compression.GZIP, 16,
+                MediaType.APPLICATION_JSON);
+
+        // Too small
+        HttpHeaders headers = new Http1HeadersImpl();
+        RequestContent<?> content = encode(advice, MediaType.APPLICATION_JSON, headers, "[]", false);
+        then(content.value()).isEqualTo("[]".getBytes(StandardCharsets.UTF_8));
+        then(headers.contains(HttpHeaderNames.CONTENT_ENCODING)).isFalse();
+
+        // Unmatched content type
+        headers = new Http1HeadersImpl();
+        content = encode(advice, MediaType.TEXT_PLAIN, headers, JSON, false);
+        then(content.value()).isEqualTo(JSON.getBytes(StandardCharsets.UTF_8));
+        then(headers.contains(HttpHeaderNames.CONTENT_ENCODING)).isFalse();
+
+        // Compressed already
+        headers = new Http1HeadersImpl();
+        headers.set(HttpHeaderNames.CONTENT_ENCODING, "br");
+        content = encode(advice, MediaType.APPLICATION_JSON, headers, JSON, false);
+        then(content.value()).isEqualTo(JSON.getBytes(StandardCharsets.UTF_8));
+        then(headers.get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("br");
+    }
+
+    private static RequestContent<?> encode(CompressionEncodeAdvice advice,
+                                            MediaType contentType,
+                                            HttpHeaders headers,
+                                            String entity,
+                                            boolean bufferPreferred) throws Exception {
+        final RestRequestBase request = mock(RestRequestBase.class);
+        when(request.headers()).thenReturn(headers);
+        when(request.contentType()).thenReturn(contentType);
+        final byte[] bytes = entity.getBytes(StandardCharsets.UTF_8);
+        return new EncodeChainImpl(
+                request,
+                bufferPreferred ? entity : bytes,
+                bufferPreferred ? String.class : byte[].class,
+                bufferPreferred ? String.class : byte[].class,
+                Collections.singletonList(advice),
+                Arrays.asList(new ByteToByteCodec(), new StringCodec()),
+                bufferPreferred
+        ).next();
+    }
+
+    private static String gunzip(InputStream compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(compressed)) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[1024];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                out.write(buf, 0, len);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package io.esastack.restclient.codec;
 
 import com.alibaba.fastjson.JSON;
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.MediaType;
 import io.esastack.restclient.RestClientOptions;
 import io.esastack.restclient.RestRequestBase;
@@ -27,8 +28,10 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.codec.CodecException;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import static io.esastack.restclient.codec.RequestContentUtil.toBytes;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
@@ -59,6 +62,34 @@ public class FastJsonCodecTest {
                 .isEqualTo(JSON.toJSONBytes(person));
     }
 
+    @Test
+    void testEncodeToBuffer() throws Exception {
+        FastJsonCodec fastJsonCodec = new FastJsonCodec();
+        RestRequestBase request = mock(RestRequestBase.class);
+        when(request.contentType()).thenReturn(MediaType.APPLICATION_JSON_UTF8);
+
+        Person person = new Person("Bob", "boy");
+        EncodeContext ctx = new EncodeChainImpl(
+                request,
+                person,
+                Person.class,
+                Person.class,
+                mock(List.class),
+                mock(List.class),
+                true
+        );
+        RequestContent<?> content = fastJsonCodec.encode(ctx);
+        then(content.value()).isInstanceOf(Buffer.class);
+        then(toBytes(content)).isEqualTo(JSON.toJSONBytes(person));
+
+        // the buffer is encoded as utf-8 only
+        when(request.contentType()).thenReturn(MediaType.builder("application")
+                .subtype("json")
+                .charset(StandardCharsets.UTF_16)
+                .build());
+        then(toBytes(fastJsonCodec.encode(ctx))).isEqualTo(JSON.toJSONBytes(person));
+    }
+
     @Test
     void testDecode() throws Exception {
         FastJsonCodec fastJsonCodec = new FastJsonCodec();
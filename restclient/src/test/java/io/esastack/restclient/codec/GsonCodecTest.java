@@ -31,6 +31,7 @@ import org.junit.jupiter.api.Test;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import static io.esastack.restclient.codec.RequestContentUtil.toBytes;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
@@ -71,6 +72,31 @@ class GsonCodecTest {
                 .isEqualTo(gson.toJson(person).getBytes(StandardCharsets.UTF_16));
     }
 
+    @Test
+    void testEncodeToBuffer() throws Exception {
+        GsonCodec gsonCodec = new GsonCodec();
+        RestRequestBase request = mock(RestRequestBase.class);
+        when(request.contentType()).thenReturn(MediaType.APPLICATION_JSON);
+
+        Person person = new Person("Bob", "boy");
+        EncodeContext ctx = new EncodeChainImpl(
+                request,
+                person,
+                Person.class,
+                Person.class,
+                mock(List.class),
+                mock(List.class),
+                true
+        );
+        then(toBytes(gsonCodec.encode(ctx))).isEqualTo(gson.toJson(person).getBytes(StandardCharsets.UTF_8));
+
+        when(request.contentType()).thenReturn(MediaType.builder("application")
+                .subtype("json")
+                .charset(StandardCharsets.UTF_16)
+                .build());
+        then(toBytes(gsonCodec.encode(ctx))).isEqualTo(gson.toJson(person).getBytes(StandardCharsets.UTF_16));
+    }
+
     @Test
     void testDecode() throws Exception {
         GsonCodec gsonCodec = new GsonCodec();
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.esastack.commons.net.http.MediaType;
+import io.esastack.restclient.RestClientOptions;
+import io.esastack.restclient.RestRequestBase;
+import io.esastack.restclient.RestResponse;
+import io.esastack.restclient.codec.impl.AbstractJacksonBinaryCodec;
+import io.esastack.restclient.codec.impl.DecodeChainImpl;
+import io.esastack.restclient.codec.impl.EncodeChainImpl;
+import io.esastack.restclient.codec.impl.JacksonCborCodec;
+import io.esastack.restclient.codec.impl.JacksonSmileCodec;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.CodecException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.esastack.restclient.codec.RequestContentUtil.toBytes;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JacksonBinaryCodecTest {
+
+    @Test
+    void testAvailable() {
+        then(JacksonSmileCodec.isAvailable()).isTrue();
+        then(JacksonCborCodec.isAvailable()).isTrue();
+    }
+
+    @Test
+    void testSmile() throws Exception {
+        testEncodeAndDecode(new JacksonSmileCodec(), JacksonSmileCodec.APPLICATION_SMILE);
+    }
+
+    @Test
+    void testCbor() throws Exception {
+        testEncodeAndDecode(new JacksonCborCodec(), JacksonCborCodec.APPLICATION_CBOR);
+    }
+
+    @Test
+    void testReconfigureObjectMapper() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper(new SmileFactory());
+        JacksonSmileCodec codec = new JacksonSmileCodec(objectMapper);
+        RestRequestBase request = mock(RestRequestBase.class);
+        when(request.contentType()).thenReturn(JacksonSmileCodec.APPLICATION_SMILE);
+
+        Person person = new Person("Bob", null);
+        EncodeContext ctx = new EncodeChainImpl(
+                request,
+                person,
+                Person.class,
+                Person.class,
+                mock(List.class),
+                mock(List.class)
+        );
+        byte[] withNull = toBytes(codec.encode(ctx));
+        then(withNull).isEqualTo(objectMapper.writeValueAsBytes(person));
+
+        // The configuration changed after the codec has been used takes effect.
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        byte[] withoutNull = toBytes(codec.encode(ctx));
+        then(withoutNull).isEqualTo(objectMapper.writeValueAsBytes(person));
+        then(withoutNull).isNotEqualTo(withNull);
+    }
+
+    private static void testEncodeAndDecode(AbstractJacksonBinaryCodec codec, MediaType mediaType) throws Exception {
+        Person person = new Person("Bob", "boy");
+        byte[] expected = codec.objectMapper().writeValueAsBytes(person);
+
+        RestRequestBase request = mock(RestRequestBase.class);
+        when(request.contentType()).thenReturn(MediaType.APPLICATION_JSON);
+        EncodeContext mismatched = new EncodeChainImpl(
+                request,
+                person,
+                Person.class,
+                Person.class,
+                mock(List.class),
+                mock(List.class)
+        );
+        assertThrows(CodecException.class, () -> codec.encode(mismatched));
+
+        when(request.contentType()).thenReturn(mediaType);
+        for (boolean bufferPreferred : new boolean[]{false, true}) {
+            EncodeContext ctx = new EncodeChainImpl(
+                    request,
+                    person,
+                    Person.class,
+                    Person.class,
+                    mock(List.class),
+                    mock(List.class),
+                    bufferPreferred
+            );
+            then(toBytes(codec.encode(ctx))).isEqualTo(expected);
+        }
+
+        RestResponse response = mock(RestResponse.class);
+        when(response.contentType()).thenReturn(MediaType.APPLICATION_JSON);
+        DecodeContext ctx = new DecodeChainImpl(
+                mock(RestRequestBase.class),
+                response,
+                mock(RestClientOptions.class),
+                Person.class,
+                Person.class,
+                ByteBufAllocator.DEFAULT.buffer().writeBytes(expected)
+        );
+        assertThrows(CodecException.class, () -> codec.decode(ctx));
+
+        when(response.contentType()).thenReturn(mediaType);
+        then(codec.decode(ctx)).isEqualTo(person);
+    }
+}
@@ -16,6 +16,12 @@
 package io.esastack.restclient.codec;
 
 import com.alibaba.fastjson.JSON;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import io.esastack.commons.net.buffer.Buffer;
 import io.esastack.commons.net.http.MediaType;
 import io.esastack.restclient.RestClientOptions;
 import io.esastack.restclient.RestRequestBase;
@@ -27,8 +33,12 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.codec.CodecException;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 
+import static io.esastack.restclient.codec.RequestContentUtil.toBytes;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
@@ -60,6 +70,28 @@ public class JacksonCodecTest {
                 .isEqualTo(JacksonCodec.getDefaultMapper().writeValueAsBytes(person));
     }
 
+    @Test
+    void testEncodeToBuffer() throws Exception {
+        JacksonCodec jacksonCodec = new JacksonCodec();
+        RestRequestBase request = mock(RestRequestBase.class);
+        when(request.contentType()).thenReturn(MediaType.APPLICATION_JSON_UTF8);
+
+        Person person = new Person("Bob", "boy");
+        EncodeContext ctx = new EncodeChainImpl(
+                request,
+                person,
+                Person.class,
+                Person.class,
+                mock(List.class),
+                mock(List.class),
+                true
+        );
+
+        RequestContent<?> content = jacksonCodec.encode(ctx);
+        then(content.value()).isInstanceOf(Buffer.class);
+        then(toBytes(content)).isEqualTo(JacksonCodec.getDefaultMapper().writeValueAsBytes(person));
+    }
+
     @Test
     void testDecode() throws Exception {
         JacksonCodec jacksonCodec = new JacksonCodec();
@@ -82,4 +114,74 @@ public class JacksonCodecTest {
         when(response.contentType()).thenReturn(MediaType.APPLICATION_JSON_UTF8);
         then(jacksonCodec.decode(ctx)).isEqualTo(person);
     }
+
+    @Test
+    void testDecodeGenericsRepeatedly() throws Exception {
+        JacksonCodec jacksonCodec = new JacksonCodec();
+        List<Person> persons = Collections.singletonList(new Person("Bob", "boy"));
+        Type type = new TypeReference<List<Person>>() {
+        }.getType();
+
+        RestResponse response = mock(RestResponse.class);
+        when(response.contentType()).thenReturn(MediaType.APPLICATION_JSON_UTF8);
+        for (int i = 0; i < 2; i++) {
+            DecodeContext ctx = new DecodeChainImpl(
+                    mock(RestRequestBase.class),
+                    response,
+                    mock(RestClientOptions.class),
+                    List.class,
+                    type,
+                    ByteBufAllocator.DEFAULT.buffer().writeBytes(JSON.toJSONBytes(persons))
+            );
+            then(jacksonCodec.decode(ctx)).isEqualTo(persons);
+        }
+        then(JacksonCodec.getDefaultMapper()).isSameAs(JacksonCodec.getDefaultMapper());
+    }
+
+    @Test
+    void testReconfigureObjectMapper() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JacksonCodec jacksonCodec = new JacksonCodec(objectMapper);
+        RestRequestBase request = mock(RestRequestBase.class);
+        when(request.contentType()).thenReturn(MediaType.APPLICATION_JSON_UTF8);
+
+        Person person = new Person("Bob", null);
+        EncodeContext encodeCtx = new EncodeChainImpl(
+                request,
+                person,
+                Person.class,
+                Person.class,
+                mock(List.class),
+                mock(List.class)
+        );
+        then(new String((byte[]) jacksonCodec.encode(encodeCtx).value(), StandardCharsets.UTF_8))
+                .contains("\"sex\":null");
+
+        // The configuration changed after the codec has been used takes effect.
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        then(new String((byte[]) jacksonCodec.encode(encodeCtx).value(), StandardCharsets.UTF_8))
+                .doesNotContain("sex");
+
+        RestResponse response = mock(RestResponse.class);
+        when(response.contentType()).thenReturn(MediaType.APPLICATION_JSON_UTF8);
+        byte[] json = "{\"name\":\"Bob\",\"age\":18}".getBytes(StandardCharsets.UTF_8);
+        assertThrows(UnrecognizedPropertyException.class, () -> jacksonCodec.decode(new DecodeChainImpl(
+                mock(RestRequestBase.class),
+                response,
+                mock(RestClientOptions.class),
+                Person.class,
+                Person.class,
+                ByteBufAllocator.DEFAULT.buffer().writeBytes(json)
+        )));
+
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        then(jacksonCodec.decode(new DecodeChainImpl(
+                mock(RestRequestBase.class),
+                response,
+                mock(RestClientOptions.class),
+                Person.class,
+                Person.class,
+                ByteBufAllocator.DEFAULT.buffer().writeBytes(json)
+        ))).isEqualTo(person);
+    }
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaderNames;
+import io.esastack.commons.net.http.HttpHeaders;
+import io.esastack.commons.net.http.MediaType;
+import io.esastack.commons.net.netty.buffer.BufferImpl;
+import io.esastack.commons.net.netty.http.Http1HeadersImpl;
+import io.esastack.httpclient.core.Handle;
+import io.esastack.restclient.RestResponseBase;
+import io.esastack.restclient.codec.impl.JacksonCodec;
+import io.esastack.restclient.codec.impl.JsonElementStream;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CodecException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JsonElementStreamTest {
+
+    @Test
+    void testDecodeArrayIncrementally() {
+        final JsonElementStream<Person> stream = new JsonElementStream<>(new JacksonCodec(), Person.class);
+        final CompletableFuture<RestResponseBase> response = new CompletableFuture<>();
+        stream.bind(response);
+
+        final MockHandle handle = new MockHandle(200, MediaType.APPLICATION_JSON_UTF8);
+        stream.accept(handle.handle);
+        handle.start.accept(null);
+        handle.data.accept(buffer("[{\"name\":\"Bob\",\"sex\":\"boy\"},{\"na"));
+
+        // The first element is available before the whole body has been received.
+        then(stream.hasNext()).isTrue();
+        then(stream.next()).isEqualTo(new Person("Bob", "boy"));
+
+        handle.data.accept(buffer("me\":\"Alice\",\"sex\":\"girl\"}]"));
+        handle.end.accept(null);
+        response.complete(mock(RestResponseBase.class));
+
+        then(stream.next()).isEqualTo(new Person("Alice", "girl"));
+        then(stream.hasNext()).isFalse();
+        assertThrows(NoSuchElementException.class, stream::next);
+        then(stream.response()).isSameAs(response);
+    }
+
+    @Test
+    void testDecodeNewlineDelimitedJson() {
+        final JsonElementStream<List<Integer>> stream = new JsonElementStream<>(new JacksonCodec(),
+                new TypeReference<List<Integer>>() {
+                }.getType());
+        final CompletableFuture<RestResponseBase> response = new CompletableFuture<>();
+        stream.bind(response);
+
+        final MockHandle handle = new MockHandle(200, JsonElementStream.APPLICATION_NDJSON);
+        stream.accept(handle.handle);
+        handle.start.accept(null);
+        handle.data.accept(buffer("[1,2]\n[3"));
+        handle.data.accept(buffer("]\n"));
+        handle.end.accept(null);
+        response.complete(mock(RestResponseBase.class));
+
+        then(stream.next()).isEqualTo(Arrays.asList(1, 2));
+        then(stream.next()).isEqualTo(Arrays.asList(3));
+        then(stream.hasNext()).isFalse();
+    }
+
+    @Test
+    void testDecodeTheLastSuccessfulResponse() {
+        final JsonElementStream<Person> stream = new JsonElementStream<>(new JacksonCodec(), Person.class);
+        final CompletableFuture<RestResponseBase> response = new CompletableFuture<>();
+        stream.bind(response);
+
+        // Redirected
+        final MockHandle handle0 = new MockHandle(302, MediaType.APPLICATION_JSON);
+        stream.accept(handle0.handle);
+        handle0.start.accept(null);
+        handle0.data.accept(buffer("[{\"name\":\"Tom\"}]"));
+        handle0.end.accept(null);
+
+        // Failed before any element has been received, eg: retried
+        final MockHandle handle1 = new MockHandle(200, MediaType.APPLICATION_JSON);
+        stream.accept(handle1.handle);
+        handle1.start.accept(null);
+        handle1.data.accept(buffer("[{\"name\":\"Tom\""));
+        handle1.error.accept(new IOException("Connection reset"));
+
+        final MockHandle handle2 = new MockHandle(200, MediaType.APPLICATION_JSON);
+        stream.accept(handle2.handle);
+        handle2.start.accept(null);
+        handle2.data.accept(buffer("[{\"name\":\"Bob\",\"sex\":\"boy\"}]"));
+        handle2.end.accept(null);
+        response.complete(mock(RestResponseBase.class));
+
+        then(stream.next()).isEqualTo(new Person("Bob", "boy"));
+        then(stream.hasNext()).isFalse();
+    }
+
+    @Test
+    void testFailure() {
+        final JsonElementStream<Person> stream0 = new JsonElementStream<>(new JacksonCodec(), Person.class);
+        stream0.bind(new CompletableFuture<>());
+        final MockHandle handle0 = new MockHandle(200, MediaType.APPLICATION_JSON);
+        stream0.accept(handle0.handle);
+        handle0.start.accept(null);
+        handle0.data.accept(buffer("[{\"name\":\"Bob\"}, {]"));
+        then(stream0.next()).isEqualTo(new Person("Bob", null));
+        CompletionException ex = assertThrows(CompletionException.class, stream0::hasNext);
+        then(ex.getCause()).isInstanceOf(JsonProcessingException.class);
+
+        // Unsupported response
+        final JsonElementStream<Person> stream1 = new JsonElementStream<>(new JacksonCodec(), Person.class);
+        final CompletableFuture<RestResponseBase> response1 = new CompletableFuture<>();
+        stream1.bind(response1);
+        final MockHandle handle1 = new MockHandle(500, MediaType.TEXT_PLAIN);
+        stream1.accept(handle1.handle);
+        handle1.start.accept(null);
+        handle1.data.accept(buffer("Internal Server Error"));
+        handle1.end.accept(null);
+        response1.complete(mock(RestResponseBase.class));
+        ex = assertThrows(CompletionException.class, stream1::hasNext);
+        then(ex.getCause()).isInstanceOf(CodecException.class);
+
+        // Failed request
+        final JsonElementStream<Person> stream2 = new JsonElementStream<>(new JacksonCodec(), Person.class);
+        final CompletableFuture<RestResponseBase> response2 = new CompletableFuture<>();
+        stream2.bind(response2);
+        response2.completeExceptionally(new IOException("Connection refused"));
+        ex = assertThrows(CompletionException.class, stream2::next);
+        then(ex.getCause()).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testClose() {
+        final JsonElementStream<Person> stream = new JsonElementStream<>(new JacksonCodec(), Person.class);
+        final CompletableFuture<RestResponseBase> response = new CompletableFuture<>();
+        final CompletableFuture<Object> underlying = new CompletableFuture<>();
+        stream.bind(response);
+        stream.onSent(underlying);
+
+        final MockHandle handle = new MockHandle(200, MediaType.APPLICATION_JSON);
+        stream.accept(handle.handle);
+        handle.start.accept(null);
+        handle.data.accept(buffer("[{\"name\":\"Bob\"},{\"name\":\"Alice\"}"));
+
+        stream.close();
+        then(underlying.isCancelled()).isTrue();
+        then(stream.hasNext()).isFalse();
+
+        handle.data.accept(buffer(",{\"name\":\"Tom\"}]"));
+        then(stream.hasNext()).isFalse();
+    }
+
+    @Test
+    void testRequestContentOnDemand() {
+        final JsonElementStream<Integer> stream = new JsonElementStream<>(new JacksonCodec(), Integer.class);
+        stream.bind(new CompletableFuture<>());
+
+        final MockHandle handle = new MockHandle(200, JsonElementStream.APPLICATION_NDJSON);
+        stream.accept(handle.handle);
+        verify(handle.handle).request(1L);
+        handle.start.accept(null);
+
+        handle.data.accept(buffer("1\n"));
+        verify(handle.handle, times(2)).request(1L);
+
+        // Stops requesting once too many elements have been buffered.
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            sb.append(i).append('\n');
+        }
+        handle.data.accept(buffer(sb.toString()));
+        verify(handle.handle, times(2)).request(1L);
+
+        for (int i = 0; i < 172; i++) {
+            stream.next();
+        }
+        verify(handle.handle, times(2)).request(1L);
+        stream.next();
+        verify(handle.handle, times(3)).request(1L);
+    }
+
+    private static Buffer buffer(String value) {
+        return new BufferImpl(Unpooled.copiedBuffer(value, StandardCharsets.UTF_8));
+    }
+
+    private static final class MockHandle {
+
+        private final Handle handle = mock(Handle.class);
+        private Consumer<Void> start;
+        private Consumer<Buffer> data;
+        private Consumer<Void> end;
+        private Consumer<Throwable> error;
+
+        private MockHandle(int status, MediaType contentType) {
+            final HttpHeaders headers = new Http1HeadersImpl();
+            headers.add(HttpHeaderNames.CONTENT_TYPE, contentType.toString());
+            when(handle.status()).thenReturn(status);
+            when(handle.headers()).thenReturn(headers);
+            when(handle.trailers()).thenReturn(new Http1HeadersImpl());
+            when(handle.onStart(any())).thenAnswer(answer -> {
+                start = answer.getArgument(0);
+                return handle;
+            });
+            when(handle.onData(any())).thenAnswer(answer -> {
+                data = answer.getArgument(0);
+                return handle;
+            });
+            when(handle.onTrailer(any())).thenReturn(handle);
+            when(handle.onEnd(any())).thenAnswer(answer -> {
+                end = answer.getArgument(0);
+                return handle;
+            });
+            when(handle.onError(any())).thenAnswer(answer -> {
+                error = answer.getArgument(0);
+                return handle;
+            });
+        }
+    }
+}
@@ -16,7 +16,11 @@
 package io.esastack.restclient.codec;
 
 import com.alibaba.fastjson.JSON;
+import com.google.protobuf.StringValue;
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaders;
 import io.esastack.commons.net.http.MediaType;
+import io.esastack.commons.net.netty.http.Http1HeadersImpl;
 import io.esastack.restclient.RestClientOptions;
 import io.esastack.restclient.RestRequestBase;
 import io.esastack.restclient.RestResponse;
@@ -29,6 +33,8 @@ import org.junit.jupiter.api.Test;
 
 import java.util.List;
 
+import static io.esastack.restclient.codec.RequestContentUtil.toBytes;
+import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -54,6 +60,42 @@ class ProtoBufCodecTest {
                 protoBufCodec.encode(ctx));
     }
 
+    @Test
+    void testEncodeToBuffer() throws Exception {
+        ProtoBufCodec protoBufCodec = new ProtoBufCodec();
+        StringValue message = StringValue.newBuilder().setValue("aaa").build();
+
+        RestRequestBase request = mock(RestRequestBase.class);
+        HttpHeaders headers = new Http1HeadersImpl();
+        when(request.contentType()).thenReturn(ProtoBufCodec.PROTO_BUF);
+        when(request.headers()).thenReturn(headers);
+
+        // bytes are encoded if the buffer is not preferred
+        EncodeContext ctx = new EncodeChainImpl(
+                request,
+                message,
+                StringValue.class,
+                StringValue.class,
+                mock(List.class),
+                mock(List.class)
+        );
+        then(protoBufCodec.encode(ctx).value()).isEqualTo(message.toByteArray());
+
+        // empty message
+        StringValue empty = StringValue.getDefaultInstance();
+        EncodeContext emptyCtx = new EncodeChainImpl(
+                request,
+                empty,
+                StringValue.class,
+                StringValue.class,
+                mock(List.class),
+                mock(List.class),
+                true
+        );
+        then(toBytes(protoBufCodec.encode(emptyCtx))).isEmpty();
+        then(headers.get(ProtoBufCodec.X_PROTOBUF_MESSAGE_HEADER)).isEqualTo("google.protobuf.StringValue");
+    }
+
     @Test
     void testDecode() {
         ProtoBufCodec protoBufCodec = new ProtoBufCodec();
@@ -71,4 +113,43 @@ class ProtoBufCodecTest {
         assertThrows(CodecException.class, () ->
                 protoBufCodec.decode(ctx));
     }
+
+    @Test
+    void testEncodeAndDecodeMessage() throws Exception {
+        ProtoBufCodec protoBufCodec = new ProtoBufCodec();
+        StringValue message = StringValue.newBuilder().setValue("aaa").build();
+
+        RestRequestBase request = mock(RestRequestBase.class);
+        HttpHeaders headers = new Http1HeadersImpl();
+        when(request.contentType()).thenReturn(ProtoBufCodec.PROTO_BUF);
+        when(request.headers()).thenReturn(headers);
+        EncodeContext encodeCtx = new EncodeChainImpl(
+                request,
+                message,
+                StringValue.class,
+                StringValue.class,
+                mock(List.class),
+                mock(List.class),
+                true
+        );
+        RequestContent<?> content = protoBufCodec.encode(encodeCtx);
+        then(content.value()).isInstanceOf(Buffer.class);
+        byte[] bytes = toBytes(content);
+        then(bytes).isEqualTo(message.toByteArray());
+        then(headers.get(ProtoBufCodec.X_PROTOBUF_MESSAGE_HEADER)).isEqualTo("google.protobuf.StringValue");
+
+        RestResponse response = mock(RestResponse.class);
+        when(response.contentType()).thenReturn(ProtoBufCodec.PROTO_BUF);
+        for (int i = 0; i < 2; i++) {
+            DecodeContext decodeCtx = new DecodeChainImpl(
+                    mock(RestRequestBase.class),
+                    response,
+                    mock(RestClientOptions.class),
+                    StringValue.class,
+                    StringValue.class,
+                    ByteBufAllocator.DEFAULT.buffer().writeBytes(bytes)
+            );
+            then(protoBufCodec.decode(decodeCtx)).isEqualTo(message);
+        }
+    }
 }
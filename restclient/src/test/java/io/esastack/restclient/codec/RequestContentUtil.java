@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec;
+
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.httpclient.core.util.BufferUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+public final class RequestContentUtil {
+
+    private RequestContentUtil() {
+    }
+
+    /**
+     * Reads the bytes of the given {@link RequestContent}, the underlying buffer will be released if the
+     * {@link RequestContent#value()} is a {@link Buffer}.
+     *
+     * @param content content
+     * @return bytes
+     */
+    public static byte[] toBytes(RequestContent<?> content) {
+        if (content.value() instanceof byte[]) {
+            return (byte[]) content.value();
+        }
+        final ByteBuf buf = BufferUtils.toByteBuf((Buffer) content.value());
+        try {
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.restclient.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.esastack.commons.net.buffer.Buffer;
+import io.esastack.commons.net.http.HttpHeaderNames;
+import io.esastack.commons.net.http.HttpHeaders;
+import io.esastack.commons.net.http.MediaType;
+import io.esastack.commons.net.netty.buffer.BufferImpl;
+import io.esastack.commons.net.netty.http.Http1HeadersImpl;
+import io.esastack.httpclient.core.Handle;
+import io.esastack.restclient.RestClientOptions;
+import io.esastack.restclient.RestRequestBase;
+import io.esastack.restclient.RestResponse;
+import io.esastack.restclient.codec.impl.DecodeChainImpl;
+import io.esastack.restclient.codec.impl.JacksonCodec;
+import io.esastack.restclient.codec.impl.StreamingJsonHandle;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StreamingJsonHandleTest {
+
+    @Test
+    void testDecodeJsonIncrementally() throws Exception {
+        final JacksonCodec codec = new JacksonCodec();
+        final StreamingJsonHandle streamingHandle = new StreamingJsonHandle(codec);
+        then(streamingHandle.content()).isNull();
+
+        final Person person = new Person("Bob", "boy");
+        final byte[] json = JacksonCodec.getDefaultMapper().writeValueAsBytes(person);
+
+        final MockHandle handle = new MockHandle(MediaType.APPLICATION_JSON_UTF8);
+        streamingHandle.accept(handle.handle);
+        handle.start.accept(null);
+        // Feed the content in tiny chunks, which breaks the tokens, by both heap and direct buffers.
+        for (int i = 0; i < json.length; i += 3) {
+            final int length = Math.min(3, json.length - i);
+            final ByteBuf chunk = (i / 3) % 2 == 0 ? Unpooled.buffer(length) : Unpooled.directBuffer(length);
+            handle.data.accept(new BufferImpl(chunk.writeBytes(json, i, length)));
+        }
+        handle.end.accept(null);
+
+        final ResponseContent<?> content = streamingHandle.content();
+        then(content.value()).isInstanceOf(TokenBuffer.class);
+
+        final RestResponse response = mock(RestResponse.class);
+        when(response.contentType()).thenReturn(MediaType.APPLICATION_JSON_UTF8);
+        final RestClientOptions clientOptions = mock(RestClientOptions.class);
+        when(clientOptions.unmodifiableDecoders()).thenReturn(Collections.singletonList(codec));
+
+        final DecodeContext<?> ctx = new DecodeChainImpl(mock(RestRequestBase.class), response, clientOptions,
+                Person.class, Person.class, content);
+        then(codec.decode(ctx)).isEqualTo(person);
+        // The staged tokens can be decoded repeatedly
+        then(codec.decode(ctx)).isEqualTo(person);
+    }
+
+    @Test
+    void testAggregateOtherContent() throws Exception {
+        final StreamingJsonHandle streamingHandle = new StreamingJsonHandle(new JacksonCodec());
+
+        final MockHandle handle = new MockHandle(MediaType.TEXT_PLAIN);
+        streamingHandle.accept(handle.handle);
+        handle.start.accept(null);
+        handle.data.accept(new BufferImpl(Unpooled.copiedBuffer("Hello ", StandardCharsets.UTF_8)));
+        handle.data.accept(new BufferImpl(Unpooled.copiedBuffer("World!", StandardCharsets.UTF_8)));
+        handle.end.accept(null);
+
+        then(streamingHandle.content().value()).isEqualTo("Hello World!".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testMalformedJson() throws Exception {
+        final StreamingJsonHandle streamingHandle = new StreamingJsonHandle(new JacksonCodec());
+
+        // Case 1: illegal token
+        final MockHandle handle0 = new MockHandle(MediaType.APPLICATION_JSON);
+        streamingHandle.accept(handle0.handle);
+        handle0.start.accept(null);
+        handle0.data.accept(new BufferImpl(Unpooled.copiedBuffer("{\"name\": ]", StandardCharsets.UTF_8)));
+        handle0.data.accept(new BufferImpl(Unpooled.copiedBuffer("}", StandardCharsets.UTF_8)));
+        handle0.end.accept(null);
+        assertThrows(JsonProcessingException.class, streamingHandle::content);
+
+        // Case 2: unexpected end of input, and only the content of the last ended response is kept.
+        final MockHandle handle1 = new MockHandle(MediaType.APPLICATION_JSON);
+        streamingHandle.accept(handle1.handle);
+        handle1.start.accept(null);
+        handle1.data.accept(new BufferImpl(Unpooled.copiedBuffer("{\"name\": \"Bob\"", StandardCharsets.UTF_8)));
+        handle1.end.accept(null);
+        assertThrows(JsonProcessingException.class, streamingHandle::content);
+
+        // Case 3: the failure of the response which ends exceptionally is rethrown
+        final MockHandle handle2 = new MockHandle(MediaType.APPLICATION_JSON);
+        streamingHandle.accept(handle2.handle);
+        handle2.start.accept(null);
+        handle2.error.accept(new IllegalStateException());
+        then(assertThrows(IOException.class, streamingHandle::content))
+                .isNotInstanceOf(JsonProcessingException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+
+        // Case 4: the cancelled response is ignored
+        final MockHandle handle3 = new MockHandle(MediaType.APPLICATION_JSON);
+        streamingHandle.accept(handle3.handle);
+        handle3.start.accept(null);
+        handle3.data.accept(new BufferImpl(Unpooled.copiedBuffer("{\"name\": \"Bob\"}", StandardCharsets.UTF_8)));
+        handle3.end.accept(null);
+        final MockHandle handle4 = new MockHandle(MediaType.APPLICATION_JSON);
+        streamingHandle.accept(handle4.handle);
+        handle4.start.accept(null);
+        handle4.error.accept(new CancellationException());
+        then(streamingHandle.content().value()).isInstanceOf(TokenBuffer.class);
+    }
+
+    private static final class MockHandle {
+
+        private final Handle handle = mock(Handle.class);
+        private Consumer<Void> start;
+        private Consumer<Buffer> data;
+        private Consumer<Void> end;
+        private Consumer<Throwable> error;
+
+        private MockHandle(MediaType contentType) {
+            final HttpHeaders headers = new Http1HeadersImpl();
+            headers.add(HttpHeaderNames.CONTENT_TYPE, contentType.toString());
+            when(handle.headers()).thenReturn(headers);
+            when(handle.trailers()).thenReturn(new Http1HeadersImpl());
+            when(handle.onStart(any())).thenAnswer(answer -> {
+                start = answer.getArgument(0);
+                return handle;
+            });
+            when(handle.onData(any())).thenAnswer(answer -> {
+                data = answer.getArgument(0);
+                return handle;
+            });
+            when(handle.onTrailer(any())).thenReturn(handle);
+            when(handle.onEnd(any())).thenAnswer(answer -> {
+                end = answer.getArgument(0);
+                return handle;
+            });
+            when(handle.onError(any())).thenAnswer(answer -> {
+                error = answer.getArgument(0);
+                return handle;
+            });
+        }
+    }
+}
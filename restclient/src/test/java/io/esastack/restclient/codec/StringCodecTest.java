@@ -29,6 +29,7 @@ import org.junit.jupiter.api.Test;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import static io.esastack.restclient.codec.RequestContentUtil.toBytes;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
@@ -84,6 +85,32 @@ class StringCodecTest {
                 .isEqualTo(data.getBytes(StandardCharsets.UTF_16));
     }
 
+    @Test
+    void testEncodeToBuffer() throws Exception {
+        StringCodec codec = new StringCodec();
+
+        RestRequestBase request = mock(RestRequestBase.class);
+        when(request.contentType()).thenReturn(MediaType.TEXT_PLAIN);
+        String data = "data";
+
+        EncodeContext ctx = new EncodeChainImpl(
+                request,
+                data,
+                String.class,
+                String.class,
+                mock(List.class),
+                mock(List.class),
+                true
+        );
+        then(toBytes(codec.encode(ctx))).isEqualTo(data.getBytes(StandardCharsets.UTF_8));
+
+        when(request.contentType()).thenReturn(MediaType.builder("text")
+                .subtype("plain")
+                .charset(StandardCharsets.UTF_16)
+                .build());
+        then(toBytes(codec.encode(ctx))).isEqualTo(data.getBytes(StandardCharsets.UTF_16));
+    }
+
     @Test
     void testDecode() throws Exception {
         StringCodec codec = new StringCodec();